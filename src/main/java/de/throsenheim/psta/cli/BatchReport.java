@@ -0,0 +1,97 @@
+package de.throsenheim.psta.cli;
+
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.simulation.QuantileSketch;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * What a batch of silent battles took and how it ended: latency and rounds per battle and
+ * the wins of every team. Every runner thread fills its own report, they are merged at the end.
+ */
+final class BatchReport {
+
+    private final QuantileSketch latencyNanos = new QuantileSketch();
+    private final QuantileSketch rounds = new QuantileSketch();
+    private final long[] wins = new long[Team.values().length];
+    private long draws;
+    private long totalRounds;
+
+    /**
+     * Records a finished battle.
+     *
+     * @param battlefield the battle
+     * @param nanos how long it ran
+     */
+    void record(Battlefield battlefield, long nanos) {
+        latencyNanos.record(Math.max(0, nanos));
+        rounds.record(battlefield.getCurrentRound());
+        totalRounds += battlefield.getCurrentRound();
+        Team winner = battlefield.getWinnerTeam();
+        if (winner == null) {
+            draws++;
+        } else {
+            wins[winner.ordinal()]++;
+        }
+    }
+
+    void merge(BatchReport other) {
+        latencyNanos.merge(other.latencyNanos);
+        rounds.merge(other.rounds);
+        for (int i = 0; i < wins.length; i++) {
+            wins[i] += other.wins[i];
+        }
+        draws += other.draws;
+        totalRounds += other.totalRounds;
+    }
+
+    long getBattles() {
+        return latencyNanos.getCount();
+    }
+
+    long getTotalRounds() {
+        return totalRounds;
+    }
+
+    long getWins(Team team) {
+        return wins[team.ordinal()];
+    }
+
+    long getDraws() {
+        return draws;
+    }
+
+    /**
+     * Prints throughput, latency percentiles, rounds and win rates.
+     *
+     * @param out where to print
+     * @param elapsedNanos wall-clock time of the whole batch
+     * @param threads number of runner threads
+     */
+    void print(PrintStream out, long elapsedNanos, int threads) {
+        long battles = getBattles();
+        double seconds = elapsedNanos / 1e9;
+        out.printf(Locale.ROOT, "Battles:    %d on %d thread(s) in %.3f s%n", battles, threads, seconds);
+        out.printf(Locale.ROOT, "Throughput: %.1f battles/s, %.1f rounds/s%n",
+                battles / seconds, totalRounds / seconds);
+        out.printf(Locale.ROOT, "Latency:    p50=%s p90=%s p99=%s p99.9=%s max=%s%n",
+                micros(latencyNanos.quantile(0.5)), micros(latencyNanos.quantile(0.9)),
+                micros(latencyNanos.quantile(0.99)), micros(latencyNanos.quantile(0.999)),
+                micros(latencyNanos.getMax()));
+        out.printf(Locale.ROOT, "Rounds:     mean=%.1f p50=%d p99=%d max=%d%n",
+                rounds.getMean(), rounds.quantile(0.5), rounds.quantile(0.99), rounds.getMax());
+        out.printf(Locale.ROOT, "Win rate:   heroes %.1f%%, monsters %.1f%%, draws %.1f%%%n",
+                percent(getWins(Team.HEROES), battles), percent(getWins(Team.MONSTERS), battles),
+                percent(draws, battles));
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+}
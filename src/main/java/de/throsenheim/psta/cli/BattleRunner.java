@@ -0,0 +1,336 @@
+package de.throsenheim.psta.cli;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.TurnMode;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.persistence.RosterView;
+import de.throsenheim.psta.service.BattleRequest;
+import de.throsenheim.psta.simulation.BattleFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command line entry point: runs one verbose battle or a silent, multi-threaded batch of seeded
+ * battles and reports throughput, latency percentiles and win rates.
+ *
+ * The roster comes from a JSON file in the format of the battle service ({@code .json}),
+ * a binary {@code RosterFile}, or is generated from a seed. Batch battle {@code i} uses the
+ * seed {@code seed + i}, so the win rates don't depend on the thread count.
+ */
+public final class BattleRunner {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: battle-runner [options]",
+            "  --roster FILE      roster as JSON (*.json) or binary roster file",
+            "  --generate N       generate N creatures per team (default 4, ignored with --roster)",
+            "  --roster-seed S    seed of the generated roster (default 1)",
+            "  --seed S           seed of the first battle (default: from the JSON file, else 1)",
+            "  --battles N        run a silent batch of N battles; without it one verbose battle runs",
+            "  --threads T        batch threads (default: available processors)",
+            "  --warmup W         warm-up battles per thread before measuring (default 200)",
+            "  --max-rounds R     maximum rounds per battle (default: from the file, else 100)",
+            "  --mode MODE        rounds or active-time (default rounds)",
+            "  --help             show this help");
+
+    private BattleRunner() {
+    }
+
+    /**
+     * Options of one invocation.
+     */
+    static final class Options {
+        Path roster;
+        int generate = 4;
+        long rosterSeed = 1;
+        Long seed;
+        int battles;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int warmup = 200;
+        Integer maxRounds;
+        TurnMode mode = TurnMode.ROUNDS;
+        boolean help;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--help") || arg.equals("-h")) {
+                    options.help = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new GameConfigurationException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--roster":
+                        options.roster = Path.of(value);
+                        break;
+                    case "--generate":
+                        options.generate = positive(arg, value);
+                        break;
+                    case "--roster-seed":
+                        options.rosterSeed = number(arg, value);
+                        break;
+                    case "--seed":
+                        options.seed = number(arg, value);
+                        break;
+                    case "--battles":
+                        options.battles = positive(arg, value);
+                        break;
+                    case "--threads":
+                        options.threads = positive(arg, value);
+                        break;
+                    case "--warmup":
+                        options.warmup = (int) Math.min(Integer.MAX_VALUE, Math.max(0, number(arg, value)));
+                        break;
+                    case "--max-rounds":
+                        options.maxRounds = positive(arg, value);
+                        break;
+                    case "--mode":
+                        options.mode = parseMode(value);
+                        break;
+                    default:
+                        throw new GameConfigurationException("Unknown option " + arg);
+                }
+            }
+            return options;
+        }
+
+        private static long number(String option, String value) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new GameConfigurationException(option + " needs a whole number, got: " + value);
+            }
+        }
+
+        private static int positive(String option, String value) {
+            long number = number(option, value);
+            if (number <= 0 || number > Integer.MAX_VALUE) {
+                throw new GameConfigurationException(option + " must be positive, got: " + value);
+            }
+            return (int) number;
+        }
+
+        private static TurnMode parseMode(String value) {
+            try {
+                return TurnMode.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new GameConfigurationException("Unknown mode " + value + ", use rounds or active-time");
+            }
+        }
+    }
+
+    /**
+     * Everything a battle is built from.
+     */
+    static final class Setup {
+        final List<CreatureSpec> roster;
+        final long seed;
+        final int maxRounds;
+        final BalanceProfile balance;
+
+        Setup(List<CreatureSpec> roster, long seed, int maxRounds, BalanceProfile balance) {
+            this.roster = List.copyOf(roster);
+            this.seed = seed;
+            this.maxRounds = maxRounds;
+            this.balance = balance;
+        }
+    }
+
+    public static void main(String[] args) {
+        int status = run(args, System.out, System.err);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Runs the command line.
+     *
+     * @param args the options, see {@link #USAGE}
+     * @param out where the report goes; the verbose battle itself prints to standard output
+     * @param err where errors go
+     * @return exit status: 0 on success, 1 if a file couldn't be read, 2 for invalid options
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        Setup setup;
+        try {
+            options = Options.parse(args);
+            if (options.help) {
+                out.println(USAGE);
+                return 0;
+            }
+            setup = loadSetup(options);
+            // Invalid creatures fail here, before any thread is started
+            BattleFactory.create(setup.roster, setup.seed, setup.maxRounds, setup.balance);
+        } catch (GameConfigurationException | IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println(USAGE);
+            return 2;
+        } catch (IOException e) {
+            err.println("Error: cannot read roster: " + e.getMessage());
+            return 1;
+        }
+
+        long heroes = setup.roster.stream().filter(s -> s.getTeam() == Team.HEROES).count();
+        out.printf(Locale.ROOT, "Roster:     %d creatures (%d heroes, %d monsters), max rounds %d, %s mode%n",
+                setup.roster.size(), heroes, setup.roster.size() - heroes, setup.maxRounds,
+                options.mode.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        if (options.battles == 0) {
+            runSingle(setup, options.mode, out);
+        } else {
+            runBatch(setup, options, out);
+        }
+        return 0;
+    }
+
+    static Setup loadSetup(Options options) throws IOException {
+        long seed = options.seed != null ? options.seed : 1;
+        int maxRounds = options.maxRounds != null ? options.maxRounds : 100;
+        if (options.roster == null) {
+            return new Setup(generateRoster(options.generate, options.rosterSeed), seed, maxRounds,
+                    BalanceProfile.DEFAULT);
+        }
+
+        if (options.roster.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+            BattleRequest request = BattleRequest.parse(Files.readString(options.roster, StandardCharsets.UTF_8));
+            return new Setup(request.getRoster(), options.seed != null ? options.seed : request.getSeed(),
+                    options.maxRounds != null ? options.maxRounds : request.getMaxRounds(), request.getBalance());
+        }
+        RosterView view = RosterView.open(options.roster);
+        return new Setup(view.toSpecs(), seed, options.maxRounds != null ? options.maxRounds : view.getMaxRounds(),
+                view.getBalanceProfile());
+    }
+
+    /**
+     * Generates a random roster: {@code perTeam} heroes and as many monsters with mixed types and stats.
+     *
+     * @param perTeam creatures per team
+     * @param seed seed of the stats
+     * @return the roster, heroes first
+     */
+    static List<CreatureSpec> generateRoster(int perTeam, long seed) {
+        Random random = new Random(seed);
+        CreatureType[] types = CreatureType.values();
+        List<CreatureSpec> roster = new ArrayList<>(2 * perTeam);
+        for (Team team : Team.values()) {
+            String prefix = team == Team.HEROES ? "Hero " : "Monster ";
+            for (int i = 1; i <= perTeam; i++) {
+                CreatureType type = types[random.nextInt(types.length)];
+                int healPower = type == CreatureType.HEALER ? 15 + random.nextInt(26) : 0;
+                roster.add(new CreatureSpec(type, prefix + i, 60 + random.nextInt(141), 8 + random.nextInt(23),
+                        random.nextInt(9), 1 + random.nextInt(12), team, healPower));
+            }
+        }
+        return roster;
+    }
+
+    private static void runSingle(Setup setup, TurnMode mode, PrintStream out) {
+        Battlefield battlefield = BattleFactory.create(setup.roster, setup.seed, setup.maxRounds, setup.balance);
+        battlefield.setTurnMode(mode);
+        battlefield.setOutputEnabled(true);
+        long start = System.nanoTime();
+        battlefield.startBattle();
+        long elapsed = System.nanoTime() - start;
+        out.printf(Locale.ROOT, "Seed %d: %s after %d rounds in %.3f ms%n", setup.seed,
+                battlefield.getWinnerTeam() != null ? battlefield.getWinnerTeam() + " win" : "draw",
+                battlefield.getCurrentRound(), elapsed / 1e6);
+    }
+
+    /**
+     * Runs the batch on a fixed pool; thread {@code t} plays the battles {@code t, t + threads, ...}
+     * after its warm-up battles, which use seeds past the end of the batch and aren't counted.
+     */
+    static BatchReport runBatch(Setup setup, Options options, PrintStream out) {
+        int threads = Math.min(options.threads, options.battles);
+        int battles = options.battles;
+        if (options.warmup > 0) {
+            out.printf(Locale.ROOT, "Warm-up:    %d battles per thread%n", options.warmup);
+        }
+
+        List<Callable<BatchReport>> tasks = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            int first = thread;
+            tasks.add(() -> {
+                BatchReport report = new BatchReport();
+                for (int i = first; i < battles; i += threads) {
+                    long start = System.nanoTime();
+                    Battlefield battlefield = play(setup, options.mode, setup.seed + i);
+                    report.record(battlefield, System.nanoTime() - start);
+                }
+                return report;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        BatchReport merged = new BatchReport();
+        long elapsed;
+        try {
+            // The JIT compiles the hot paths during the warm-up, the clock starts once every thread is done
+            if (options.warmup > 0) {
+                List<Callable<Void>> warmups = new ArrayList<>(threads);
+                for (int thread = 0; thread < threads; thread++) {
+                    long firstSeed = setup.seed + battles + (long) thread * options.warmup;
+                    warmups.add(() -> {
+                        for (int i = 0; i < options.warmup; i++) {
+                            play(setup, options.mode, firstSeed + i);
+                        }
+                        return null;
+                    });
+                }
+                for (Future<Void> future : executor.invokeAll(warmups)) {
+                    future.get();
+                }
+            }
+            long start = System.nanoTime();
+            List<Future<BatchReport>> futures = new ArrayList<>(threads);
+            for (Callable<BatchReport> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<BatchReport> future : futures) {
+                merged.merge(future.get());
+            }
+            elapsed = System.nanoTime() - start;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Batch failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        merged.print(out, elapsed, threads);
+        return merged;
+    }
+
+    private static Battlefield play(Setup setup, TurnMode mode, long seed) {
+        Battlefield battlefield = BattleFactory.acquire(setup.roster, seed, setup.maxRounds, setup.balance);
+        battlefield.setTurnMode(mode);
+        battlefield.startBattle();
+        return battlefield;
+    }
+}
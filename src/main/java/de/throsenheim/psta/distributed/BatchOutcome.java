@@ -0,0 +1,77 @@
+package de.throsenheim.psta.distributed;
+
+import de.throsenheim.psta.model.Team;
+
+import java.util.Arrays;
+
+/**
+ * Winner and rounds of every battle of a batch, indexed by battle number.
+ * Five bytes per battle, so even millions of battles fit comfortably.
+ */
+public final class BatchOutcome {
+
+    private final byte[] winners;
+    private final int[] rounds;
+
+    BatchOutcome(byte[] winners, int[] rounds) {
+        this.winners = winners;
+        this.rounds = rounds;
+    }
+
+    public int getBattles() {
+        return winners.length;
+    }
+
+    /**
+     * @param battle battle number
+     * @return the winner, null for a draw
+     */
+    public Team getWinner(int battle) {
+        return ShardProtocol.decodeWinner(winners[battle]);
+    }
+
+    /**
+     * @param battle battle number
+     * @return rounds the battle lasted
+     */
+    public int getRounds(int battle) {
+        return rounds[battle];
+    }
+
+    /**
+     * @param team the team
+     * @return number of battles the team won
+     */
+    public int getWins(Team team) {
+        int wins = 0;
+        for (byte winner : winners) {
+            if (winner == team.ordinal()) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+
+    public double getAverageRounds() {
+        return Arrays.stream(rounds).average().orElse(0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BatchOutcome other = (BatchOutcome) obj;
+        return Arrays.equals(winners, other.winners) && Arrays.equals(rounds, other.rounds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(winners) + Arrays.hashCode(rounds);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchOutcome[battles=" + winners.length + ", heroWins=" + getWins(Team.HEROES)
+                + ", monsterWins=" + getWins(Team.MONSTERS) + "]";
+    }
+}
@@ -0,0 +1,238 @@
+package de.throsenheim.psta.distributed;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.simulation.BattleFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs shards of seeded battles for a {@link SimulationCoordinator}.
+ *
+ * A worker listens on a loopback TCP port or a Unix-domain socket. Every connection sends one
+ * job (roster and settings) followed by any number of shards; the battles of a shard run in
+ * parallel on the connection's pool and the results go back as soon as the shard is done.
+ * The pool lives as long as the connection, so its threads keep reusing their pooled
+ * battlefield from shard to shard and drop it when the job ends.
+ * Usually started as its own JVM through {@link #main(String[])}, but several workers can
+ * just as well run inside one process, e.g. in tests.
+ */
+public class BattleWorker implements AutoCloseable {
+
+    private final SocketAddress requestedAddress;
+    private final int threads;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocketChannel server;
+    private Thread acceptThread;
+
+    /**
+     * Creates a worker; call {@link #start()} to accept connections.
+     *
+     * @param address an {@link InetSocketAddress} (port 0 picks a free port) or a {@link UnixDomainSocketAddress}
+     * @param threads number of battles run at the same time per connection
+     */
+    public BattleWorker(SocketAddress address, int threads) {
+        if (address == null) {
+            throw new GameConfigurationException("Worker address cannot be null");
+        }
+        if (threads <= 0) {
+            throw new GameConfigurationException("Thread count must be positive, got: " + threads);
+        }
+        this.requestedAddress = address;
+        this.threads = threads;
+    }
+
+    /**
+     * Binds the address and starts accepting connections in the background.
+     *
+     * @return the address the worker listens on, with the actual port
+     * @throws IOException if the address can't be bound
+     */
+    public SocketAddress start() throws IOException {
+        if (requestedAddress instanceof UnixDomainSocketAddress) {
+            // A socket file left behind by a killed worker would block the bind
+            Files.deleteIfExists(((UnixDomainSocketAddress) requestedAddress).getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(requestedAddress);
+
+        acceptThread = new Thread(this::acceptLoop, "battle-worker-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        return server.getLocalAddress();
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel connection = server.accept();
+                Thread handler = new Thread(() -> serve(connection), "battle-worker-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!server.isOpen()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves one coordinator connection until it sends END or goes away.
+     */
+    private void serve(SocketChannel connection) {
+        connections.add(connection);
+        ExecutorService battlePool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    // Runs once per thread when the pool shuts down at the end of the job
+                    BattleFactory.release();
+                }
+            }, "battle-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (connection;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection)));
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(connection)))) {
+            ShardProtocol.Job job = ShardProtocol.readJob(in);
+            while (true) {
+                byte type = in.readByte();
+                if (type == ShardProtocol.END) {
+                    return;
+                }
+                if (type != ShardProtocol.SHARD) {
+                    throw new IOException("Unexpected message " + type);
+                }
+                int shardId = in.readInt();
+                int firstBattle = in.readInt();
+                int count = in.readInt();
+                if (firstBattle < 0 || count <= 0 || count > ShardProtocol.MAX_SHARD_SIZE) {
+                    throw new IOException("Invalid shard " + shardId + ": " + firstBattle + "+" + count);
+                }
+
+                byte[] winners = new byte[count];
+                int[] rounds = new int[count];
+                runShard(battlePool, job, firstBattle, winners, rounds);
+                ShardProtocol.writeResult(shardId, winners, rounds, out);
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            // The coordinator gets no answer and hands the shard to another worker
+            System.err.println("Worker connection failed: " + e.getMessage());
+        } finally {
+            battlePool.shutdownNow();
+            connections.remove(connection);
+        }
+    }
+
+    private void runShard(ExecutorService battlePool, ShardProtocol.Job job, int firstBattle, byte[] winners,
+                          int[] rounds) throws IOException {
+        // One task per pool thread; battle i of the shard goes to task i % tasks
+        int tasks = Math.min(threads, winners.length);
+        List<Callable<Void>> work = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int first = task;
+            work.add(() -> {
+                for (int i = first; i < winners.length; i += tasks) {
+                    Battlefield battlefield = BattleFactory.acquire(job.roster, job.baseSeed + firstBattle + i,
+                            job.maxRounds, job.balance);
+                    battlefield.startBattle();
+                    winners[i] = ShardProtocol.encodeWinner(battlefield.getWinnerTeam());
+                    rounds[i] = battlefield.getCurrentRound();
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : battlePool.invokeAll(work)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Worker was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Battle failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones. Shards that are running are abandoned.
+     */
+    @Override
+    public void close() throws IOException {
+        if (server != null) {
+            server.close();
+            for (SocketChannel connection : connections) {
+                connection.close();
+            }
+            if (requestedAddress instanceof UnixDomainSocketAddress) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) requestedAddress).getPath());
+            }
+        }
+    }
+
+    /**
+     * Parses a worker address: {@code tcp:PORT} for the loopback interface or {@code unix:PATH}.
+     *
+     * @param address the address text
+     * @return the socket address
+     */
+    public static SocketAddress parseAddress(String address) {
+        if (address.startsWith("tcp:")) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address.substring(4)));
+        }
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(Path.of(address.substring(5)));
+        }
+        throw new GameConfigurationException("Worker address must be tcp:PORT or unix:PATH, got: " + address);
+    }
+
+    /**
+     * Starts a worker process: {@code BattleWorker tcp:PORT|unix:PATH [threads]}.
+     * Prints {@code LISTENING <address>} once it accepts connections and runs until killed.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SocketAddress address = parseAddress(args.length > 0 ? args[0] : "tcp:0");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        BattleWorker worker = new BattleWorker(address, threads);
+        SocketAddress bound = worker.start();
+        System.out.println("LISTENING " + (bound instanceof InetSocketAddress
+                ? "tcp:" + ((InetSocketAddress) bound).getPort()
+                : "unix:" + ((UnixDomainSocketAddress) bound).getPath()));
+        System.out.flush();
+        worker.acceptThread.join();
+    }
+}
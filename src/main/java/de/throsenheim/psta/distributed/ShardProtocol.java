@@ -0,0 +1,174 @@
+package de.throsenheim.psta.distributed;
+
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages between a {@link SimulationCoordinator} and a {@link BattleWorker}.
+ *
+ * <pre>
+ * coordinator: magic, version, JOB (max rounds, balance, roster)
+ *              SHARD (shard id, first battle, battle count) ... END
+ * worker:      per shard: shard id, battle count, then per battle winner (byte, -1 for none) and rounds
+ * </pre>
+ * All numbers are big-endian. The roster is sent once per connection, every shard only
+ * names its range of battles; battle {@code i} uses the seed {@code baseSeed + i}.
+ */
+final class ShardProtocol {
+
+    static final int MAGIC = 0x43425348; // "CBSH"
+    static final short VERSION = 1;
+
+    static final byte JOB = 1;
+    static final byte SHARD = 2;
+    static final byte END = 3;
+
+    /** Largest shard a worker accepts, keeps the result buffers bounded */
+    static final int MAX_SHARD_SIZE = 1 << 20;
+
+    private static final int MAX_ROSTER_SIZE = 1 << 20;
+    private static final Team[] TEAMS = Team.values();
+    private static final CreatureType[] TYPES = CreatureType.values();
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Description of the battles every shard of a job runs.
+     */
+    static final class Job {
+        final List<CreatureSpec> roster;
+        final long baseSeed;
+        final int maxRounds;
+        final BalanceProfile balance;
+
+        Job(List<CreatureSpec> roster, long baseSeed, int maxRounds, BalanceProfile balance) {
+            this.roster = List.copyOf(roster);
+            this.baseSeed = baseSeed;
+            this.maxRounds = maxRounds;
+            this.balance = balance;
+        }
+    }
+
+    static void writeJob(Job job, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(JOB);
+        out.writeLong(job.baseSeed);
+        out.writeInt(job.maxRounds);
+        out.writeDouble(job.balance.getCriticalHitChance());
+        out.writeDouble(job.balance.getCriticalMultiplier());
+        out.writeDouble(job.balance.getEnrageThreshold());
+        out.writeDouble(job.balance.getEnrageMultiplier());
+        out.writeDouble(job.balance.getHealThreshold());
+        out.writeInt(job.balance.getMaxAoeTargets());
+        out.writeInt(job.roster.size());
+        for (CreatureSpec spec : job.roster) {
+            out.writeByte(spec.getType().ordinal());
+            out.writeUTF(spec.getName());
+            out.writeByte(spec.getTeam() == null ? -1 : spec.getTeam().ordinal());
+            out.writeInt(spec.getHealth());
+            out.writeInt(spec.getAttackPower());
+            out.writeInt(spec.getDefense());
+            out.writeInt(spec.getInitiative());
+            out.writeInt(spec.getHealPower());
+            out.writeInt(spec.getUnits());
+        }
+    }
+
+    static Job readJob(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a shard protocol connection");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported shard protocol version " + version);
+        }
+        if (in.readByte() != JOB) {
+            throw new IOException("Expected a job");
+        }
+
+        long baseSeed = in.readLong();
+        int maxRounds = in.readInt();
+        BalanceProfile balance = new BalanceProfile(in.readDouble(), in.readDouble(), in.readDouble(),
+                in.readDouble(), in.readDouble(), in.readInt());
+        int size = in.readInt();
+        if (size < 0 || size > MAX_ROSTER_SIZE) {
+            throw new IOException("Invalid roster size " + size);
+        }
+        List<CreatureSpec> roster = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int type = in.readByte();
+            String name = in.readUTF();
+            int team = in.readByte();
+            if (type < 0 || type >= TYPES.length || team < -1 || team >= TEAMS.length) {
+                throw new IOException("Invalid type or team in creature " + i);
+            }
+            roster.add(new CreatureSpec(TYPES[type], name, in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                    team < 0 ? null : TEAMS[team], in.readInt(), in.readInt()));
+        }
+        return new Job(roster, baseSeed, maxRounds, balance);
+    }
+
+    static void writeShard(int shardId, int firstBattle, int count, DataOutputStream out) throws IOException {
+        out.writeByte(SHARD);
+        out.writeInt(shardId);
+        out.writeInt(firstBattle);
+        out.writeInt(count);
+    }
+
+    static void writeEnd(DataOutputStream out) throws IOException {
+        out.writeByte(END);
+    }
+
+    static void writeResult(int shardId, byte[] winners, int[] rounds, DataOutputStream out) throws IOException {
+        out.writeInt(shardId);
+        out.writeInt(winners.length);
+        for (int i = 0; i < winners.length; i++) {
+            out.writeByte(winners[i]);
+            out.writeInt(rounds[i]);
+        }
+    }
+
+    /**
+     * Reads the result of a shard into the arrays of the whole batch.
+     *
+     * @param expectedShard the shard that was sent
+     * @param firstBattle index of the shard's first battle in the batch
+     * @param count number of battles in the shard
+     */
+    static void readResult(DataInputStream in, int expectedShard, int firstBattle, int count,
+                           byte[] winners, int[] rounds) throws IOException {
+        int shardId = in.readInt();
+        int size = in.readInt();
+        if (shardId != expectedShard || size != count) {
+            throw new IOException("Worker answered shard " + shardId + " with " + size
+                    + " battles, expected shard " + expectedShard + " with " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            byte winner = in.readByte();
+            int battleRounds = in.readInt();
+            if (winner < -1 || winner >= TEAMS.length || battleRounds < 0) {
+                throw new IOException("Invalid result for battle " + (firstBattle + i));
+            }
+            winners[firstBattle + i] = winner;
+            rounds[firstBattle + i] = battleRounds;
+        }
+    }
+
+    static byte encodeWinner(Team winner) {
+        return winner == null ? -1 : (byte) winner.ordinal();
+    }
+
+    static Team decodeWinner(byte winner) {
+        return winner < 0 ? null : TEAMS[winner];
+    }
+}
@@ -0,0 +1,235 @@
+package de.throsenheim.psta.distributed;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.simulation.BattleFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits a seeded batch of battles into shards and runs them on {@link BattleWorker}s.
+ *
+ * Every worker gets one connection and a thread that keeps taking shards from a shared queue.
+ * When a worker dies or answers garbage, its current shard goes back to the front of the queue
+ * and the other workers pick it up. A worker that takes longer than the shard timeout for one shard
+ * counts as failed: its connection is closed, so a hung worker can't keep a shard forever.
+ * Battle {@code i} always uses the seed {@code baseSeed + i},
+ * so the merged result is the same as {@link #runLocally} no matter how the shards were spread.
+ */
+public class SimulationCoordinator {
+
+    public static final int DEFAULT_SHARD_SIZE = 256;
+    // A shard of big battles takes seconds, a worker that needs minutes is stuck
+    public static final Duration DEFAULT_SHARD_TIMEOUT = Duration.ofMinutes(5);
+
+    private final List<SocketAddress> workers;
+    private final int shardSize;
+    private final Duration shardTimeout;
+
+    /**
+     * @param workers addresses of running workers, TCP or Unix-domain
+     * @param shardSize number of battles per shard
+     */
+    public SimulationCoordinator(List<SocketAddress> workers, int shardSize) {
+        this(workers, shardSize, DEFAULT_SHARD_TIMEOUT);
+    }
+
+    /**
+     * @param workers addresses of running workers, TCP or Unix-domain
+     * @param shardSize number of battles per shard
+     * @param shardTimeout how long a worker may take to receive the job or to run one shard
+     */
+    public SimulationCoordinator(List<SocketAddress> workers, int shardSize, Duration shardTimeout) {
+        if (workers == null || workers.isEmpty()) {
+            throw new GameConfigurationException("Need at least one worker");
+        }
+        if (shardSize <= 0 || shardSize > ShardProtocol.MAX_SHARD_SIZE) {
+            throw new GameConfigurationException("Shard size must be between 1 and "
+                    + ShardProtocol.MAX_SHARD_SIZE + ", got: " + shardSize);
+        }
+        if (shardTimeout == null || shardTimeout.isNegative() || shardTimeout.isZero()) {
+            throw new GameConfigurationException("Shard timeout must be positive, got: " + shardTimeout);
+        }
+        this.workers = List.copyOf(workers);
+        this.shardSize = shardSize;
+        this.shardTimeout = shardTimeout;
+    }
+
+    /**
+     * Runs the battles {@code 0 .. battles - 1} on the workers.
+     *
+     * @param roster the creatures, in insertion order
+     * @param battles number of battles
+     * @param baseSeed seed of battle 0
+     * @param maxRounds maximum rounds per battle
+     * @param balance balance constants
+     * @return winner and rounds of every battle
+     * @throws IOException if all workers failed before the batch was done
+     */
+    public BatchOutcome run(List<CreatureSpec> roster, int battles, long baseSeed, int maxRounds,
+                            BalanceProfile balance) throws IOException {
+        if (battles <= 0) {
+            throw new GameConfigurationException("Battle count must be positive, got: " + battles);
+        }
+        // Invalid rosters fail here instead of killing every worker connection in turn
+        BattleFactory.create(roster, baseSeed, maxRounds, balance);
+
+        ShardProtocol.Job job = new ShardProtocol.Job(roster, baseSeed, maxRounds, balance);
+        int shardCount = (battles + shardSize - 1) / shardSize;
+        BlockingDeque<Integer> queue = new LinkedBlockingDeque<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            queue.add(shard);
+        }
+
+        byte[] winners = new byte[battles];
+        int[] rounds = new int[battles];
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService connections = Executors.newFixedThreadPool(workers.size());
+        ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "coordinator-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers.size());
+            for (SocketAddress worker : workers) {
+                futures.add(connections.submit(() ->
+                        drive(worker, job, battles, shardCount, queue, done, winners, rounds, timeouts)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Coordinator failed", e.getCause());
+        } finally {
+            connections.shutdownNow();
+            timeouts.shutdownNow();
+        }
+
+        if (done.get() < shardCount) {
+            throw new IOException("All workers failed, " + (shardCount - done.get()) + " of "
+                    + shardCount + " shards were not run");
+        }
+        return new BatchOutcome(winners, rounds);
+    }
+
+    /**
+     * Feeds shards to one worker until the batch is done or the worker fails or times out.
+     */
+    private void drive(SocketAddress worker, ShardProtocol.Job job, int battles, int shardCount,
+                       BlockingDeque<Integer> queue, AtomicInteger done, byte[] winners, int[] rounds,
+                       ScheduledExecutorService timeouts) {
+        Integer shard = null;
+        try (SocketChannel channel = SocketChannel.open(worker);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            // Channel streams ignore socket read timeouts, so a late worker gets its channel closed instead
+            ScheduledFuture<?> deadline = startDeadline(timeouts, worker, channel);
+            ShardProtocol.writeJob(job, out);
+            deadline.cancel(false);
+
+            // Shards of a failed worker come back to the queue, so keep polling until all are done
+            while (done.get() < shardCount) {
+                shard = queue.poll(20, TimeUnit.MILLISECONDS);
+                if (shard == null) {
+                    continue;
+                }
+                int first = shard * shardSize;
+                int count = Math.min(shardSize, battles - first);
+                deadline = startDeadline(timeouts, worker, channel);
+                ShardProtocol.writeShard(shard, first, count, out);
+                out.flush();
+                ShardProtocol.readResult(in, shard, first, count, winners, rounds);
+                deadline.cancel(false);
+                shard = null;
+                done.incrementAndGet();
+            }
+            ShardProtocol.writeEnd(out);
+        } catch (IOException e) {
+            System.err.println("Worker " + worker + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (shard != null) {
+                queue.addFirst(shard);
+            }
+        }
+    }
+
+    /**
+     * Closes the channel to a worker once the shard timeout has passed, which makes the blocked read or write fail.
+     */
+    private ScheduledFuture<?> startDeadline(ScheduledExecutorService timeouts, SocketAddress worker,
+                                             SocketChannel channel) {
+        return timeouts.schedule(() -> {
+            System.err.println("Worker " + worker + " took longer than " + shardTimeout + ", giving up on it");
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Closing is all that's left to do with this worker
+            }
+        }, shardTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs the same batch in this process, one battle after the other.
+     *
+     * @return winner and rounds of every battle
+     */
+    public static BatchOutcome runLocally(List<CreatureSpec> roster, int battles, long baseSeed, int maxRounds,
+                                          BalanceProfile balance) {
+        byte[] winners = new byte[battles];
+        int[] rounds = new int[battles];
+        List<CreatureSpec> specs = List.copyOf(roster);
+        try {
+            for (int i = 0; i < battles; i++) {
+                Battlefield battlefield = BattleFactory.acquire(specs, baseSeed + i, maxRounds, balance);
+                battlefield.startBattle();
+                winners[i] = ShardProtocol.encodeWinner(battlefield.getWinnerTeam());
+                rounds[i] = battlefield.getCurrentRound();
+            }
+        } finally {
+            // The caller's thread may live much longer than the batch
+            BattleFactory.release();
+        }
+        return new BatchOutcome(winners, rounds);
+    }
+
+    public List<SocketAddress> getWorkers() {
+        return workers;
+    }
+
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    public Duration getShardTimeout() {
+        return shardTimeout;
+    }
+}
@@ -0,0 +1,145 @@
+package de.throsenheim.psta.events;
+
+import de.throsenheim.psta.model.Team;
+
+/**
+ * Something that happened in a battle, sent to spectators by a {@link BattleEventPublisher}.
+ *
+ * Events are immutable and only hold names and numbers, never the creatures themselves,
+ * so subscribers can read them on any thread while the battle goes on.
+ */
+public final class BattleEvent {
+
+    /**
+     * Kinds of battle events.
+     */
+    public enum Type {
+        /** The battle starts or resumes after {@link #getRound()} */
+        BATTLE_STARTED,
+        /** The actor hits the target for {@link #getAmount()} damage (before defense) */
+        ATTACK,
+        /** The actor is healed by {@link #getAmount()} HP */
+        HEALED,
+        /** The actor has been defeated */
+        DEFEATED,
+        /** End of a round, with the health of every creature */
+        ROUND_SUMMARY,
+        /** The battle is over, {@link #getWinner()} won */
+        BATTLE_ENDED
+    }
+
+    private static final int[] NO_HEALTH = new int[0];
+
+    private final Type type;
+    private final int round;
+    private final String actor;
+    private final String target;
+    private final int amount;
+    private final Team winner;
+    private final int[] health;
+
+    private BattleEvent(Type type, int round, String actor, String target, int amount, Team winner, int[] health) {
+        this.type = type;
+        this.round = round;
+        this.actor = actor;
+        this.target = target;
+        this.amount = amount;
+        this.winner = winner;
+        this.health = health;
+    }
+
+    public static BattleEvent battleStarted(int round) {
+        return new BattleEvent(Type.BATTLE_STARTED, round, null, null, 0, null, NO_HEALTH);
+    }
+
+    public static BattleEvent attack(int round, String actor, String target, int damage) {
+        return new BattleEvent(Type.ATTACK, round, actor, target, damage, null, NO_HEALTH);
+    }
+
+    public static BattleEvent healed(int round, String actor, int amount) {
+        return new BattleEvent(Type.HEALED, round, actor, null, amount, null, NO_HEALTH);
+    }
+
+    public static BattleEvent defeated(int round, String actor) {
+        return new BattleEvent(Type.DEFEATED, round, actor, null, 0, null, NO_HEALTH);
+    }
+
+    /**
+     * @param round the round that just ended
+     * @param health health of every creature, in the order they were added to the battlefield
+     * @return the event, holding a copy of the health
+     */
+    public static BattleEvent roundSummary(int round, int[] health) {
+        return new BattleEvent(Type.ROUND_SUMMARY, round, null, null, 0, null, health.clone());
+    }
+
+    public static BattleEvent battleEnded(int round, Team winner) {
+        return new BattleEvent(Type.BATTLE_ENDED, round, null, null, 0, winner, NO_HEALTH);
+    }
+
+    // Getters
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return name of the acting creature, null for round and battle events
+     */
+    public String getActor() {
+        return actor;
+    }
+
+    /**
+     * @return name of the attacked creature, only for {@link Type#ATTACK}
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return the winning team, only for {@link Type#BATTLE_ENDED}; null on a draw
+     */
+    public Team getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return number of creatures in a {@link Type#ROUND_SUMMARY}, 0 for other events
+     */
+    public int getCreatureCount() {
+        return health.length;
+    }
+
+    /**
+     * @param creature index of the creature, in the order they were added to the battlefield
+     * @return its health at the end of the round
+     */
+    public int getHealth(int creature) {
+        return health[creature];
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case ATTACK:
+                return "Round " + round + ": " + actor + " attacks " + target + " for " + amount;
+            case HEALED:
+                return "Round " + round + ": " + actor + " is healed for " + amount;
+            case DEFEATED:
+                return "Round " + round + ": " + actor + " has been defeated";
+            case BATTLE_ENDED:
+                return "Round " + round + ": battle ended, winner " + winner;
+            default:
+                return "Round " + round + ": " + type;
+        }
+    }
+}
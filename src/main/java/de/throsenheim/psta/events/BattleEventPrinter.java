@@ -0,0 +1,62 @@
+package de.throsenheim.psta.events;
+
+import java.io.PrintStream;
+import java.util.concurrent.Flow;
+
+/**
+ * Spectator that prints the events of a battle, one at a time.
+ * Lets a silent battle be followed on the console without the battle thread printing.
+ */
+public class BattleEventPrinter implements Flow.Subscriber<BattleEvent> {
+
+    private final PrintStream out;
+    private final boolean actions;
+    private Flow.Subscription subscription;
+
+    /**
+     * @param out where to print
+     * @param actions true to print every attack, heal and defeat, false for round summaries only
+     */
+    public BattleEventPrinter(PrintStream out, boolean actions) {
+        this.out = out;
+        this.actions = actions;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(BattleEvent event) {
+        switch (event.getType()) {
+            case ROUND_SUMMARY:
+                out.println("--- Round " + event.getRound() + " Summary ---");
+                break;
+            case BATTLE_ENDED:
+                out.println("BATTLE ENDED after " + event.getRound() + " rounds, winner: "
+                        + (event.getWinner() != null ? "TEAM " + event.getWinner() : "none"));
+                break;
+            case BATTLE_STARTED:
+                out.println(event.getRound() == 0 ? "BATTLE BEGINS!" : "BATTLE RESUMES AFTER ROUND " + event.getRound() + "!");
+                break;
+            default:
+                if (actions) {
+                    out.println(event);
+                }
+                break;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        out.println("Spectator stream failed: " + throwable.getMessage());
+    }
+
+    @Override
+    public void onComplete() {
+        out.flush();
+    }
+}
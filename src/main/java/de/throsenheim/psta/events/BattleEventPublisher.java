@@ -0,0 +1,298 @@
+package de.throsenheim.psta.events;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the events of one battle to any number of spectators.
+ *
+ * Every subscriber gets its own bounded queue and is served on the executor, never on the
+ * battle thread. {@link #publish(BattleEvent)} only appends to the queues, so a slow
+ * subscriber can't slow the battle down; what happens when its queue is full is decided by
+ * its {@link OverflowPolicy}.
+ */
+public final class BattleEventPublisher implements Flow.Publisher<BattleEvent> {
+
+    /** Queue capacity of {@link #subscribe(Flow.Subscriber)} unless the publisher is given another */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates a publisher that serves subscribers on the common fork/join pool.
+     */
+    public BattleEventPublisher() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor runs the deliveries to subscribers
+     */
+    public BattleEventPublisher(Executor executor) {
+        this(executor, DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param executor runs the deliveries to subscribers
+     * @param capacity queue size of subscribers that don't pick their own
+     * @param policy overflow policy of subscribers that don't pick their own
+     */
+    public BattleEventPublisher(Executor executor, int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got: " + capacity);
+        }
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.capacity = capacity;
+        this.policy = Objects.requireNonNull(policy, "policy");
+    }
+
+    /**
+     * Subscribes with the publisher's capacity and overflow policy,
+     * {@link #DEFAULT_CAPACITY} and {@link OverflowPolicy#DROP_OLDEST} unless it was given others.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super BattleEvent> subscriber) {
+        subscribe(subscriber, capacity, policy);
+    }
+
+    /**
+     * Subscribes with an own queue size and overflow policy.
+     *
+     * @param subscriber the spectator
+     * @param capacity how many events may wait for the subscriber's demand
+     * @param policy what to do when more are waiting
+     */
+    public void subscribe(Flow.Subscriber<? super BattleEvent> subscriber, int capacity, OverflowPolicy policy) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        Objects.requireNonNull(policy, "policy");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got: " + capacity);
+        }
+
+        EventSubscription subscription = new EventSubscription(subscriber, capacity, policy);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * @return whether anyone is listening; events don't need to be built otherwise
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * @return whether the battle has ended; later subscribers are completed right away
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Queues an event for every subscriber. Never blocks.
+     *
+     * @param event the event
+     */
+    public void publish(BattleEvent event) {
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Makes an open publisher for the next battle with the same executor, capacity and overflow policy.
+     * Subscriptions stay with this one, spectators of the next battle subscribe again.
+     *
+     * @return the new publisher
+     */
+    public BattleEventPublisher reopen() {
+        return new BattleEventPublisher(executor, capacity, policy);
+    }
+
+    /**
+     * Completes all subscriptions once their queued events are delivered.
+     * Later subscribers are completed right away.
+     */
+    public void close() {
+        closed = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        subscriptions.clear();
+    }
+
+    private final class EventSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super BattleEvent> subscriber;
+        private final int capacity;
+        private final OverflowPolicy policy;
+        private final ArrayDeque<BattleEvent> queue = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private volatile boolean cancelled;
+        private boolean completed;
+        private Throwable error;
+
+        private EventSubscription(Flow.Subscriber<? super BattleEvent> subscriber, int capacity,
+                                  OverflowPolicy policy) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.policy = policy;
+        }
+
+        private void offer(BattleEvent event) {
+            if (cancelled) {
+                return;
+            }
+            synchronized (queue) {
+                if (completed || error != null) {
+                    return;
+                }
+                if (queue.size() >= capacity) {
+                    switch (policy) {
+                        case BUFFER:
+                            error = new IllegalStateException("Spectator fell more than " + capacity
+                                    + " events behind the battle");
+                            queue.clear();
+                            break;
+                        case DROP_OLDEST:
+                            queue.pollFirst();
+                            queue.addLast(event);
+                            break;
+                        case CONFLATE:
+                            conflate();
+                            queue.addLast(event);
+                            break;
+                        default:
+                            throw new IllegalStateException("Unknown policy: " + policy);
+                    }
+                } else {
+                    queue.addLast(event);
+                }
+            }
+            signal();
+        }
+
+        /**
+         * Drops queued actions and all round summaries but the newest. Start and end of the battle stay.
+         */
+        private void conflate() {
+            BattleEvent newestSummary = null;
+            for (Iterator<BattleEvent> it = queue.iterator(); it.hasNext(); ) {
+                BattleEvent queued = it.next();
+                if (queued.getType() == BattleEvent.Type.ROUND_SUMMARY) {
+                    newestSummary = queued;
+                }
+                if (queued.getType() != BattleEvent.Type.BATTLE_STARTED
+                        && queued.getType() != BattleEvent.Type.BATTLE_ENDED) {
+                    it.remove();
+                }
+            }
+            if (newestSummary != null) {
+                queue.addLast(newestSummary);
+            }
+        }
+
+        private void complete() {
+            synchronized (queue) {
+                completed = true;
+            }
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                synchronized (queue) {
+                    error = new IllegalArgumentException("Requested " + n + " events, must be positive");
+                    queue.clear();
+                }
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (queue) {
+                queue.clear();
+            }
+        }
+
+        /**
+         * Makes sure one delivery run is scheduled; runs never overlap, so the subscriber
+         * gets its calls one after the other.
+         */
+        private void signal() {
+            if (pendingSignals.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::deliver);
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                }
+            }
+        }
+
+        private void deliver() {
+            int missed = 1;
+            do {
+                while (!cancelled) {
+                    BattleEvent next = null;
+                    Throwable failure;
+                    boolean done;
+                    synchronized (queue) {
+                        failure = error;
+                        if (failure == null && demand.get() > 0) {
+                            next = queue.pollFirst();
+                        }
+                        done = completed && queue.isEmpty();
+                    }
+
+                    if (failure != null) {
+                        cancel();
+                        subscriber.onError(failure);
+                    } else if (next != null) {
+                        if (demand.get() != Long.MAX_VALUE) {
+                            demand.decrementAndGet();
+                        }
+                        try {
+                            subscriber.onNext(next);
+                        } catch (RuntimeException e) {
+                            // A broken subscriber is dropped, the battle goes on
+                            cancel();
+                        }
+                        continue;
+                    } else if (done) {
+                        cancel();
+                        subscriber.onComplete();
+                    }
+                    break;
+                }
+                missed = pendingSignals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package de.throsenheim.psta.events;
+
+/**
+ * What happens when a subscriber requests events slower than the battle produces them
+ * and its queue is full. The battle itself never waits.
+ */
+public enum OverflowPolicy {
+    /** Keep up to the queue capacity; one more event ends the subscription with an error */
+    BUFFER,
+    /** Throw away the oldest queued event to make room */
+    DROP_OLDEST,
+    /** Throw away queued actions and all but the newest round summary */
+    CONFLATE
+}
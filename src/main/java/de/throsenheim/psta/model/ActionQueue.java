@@ -0,0 +1,102 @@
+package de.throsenheim.psta.model;
+
+/**
+ * Priority queue of the next action time of every creature, for {@link TurnMode#ACTIVE_TIME}.
+ *
+ * A binary min-heap of creature positions with the times in a primitive array, so finding
+ * the next actor and scheduling its following action are O(log n) and never allocate.
+ * Equal times are broken by position, i.e. by the initiative order of the battlefield.
+ */
+final class ActionQueue {
+
+    private int[] heap = new int[0];
+    private long[] times = new long[0];
+    private int size;
+
+    /**
+     * Empties the queue and makes room for positions {@code 0 .. creatures - 1}.
+     */
+    void clear(int creatures) {
+        if (heap.length < creatures) {
+            heap = new int[creatures];
+            times = new long[creatures];
+        }
+        size = 0;
+    }
+
+    void add(int position, long time) {
+        times[position] = time;
+        heap[size] = position;
+        siftUp(size++);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return position of the creature that acts next
+     */
+    int peek() {
+        return heap[0];
+    }
+
+    /**
+     * @return time of the next action
+     */
+    long peekTime() {
+        return times[heap[0]];
+    }
+
+    /**
+     * Removes the creature that acts next, e.g. because it was defeated.
+     */
+    void poll() {
+        heap[0] = heap[--size];
+        if (size > 0) {
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Moves the creature that acts next to a later time, cheaper than removing and adding it.
+     */
+    void rescheduleFirst(long time) {
+        times[heap[0]] = time;
+        siftDown(0);
+    }
+
+    private boolean before(int a, int b) {
+        return times[a] < times[b] || (times[a] == times[b] && a < b);
+    }
+
+    private void siftUp(int slot) {
+        int position = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!before(position, heap[parent])) {
+                break;
+            }
+            heap[slot] = heap[parent];
+            slot = parent;
+        }
+        heap[slot] = position;
+    }
+
+    private void siftDown(int slot) {
+        int position = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], position)) {
+                break;
+            }
+            heap[slot] = heap[child];
+            slot = child;
+        }
+        heap[slot] = position;
+    }
+}
@@ -0,0 +1,80 @@
+package de.throsenheim.psta.model;
+
+/**
+ * Damage resolution for area spells that hit many creatures with the same damage.
+ *
+ * Works on primitive arrays of health and defense and applies the same rules as
+ * {@link Creature#takeDamage(int)}: defense is subtracted, at least 1 damage is dealt and
+ * health stops at 0, which means the creature is defeated.
+ *
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector} the arrays are processed
+ * with SIMD instructions; otherwise, or with {@code -Dpsta.vector=false}, a plain loop is used.
+ * Both give exactly the same results.
+ */
+public final class AreaDamage {
+
+    /** Below this many targets, resolving them one by one is cheaper than filling the arrays */
+    public static final int MIN_BATCH = 16;
+
+    private static final boolean VECTORIZED = Boolean.parseBoolean(System.getProperty("psta.vector", "true"))
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private AreaDamage() {
+    }
+
+    /**
+     * Hits the first {@code count} creatures of the arrays with {@code damage} each.
+     * All creatures must be alive, i.e. have positive health.
+     *
+     * @param damage damage before defense
+     * @param health health of every target, updated in place
+     * @param defense defense of every target
+     * @param count number of targets
+     * @return number of targets defeated by this hit
+     */
+    public static int apply(int damage, int[] health, int[] defense, int count) {
+        checkBounds(health, defense, count);
+        if (VECTORIZED) {
+            return VectorDamageKernel.apply(damage, health, defense, count);
+        }
+        return applyScalar(damage, health, defense, count, 0);
+    }
+
+    /**
+     * Same as {@link #apply(int, int[], int[], int)}, always without SIMD instructions.
+     */
+    public static int applyScalar(int damage, int[] health, int[] defense, int count) {
+        checkBounds(health, defense, count);
+        return applyScalar(damage, health, defense, count, 0);
+    }
+
+    /**
+     * Scalar loop from {@code from} to {@code count}, also used for the tail of the vector loop.
+     */
+    static int applyScalar(int damage, int[] health, int[] defense, int count, int from) {
+        int defeated = 0;
+        for (int i = from; i < count; i++) {
+            // Defense reduces damage (minimum 1 damage if hit)
+            int remaining = Math.max(0, health[i] - Math.max(1, damage - defense[i]));
+            health[i] = remaining;
+            if (remaining == 0) {
+                defeated++;
+            }
+        }
+        return defeated;
+    }
+
+    /**
+     * @return whether {@link #apply(int, int[], int[], int)} uses SIMD instructions
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    private static void checkBounds(int[] health, int[] defense, int count) {
+        if (count < 0 || count > health.length || count > defense.length) {
+            throw new IndexOutOfBoundsException("Count " + count + " does not fit arrays of length "
+                    + health.length + " and " + defense.length);
+        }
+    }
+}
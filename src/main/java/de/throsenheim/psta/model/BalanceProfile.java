@@ -0,0 +1,142 @@
+package de.throsenheim.psta.model;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+
+import java.util.Objects;
+
+/**
+ * The balance constants of all creature classes.
+ * Every battle is given a profile, so balancing can be tried out without recompiling.
+ * Profiles are immutable; the {@code with...} methods return changed copies.
+ */
+public final class BalanceProfile {
+
+    /** The values the game was designed with */
+    public static final BalanceProfile DEFAULT = new BalanceProfile(0.25, 1.5, 0.5, 1.5, 0.6, 3);
+
+    private final double criticalHitChance;
+    private final double criticalMultiplier;
+    private final double enrageThreshold;
+    private final double enrageMultiplier;
+    private final double healThreshold;
+    private final int maxAoeTargets;
+
+    /**
+     * Creates a profile and checks that the values make sense.
+     *
+     * @param criticalHitChance chance of a warrior crit, 0 to 1
+     * @param criticalMultiplier damage multiplier of a crit
+     * @param enrageThreshold health percentage at which a boss enrages, 0 to 1
+     * @param enrageMultiplier damage multiplier of an enraged boss
+     * @param healThreshold health percentage below which a healer heals an ally, 0 to 1
+     * @param maxAoeTargets how many enemies a mage hits at most
+     */
+    public BalanceProfile(double criticalHitChance, double criticalMultiplier, double enrageThreshold,
+                          double enrageMultiplier, double healThreshold, int maxAoeTargets) {
+        checkFraction("Critical hit chance", criticalHitChance);
+        checkFraction("Enrage threshold", enrageThreshold);
+        checkFraction("Heal threshold", healThreshold);
+        if (!(criticalMultiplier >= 1.0) || !(enrageMultiplier >= 1.0)) {
+            throw new GameConfigurationException("Damage multipliers must be at least 1, got: "
+                    + criticalMultiplier + ", " + enrageMultiplier);
+        }
+        if (maxAoeTargets <= 0) {
+            throw new GameConfigurationException("Max AOE targets must be positive, got: " + maxAoeTargets);
+        }
+
+        this.criticalHitChance = criticalHitChance;
+        this.criticalMultiplier = criticalMultiplier;
+        this.enrageThreshold = enrageThreshold;
+        this.enrageMultiplier = enrageMultiplier;
+        this.healThreshold = healThreshold;
+        this.maxAoeTargets = maxAoeTargets;
+    }
+
+    private static void checkFraction(String name, double value) {
+        if (!(value >= 0.0 && value <= 1.0)) {
+            throw new GameConfigurationException(name + " must be between 0 and 1, got: " + value);
+        }
+    }
+
+    public BalanceProfile withCriticalHitChance(double criticalHitChance) {
+        return new BalanceProfile(criticalHitChance, criticalMultiplier, enrageThreshold,
+                enrageMultiplier, healThreshold, maxAoeTargets);
+    }
+
+    public BalanceProfile withCriticalMultiplier(double criticalMultiplier) {
+        return new BalanceProfile(criticalHitChance, criticalMultiplier, enrageThreshold,
+                enrageMultiplier, healThreshold, maxAoeTargets);
+    }
+
+    public BalanceProfile withEnrageThreshold(double enrageThreshold) {
+        return new BalanceProfile(criticalHitChance, criticalMultiplier, enrageThreshold,
+                enrageMultiplier, healThreshold, maxAoeTargets);
+    }
+
+    public BalanceProfile withEnrageMultiplier(double enrageMultiplier) {
+        return new BalanceProfile(criticalHitChance, criticalMultiplier, enrageThreshold,
+                enrageMultiplier, healThreshold, maxAoeTargets);
+    }
+
+    public BalanceProfile withHealThreshold(double healThreshold) {
+        return new BalanceProfile(criticalHitChance, criticalMultiplier, enrageThreshold,
+                enrageMultiplier, healThreshold, maxAoeTargets);
+    }
+
+    public BalanceProfile withMaxAoeTargets(int maxAoeTargets) {
+        return new BalanceProfile(criticalHitChance, criticalMultiplier, enrageThreshold,
+                enrageMultiplier, healThreshold, maxAoeTargets);
+    }
+
+    // Getters
+
+    public double getCriticalHitChance() {
+        return criticalHitChance;
+    }
+
+    public double getCriticalMultiplier() {
+        return criticalMultiplier;
+    }
+
+    public double getEnrageThreshold() {
+        return enrageThreshold;
+    }
+
+    public double getEnrageMultiplier() {
+        return enrageMultiplier;
+    }
+
+    public double getHealThreshold() {
+        return healThreshold;
+    }
+
+    public int getMaxAoeTargets() {
+        return maxAoeTargets;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BalanceProfile other = (BalanceProfile) obj;
+        return Double.compare(criticalHitChance, other.criticalHitChance) == 0
+                && Double.compare(criticalMultiplier, other.criticalMultiplier) == 0
+                && Double.compare(enrageThreshold, other.enrageThreshold) == 0
+                && Double.compare(enrageMultiplier, other.enrageMultiplier) == 0
+                && Double.compare(healThreshold, other.healThreshold) == 0
+                && maxAoeTargets == other.maxAoeTargets;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(criticalHitChance, criticalMultiplier, enrageThreshold,
+                enrageMultiplier, healThreshold, maxAoeTargets);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BalanceProfile[crit=%s x%s, enrage=%s x%s, heal<%s, aoe=%d]",
+                criticalHitChance, criticalMultiplier, enrageThreshold, enrageMultiplier,
+                healThreshold, maxAoeTargets);
+    }
+}
@@ -0,0 +1,292 @@
+package de.throsenheim.psta.model;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reads and writes battle checkpoints.
+ *
+ * A checkpoint holds everything needed to continue a battle: the settings, the
+ * round, every creature template (type, stats, team), every creature (template, own name, health,
+ * stack size and the size it started with, state flags) and the state of every random number generator. Creatures sharing one
+ * template or one {@code Random} still share it after resuming, so the rest of the battle plays out
+ * exactly as it would have and an army of identical creatures doesn't grow to one template each.
+ *
+ * Format (big endian): magic, version, settings (including whether the battle log is printed),
+ * balance profile, the seed of counter-based random numbers, the random generators as serialized
+ * {@code java.util.Random} blobs, the templates, then one record per creature.
+ */
+final class BattleCheckpoint {
+
+    private static final int MAGIC = 0x43425343; // "CBSC"
+    private static final short VERSION = 3;
+    // A serialized java.util.Random takes about 80 bytes
+    private static final int MAX_RANDOM_BYTES = 4096;
+    private static final ObjectInputFilter RANDOM_ONLY =
+            ObjectInputFilter.Config.createFilter("java.util.Random;!*");
+
+    private BattleCheckpoint() {
+    }
+
+    /**
+     * Writes a checkpoint atomically: the data goes to a temporary file next to
+     * {@code path} which is then renamed, so a crash never leaves a half-written checkpoint.
+     *
+     * @param battlefield the battle to save
+     * @param path where to write the checkpoint
+     * @throws IOException if writing fails
+     */
+    static void write(Battlefield battlefield, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            writeTo(battlefield, out);
+            out.flush();
+            file.getFD().sync();
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a checkpoint and rebuilds the battle it describes.
+     * The returned battlefield is positioned at the saved round, prints its log only if the saved
+     * battle did, and writes further checkpoints to the same path with the same interval.
+     *
+     * @param path the checkpoint file
+     * @return the restored battlefield
+     * @throws IOException if the file can't be read or is not a valid checkpoint
+     */
+    static Battlefield read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a battle checkpoint: " + path);
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + " in " + path);
+            }
+
+            int maxRounds = in.readInt();
+            int currentRound = in.readInt();
+            boolean stalemateDetection = in.readBoolean();
+            boolean outputEnabled = in.readBoolean();
+            int checkpointEveryRounds = in.readInt();
+            long checkpointEveryMillis = in.readLong();
+            BalanceProfile balance = new BalanceProfile(in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readDouble(), in.readDouble(), in.readInt());
+            boolean counterRandom = in.readBoolean();
+            long counterSeed = in.readLong();
+
+            // Lists grow while reading, so a corrupt count ends in an EOFException, not a huge array
+            int randomCount = readCount(in, "random generators");
+            List<Random> randoms = new ArrayList<>();
+            for (int i = 0; i < randomCount; i++) {
+                randoms.add(readRandom(in));
+            }
+
+            int templateCount = readCount(in, "templates");
+            List<CreatureTemplate> templates = new ArrayList<>();
+            for (int i = 0; i < templateCount; i++) {
+                templates.add(readTemplate(in, randoms));
+            }
+
+            Battlefield battlefield = new Battlefield(maxRounds, balance);
+            int creatureCount = readCount(in, "creatures");
+            List<int[]> states = new ArrayList<>();
+            for (int i = 0; i < creatureCount; i++) {
+                int templateIndex = in.readInt();
+                if (templateIndex < 0 || templateIndex >= templates.size()) {
+                    throw new IOException("Creature " + i + " refers to unknown template " + templateIndex);
+                }
+                CreatureTemplate template = templates.get(templateIndex);
+                // Creatures without their own name keep calling themselves after the template
+                String name = in.readBoolean() ? in.readUTF() : null;
+                int health = in.readInt();
+                int stackSize = in.readInt();
+                int startUnits = in.readInt();
+                if (health < 0 || stackSize < 0 || startUnits < 1 || stackSize > startUnits) {
+                    throw new IOException("Invalid state of creature " + i + ": health " + health
+                            + ", units " + stackSize + " of " + startUnits);
+                }
+                // Defeated creatures report 0 units
+                states.add(new int[] {health, Math.max(1, stackSize), in.readInt()});
+
+                try {
+                    // A reset brings back the units the stack started with
+                    battlefield.addCreature(template.createStack(name, startUnits));
+                } catch (InvalidCreatureStateException e) {
+                    throw new IOException("Invalid creature " + i + " in checkpoint", e);
+                }
+            }
+
+            List<Creature> creatures = battlefield.getAllCreatures();
+            for (int i = 0; i < creatureCount; i++) {
+                creatures.get(i).restoreState(states.get(i)[0], states.get(i)[1], states.get(i)[2]);
+            }
+            battlefield.restoreProgress(currentRound);
+            battlefield.setStalemateDetection(stalemateDetection);
+            battlefield.setOutputEnabled(outputEnabled);
+            if (counterRandom) {
+                battlefield.enableCounterRandom(counterSeed);
+            }
+            battlefield.enableCheckpoints(path, checkpointEveryRounds, checkpointEveryMillis);
+            return battlefield;
+        }
+    }
+
+    private static void writeTo(Battlefield battlefield, DataOutputStream out) throws IOException {
+        List<Creature> creatures = battlefield.getAllCreatures();
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(battlefield.getMaxRounds());
+        out.writeInt(battlefield.getCurrentRound());
+        out.writeBoolean(battlefield.isStalemateDetection());
+        out.writeBoolean(battlefield.isOutputEnabled());
+        out.writeInt(battlefield.getCheckpointEveryRounds());
+        out.writeLong(battlefield.getCheckpointEveryMillis());
+        BalanceProfile balance = battlefield.getBalanceProfile();
+        out.writeDouble(balance.getCriticalHitChance());
+        out.writeDouble(balance.getCriticalMultiplier());
+        out.writeDouble(balance.getEnrageThreshold());
+        out.writeDouble(balance.getEnrageMultiplier());
+        out.writeDouble(balance.getHealThreshold());
+        out.writeInt(balance.getMaxAoeTargets());
+        // Counters start from 0 every round, so between rounds the seed is all there is
+        out.writeBoolean(battlefield.isCounterRandom());
+        out.writeLong(battlefield.isCounterRandom() ? battlefield.getCounterRandomSeed() : 0);
+
+        // Each generator is stored once, creatures refer to it by index
+        Map<Random, Integer> randomIndex = new IdentityHashMap<>();
+        for (Creature creature : creatures) {
+            randomIndex.putIfAbsent(creature.getTemplate().getRandom(), randomIndex.size());
+        }
+        Random[] randoms = new Random[randomIndex.size()];
+        randomIndex.forEach((random, index) -> randoms[index] = random);
+        out.writeInt(randoms.length);
+        for (Random random : randoms) {
+            writeRandom(random, out);
+        }
+
+        // Templates too, so 100,000 identical orcs still share one after resuming
+        Map<CreatureTemplate, Integer> templateIndex = new IdentityHashMap<>();
+        for (Creature creature : creatures) {
+            templateIndex.putIfAbsent(creature.getTemplate(), templateIndex.size());
+        }
+        CreatureTemplate[] templates = new CreatureTemplate[templateIndex.size()];
+        templateIndex.forEach((template, index) -> templates[index] = template);
+        out.writeInt(templates.length);
+        for (CreatureTemplate template : templates) {
+            if (template.getType() == null) {
+                throw new IOException("Creatures of custom classes can't be saved: " + template.getName());
+            }
+            out.writeByte(template.getType().ordinal());
+            out.writeUTF(template.getName());
+            out.writeByte(template.getTeam().ordinal());
+            out.writeInt(template.getMaxHealth());
+            out.writeInt(template.getAttackPower());
+            out.writeInt(template.getDefense());
+            out.writeInt(template.getInitiative());
+            out.writeInt(template.getHealPower());
+            out.writeInt(randomIndex.get(template.getRandom()));
+        }
+
+        out.writeInt(creatures.size());
+        for (int i = 0; i < creatures.size(); i++) {
+            Creature creature = creatures.get(i);
+            out.writeInt(templateIndex.get(creature.getTemplate()));
+            out.writeBoolean(creature.hasOwnName());
+            if (creature.hasOwnName()) {
+                out.writeUTF(creature.getName());
+            }
+            out.writeInt(creature.getHealth());
+            out.writeInt(creature.getStackSize());
+            out.writeInt(battlefield.getStartUnits(i));
+            out.writeInt(creature.getStateFlags());
+        }
+    }
+
+    private static CreatureTemplate readTemplate(DataInputStream in, List<Random> randoms) throws IOException {
+        CreatureType type = readOrdinal(in, CreatureType.values(), "creature type");
+        String name = in.readUTF();
+        Team team = readOrdinal(in, Team.values(), "team");
+        int maxHealth = in.readInt();
+        int attackPower = in.readInt();
+        int defense = in.readInt();
+        int initiative = in.readInt();
+        int healPower = in.readInt();
+        int randomIndex = in.readInt();
+        if (randomIndex < 0 || randomIndex >= randoms.size()) {
+            throw new IOException("Template " + name + " refers to unknown random generator " + randomIndex);
+        }
+        try {
+            return new CreatureTemplate(type, name, maxHealth, attackPower, defense, initiative, team, healPower,
+                    randoms.get(randomIndex));
+        } catch (InvalidCreatureStateException e) {
+            throw new IOException("Invalid template in checkpoint: " + name, e);
+        }
+    }
+
+    private static int readCount(DataInputStream in, String what) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of " + what + " in checkpoint: " + count);
+        }
+        return count;
+    }
+
+    private static <E extends Enum<E>> E readOrdinal(DataInputStream in, E[] values, String what) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Invalid " + what + " in checkpoint: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * java.util.Random keeps its seed private, but its serialized form contains it.
+     */
+    private static void writeRandom(Random random, DataOutputStream out) throws IOException {
+        if (random.getClass() != Random.class) {
+            throw new IOException("Only java.util.Random can be saved, got: " + random.getClass().getName());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(random);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private static Random readRandom(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > MAX_RANDOM_BYTES) {
+            throw new IOException("Invalid random generator size in checkpoint: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            objects.setObjectInputFilter(RANDOM_ONLY);
+            return (Random) objects.readObject();
+        } catch (ClassNotFoundException | ClassCastException | InvalidClassException e) {
+            throw new IOException("Invalid random generator state in checkpoint", e);
+        }
+    }
+}
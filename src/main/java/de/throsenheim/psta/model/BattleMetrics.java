@@ -0,0 +1,152 @@
+package de.throsenheim.psta.model;
+
+import java.util.Arrays;
+
+/**
+ * Counters collected while a battle runs, see {@link Battlefield#setMetricsEnabled(boolean)}.
+ *
+ * Counters per creature live in primitive arrays indexed by the creature's position in
+ * {@link Battlefield#getAllCreatures()}, so updating them never allocates. When metrics are
+ * off the battlefield has no instance at all and creatures skip the bookkeeping after one
+ * null check. {@link Battlefield#getLeaderboard()} turns the counters into one
+ * {@link CombatRecord} per creature.
+ */
+public final class BattleMetrics {
+
+    private final long[] damageDealt;
+    private final long[] damageTaken;
+    private final int[] kills;
+    private final long[] healingGiven;
+    private final long[] overheal;
+    private final int[] crits;
+    private final int[] defeatedInRound;
+    private int firstEnrageRound;
+
+    BattleMetrics(int creatures) {
+        this.damageDealt = new long[creatures];
+        this.damageTaken = new long[creatures];
+        this.kills = new int[creatures];
+        this.healingGiven = new long[creatures];
+        this.overheal = new long[creatures];
+        this.crits = new int[creatures];
+        this.defeatedInRound = new int[creatures];
+    }
+
+    /**
+     * Sets every counter back to zero, for a battle that is played again after {@link Battlefield#reset(long)}.
+     */
+    void clear() {
+        Arrays.fill(damageDealt, 0);
+        Arrays.fill(damageTaken, 0);
+        Arrays.fill(kills, 0);
+        Arrays.fill(healingGiven, 0);
+        Arrays.fill(overheal, 0);
+        Arrays.fill(crits, 0);
+        Arrays.fill(defeatedInRound, 0);
+        firstEnrageRound = 0;
+    }
+
+    /**
+     * Counts one hit.
+     *
+     * @param attacker index of the attacker
+     * @param target index of the target
+     * @param amount health the target lost
+     * @param killed whether the hit defeated the target
+     */
+    void hit(int attacker, int target, long amount, boolean killed) {
+        damageDealt[attacker] += amount;
+        damageTaken[target] += amount;
+        if (killed) {
+            kills[attacker]++;
+        }
+    }
+
+    void healed(int healer, int healed, int wasted) {
+        healingGiven[healer] += healed;
+        overheal[healer] += wasted;
+    }
+
+    void criticalHit(int creature) {
+        crits[creature]++;
+    }
+
+    void defeated(int creature, int round) {
+        defeatedInRound[creature] = round;
+    }
+
+    void enraged(int round) {
+        if (firstEnrageRound == 0) {
+            firstEnrageRound = round;
+        }
+    }
+
+    // Getters
+
+    public int getCreatureCount() {
+        return damageDealt.length;
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return health the creature took from its targets
+     */
+    public long getDamageDealt(int creature) {
+        return damageDealt[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return health the creature lost to attacks
+     */
+    public long getDamageTaken(int creature) {
+        return damageTaken[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return number of enemies the creature finished off
+     */
+    public int getKills(int creature) {
+        return kills[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return health the creature restored on allies
+     */
+    public long getHealingGiven(int creature) {
+        return healingGiven[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return healing the creature cast on allies that were already at full health
+     */
+    public long getOverheal(int creature) {
+        return overheal[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return number of critical hits the creature landed
+     */
+    public int getCrits(int creature) {
+        return crits[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return round the creature was defeated in, 0 if it is still alive
+     */
+    public int getDefeatedInRound(int creature) {
+        return defeatedInRound[creature];
+    }
+
+    /**
+     * @return round of the first enrage in the battle, 0 if nobody enraged
+     */
+    public int getFirstEnrageRound() {
+        return firstEnrageRound;
+    }
+}
@@ -0,0 +1,81 @@
+package de.throsenheim.psta.model;
+
+/**
+ * Outcome of {@link Battlefield#run(RunOptions)}.
+ * A battle that was cut short has no winner unless one team was already wiped out.
+ */
+public final class BattleResult {
+
+    /**
+     * Why the battle stopped.
+     */
+    public enum StopReason {
+        /** One team has no living creatures left */
+        TEAM_DEFEATED,
+        /** The max rounds were played, the team with more health won */
+        MAX_ROUNDS,
+        /** The cancellation token was cancelled */
+        CANCELLED,
+        /** The time limit ran out */
+        TIME_LIMIT,
+        /** The CPU budget ran out */
+        CPU_BUDGET;
+
+        /**
+         * @return true if the battle did not reach its normal end
+         */
+        public boolean isCutShort() {
+            return this == CANCELLED || this == TIME_LIMIT || this == CPU_BUDGET;
+        }
+    }
+
+    private final StopReason stopReason;
+    private final Team winner;
+    private final int rounds;
+    private final long livingHeroes;
+    private final long livingMonsters;
+
+    BattleResult(StopReason stopReason, Team winner, int rounds, long livingHeroes, long livingMonsters) {
+        this.stopReason = stopReason;
+        this.winner = winner;
+        this.rounds = rounds;
+        this.livingHeroes = livingHeroes;
+        this.livingMonsters = livingMonsters;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public boolean isCutShort() {
+        return stopReason.isCutShort();
+    }
+
+    /**
+     * @return the winning team, null if the battle was cut short before it was decided
+     */
+    public Team getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return number of rounds started, the last one may be unfinished if the battle was cut short
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    public long getLivingHeroes() {
+        return livingHeroes;
+    }
+
+    public long getLivingMonsters() {
+        return livingMonsters;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BattleResult[%s, winner=%s, rounds=%d, heroes=%d, monsters=%d]",
+                stopReason, winner, rounds, livingHeroes, livingMonsters);
+    }
+}
@@ -1,7 +1,16 @@
 package de.throsenheim.psta.model;
 
+import de.throsenheim.psta.events.BattleEvent;
+import de.throsenheim.psta.events.BattleEventPublisher;
 import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.creatures.ArmyGenerator;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -10,26 +19,94 @@ import java.util.stream.Collectors;
  */
 public class Battlefield {
     
-    private final List<Creature> allCreatures;
+    /** The CPU clock is slow to read, so the CPU budget is only checked every this many checks */
+    private static final int CPU_CHECK_INTERVAL = 64;
+    
+    /** Simulated time of one round in {@link TurnMode#ACTIVE_TIME} mode */
+    private static final int ROUND_TICKS = 1000;
+    
+    private final ArrayList<Creature> allCreatures;
     private final Map<Team, List<Creature>> teamMap;
+    private final Map<Team, LivingView> livingViews;
+    private final NameIndex names;
     private final int maxRounds;
+    private final BalanceProfile balanceProfile;
     private int currentRound;
     private Team winnerTeam;
+    private final StalemateDetector stalemateDetector;
+    private boolean stalemateDetection;
+    private boolean randomChoiceThisRound;
+    private Path checkpointPath;
+    private int checkpointEveryRounds;
+    private long checkpointEveryMillis;
+    private int lastCheckpointRound;
+    private long lastCheckpointNanos;
+    private Creature[] initiativeOrder;
+    private TurnMode turnMode = TurnMode.ROUNDS;
+    private final ActionQueue actionQueue = new ActionQueue();
+    private long[] actionIntervals = new long[0];
+    private boolean actionQueueReady;
+    private boolean outputEnabled;
+    private boolean stacked;
+    private boolean metricsEnabled;
+    private BattleMetrics metrics;
+    private boolean threatEnabled;
+    private ThreatTable threat;
+    private Creature[] areaTargets = new Creature[0];
+    private int[] areaHealth = new int[0];
+    private int[] areaDefense = new int[0];
+    private BattleEventPublisher events;
+    private RunOptions runOptions = RunOptions.NONE;
+    private long deadlineNanos;
+    private long cpuDeadlineNanos;
+    private boolean cpuClockAvailable;
+    private int checksSinceCpuRead;
+    private BattleResult.StopReason stopReason;
+    private long flightId;
+    private int[] startUnits = new int[8];
+    private FlightEvents.Action flightAction;
+    private final RoundDeltas roundDeltas = new RoundDeltas();
+    private RoundLog roundLog;
+    private CounterRandom counterRandom;
     
     public Battlefield(int maxRounds) {
+        this(maxRounds, BalanceProfile.DEFAULT);
+    }
+    
+    /**
+     * Creates a battlefield whose creatures fight with the given balance constants.
+     * 
+     * @param maxRounds maximum number of rounds
+     * @param balanceProfile the balance constants
+     */
+    public Battlefield(int maxRounds, BalanceProfile balanceProfile) {
         if (maxRounds <= 0) {
             throw new GameConfigurationException("Max rounds must be positive, got: " + maxRounds);
         }
+        if (balanceProfile == null) {
+            throw new GameConfigurationException("Balance profile cannot be null");
+        }
         
         this.allCreatures = new ArrayList<>();
         this.teamMap = new HashMap<>();
         this.maxRounds = maxRounds;
+        this.balanceProfile = balanceProfile;
         this.currentRound = 0;
         this.winnerTeam = null;
+        this.stalemateDetector = new StalemateDetector();
+        this.stalemateDetection = true;
+        this.outputEnabled = true;
+        this.livingViews = new EnumMap<>(Team.class);
+        this.names = new NameIndex();
+        this.events = new BattleEventPublisher();
+        this.flightId = FlightEvents.nextBattleId();
         
-        // Initialize team lists
-        teamMap.put(Team.HEROES, new ArrayList<>());
-        teamMap.put(Team.MONSTERS, new ArrayList<>());
+        // Initialize team lists and their living views
+        for (Team team : Team.values()) {
+            List<Creature> members = new ArrayList<>();
+            teamMap.put(team, members);
+            livingViews.put(team, new LivingView(team, members));
+        }
     }
     
     // Add a creature to the battlefield
@@ -38,21 +115,68 @@ public class Battlefield {
             throw new GameConfigurationException("Cannot add null creature");
         }
         
-        // Check for duplicate names
-        boolean duplicateName = allCreatures.stream()
-                .anyMatch(c -> c.getName().equalsIgnoreCase(creature.getName()));
-        
-        if (duplicateName) {
+        // Check for duplicate names (ignoring case), the index keeps this fast for big armies.
+        // Creatures without their own name are told apart by their id
+        if (creature.hasOwnName() && !names.add(creature.getName())) {
             throw new GameConfigurationException(
                 "Duplicate creature name: " + creature.getName());
         }
         
         allCreatures.add(creature);
+        if (startUnits.length < allCreatures.size()) {
+            startUnits = Arrays.copyOf(startUnits, startUnits.length * 2);
+        }
+        startUnits[allCreatures.size() - 1] = creature.getStackSize();
         teamMap.get(creature.getTeam()).add(creature);
+        stacked |= creature.getStackSize() > 1;
+        livingViews.get(creature.getTeam()).memberAdded(creature);
+        creature.setBattlefield(this, allCreatures.size() - 1);
+    }
+    
+    /**
+     * Makes room for more creatures up front, so adding a big army doesn't grow
+     * the internal lists and the name index step by step.
+     * 
+     * @param creatures total number of creatures expected
+     */
+    public void ensureCapacity(int creatures) {
+        allCreatures.ensureCapacity(creatures);
+        names.ensureCapacity(creatures);
+    }
+    
+    /**
+     * Adds a generated army. Its creatures are made one after the other while they are
+     * added, so the army never exists as a list of specs next to the battlefield.
+     * 
+     * @param army the army
+     * @param random random number generator of the army's creatures
+     */
+    public void addArmy(ArmyGenerator army, Random random) {
+        if (army == null || random == null) {
+            throw new GameConfigurationException("Army and random number generator are required");
+        }
+        ensureCapacity(allCreatures.size() + army.size());
+        for (int i = 0; i < army.size(); i++) {
+            addCreature(army.create(i, random));
+        }
     }
     
     // Runs the battle
     public void startBattle() {
+        run(RunOptions.NONE);
+    }
+    
+    /**
+     * Runs the battle with limits and a progress listener.
+     * Time limit, CPU budget and cancellation are checked between rounds and between the
+     * actions of a round. A battle that was cut short can't be continued; its result says so,
+     * and running it again fails until it is {@link #reset(long)}.
+     * 
+     * @param options limits and listener, {@link RunOptions#NONE} for a plain battle
+     * @return how the battle ended
+     * @throws GameConfigurationException if the battle can't start, e.g. because it was cut short
+     */
+    public BattleResult run(RunOptions options) {
         if (allCreatures.isEmpty()) {
             throw new GameConfigurationException("Cannot start battle with no creatures");
         }
@@ -61,48 +185,615 @@ public class Battlefield {
         if (teamMap.get(Team.HEROES).isEmpty() || teamMap.get(Team.MONSTERS).isEmpty()) {
             throw new GameConfigurationException("Both teams must have at least one creature");
         }
+        if (options == null) {
+            throw new GameConfigurationException("Run options cannot be null");
+        }
+        if (stopReason != null && stopReason.isCutShort()) {
+            // The last round stopped between two actions, it can't be finished without replaying it
+            throw new GameConfigurationException("The battle was cut short in round " + currentRound
+                    + " (" + stopReason + "), reset it before running it again");
+        }
+        if (turnMode == TurnMode.ACTIVE_TIME && checkpointPath != null) {
+            throw new GameConfigurationException("Checkpoints are only supported in " + TurnMode.ROUNDS + " mode");
+        }
+        if (threatEnabled && checkpointPath != null) {
+            throw new GameConfigurationException("Checkpoints don't store threat, turn one of them off");
+        }
         
-        System.out.println("=".repeat(70));
-        System.out.println("BATTLE BEGINS!");
-        System.out.println("=".repeat(70));
-        printTeams();
-        System.out.println();
+        if (outputEnabled) {
+            System.out.println("=".repeat(70));
+            System.out.println(currentRound == 0 ? "BATTLE BEGINS!" : "BATTLE RESUMES AFTER ROUND " + currentRound + "!");
+            System.out.println("=".repeat(70));
+            printTeams();
+            System.out.println();
+        }
+        if (events.hasSubscribers()) {
+            events.publish(BattleEvent.battleStarted(currentRound));
+        }
+        if (FlightEvents.isBattleStartedEnabled()) {
+            FlightEvents.BattleStarted started = new FlightEvents.BattleStarted();
+            if (started.shouldCommit()) {
+                started.battleId = flightId;
+                started.startRound = currentRound;
+                started.creatures = allCreatures.size();
+                started.maxRounds = maxRounds;
+                started.commit();
+            }
+        }
+        FlightEvents.Battle flightBattle = null;
+        if (FlightEvents.isBattleEnabled()) {
+            flightBattle = new FlightEvents.Battle();
+            flightBattle.begin();
+        }
+        int startRound = currentRound;
+        
+        // Initiative never changes, so the turn order is sorted once (stable, like the old per-round sort)
+        // and kept for battles played again after a reset
+        if (initiativeOrder == null || initiativeOrder.length != allCreatures.size()) {
+            initiativeOrder = allCreatures.toArray(new Creature[0]);
+            Arrays.sort(initiativeOrder);
+            actionQueueReady = false;
+        }
+        if (turnMode == TurnMode.ACTIVE_TIME && !actionQueueReady) {
+            scheduleFirstActions();
+        }
+        startLimits(options);
+        startMetrics();
+        startThreat();
+        if (outputEnabled || roundLog != null) {
+            roundDeltas.start(allCreatures);
+        }
+        if (roundLog != null) {
+            roundLog.start(allCreatures, currentRound);
+        }
+        ProgressListener progressListener = options.getProgressListener();
         
         // Main battle loop
-        while (currentRound < maxRounds && !isBattleOver()) {
+        stalemateDetector.reset();
+        lastCheckpointRound = currentRound;
+        lastCheckpointNanos = System.nanoTime();
+        while (currentRound < maxRounds && !isBattleOver() && !shouldStop()) {
             currentRound++;
+            randomChoiceThisRound = false;
             executeRound();
+            if (stopReason != null) {
+                // The round is unfinished, so it is neither checkpointed nor reported
+                break;
+            }
+            checkpointIfDue();
+            
+            // Skipped rounds would be missing from the metrics and the round log, so they are played when
+            // either is on. In active-time mode the state includes the action times, and with threat the
+            // growing tables, so cycles aren't detected there
+            if (stalemateDetection && metrics == null && roundLog == null && threat == null && !randomChoiceThisRound
+                    && turnMode == TurnMode.ROUNDS) {
+                int period = stalemateDetector.observe(allCreatures, currentRound);
+                if (period > 0) {
+                    skipRepeatingRounds(period);
+                }
+            } else {
+                stalemateDetector.reset();
+            }
+            if (progressListener != null) {
+                progressListener.roundCompleted(currentRound, getLivingCount(Team.HEROES), getLivingCount(Team.MONSTERS));
+            }
         }
         
         // Determine and announce winner
-        determineWinner();
-        printBattleResults();
+        if (isBattleOver()) {
+            stopReason = BattleResult.StopReason.TEAM_DEFEATED;
+        } else if (stopReason == null) {
+            stopReason = BattleResult.StopReason.MAX_ROUNDS;
+        }
+        if (!stopReason.isCutShort()) {
+            determineWinner();
+        }
+        if (outputEnabled) {
+            printBattleResults();
+        }
+        if (events.hasSubscribers()) {
+            events.publish(BattleEvent.battleEnded(currentRound, winnerTeam));
+        }
+        if (roundLog != null) {
+            roundLog.finish();
+        }
+        events.close();
+        if (flightBattle != null) {
+            flightBattle.end();
+        }
+        if (flightBattle != null && flightBattle.shouldCommit()) {
+            flightBattle.battleId = flightId;
+            flightBattle.startRound = startRound;
+            flightBattle.endRound = currentRound;
+            flightBattle.winner = winnerTeam != null ? winnerTeam.name() : null;
+            flightBattle.stopReason = stopReason.name();
+            flightBattle.commit();
+        }
+        
+        BattleResult result = new BattleResult(stopReason, winnerTeam, currentRound,
+                getLivingCount(Team.HEROES), getLivingCount(Team.MONSTERS));
+        runOptions = RunOptions.NONE;
+        return result;
+    }
+    
+    /**
+     * Puts the battle back to where it was before its first round, so the same creatures
+     * can fight again without building anything new. Every creature gets its full health and
+     * its original number of units back and loses state like an enrage, and the random
+     * generators of all creatures are seeded with {@code seed}. For a battlefield whose creatures
+     * share one generator, as built by {@code BattleFactory}, the next battle is exactly the one
+     * a fresh battlefield with {@code new Random(seed)} would play. With counter-based random numbers
+     * the seed becomes the new battle seed, see {@link #enableCounterRandom(long)}.
+     * Settings like output, metrics and stalemate detection are kept.
+     * 
+     * @param seed seed for the creatures' random number generators
+     */
+    public void reset(long seed) {
+        for (int i = 0; i < allCreatures.size(); i++) {
+            Creature creature = allCreatures.get(i);
+            creature.restoreState(creature.getMaxHealth(), startUnits[i], 0);
+            // Creatures usually share one generator, setting the same seed twice does no harm
+            creature.getTemplate().getRandom().setSeed(seed);
+        }
+        if (counterRandom != null) {
+            counterRandom.setSeed(seed);
+        }
+        livingViews.values().forEach(LivingView::recount);
+        
+        currentRound = 0;
+        winnerTeam = null;
+        stopReason = null;
+        randomChoiceThisRound = false;
+        stalemateDetector.reset();
+        actionQueueReady = false;
+        if (metrics != null) {
+            metrics.clear();
+        }
+        if (threat != null) {
+            threat.clear();
+        }
+        if (events.isClosed()) {
+            events = events.reopen();
+        }
+        flightId = FlightEvents.nextBattleId();
+    }
+    
+    /**
+     * Starts the clocks of the time limit and CPU budget.
+     */
+    private void startLimits(RunOptions options) {
+        runOptions = options;
+        stopReason = null;
+        checksSinceCpuRead = 0;
+        if (options.getTimeLimit() != null) {
+            deadlineNanos = System.nanoTime() + options.getTimeLimit().toNanos();
+        }
+        if (options.getCpuBudget() != null) {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            cpuClockAvailable = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+            // Without a CPU clock the budget is measured in wall-clock time
+            cpuDeadlineNanos = options.getCpuBudget().toNanos()
+                    + (cpuClockAvailable ? threads.getCurrentThreadCpuTime() : System.nanoTime());
+        }
+    }
+    
+    /**
+     * Creates the metrics counters if they are switched on. They are kept until {@link #reset(long)}
+     * clears them, so a finished battle can still be inspected.
+     */
+    private void startMetrics() {
+        if (!metricsEnabled) {
+            metrics = null;
+        } else if (metrics == null || metrics.getCreatureCount() != allCreatures.size()) {
+            metrics = new BattleMetrics(allCreatures.size());
+        }
+    }
+    
+    /**
+     * Creates the threat table on the first run with threat on; {@link #reset(long)} clears it.
+     */
+    private void startThreat() {
+        if (!threatEnabled) {
+            threat = null;
+        } else if (threat == null || threat.getCreatureCount() != allCreatures.size()) {
+            threat = new ThreatTable(allCreatures);
+        }
+    }
+    
+    /**
+     * Checks the cancellation token, time limit and CPU budget.
+     * 
+     * @return true if the battle has to stop, the reason is kept in {@code stopReason}
+     */
+    private boolean shouldStop() {
+        if (stopReason != null) {
+            return true;
+        }
+        if (!runOptions.hasLimits()) {
+            return false;
+        }
+        
+        CancellationToken token = runOptions.getCancellationToken();
+        if (token != null && token.isCancelled()) {
+            stopReason = BattleResult.StopReason.CANCELLED;
+        } else if (runOptions.getTimeLimit() != null && System.nanoTime() - deadlineNanos >= 0) {
+            stopReason = BattleResult.StopReason.TIME_LIMIT;
+        } else if (runOptions.getCpuBudget() != null && checksSinceCpuRead++ % CPU_CHECK_INTERVAL == 0) {
+            long now = cpuClockAvailable ? ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime() : System.nanoTime();
+            if (now - cpuDeadlineNanos >= 0) {
+                stopReason = BattleResult.StopReason.CPU_BUDGET;
+            }
+        }
+        return stopReason != null;
     }
     
     /**
      * Executes a single round of combat.
-     * Creatures act in order of initiative (using Comparable implementation).
+     * Creatures act in order of initiative (using Comparable implementation),
+     * or in order of their action times in {@link TurnMode#ACTIVE_TIME} mode.
      */
     private void executeRound() {
-        System.out.println("\n" + "=".repeat(70));
-        System.out.println("ROUND " + currentRound);
-        System.out.println("=".repeat(70));
+        FlightEvents.Round flightRound = null;
+        if (FlightEvents.isRoundEnabled()) {
+            flightRound = new FlightEvents.Round();
+            flightRound.begin();
+        }
+        if (outputEnabled) {
+            System.out.println("\n" + "=".repeat(70));
+            System.out.println("ROUND " + currentRound);
+            System.out.println("=".repeat(70));
+        }
         
-        // Get living creatures and sort by initiative (natural ordering via Comparable)
-        List<Creature> actingCreatures = allCreatures.stream()
-                .filter(Creature::isAlive)
-                .sorted() // Uses Creature.compareTo() - higher initiative first
-                .collect(Collectors.toList());
+        boolean finished = turnMode == TurnMode.ACTIVE_TIME ? actInActiveTime() : actInInitiativeOrder();
+        if (!finished) {
+            return;
+        }
+        if (flightRound != null) {
+            flightRound.end();
+        }
+        if (flightRound != null && flightRound.shouldCommit()) {
+            flightRound.battleId = flightId;
+            flightRound.round = currentRound;
+            flightRound.livingHeroes = getLivingCount(Team.HEROES);
+            flightRound.livingMonsters = getLivingCount(Team.MONSTERS);
+            flightRound.commit();
+        }
         
-        // Each creature performs its action
-        for (Creature creature : actingCreatures) {
+        if (outputEnabled || roundLog != null) {
+            roundDeltas.collect(allCreatures);
+        }
+        if (outputEnabled) {
+            printRoundSummary();
+        }
+        if (roundLog != null) {
+            roundLog.writeRound(currentRound, roundDeltas);
+        }
+        if (events.hasSubscribers()) {
+            int[] health = new int[allCreatures.size()];
+            for (int i = 0; i < health.length; i++) {
+                health[i] = allCreatures.get(i).getHealth();
+            }
+            events.publish(BattleEvent.roundSummary(currentRound, health));
+        }
+    }
+    
+    /**
+     * Each living creature performs its action, higher initiative first.
+     * 
+     * @return false if the battle had to stop in the middle of the round
+     */
+    private boolean actInInitiativeOrder() {
+        for (Creature creature : initiativeOrder) {
+            if (shouldStop()) {
+                return false;
+            }
             if (creature.isAlive() && !isBattleOver()) {
+                if (outputEnabled) {
+                    System.out.println("\n[" + creature.getName() + "'s turn]");
+                }
+                performAction(creature);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Plays every action that falls into the simulated time of the current round,
+     * in order of time. A creature that stops the battle in the middle keeps its turn.
+     * 
+     * @return false if the battle had to stop in the middle of the round
+     */
+    private boolean actInActiveTime() {
+        long roundEnd = (long) currentRound * ROUND_TICKS;
+        while (!actionQueue.isEmpty() && actionQueue.peekTime() < roundEnd && !isBattleOver()) {
+            if (shouldStop()) {
+                return false;
+            }
+            int position = actionQueue.peek();
+            Creature creature = initiativeOrder[position];
+            if (!creature.isAlive()) {
+                // Defeated creatures leave the queue when their turn comes up
+                actionQueue.poll();
+                continue;
+            }
+            
+            if (outputEnabled) {
                 System.out.println("\n[" + creature.getName() + "'s turn]");
-                creature.performRoundAction(this);
             }
+            performAction(creature);
+            actionQueue.rescheduleFirst(actionQueue.peekTime() + actionIntervals[position]);
+        }
+        return true;
+    }
+    
+    /**
+     * Fills the action queue for {@link TurnMode#ACTIVE_TIME}. The time between two actions
+     * is inversely proportional to the initiative, scaled so a creature with the average
+     * initiative acts once per round; its first action comes at the end of its first interval.
+     */
+    private void scheduleFirstActions() {
+        int count = initiativeOrder.length;
+        double totalInitiative = 0;
+        for (Creature creature : initiativeOrder) {
+            totalInitiative += Math.max(1, creature.getInitiative());
+        }
+        double meanInitiative = totalInitiative / count;
+        
+        if (actionIntervals.length < count) {
+            actionIntervals = new long[count];
+        }
+        actionQueue.clear(count);
+        long start = (long) currentRound * ROUND_TICKS;
+        for (int position = 0; position < count; position++) {
+            Creature creature = initiativeOrder[position];
+            actionIntervals[position] = Math.max(1,
+                    Math.round(ROUND_TICKS * meanInitiative / Math.max(1, creature.getInitiative())));
+            if (creature.isAlive()) {
+                actionQueue.add(position, start + actionIntervals[position] - 1);
+            }
+        }
+        actionQueueReady = true;
+    }
+    
+    /**
+     * Lets a creature act, recording its turn as a flight recorder event when that is enabled.
+     * The hit and heal callbacks fill in the event while the action runs.
+     */
+    private void performAction(Creature creature) {
+        if (!FlightEvents.isActionEnabled()) {
+            creature.performRoundAction(this);
+            return;
+        }
+        
+        FlightEvents.Action action = new FlightEvents.Action();
+        action.begin();
+        flightAction = action;
+        try {
+            creature.performRoundAction(this);
+        } finally {
+            flightAction = null;
+        }
+        action.end();
+        if (action.shouldCommit()) {
+            action.battleId = flightId;
+            action.round = currentRound;
+            action.creature = creature.getName();
+            action.creatureClass = creature.getClass();
+            if (action.actionKind == null) {
+                action.actionKind = action.targetsHit > 1 ? FlightEvents.AREA_ATTACK
+                        : action.targetsHit == 1 ? FlightEvents.ATTACK : FlightEvents.NONE;
+            }
+            action.commit();
+        }
+    }
+    
+    /**
+     * Writes a checkpoint if enough rounds or enough time have passed since the last one.
+     */
+    private void checkpointIfDue() {
+        if (checkpointPath == null) {
+            return;
+        }
+        
+        boolean roundsDue = checkpointEveryRounds > 0 && currentRound - lastCheckpointRound >= checkpointEveryRounds;
+        boolean timeDue = checkpointEveryMillis > 0
+                && System.nanoTime() - lastCheckpointNanos >= checkpointEveryMillis * 1_000_000L;
+        if (!roundsDue && !timeDue) {
+            return;
+        }
+        
+        try {
+            BattleCheckpoint.write(this, checkpointPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write checkpoint " + checkpointPath, e);
+        }
+        lastCheckpointRound = currentRound;
+        lastCheckpointNanos = System.nanoTime();
+    }
+    
+    /**
+     * Called by creatures whenever their health or number of units changed, before a defeat is reported.
+     */
+    void healthChanged(Creature creature) {
+        livingViews.get(creature.getTeam()).memberChanged(creature);
+    }
+    
+    /**
+     * Called by creatures when they are defeated.
+     */
+    void creatureDefeated(Creature creature) {
+        livingViews.get(creature.getTeam()).memberDefeated();
+        if (metrics != null) {
+            metrics.defeated(creature.getIndex(), currentRound);
+        }
+        if (events.hasSubscribers()) {
+            events.publish(BattleEvent.defeated(currentRound, creature.getName()));
+        }
+        if (FlightEvents.isDefeatEnabled()) {
+            FlightEvents.Defeat defeat = new FlightEvents.Defeat();
+            defeat.battleId = flightId;
+            defeat.round = currentRound;
+            defeat.creature = creature.getName();
+            defeat.creatureClass = creature.getClass();
+            defeat.team = creature.getTeam().name();
+            defeat.commit();
+        }
+    }
+    
+    /**
+     * Called by creatures when they attack, for the spectators.
+     */
+    void attackPerformed(Creature attacker, Creature target, int damage) {
+        if (flightAction != null) {
+            flightAction.targetsHit++;
+        }
+        if (events.hasSubscribers()) {
+            events.publish(BattleEvent.attack(currentRound, attacker.getName(), target.getName(), damage));
+        }
+    }
+    
+    /**
+     * Called by creatures when they are healed, for the spectators.
+     */
+    void creatureHealed(Creature creature, int amount) {
+        if (events.hasSubscribers()) {
+            events.publish(BattleEvent.healed(currentRound, creature.getName(), amount));
+        }
+    }
+    
+    /**
+     * Hits the first {@code count} members of a living view with the same damage in one pass,
+     * see {@link AreaDamage}. The arrays are reused between spells.
+     * 
+     * @param attacker the creature casting the spell
+     * @param targets the living view to hit
+     * @param count number of members to hit, at most the view size
+     * @param damage damage before defense
+     */
+    void resolveAreaDamage(Creature attacker, LivingView targets, int count, int damage) {
+        if (areaTargets.length < count) {
+            int capacity = Math.max(count, areaTargets.length * 2);
+            areaTargets = new Creature[capacity];
+            areaHealth = new int[capacity];
+            areaDefense = new int[capacity];
+        }
+        
+        int n = 0;
+        for (int i = targets.first(); i >= 0 && n < count; i = targets.next(i)) {
+            Creature target = targets.at(i);
+            areaTargets[n] = target;
+            areaHealth[n] = target.getHealth();
+            areaDefense[n] = target.getDefense();
+            n++;
         }
         
-        printRoundSummary();
+        AreaDamage.apply(damage, areaHealth, areaDefense, n);
+        for (int i = 0; i < n; i++) {
+            Creature target = areaTargets[i];
+            if (metrics != null) {
+                metrics.hit(attacker.getIndex(), target.getIndex(), target.getHealth() - areaHealth[i],
+                        areaHealth[i] == 0);
+            }
+            if (threat != null) {
+                threat.damageDealt(attacker, target, target.getHealth() - areaHealth[i]);
+            }
+            target.applyAreaDamage(areaHealth[i]);
+            areaTargets[i] = null;
+        }
+    }
+    
+    /**
+     * Called by creatures when they hit several targets at once, for the flight recorder.
+     */
+    void areaDamageDealt(int targetsHit) {
+        if (flightAction != null) {
+            flightAction.actionKind = FlightEvents.AREA_ATTACK;
+            flightAction.targetsHit += targetsHit;
+        }
+    }
+    
+    /**
+     * Called by healers after casting a heal, for the metrics and the flight recorder.
+     * 
+     * @param healer the healer
+     * @param amount healing cast
+     * @param healed healing that actually restored health
+     */
+    void healingCast(Creature healer, int amount, int healed) {
+        if (metrics != null) {
+            metrics.healed(healer.getIndex(), healed, amount - healed);
+        }
+        if (threat != null) {
+            threat.healingDone(healer, healed);
+        }
+        if (flightAction != null) {
+            flightAction.actionKind = FlightEvents.HEAL;
+            flightAction.healing += healed;
+        }
+    }
+    
+    /**
+     * Called by creatures when they become enraged, for the metrics and the flight recorder.
+     */
+    void creatureEnraged(Creature creature) {
+        if (metrics != null) {
+            metrics.enraged(currentRound);
+        }
+        if (FlightEvents.isEnrageEnabled()) {
+            FlightEvents.Enrage enrage = new FlightEvents.Enrage();
+            enrage.battleId = flightId;
+            enrage.round = currentRound;
+            enrage.creature = creature.getName();
+            enrage.commit();
+        }
+    }
+    
+    /**
+     * Tells whether any creature was added as a stack of several units.
+     * Stacks take several hits at once, so area damage can't use the batched path.
+     */
+    boolean hasStacks() {
+        return stacked;
+    }
+    
+    /**
+     * Gets the random number generator a creature draws from right now.
+     * 
+     * @param creature a creature of this battle
+     * @return the creature's stream of this round with counter-based random numbers, else its template's generator
+     */
+    Random randomFor(Creature creature) {
+        return counterRandom != null
+                ? counterRandom.select(creature.getIndex(), currentRound)
+                : creature.getTemplate().getRandom();
+    }
+    
+    /**
+     * Called by creatures when a random draw decided part of their action.
+     */
+    void randomChoiceMade() {
+        randomChoiceThisRound = true;
+    }
+    
+    /**
+     * Jumps over whole repetitions of a detected cycle.
+     * The state after skipping is exactly the state the battle would reach by
+     * playing the rounds, so the rest of the battle and the winner are the same.
+     * 
+     * @param period length of the cycle in rounds
+     */
+    private void skipRepeatingRounds(int period) {
+        int skipped = (maxRounds - currentRound) / period * period;
+        if (skipped == 0) {
+            return;
+        }
+        
+        if (outputEnabled) {
+            System.out.println("\n>>> Stalemate detected (repeats every " + period + " rounds), skipping "
+                    + skipped + " rounds <<<");
+        }
+        currentRound += skipped;
+        stalemateDetector.reset();
     }
     
     /**
@@ -111,18 +802,15 @@ public class Battlefield {
      * @return true if battle is over, false otherwise
      */
     private boolean isBattleOver() {
-        boolean heroesAlive = teamMap.get(Team.HEROES).stream().anyMatch(Creature::isAlive);
-        boolean monstersAlive = teamMap.get(Team.MONSTERS).stream().anyMatch(Creature::isAlive);
-        
-        return !heroesAlive || !monstersAlive;
+        return livingViews.get(Team.HEROES).isEmpty() || livingViews.get(Team.MONSTERS).isEmpty();
     }
     
     /**
      * Determines the winning team.
      */
     private void determineWinner() {
-        boolean heroesAlive = teamMap.get(Team.HEROES).stream().anyMatch(Creature::isAlive);
-        boolean monstersAlive = teamMap.get(Team.MONSTERS).stream().anyMatch(Creature::isAlive);
+        boolean heroesAlive = !livingViews.get(Team.HEROES).isEmpty();
+        boolean monstersAlive = !livingViews.get(Team.MONSTERS).isEmpty();
         
         if (heroesAlive && !monstersAlive) {
             winnerTeam = Team.HEROES;
@@ -130,11 +818,11 @@ public class Battlefield {
             winnerTeam = Team.MONSTERS;
         } else if (currentRound >= maxRounds) {
             // Tie or max rounds reached - team with more HP wins
-            int heroesHP = teamMap.get(Team.HEROES).stream()
-                    .mapToInt(Creature::getHealth)
+            long heroesHP = teamMap.get(Team.HEROES).stream()
+                    .mapToLong(Creature::getTotalHealth)
                     .sum();
-            int monstersHP = teamMap.get(Team.MONSTERS).stream()
-                    .mapToInt(Creature::getHealth)
+            long monstersHP = teamMap.get(Team.MONSTERS).stream()
+                    .mapToLong(Creature::getTotalHealth)
                     .sum();
             
             winnerTeam = heroesHP > monstersHP ? Team.HEROES : Team.MONSTERS;
@@ -147,40 +835,54 @@ public class Battlefield {
     private void printTeams() {
         System.out.println("\nTEAM HEROES:");
         teamMap.get(Team.HEROES).forEach(c -> 
-            System.out.println("  - " + c.getName() + " (" + c.getClass().getSimpleName() + 
+            System.out.println("  - " + c.getName() + units(c) + " (" + c.getClass().getSimpleName() + 
                              ") - HP: " + c.getHealth() + ", ATK: " + c.getAttackPower() + 
                              ", DEF: " + c.getDefense() + ", INI: " + c.getInitiative()));
         
         System.out.println("\nTEAM MONSTERS:");
         teamMap.get(Team.MONSTERS).forEach(c -> 
-            System.out.println("  - " + c.getName() + " (" + c.getClass().getSimpleName() + 
+            System.out.println("  - " + c.getName() + units(c) + " (" + c.getClass().getSimpleName() + 
                              ") - HP: " + c.getHealth() + ", ATK: " + c.getAttackPower() + 
                              ", DEF: " + c.getDefense() + ", INI: " + c.getInitiative()));
     }
     
     /**
-     * Prints a summary of the current round.
+     * Formats the unit count of a stack for the battle log, nothing for a single creature.
+     */
+    private static String units(Creature creature) {
+        return creature.getStackSize() > 1 ? " x" + creature.getStackSize() : "";
+    }
+    
+    /**
+     * Prints a summary of the current round. Only creatures whose health or units changed
+     * this round are listed, the rest are as in the summary before (or the team list at the start).
      */
     private void printRoundSummary() {
-        System.out.println("\n--- Round " + currentRound + " Summary ---");
-        
-        System.out.println("HEROES:");
-        teamMap.get(Team.HEROES).forEach(c -> {
-            if (c.isAlive()) {
-                System.out.println("  " + c.getName() + ": " + c.getHealth() + "/" + c.getMaxHealth() + " HP");
-            } else {
-                System.out.println("  " + c.getName() + ": DEFEATED");
-            }
-        });
+        System.out.println("\n--- Round " + currentRound + " Summary ("
+                + getLivingCount(Team.HEROES) + " heroes, " + getLivingCount(Team.MONSTERS) + " monsters alive) ---");
+        if (roundDeltas.getChangedCount() == 0) {
+            System.out.println("  no changes");
+            return;
+        }
         
-        System.out.println("MONSTERS:");
-        teamMap.get(Team.MONSTERS).forEach(c -> {
-            if (c.isAlive()) {
-                System.out.println("  " + c.getName() + ": " + c.getHealth() + "/" + c.getMaxHealth() + " HP");
-            } else {
-                System.out.println("  " + c.getName() + ": DEFEATED");
+        for (Team team : Team.values()) {
+            boolean header = false;
+            for (int i = 0; i < roundDeltas.getChangedCount(); i++) {
+                Creature c = allCreatures.get(roundDeltas.getChanged(i));
+                if (c.getTeam() != team) {
+                    continue;
+                }
+                if (!header) {
+                    System.out.println(team + ":");
+                    header = true;
+                }
+                if (c.isAlive()) {
+                    System.out.println("  " + c.getName() + units(c) + ": " + c.getHealth() + "/" + c.getMaxHealth() + " HP");
+                } else {
+                    System.out.println("  " + c.getName() + ": DEFEATED");
+                }
             }
-        });
+        }
     }
     
     /**
@@ -188,12 +890,15 @@ public class Battlefield {
      */
     private void printBattleResults() {
         System.out.println("\n" + "=".repeat(70));
-        System.out.println("BATTLE ENDED!");
+        boolean cutShort = stopReason != null && stopReason.isCutShort();
+        System.out.println(cutShort ? "BATTLE STOPPED (" + stopReason + ")!" : "BATTLE ENDED!");
         System.out.println("=".repeat(70));
         System.out.println("Total Rounds: " + currentRound);
         
         if (winnerTeam != null) {
             System.out.println("WINNER: TEAM " + winnerTeam);
+        } else if (cutShort) {
+            System.out.println("RESULT: UNDECIDED");
         } else {
             System.out.println("RESULT: DRAW");
         }
@@ -214,21 +919,44 @@ public class Battlefield {
         System.out.println("=".repeat(70));
     }
     
+    /**
+     * Gets the living enemies of the specified creature as a reusable live view.
+     * Unlike {@link #getEnemies(Creature)} this does not create anything.
+     * 
+     * @param creature the creature whose enemies to find
+     * @return live view of the living enemy team
+     */
+    public LivingView getLivingEnemies(Creature creature) {
+        return livingViews.get(creature.getTeam().opponent());
+    }
+    
+    /**
+     * Gets the living members of the specified creature's team as a reusable live view.
+     * The view includes the creature itself.
+     * 
+     * @param creature the creature whose team to find
+     * @return live view of the living creatures on its team
+     */
+    public LivingView getLivingTeam(Creature creature) {
+        return livingViews.get(creature.getTeam());
+    }
+    
     /**
      * Gets all living enemies of the specified creature.
+     * Creates a new list on every call, see {@link #getLivingEnemies(Creature)}.
      * 
      * @param creature the creature whose enemies to find
      * @return list of living enemy creatures
      */
     public List<Creature> getEnemies(Creature creature) {
-        Team enemyTeam = creature.getTeam() == Team.HEROES ? Team.MONSTERS : Team.HEROES;
-        return teamMap.get(enemyTeam).stream()
+        return teamMap.get(creature.getTeam().opponent()).stream()
                 .filter(Creature::isAlive)
                 .collect(Collectors.toList());
     }
     
     /**
      * Gets all living allies of the specified creature (excluding the creature itself).
+     * Creates a new list on every call, see {@link #getLivingTeam(Creature)}.
      * 
      * @param creature the creature whose allies to find
      * @return list of living ally creatures
@@ -240,6 +968,76 @@ public class Battlefield {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Saves the battle to a file while it runs, so a long battle can be continued
+     * with {@link #resume(Path)} if the process dies.
+     * A checkpoint is written after a round when either limit is reached;
+     * a limit of 0 is ignored.
+     * 
+     * @param path the checkpoint file, replaced atomically on every write
+     * @param everyRounds write after this many rounds
+     * @param everyMillis write after this many milliseconds
+     */
+    public void enableCheckpoints(Path path, int everyRounds, long everyMillis) {
+        if (path == null) {
+            throw new GameConfigurationException("Checkpoint path cannot be null");
+        }
+        if (everyRounds < 0 || everyMillis < 0 || (everyRounds == 0 && everyMillis == 0)) {
+            throw new GameConfigurationException(
+                "Checkpoint interval must be positive, got: " + everyRounds + " rounds, " + everyMillis + " ms");
+        }
+        
+        this.checkpointPath = path;
+        this.checkpointEveryRounds = everyRounds;
+        this.checkpointEveryMillis = everyMillis;
+    }
+    
+    /**
+     * Continues a battle from a checkpoint written by {@link #enableCheckpoints}.
+     * The battle is played to the end with the same result an uninterrupted run would have had,
+     * and keeps writing checkpoints to the same file.
+     * To change settings like metrics or a round log first, use {@link #restore(Path)}.
+     * 
+     * @param checkpoint the checkpoint file
+     * @return the finished battlefield
+     * @throws IOException if the checkpoint can't be read
+     */
+    public static Battlefield resume(Path checkpoint) throws IOException {
+        Battlefield battlefield = restore(checkpoint);
+        battlefield.startBattle();
+        return battlefield;
+    }
+    
+    /**
+     * Rebuilds a battle from a checkpoint without playing it. The battlefield stands at the saved round
+     * with the saved settings, including whether the log is printed; {@link #startBattle()} continues it.
+     * 
+     * @param checkpoint the checkpoint file
+     * @return the restored battlefield
+     * @throws IOException if the checkpoint can't be read
+     */
+    public static Battlefield restore(Path checkpoint) throws IOException {
+        return BattleCheckpoint.read(checkpoint);
+    }
+    
+    /**
+     * @param index position of the creature in {@link #getAllCreatures()}
+     * @return number of units the creature had when it was added, which {@link #reset(long)} brings back
+     */
+    int getStartUnits(int index) {
+        return startUnits[index];
+    }
+    
+    /**
+     * Sets the round a restored battle continues from.
+     */
+    void restoreProgress(int round) {
+        this.currentRound = round;
+        actionQueueReady = false;
+        livingViews.values().forEach(LivingView::recount);
+        stacked = allCreatures.stream().anyMatch(c -> c.getStackSize() > 1);
+    }
+    
     // Getters
     
     public int getCurrentRound() {
@@ -254,6 +1052,249 @@ public class Battlefield {
         return winnerTeam;
     }
     
+    /**
+     * Live events of this battle for spectators. Subscribers are served on other threads
+     * and never slow the battle down, so a silent battle can still be watched.
+     * 
+     * @return the event publisher
+     */
+    public BattleEventPublisher getEvents() {
+        return events;
+    }
+    
+    /**
+     * Replaces the event publisher, e.g. with one that delivers on a dedicated executor.
+     * A {@link #reset(long) reset} after the battle keeps its executor, capacity and overflow policy.
+     * 
+     * @param events the new publisher
+     */
+    public void setEvents(BattleEventPublisher events) {
+        if (events == null) {
+            throw new GameConfigurationException("Event publisher cannot be null");
+        }
+        this.events = events;
+    }
+    
+    public BalanceProfile getBalanceProfile() {
+        return balanceProfile;
+    }
+    
+    public boolean isOutputEnabled() {
+        return outputEnabled;
+    }
+    
+    /**
+     * Turns the battle log on the console on or off (on by default).
+     * Batch runs switch it off; a silent battle does not create any garbage per round.
+     * 
+     * @param outputEnabled true to print the battle
+     */
+    public void setOutputEnabled(boolean outputEnabled) {
+        this.outputEnabled = outputEnabled;
+    }
+    
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+    
+    /**
+     * Turns the collection of battle metrics on or off (off by default).
+     * With metrics on, repeating rounds are played instead of skipped.
+     * 
+     * @param metricsEnabled true to count damage, kills, healing, crits and enrages per creature
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+    
+    /**
+     * Gets the metrics of the last run, see {@link #setMetricsEnabled(boolean)}.
+     * 
+     * @return the metrics, or null if they are off or the battle has not started yet
+     */
+    public BattleMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gets what every creature did in the last run, best damage dealers first.
+     * 
+     * @return one record per creature
+     * @throws GameConfigurationException if the battle ran without metrics
+     */
+    public List<CombatRecord> getLeaderboard() {
+        return getLeaderboard(CombatRecord.BY_DAMAGE_DEALT);
+    }
+    
+    /**
+     * Gets what every creature did in the last run, in the given order.
+     * Creatures that compare equal keep their insertion order.
+     * 
+     * @param order the ranking, e.g. {@link CombatRecord#BY_DAMAGE_DEALT}
+     * @return one record per creature
+     * @throws GameConfigurationException if the battle ran without metrics
+     */
+    public List<CombatRecord> getLeaderboard(Comparator<CombatRecord> order) {
+        if (metrics == null) {
+            throw new GameConfigurationException("Battle was run without metrics");
+        }
+        
+        List<CombatRecord> records = new ArrayList<>(metrics.getCreatureCount());
+        for (int i = 0; i < metrics.getCreatureCount(); i++) {
+            int defeatedInRound = metrics.getDefeatedInRound(i);
+            int roundsSurvived = defeatedInRound > 0 ? defeatedInRound - 1 : currentRound;
+            records.add(new CombatRecord(allCreatures.get(i), metrics.getDamageDealt(i), metrics.getDamageTaken(i),
+                    metrics.getKills(i), metrics.getHealingGiven(i), metrics.getOverheal(i), metrics.getCrits(i),
+                    roundsSurvived));
+        }
+        records.sort(order);
+        return records;
+    }
+    
+    public boolean isThreatEnabled() {
+        return threatEnabled;
+    }
+    
+    /**
+     * Turns threat tables on or off (off by default). With threat on, monsters attack the hero
+     * that hurt or healed the most and heroes can taunt them, see {@link ThreatTable}.
+     * Battles with threat don't support checkpoints and are never shortened by the stalemate detection.
+     * 
+     * @param threatEnabled true to keep threat tables
+     */
+    public void setThreatEnabled(boolean threatEnabled) {
+        this.threatEnabled = threatEnabled;
+    }
+    
+    /**
+     * Gets the threat tables of the last run, see {@link #setThreatEnabled(boolean)}.
+     * 
+     * @return the threat tables, or null if threat is off or the battle has not started yet
+     */
+    public ThreatTable getThreatTable() {
+        return threat;
+    }
+    
+    /**
+     * Finds the hero a monster should attack by its threat table.
+     * 
+     * @param monster the monster
+     * @return the living hero with the most threat, or null if threat is off or no hero has any
+     */
+    public Creature findTopThreat(Creature monster) {
+        return threat != null && monster.getTeam() == Team.MONSTERS ? threat.topTarget(monster) : null;
+    }
+    
+    /**
+     * Lets a hero taunt a monster, so the monster attacks it next, see {@link ThreatTable}.
+     * Does nothing while threat is off.
+     * 
+     * @param hero the taunting hero
+     * @param monster the monster
+     * @return true if the taunt was used
+     */
+    public boolean taunt(Creature hero, Creature monster) {
+        if (threat == null || !hero.isAlive() || !monster.isAlive() || !threat.taunt(hero, monster, currentRound)) {
+            return false;
+        }
+        if (outputEnabled) {
+            System.out.println(hero.getName() + " taunts " + monster.getName() + "!");
+        }
+        return true;
+    }
+    
+    /**
+     * Records the battle as a compact binary round log: the creatures once, then per round only
+     * the creatures whose health or units changed. {@link RoundReplay} rebuilds any round from it.
+     * The log is buffered and handed to the stream when the battle ends or is cut short; a battle played
+     * again after {@link #reset(long)} is appended as a new log. The stream is never closed here.
+     * While recording, repeating rounds are played instead of skipped, so every round is in the log.
+     * 
+     * @param out where to write the log, or null to stop recording
+     */
+    public void setRoundLog(OutputStream out) {
+        this.roundLog = out != null ? new RoundLog(out) : null;
+    }
+    
+    /**
+     * Switches to counter-based random numbers: every draw is a hash of the battle seed, the round,
+     * the creature's index and how many numbers it drew this round, instead of the next number of a
+     * generator shared by many creatures. The results no longer depend on the order in which
+     * creatures act, only on who does what in which round. The creatures' own generators are not used.
+     * Every creature draws from its own stream object, streams of different creatures share no state.
+     * 
+     * @param seed the battle seed
+     */
+    public void enableCounterRandom(long seed) {
+        this.counterRandom = new CounterRandom(seed);
+        counterRandom.ensureCapacity(allCreatures.size());
+    }
+    
+    /**
+     * Goes back to the creatures' own random number generators.
+     */
+    public void disableCounterRandom() {
+        this.counterRandom = null;
+    }
+    
+    public boolean isCounterRandom() {
+        return counterRandom != null;
+    }
+    
+    /**
+     * @return the battle seed of the counter-based random numbers
+     * @throws GameConfigurationException if they are off
+     */
+    public long getCounterRandomSeed() {
+        if (counterRandom == null) {
+            throw new GameConfigurationException("Counter-based random numbers are off");
+        }
+        return counterRandom.getBattleSeed();
+    }
+    
+    public boolean isStalemateDetection() {
+        return stalemateDetection;
+    }
+    
+    /**
+     * Turns stalemate detection on or off (on by default).
+     * When on, deterministic battles that repeat are fast-forwarded to {@code maxRounds},
+     * unless metrics or a round log need every round.
+     * 
+     * @param stalemateDetection true to skip repeating rounds
+     */
+    public void setStalemateDetection(boolean stalemateDetection) {
+        this.stalemateDetection = stalemateDetection;
+    }
+    
+    public TurnMode getTurnMode() {
+        return turnMode;
+    }
+    
+    /**
+     * Chooses who acts when, see {@link TurnMode}. Active-time battles don't support checkpoints
+     * and are never shortened by the stalemate detection.
+     * 
+     * @param turnMode the turn mode, {@link TurnMode#ROUNDS} by default
+     */
+    public void setTurnMode(TurnMode turnMode) {
+        if (turnMode == null) {
+            throw new GameConfigurationException("Turn mode cannot be null");
+        }
+        if (turnMode != this.turnMode) {
+            this.turnMode = turnMode;
+            actionQueueReady = false;
+        }
+    }
+    
+    public int getCheckpointEveryRounds() {
+        return checkpointEveryRounds;
+    }
+    
+    public long getCheckpointEveryMillis() {
+        return checkpointEveryMillis;
+    }
+    
     public List<Creature> getAllCreatures() {
         return Collections.unmodifiableList(allCreatures);
     }
@@ -269,7 +1310,7 @@ public class Battlefield {
      * @return number of living creatures
      */
     public long getLivingCount(Team team) {
-        return teamMap.get(team).stream().filter(Creature::isAlive).count();
+        return livingViews.get(team).size();
     }
     
     /**
@@ -279,6 +1320,6 @@ public class Battlefield {
      * @return number of dead creatures
      */
     public long getDeadCount(Team team) {
-        return teamMap.get(team).stream().filter(c -> !c.isAlive()).count();
+        return teamMap.get(team).size() - livingViews.get(team).size();
     }
 }
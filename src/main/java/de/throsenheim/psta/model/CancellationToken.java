@@ -0,0 +1,21 @@
+package de.throsenheim.psta.model;
+
+/**
+ * Lets another thread ask a running battle to stop.
+ * The battle checks the token between rounds and between the actions of a round.
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Asks every battle using this token to stop as soon as possible.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,79 @@
+package de.throsenheim.psta.model;
+
+import java.util.Comparator;
+
+/**
+ * What one creature did in a battle, an entry of {@link Battlefield#getLeaderboard()}.
+ * A snapshot: it does not change when the battle goes on.
+ */
+public final class CombatRecord {
+
+    /** Most damage dealt first, then most kills */
+    public static final Comparator<CombatRecord> BY_DAMAGE_DEALT =
+            Comparator.comparingLong(CombatRecord::getDamageDealt).reversed()
+                    .thenComparing(Comparator.comparingInt(CombatRecord::getKills).reversed());
+
+    private final Creature creature;
+    private final long damageDealt;
+    private final long damageTaken;
+    private final int kills;
+    private final long healingGiven;
+    private final long overheal;
+    private final int crits;
+    private final int roundsSurvived;
+
+    CombatRecord(Creature creature, long damageDealt, long damageTaken, int kills, long healingGiven,
+                 long overheal, int crits, int roundsSurvived) {
+        this.creature = creature;
+        this.damageDealt = damageDealt;
+        this.damageTaken = damageTaken;
+        this.kills = kills;
+        this.healingGiven = healingGiven;
+        this.overheal = overheal;
+        this.crits = crits;
+        this.roundsSurvived = roundsSurvived;
+    }
+
+    // Getters
+
+    public Creature getCreature() {
+        return creature;
+    }
+
+    public long getDamageDealt() {
+        return damageDealt;
+    }
+
+    public long getDamageTaken() {
+        return damageTaken;
+    }
+
+    public int getKills() {
+        return kills;
+    }
+
+    public long getHealingGiven() {
+        return healingGiven;
+    }
+
+    public long getOverheal() {
+        return overheal;
+    }
+
+    public int getCrits() {
+        return crits;
+    }
+
+    /**
+     * @return rounds the creature lived through completely
+     */
+    public int getRoundsSurvived() {
+        return roundsSurvived;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: dealt=%d, taken=%d, kills=%d, healed=%d, overheal=%d, crits=%d, rounds=%d",
+                creature.getName(), damageDealt, damageTaken, kills, healingGiven, overheal, crits, roundsSurvived);
+    }
+}
@@ -0,0 +1,121 @@
+package de.throsenheim.psta.model;
+
+import java.util.Random;
+
+/**
+ * Random numbers that are a pure function of (battle seed, round, creature, draw), see
+ * {@link Battlefield#enableCounterRandom(long)}.
+ *
+ * Every creature gets its own stream per round: the seed, the round and the creature's index
+ * in {@link Battlefield#getAllCreatures()} are hashed into a stream key, and draw {@code k} of
+ * the stream is the SplitMix64 hash of {@code key + k * golden ratio}. Which creature draws
+ * first doesn't matter, so a round gives the same results whatever order its creatures act in.
+ *
+ * Each creature has its own small stream object, created once and kept in an array indexed by
+ * creature, so creatures acting on different threads never share a draw counter.
+ */
+final class CounterRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long battleSeed;
+    private Stream[] streams = new Stream[0];
+
+    CounterRandom(long seed) {
+        this.battleSeed = seed;
+    }
+
+    /**
+     * Makes room for the streams of this many creatures up front.
+     *
+     * @param creatures number of creatures
+     */
+    void ensureCapacity(int creatures) {
+        if (creatures > streams.length) {
+            Stream[] grown = new Stream[Math.max(creatures, streams.length * 2)];
+            System.arraycopy(streams, 0, grown, 0, streams.length);
+            for (int i = streams.length; i < grown.length; i++) {
+                grown[i] = new Stream(i);
+            }
+            streams = grown;
+        }
+    }
+
+    /**
+     * Gets the stream of a creature in a round.
+     *
+     * @param creature index of the creature
+     * @param round the current round
+     * @return the creature's generator, positioned after its earlier draws in this round
+     */
+    Random select(int creature, int round) {
+        ensureCapacity(creature + 1);
+        Stream stream = streams[creature];
+        stream.enter(round);
+        return stream;
+    }
+
+    /**
+     * Starts a new battle: sets the battle seed and forgets all counters.
+     *
+     * @param seed the new battle seed
+     */
+    void setSeed(long seed) {
+        this.battleSeed = seed;
+        for (Stream stream : streams) {
+            stream.round = -1;
+        }
+    }
+
+    long getBattleSeed() {
+        return battleSeed;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The stream of one creature. Its counter belongs to the round it was keyed for, a new round starts from 0.
+     */
+    private final class Stream extends Random {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int creature;
+        private int round = -1;
+        private long key;
+        private int count;
+
+        Stream(int creature) {
+            this.creature = creature;
+        }
+
+        void enter(int round) {
+            if (round != this.round) {
+                this.round = round;
+                this.key = mix(mix(battleSeed + GOLDEN_GAMMA * round) + GOLDEN_GAMMA * creature);
+                this.count = 0;
+            }
+        }
+
+        @Override
+        protected int next(int bits) {
+            count++;
+            return (int) (mix(key + GOLDEN_GAMMA * count) >>> (64 - bits));
+        }
+
+        /**
+         * A Gaussian from two draws of the stream. {@code Random} would keep the second value
+         * of each pair for the next call, which could hand it to the next round.
+         */
+        @Override
+        public double nextGaussian() {
+            double u1 = 1.0 - nextDouble();
+            double u2 = nextDouble();
+            return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package de.throsenheim.psta.model;
 
 import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.creatures.CreatureType;
 
 import java.util.Objects;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -13,47 +15,59 @@ public abstract class Creature implements ActionPerRound, Comparable<Creature>,
     
     private static final AtomicInteger ID_GENERATOR = new AtomicInteger(0);
     
+    // Everything that never changes lives in the (possibly shared) template,
+    // a creature is alive as long as its health is above 0
     private final int id;
+    private final CreatureTemplate template;
     private final String name;
     private int health;
-    private final int maxHealth;
-    private final int attackPower;
-    private final int defense;
-    private final int initiative;
-    private final Team team;
-    private boolean alive;
+    private int stackSize;
+    private Battlefield battlefield;
+    private int index;
     
     /**
-     * Makes a new creature.
+     * Makes a new creature with a template of its own.
      * Checks if all the values make sense.
+     * This is the constructor for creature classes outside the built-in {@link CreatureType}s,
+     * their template has no type.
      */
-    public Creature(String name, int health, int attackPower, int defense, int initiative, Team team) 
+    public Creature(String name, int health, int attackPower, int defense, int initiative, Team team)
             throws InvalidCreatureStateException {
-        if (name == null || name.trim().isEmpty()) {
-            throw new InvalidCreatureStateException("Creature name cannot be null or empty");
-        }
-        if (health <= 0) {
-            throw new InvalidCreatureStateException("Health must be positive, got: " + health);
-        }
-        if (attackPower < 0) {
-            throw new InvalidCreatureStateException("Attack power cannot be negative, got: " + attackPower);
+        this(new CreatureTemplate(null, name, health, attackPower, defense, initiative, team, 0, null), name);
+    }
+    
+    /**
+     * Makes a new creature from a template, starting at full health.
+     * 
+     * @param template the stats, usually shared with other creatures
+     * @param name the creature's own name, or null to call it after the template and its id
+     * @throws InvalidCreatureStateException if the name is blank or the template is for another class
+     */
+    protected Creature(CreatureTemplate template, String name) throws InvalidCreatureStateException {
+        if (template == null) {
+            throw new InvalidCreatureStateException("Creature template cannot be null");
         }
-        if (defense < 0) {
-            throw new InvalidCreatureStateException("Defense cannot be negative, got: " + defense);
+        if (name != null && name.trim().isEmpty()) {
+            throw new InvalidCreatureStateException("Creature name cannot be empty");
         }
-        if (team == null) {
-            throw new InvalidCreatureStateException("Team cannot be null");
+        // Custom classes have no type, their templates neither
+        if (template.getType() != CreatureType.find(this)) {
+            throw new InvalidCreatureStateException("Template for " + template.getType()
+                    + " cannot build a " + getClass().getSimpleName());
         }
         
         this.id = ID_GENERATOR.incrementAndGet();
+        this.template = template;
         this.name = name;
-        this.health = health;
-        this.maxHealth = health;
-        this.attackPower = attackPower;
-        this.defense = defense;
-        this.initiative = initiative;
-        this.team = team;
-        this.alive = true;
+        this.health = template.getMaxHealth();
+        this.stackSize = 1;
+    }
+    
+    /**
+     * Turns this creature into a stack of identical units, see {@link CreatureTemplate#createStack}.
+     */
+    void initStack(int units) {
+        this.stackSize = units;
     }
     
     /**
@@ -64,6 +78,7 @@ public abstract class Creature implements ActionPerRound, Comparable<Creature>,
     
     /**
      * Attack another creature.
+     * Every unit of a stack hits the target with the same damage.
      */
     public void attack(Creature target) {
         if (!this.isAlive() || !target.isAlive()) {
@@ -71,10 +86,26 @@ public abstract class Creature implements ActionPerRound, Comparable<Creature>,
         }
         
         int damage = calculateDamage(target);
-        target.takeDamage(damage);
+        BattleMetrics metrics = null;
+        ThreatTable threat = null;
+        if (battlefield != null) {
+            battlefield.attackPerformed(this, target, damage);
+            metrics = battlefield.getMetrics();
+            threat = battlefield.getThreatTable();
+        }
+        long healthBefore = metrics != null || threat != null ? target.getTotalHealth() : 0;
+        target.takeHits(damage, stackSize);
+        if (metrics != null) {
+            metrics.hit(index, target.index, healthBefore - target.getTotalHealth(), !target.isAlive());
+        }
+        if (threat != null) {
+            threat.damageDealt(this, target, healthBefore - target.getTotalHealth());
+        }
         
-        System.out.println(this.name + " attacks " + target.getName() + 
-                         " for " + damage + " damage!");
+        if (isOutputEnabled()) {
+            System.out.println(getName() + " attacks " + target.getName() + 
+                             " for " + damage + " damage!");
+        }
     }
     
     /**
@@ -82,45 +113,261 @@ public abstract class Creature implements ActionPerRound, Comparable<Creature>,
      * Defense reduces the damage.
      */
     public void takeDamage(int damage) {
-        if (!alive) {
+        takeHits(damage, 1);
+    }
+    
+    /**
+     * Take several hits with the same damage at once, e.g. from a stack of attackers.
+     * Defense reduces every hit. On a stack the damage overflows from the top unit to the next ones.
+     * 
+     * @param damage damage of one hit before defense
+     * @param hits number of hits
+     */
+    public void takeHits(int damage, int hits) {
+        if (health <= 0) {
             return;
         }
         
         // Defense reduces damage (minimum 1 damage if hit)
-        int actualDamage = Math.max(1, damage - defense);
-        health -= actualDamage;
+        long actualDamage = (long) Math.max(1, damage - template.getDefense()) * hits;
+        if (stackSize == 1) {
+            health = (int) Math.max(0, health - actualDamage);
+        } else {
+            long remaining = getTotalHealth() - actualDamage;
+            int maxHealth = template.getMaxHealth();
+            stackSize = remaining > 0 ? (int) ((remaining + maxHealth - 1) / maxHealth) : 1;
+            health = (int) Math.max(0, remaining - (long) (stackSize - 1) * maxHealth);
+        }
+        if (battlefield != null) {
+            battlefield.healthChanged(this);
+        }
         
+        if (health == 0) {
+            if (battlefield != null) {
+                battlefield.creatureDefeated(this);
+            }
+            if (isOutputEnabled()) {
+                System.out.println(">>> " + getName() + " has been defeated! <<<");
+            }
+        }
+    }
+    
+    /**
+     * Hits the first {@code count} members of a living view with the same damage,
+     * exactly as calling {@link #takeHits(int, int)} on each of them in order, once per unit of this stack.
+     * Large hits in a silent battle without stacks are resolved in one pass, see {@link AreaDamage}.
+     * 
+     * @param targets the creatures to hit
+     * @param count how many of them to hit
+     * @param damage damage before defense
+     */
+    protected void dealAreaDamage(LivingView targets, int count, int damage) {
+        if (battlefield != null) {
+            battlefield.areaDamageDealt(count);
+        }
+        if (battlefield != null && count >= AreaDamage.MIN_BATCH && !battlefield.hasStacks()
+                && !isOutputEnabled() && !hasSpectators()) {
+            battlefield.resolveAreaDamage(this, targets, count, damage);
+            return;
+        }
+        
+        // Every target is hit once, so a target dying does not change who comes next
+        BattleMetrics metrics = battlefield != null ? battlefield.getMetrics() : null;
+        ThreatTable threat = battlefield != null ? battlefield.getThreatTable() : null;
+        int hit = 0;
+        for (int i = targets.first(); i >= 0 && hit < count; i = targets.next(i)) {
+            Creature target = targets.at(i);
+            long healthBefore = metrics != null || threat != null ? target.getTotalHealth() : 0;
+            target.takeHits(damage, stackSize);
+            if (metrics != null) {
+                metrics.hit(index, target.index, healthBefore - target.getTotalHealth(), !target.isAlive());
+            }
+            if (threat != null) {
+                threat.damageDealt(this, target, healthBefore - target.getTotalHealth());
+            }
+            hit++;
+        }
+    }
+    
+    /**
+     * Stores the health computed by {@link AreaDamage} and handles a defeat like {@link #takeDamage(int)}.
+     */
+    void applyAreaDamage(int newHealth) {
         if (health <= 0) {
-            health = 0;
-            alive = false;
-            System.out.println(">>> " + name + " has been defeated! <<<");
+            return;
+        }
+        
+        health = newHealth;
+        if (battlefield != null) {
+            battlefield.healthChanged(this);
+        }
+        if (health == 0) {
+            if (battlefield != null) {
+                battlefield.creatureDefeated(this);
+            }
+            if (isOutputEnabled()) {
+                System.out.println(">>> " + getName() + " has been defeated! <<<");
+            }
         }
     }
     
     /**
      * Restore health. Can't go above max health.
+     * Only the top unit of a stack is healed, fallen units stay dead.
+     * 
+     * @param amount health to restore
+     * @return health actually restored, the rest of {@code amount} is wasted
      */
-    public void heal(int amount) {
-        if (!alive) {
-            return;
+    public int heal(int amount) {
+        if (health <= 0) {
+            return 0;
         }
         
         int oldHealth = health;
-        health = Math.min(maxHealth, health + amount);
+        health = (int) Math.min(template.getMaxHealth(), (long) health + amount);
         int actualHealing = health - oldHealth;
+        if (actualHealing > 0 && battlefield != null) {
+            battlefield.healthChanged(this);
+        }
         
-        if (actualHealing > 0) {
-            System.out.println(name + " is healed for " + actualHealing + " HP!");
+        if (actualHealing > 0 && isOutputEnabled()) {
+            System.out.println(getName() + " is healed for " + actualHealing + " HP!");
+        }
+        if (actualHealing > 0 && battlefield != null) {
+            battlefield.creatureHealed(this, actualHealing);
+        }
+        return actualHealing;
+    }
+    
+    /**
+     * State besides health that changes how this creature acts (e.g. an enrage flag),
+     * packed into bits. Two rounds with equal health and equal flags play out the same.
+     * 
+     * @return state flags, 0 if the creature has none
+     */
+    protected int getStateFlags() {
+        return 0;
+    }
+    
+    /**
+     * Tells whether someone follows the battle through its event stream,
+     * see {@link Battlefield#getEvents()}.
+     * 
+     * @return true if every action should be reported one by one
+     */
+    protected boolean hasSpectators() {
+        return battlefield != null && battlefield.getEvents().hasSubscribers();
+    }
+    
+    /**
+     * Tells whether messages about this creature should be printed.
+     * Creatures outside a battlefield always print.
+     * 
+     * @return true if the battle log is on
+     */
+    protected boolean isOutputEnabled() {
+        return battlefield == null || battlefield.isOutputEnabled();
+    }
+    
+    /**
+     * Gets the balance constants of the battle this creature fights in.
+     * Creatures outside a battlefield use the default balance.
+     * 
+     * @return the balance profile to use
+     */
+    protected BalanceProfile getBalanceProfile() {
+        return battlefield != null ? battlefield.getBalanceProfile() : BalanceProfile.DEFAULT;
+    }
+    
+    /**
+     * Restores the extra state returned by {@link #getStateFlags()}.
+     * 
+     * @param flags state flags saved earlier
+     */
+    protected void restoreStateFlags(int flags) {
+        // Nothing to restore by default
+    }
+    
+    /**
+     * Puts this creature back into a saved state, e.g. when a battle is resumed.
+     * 
+     * @param health saved health of the top unit, 0 means defeated
+     * @param stackSize saved number of units
+     * @param flags saved state flags
+     */
+    void restoreState(int health, int stackSize, int flags) {
+        this.health = health;
+        this.stackSize = stackSize;
+        restoreStateFlags(flags);
+    }
+    
+    /**
+     * Tells the battlefield that this creature cast a heal, for the battle metrics and the flight recorder.
+     * 
+     * @param amount healing cast
+     * @param healed healing that actually restored health
+     */
+    protected void reportHealing(int amount, int healed) {
+        if (battlefield != null) {
+            battlefield.healingCast(this, amount, healed);
+        }
+    }
+    
+    /**
+     * Tells the battlefield that this creature landed a critical hit, for the battle metrics.
+     */
+    protected void reportCriticalHit() {
+        if (battlefield != null && battlefield.getMetrics() != null) {
+            battlefield.getMetrics().criticalHit(index);
         }
     }
     
+    /**
+     * Tells the battlefield that this creature just became enraged, for the battle metrics and the flight recorder.
+     */
+    protected void reportEnraged() {
+        if (battlefield != null) {
+            battlefield.creatureEnraged(this);
+        }
+    }
+    
+    /**
+     * Tells the battlefield that a random draw just decided something,
+     * e.g. which enemy gets hit. Rounds without such draws play out the same
+     * every time, which is how the battlefield spots stalemates.
+     * Draws that cannot change anything don't need to be reported.
+     */
+    protected void reportRandomChoice() {
+        if (battlefield != null) {
+            battlefield.randomChoiceMade();
+        }
+    }
+    
+    /**
+     * Links this creature to the battlefield it was added to.
+     * 
+     * @param battlefield the battlefield
+     * @param index position of the creature in {@link Battlefield#getAllCreatures()}
+     */
+    void setBattlefield(Battlefield battlefield, int index) {
+        this.battlefield = battlefield;
+        this.index = index;
+    }
+    
+    /**
+     * @return position of this creature in {@link Battlefield#getAllCreatures()}
+     */
+    int getIndex() {
+        return index;
+    }
+    
     /**
      * Compare by initiative - higher goes first.
      */
     @Override
     public int compareTo(Creature other) {
         // Higher initiative goes first, so reverse order
-        return Integer.compare(other.initiative, this.initiative);
+        return Integer.compare(other.getInitiative(), this.getInitiative());
     }
     
     /**
@@ -137,9 +384,9 @@ public abstract class Creature implements ActionPerRound, Comparable<Creature>,
     
     @Override
     public String toString() {
-        return String.format("%s[id=%d, name='%s', HP=%d/%d, ATK=%d, DEF=%d, INI=%d, team=%s, alive=%s]",
-                getClass().getSimpleName(), id, name, health, maxHealth, 
-                attackPower, defense, initiative, team, alive);
+        return String.format("%s[id=%d, name='%s', HP=%d/%d, units=%d, ATK=%d, DEF=%d, INI=%d, team=%s, alive=%s]",
+                getClass().getSimpleName(), id, getName(), health, getMaxHealth(), getStackSize(),
+                getAttackPower(), getDefense(), getInitiative(), getTeam(), isAlive());
     }
     
     @Override
@@ -161,39 +408,81 @@ public abstract class Creature implements ActionPerRound, Comparable<Creature>,
         return id;
     }
     
+    /**
+     * Gets the name. Creatures without their own name are called after their template,
+     * e.g. "Orc #42".
+     * 
+     * @return the name
+     */
     public String getName() {
-        return name;
+        return name != null ? name : template.getName() + " #" + id;
+    }
+    
+    /**
+     * @return true if the creature was given its own name
+     */
+    public boolean hasOwnName() {
+        return name != null;
+    }
+    
+    public CreatureTemplate getTemplate() {
+        return template;
     }
     
     public int getHealth() {
         return health;
     }
     
+    /**
+     * @return number of units in this stack, 1 for a single creature, 0 once defeated
+     */
+    public int getStackSize() {
+        return health > 0 ? stackSize : 0;
+    }
+    
+    /**
+     * @return health of all units together, the same as {@link #getHealth()} for a single creature
+     */
+    public long getTotalHealth() {
+        return health > 0 ? (long) (stackSize - 1) * template.getMaxHealth() + health : 0;
+    }
+    
     public int getMaxHealth() {
-        return maxHealth;
+        return template.getMaxHealth();
     }
     
     public int getAttackPower() {
-        return attackPower;
+        return template.getAttackPower();
     }
     
     public int getDefense() {
-        return defense;
+        return template.getDefense();
     }
     
     public int getInitiative() {
-        return initiative;
+        return template.getInitiative();
     }
     
     public Team getTeam() {
-        return team;
+        return template.getTeam();
     }
     
     public boolean isAlive() {
-        return alive;
+        return health > 0;
+    }
+    
+    /**
+     * Gets the random number generator for this creature's next draws. In a battle with
+     * counter-based random numbers this is the creature's own stream for the current round,
+     * so call it for every action instead of keeping the result.
+     * 
+     * @return the generator to draw from
+     */
+    protected Random getRandom() {
+        return battlefield != null ? battlefield.randomFor(this) : template.getRandom();
     }
     
     public double getHealthPercentage() {
-        return (double) health / maxHealth;
+        return (double) health / template.getMaxHealth();
     }
 }
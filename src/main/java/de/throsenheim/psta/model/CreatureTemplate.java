@@ -0,0 +1,149 @@
+package de.throsenheim.psta.model;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.util.Random;
+
+/**
+ * The parts of a creature that never change during a battle: its class, stats, team
+ * and random number generator.
+ *
+ * A template can be shared by any number of creatures, e.g. 100,000 identical orcs.
+ * Each creature then only keeps its health, the template and optionally its own name,
+ * see {@link #create(String)}.
+ */
+public final class CreatureTemplate {
+
+    private final CreatureType type;
+    private final String name;
+    private final int maxHealth;
+    private final int attackPower;
+    private final int defense;
+    private final int initiative;
+    private final Team team;
+    private final int healPower;
+    private final Random random;
+
+    /**
+     * Makes a new template.
+     * Checks if all the values make sense.
+     *
+     * @param type the class of the creatures built from this template, null for a custom creature class
+     * @param name the name, also used as prefix for creatures without their own name
+     * @param healPower only used by healers
+     * @param random random number generator shared by all creatures of this template, null for a new one
+     * @throws InvalidCreatureStateException if the stats are invalid
+     */
+    public CreatureTemplate(CreatureType type, String name, int health, int attackPower, int defense,
+                            int initiative, Team team, int healPower, Random random)
+            throws InvalidCreatureStateException {
+        if (name == null || name.trim().isEmpty()) {
+            throw new InvalidCreatureStateException("Creature name cannot be null or empty");
+        }
+        if (health <= 0) {
+            throw new InvalidCreatureStateException("Health must be positive, got: " + health);
+        }
+        if (attackPower < 0) {
+            throw new InvalidCreatureStateException("Attack power cannot be negative, got: " + attackPower);
+        }
+        if (defense < 0) {
+            throw new InvalidCreatureStateException("Defense cannot be negative, got: " + defense);
+        }
+        if (team == null) {
+            throw new InvalidCreatureStateException("Team cannot be null");
+        }
+
+        this.type = type;
+        this.name = name;
+        this.maxHealth = health;
+        this.attackPower = attackPower;
+        this.defense = defense;
+        this.initiative = initiative;
+        this.team = team;
+        this.healPower = healPower;
+        this.random = random != null ? random : new Random();
+    }
+
+    /**
+     * Builds a creature from this template.
+     *
+     * @param name the creature's own name, or null to call it after the template and its id
+     * @return the new creature at full health
+     * @throws InvalidCreatureStateException if the name is blank or the template is for a custom class,
+     *         whose creatures are built by their own constructors
+     */
+    public Creature create(String name) throws InvalidCreatureStateException {
+        if (type == null) {
+            throw new InvalidCreatureStateException("Template " + this.name + " is for a custom creature class");
+        }
+        return type.create(this, name);
+    }
+
+    /**
+     * Builds a stack of identical units from this template. The stack acts once per round
+     * like a single creature, but every unit hits, and damage overflows from the top unit
+     * to the next one. A battle with millions of units in a few stacks runs as fast as one
+     * with a few creatures.
+     *
+     * @param name the stack's own name, or null to call it after the template and its id
+     * @param units number of units, 1 for a plain creature
+     * @return the new stack at full health
+     * @throws InvalidCreatureStateException if the name is blank or the unit count is not positive
+     */
+    public Creature createStack(String name, int units) throws InvalidCreatureStateException {
+        if (units <= 0) {
+            throw new InvalidCreatureStateException("Stack size must be positive, got: " + units);
+        }
+        Creature stack = create(name);
+        stack.initStack(units);
+        return stack;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[name='%s', HP=%d, ATK=%d, DEF=%d, INI=%d, team=%s, heal=%d]",
+                type != null ? type : "CUSTOM", name, maxHealth, attackPower, defense, initiative, team, healPower);
+    }
+
+    // Getters
+
+    /**
+     * @return the class of the creatures built from this template, null for a custom creature class
+     */
+    public CreatureType getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxHealth() {
+        return maxHealth;
+    }
+
+    public int getAttackPower() {
+        return attackPower;
+    }
+
+    public int getDefense() {
+        return defense;
+    }
+
+    public int getInitiative() {
+        return initiative;
+    }
+
+    public Team getTeam() {
+        return team;
+    }
+
+    public int getHealPower() {
+        return healPower;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+}
@@ -0,0 +1,198 @@
+package de.throsenheim.psta.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Java Flight Recorder events of the battle engine.
+ *
+ * Enable them by name, e.g. {@code recording.enable("de.throsenheim.psta.Round").withThreshold(Duration.ofMillis(2))}
+ * to keep only slow rounds, or with a {@code .jfc} file. Every event carries the battle id, so rounds and
+ * actions can be matched to their battle and, through thread and timestamp, to CPU and GC samples.
+ * While no recording has the events enabled the battlefield doesn't even create them: it asks one
+ * shared probe instance per event type, which costs a field read, so silent battles stay free of allocation.
+ */
+final class FlightEvents {
+
+    static final String ATTACK = "ATTACK";
+    static final String AREA_ATTACK = "AREA_ATTACK";
+    static final String HEAL = "HEAL";
+    static final String NONE = "NONE";
+
+    private static final AtomicLong BATTLE_IDS = new AtomicLong();
+
+    // Only asked whether their event type is enabled, never committed
+    private static final BattleStarted BATTLE_STARTED_PROBE = new BattleStarted();
+    private static final Battle BATTLE_PROBE = new Battle();
+    private static final Round ROUND_PROBE = new Round();
+    private static final Action ACTION_PROBE = new Action();
+    private static final Defeat DEFEAT_PROBE = new Defeat();
+    private static final Enrage ENRAGE_PROBE = new Enrage();
+
+    private FlightEvents() {
+    }
+
+    /**
+     * @return a process-wide unique id for a battlefield
+     */
+    static long nextBattleId() {
+        return BATTLE_IDS.incrementAndGet();
+    }
+
+    static boolean isBattleStartedEnabled() {
+        return BATTLE_STARTED_PROBE.isEnabled();
+    }
+
+    static boolean isBattleEnabled() {
+        return BATTLE_PROBE.isEnabled();
+    }
+
+    static boolean isRoundEnabled() {
+        return ROUND_PROBE.isEnabled();
+    }
+
+    static boolean isActionEnabled() {
+        return ACTION_PROBE.isEnabled();
+    }
+
+    static boolean isDefeatEnabled() {
+        return DEFEAT_PROBE.isEnabled();
+    }
+
+    static boolean isEnrageEnabled() {
+        return ENRAGE_PROBE.isEnabled();
+    }
+
+    @Name("de.throsenheim.psta.BattleStarted")
+    @Label("Battle Started")
+    @Category("Creature Battle")
+    static final class BattleStarted extends Event {
+        @Label("Battle Id")
+        long battleId;
+
+        @Label("Start Round")
+        @Description("0 for a new battle, the restored round for a resumed one")
+        int startRound;
+
+        @Label("Creatures")
+        int creatures;
+
+        @Label("Max Rounds")
+        int maxRounds;
+    }
+
+    @Name("de.throsenheim.psta.Battle")
+    @Label("Battle")
+    @Category("Creature Battle")
+    @Description("A run of a battle from start to end")
+    static final class Battle extends Event {
+        @Label("Battle Id")
+        long battleId;
+
+        @Label("Start Round")
+        int startRound;
+
+        @Label("End Round")
+        int endRound;
+
+        @Label("Winner")
+        String winner;
+
+        @Label("Stop Reason")
+        String stopReason;
+    }
+
+    @Name("de.throsenheim.psta.Round")
+    @Label("Round")
+    @Category("Creature Battle")
+    @Description("One round of a battle; set a threshold to record only slow rounds")
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Round extends Event {
+        @Label("Battle Id")
+        long battleId;
+
+        @Label("Round")
+        int round;
+
+        @Label("Living Heroes")
+        long livingHeroes;
+
+        @Label("Living Monsters")
+        long livingMonsters;
+    }
+
+    @Name("de.throsenheim.psta.Action")
+    @Label("Creature Action")
+    @Category("Creature Battle")
+    @Description("The turn of one creature within a round")
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Action extends Event {
+        @Label("Battle Id")
+        long battleId;
+
+        @Label("Round")
+        int round;
+
+        @Label("Creature")
+        String creature;
+
+        @Label("Creature Class")
+        Class<?> creatureClass;
+
+        @Label("Action Kind")
+        @Description("ATTACK, AREA_ATTACK, HEAL or NONE")
+        String actionKind;
+
+        @Label("Targets Hit")
+        int targetsHit;
+
+        @Label("Healing")
+        @Description("Health actually restored")
+        int healing;
+    }
+
+    @Name("de.throsenheim.psta.Enrage")
+    @Label("Enrage")
+    @Category("Creature Battle")
+    @StackTrace(false)
+    static final class Enrage extends Event {
+        @Label("Battle Id")
+        long battleId;
+
+        @Label("Round")
+        int round;
+
+        @Label("Creature")
+        String creature;
+    }
+
+    @Name("de.throsenheim.psta.Defeat")
+    @Label("Defeat")
+    @Category("Creature Battle")
+    @StackTrace(false)
+    static final class Defeat extends Event {
+        @Label("Battle Id")
+        long battleId;
+
+        @Label("Round")
+        int round;
+
+        @Label("Creature")
+        String creature;
+
+        @Label("Creature Class")
+        Class<?> creatureClass;
+
+        @Label("Team")
+        String team;
+    }
+}
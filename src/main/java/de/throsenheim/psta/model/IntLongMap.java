@@ -0,0 +1,103 @@
+package de.throsenheim.psta.model;
+
+import java.util.Arrays;
+
+/**
+ * Map from non-negative int keys to long values with open addressing and linear probing,
+ * so adding to a value neither boxes nor allocates unless the map has to grow.
+ * Entries are never removed, only the whole map is cleared. The slots are walked with
+ * {@link #capacity()}, {@link #keyAt(int)} and {@link #valueAt(int)}; empty slots have the key -1.
+ */
+final class IntLongMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private long[] values;
+    private int size;
+
+    IntLongMap() {
+        keys = new int[8];
+        values = new long[8];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds to the value of a key, a missing key counts as 0.
+     *
+     * @param key the key, not negative
+     * @param delta what to add
+     * @return the new value
+     */
+    long add(int key, long delta) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                slot = find(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * @return the value of the key, 0 if it is missing
+     */
+    long get(int key) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    long valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Finds the slot holding the key, or the empty slot where it belongs.
+     */
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package de.throsenheim.psta.model;
+
+/**
+ * Segment tree over the members of a team, addressed by their position in the team.
+ *
+ * Every node keeps the number of living members below it and which of them has the lowest
+ * health, defense and health percentage (the first one on ties). Walking the living members,
+ * picking one by position and finding targets then cost O(log n) instead of a scan over the team.
+ * The owner reads the values through {@link Keys} and calls {@link #update(int)} whenever the
+ * health of a member changed, including its defeat.
+ *
+ * Used by {@link LivingView} for big teams and by the battlefield on a mapped creature store.
+ */
+public final class LivingTree {
+
+    /**
+     * The values the tree orders members by.
+     */
+    public interface Keys {
+
+        boolean isAlive(int slot);
+
+        long getTotalHealth(int slot);
+
+        int getDefense(int slot);
+
+        double getHealthPercentage(int slot);
+    }
+
+    private static final int HEALTH = 0;
+    private static final int DEFENSE = 1;
+    private static final int PERCENTAGE = 2;
+
+    private final Keys keys;
+    private int members;
+    // Leaves start at treeSize
+    private int treeSize;
+    private int[] living = new int[0];
+    private int[] lowestHealth = new int[0];
+    private int[] lowestDefense = new int[0];
+    private int[] lowestPercentage = new int[0];
+
+    /**
+     * @param keys the values of the members
+     */
+    public LivingTree(Keys keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Builds the tree from scratch, reusing its arrays if they are big enough.
+     *
+     * @param members number of members, at positions 0 to {@code members - 1}
+     */
+    public void build(int members) {
+        int size = members > 1 ? Integer.highestOneBit(members - 1) << 1 : 1;
+        if (living.length < 2 * size) {
+            living = new int[2 * size];
+            lowestHealth = new int[2 * size];
+            lowestDefense = new int[2 * size];
+            lowestPercentage = new int[2 * size];
+        }
+        this.members = members;
+        this.treeSize = size;
+        for (int slot = 0; slot < size; slot++) {
+            setLeaf(size + slot, slot);
+        }
+        for (int node = size - 1; node > 0; node--) {
+            pull(node);
+        }
+    }
+
+    /**
+     * Updates the tree after the health of a member changed.
+     *
+     * @param slot position of the member
+     */
+    public void update(int slot) {
+        int node = treeSize + slot;
+        setLeaf(node, slot);
+        for (node /= 2; node > 0; node /= 2) {
+            pull(node);
+        }
+    }
+
+    /**
+     * @return number of living members
+     */
+    public int getLivingCount() {
+        return living[1];
+    }
+
+    /**
+     * @param index 0 for the first living member
+     * @return position of the living member with that index among the living members
+     * @throws IndexOutOfBoundsException if there are not that many living members
+     */
+    public int livingAt(int index) {
+        if (index < 0 || index >= living[1]) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + living[1] + " living");
+        }
+        int node = 1;
+        int remaining = index;
+        while (node < treeSize) {
+            node *= 2;
+            if (living[node] <= remaining) {
+                remaining -= living[node];
+                node++;
+            }
+        }
+        return node - treeSize;
+    }
+
+    /**
+     * @param from first position to search
+     * @return position of the first living member at or after it, -1 if there is none
+     */
+    public int firstLivingFrom(int from) {
+        if (from >= treeSize) {
+            return -1;
+        }
+        int node = treeSize + from;
+        // Climb until a subtree to the right has a living member
+        while (living[node] == 0) {
+            while (node % 2 == 1) {
+                node /= 2;
+                if (node == 0) {
+                    return -1;
+                }
+            }
+            node++;
+        }
+        // Then go down to its first living member
+        while (node < treeSize) {
+            node = living[2 * node] > 0 ? 2 * node : 2 * node + 1;
+        }
+        return node - treeSize;
+    }
+
+    /**
+     * @return position of the living member with the lowest total health, -1 if none lives
+     */
+    public int lowestHealth() {
+        return lowestHealth[1];
+    }
+
+    /**
+     * @return position of the living member with the lowest defense, -1 if none lives
+     */
+    public int lowestDefense() {
+        return lowestDefense[1];
+    }
+
+    /**
+     * @param excluded position of a member to skip, -1 for none
+     * @return position of the living member with the lowest health percentage, -1 if none lives
+     */
+    public int lowestHealthPercentage(int excluded) {
+        if (excluded < 0 || excluded >= members) {
+            return lowestPercentage[1];
+        }
+        return lower(lowestPercentage(0, excluded), lowestPercentage(excluded + 1, treeSize), PERCENTAGE);
+    }
+
+    private void setLeaf(int node, int slot) {
+        boolean alive = slot < members && keys.isAlive(slot);
+        living[node] = alive ? 1 : 0;
+        lowestHealth[node] = alive ? slot : -1;
+        lowestDefense[node] = alive ? slot : -1;
+        lowestPercentage[node] = alive ? slot : -1;
+    }
+
+    private void pull(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        living[node] = living[left] + living[right];
+        lowestHealth[node] = lower(lowestHealth[left], lowestHealth[right], HEALTH);
+        lowestDefense[node] = lower(lowestDefense[left], lowestDefense[right], DEFENSE);
+        lowestPercentage[node] = lower(lowestPercentage[left], lowestPercentage[right], PERCENTAGE);
+    }
+
+    /**
+     * Picks the lower of two living members by a key, the first one on ties.
+     *
+     * @param first position of a member, -1 for none
+     * @param second position of a member after the first one, -1 for none
+     * @param key HEALTH, DEFENSE or PERCENTAGE
+     * @return the position of the lower member, -1 if both are none
+     */
+    private int lower(int first, int second, int key) {
+        if (first < 0) {
+            return second;
+        }
+        if (second < 0) {
+            return first;
+        }
+        boolean secondLower;
+        switch (key) {
+            case HEALTH:
+                secondLower = keys.getTotalHealth(second) < keys.getTotalHealth(first);
+                break;
+            case DEFENSE:
+                secondLower = keys.getDefense(second) < keys.getDefense(first);
+                break;
+            default:
+                secondLower = keys.getHealthPercentage(second) < keys.getHealthPercentage(first);
+                break;
+        }
+        return secondLower ? second : first;
+    }
+
+    /**
+     * @param from first position to search, inclusive
+     * @param to last position to search, exclusive
+     * @return position of the member with the lowest health percentage in the range, -1 if none lives
+     */
+    private int lowestPercentage(int from, int to) {
+        int left = -1;
+        int right = -1;
+        for (int lo = from + treeSize, hi = to + treeSize; lo < hi; lo /= 2, hi /= 2) {
+            if ((lo & 1) == 1) {
+                left = lower(left, lowestPercentage[lo++], PERCENTAGE);
+            }
+            if ((hi & 1) == 1) {
+                right = lower(lowestPercentage[--hi], right, PERCENTAGE);
+            }
+        }
+        return lower(left, right, PERCENTAGE);
+    }
+}
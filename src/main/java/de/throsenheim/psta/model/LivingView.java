@@ -0,0 +1,275 @@
+package de.throsenheim.psta.model;
+
+import java.util.List;
+
+/**
+ * Read-only live view of the living members of one team.
+ *
+ * The battlefield keeps one view per team and hands out the same object every time,
+ * so creatures can look for targets on every action without creating lists or streams.
+ * The view always shows the current state: a creature that dies disappears from it at once.
+ *
+ * Members can be walked in insertion order with index cursors:
+ * <pre>
+ * for (int i = view.first(); i >= 0; i = view.next(i)) {
+ *     Creature member = view.at(i);
+ * }
+ * </pre>
+ *
+ * Big teams are indexed by a {@link LivingTree}, so walking, picking by position and finding
+ * targets cost O(log n) instead of a scan over the team. The battlefield reports every change
+ * of health, see {@link #memberChanged(Creature)}.
+ */
+public final class LivingView {
+
+    /** Teams smaller than this are scanned, the tree would not pay for its upkeep */
+    private static final int TREE_MIN_MEMBERS = 64;
+
+    private final Team team;
+    private final List<Creature> members;
+    private int livingCount;
+
+    private final LivingTree tree = new LivingTree(new MemberKeys());
+    private boolean treeBuilt;
+    // Position in the team of every member, by its index in the battlefield
+    private int[] slots = new int[0];
+
+    /**
+     * Creates a view over a team list owned by the battlefield.
+     *
+     * @param team the team
+     * @param members all members of the team in insertion order, alive or not
+     */
+    LivingView(Team team, List<Creature> members) {
+        this.team = team;
+        this.members = members;
+    }
+
+    public Team getTeam() {
+        return team;
+    }
+
+    /**
+     * @return number of living members
+     */
+    public int size() {
+        return livingCount;
+    }
+
+    public boolean isEmpty() {
+        return livingCount == 0;
+    }
+
+    /**
+     * @return cursor of the first living member, or -1 if there is none
+     */
+    public int first() {
+        return next(-1);
+    }
+
+    /**
+     * @param cursor a cursor returned by {@link #first()} or {@link #next(int)}
+     * @return cursor of the next living member, or -1 if there is none
+     */
+    public int next(int cursor) {
+        if (useTree()) {
+            return tree.firstLivingFrom(cursor + 1);
+        }
+        for (int i = cursor + 1; i < members.size(); i++) {
+            if (members.get(i).isAlive()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param cursor a cursor returned by {@link #first()} or {@link #next(int)}
+     * @return the member at that cursor
+     */
+    public Creature at(int cursor) {
+        return members.get(cursor);
+    }
+
+    /**
+     * Gets a living member by its position among the living members.
+     *
+     * @param index 0 for the first living member in insertion order
+     * @return the living member
+     * @throws IndexOutOfBoundsException if there are not that many living members
+     */
+    public Creature get(int index) {
+        if (index < 0 || index >= livingCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + livingCount + " living");
+        }
+        if (useTree()) {
+            return members.get(tree.livingAt(index));
+        }
+        int remaining = index;
+        for (int i = first(); i >= 0; i = next(i)) {
+            if (remaining-- == 0) {
+                return members.get(i);
+            }
+        }
+        throw new IllegalStateException("Living count out of sync for team " + team);
+    }
+
+    /**
+     * @return the living member with the lowest health (first one on ties), or null;
+     *         stacks count with the health of all their units
+     */
+    public Creature findLowestHealth() {
+        if (useTree()) {
+            return memberAt(tree.lowestHealth());
+        }
+        Creature lowest = null;
+        for (int i = first(); i >= 0; i = next(i)) {
+            Creature member = members.get(i);
+            if (lowest == null || member.getTotalHealth() < lowest.getTotalHealth()) {
+                lowest = member;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * @return the living member with the lowest defense (first one on ties), or null
+     */
+    public Creature findLowestDefense() {
+        if (useTree()) {
+            return memberAt(tree.lowestDefense());
+        }
+        Creature lowest = null;
+        for (int i = first(); i >= 0; i = next(i)) {
+            Creature member = members.get(i);
+            if (lowest == null || member.getDefense() < lowest.getDefense()) {
+                lowest = member;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * @param excluded a member to skip, usually the one asking (may be null)
+     * @return the living member with the lowest health percentage (first one on ties), or null
+     */
+    public Creature findLowestHealthPercentage(Creature excluded) {
+        if (useTree()) {
+            return memberAt(tree.lowestHealthPercentage(slotOf(excluded)));
+        }
+        Creature lowest = null;
+        for (int i = first(); i >= 0; i = next(i)) {
+            Creature member = members.get(i);
+            if (member != excluded
+                    && (lowest == null || member.getHealthPercentage() < lowest.getHealthPercentage())) {
+                lowest = member;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Counts the living members again, e.g. after creature states were restored.
+     */
+    void recount() {
+        treeBuilt = false;
+        livingCount = 0;
+        for (Creature member : members) {
+            if (member.isAlive()) {
+                livingCount++;
+            }
+        }
+    }
+
+    void memberAdded(Creature creature) {
+        treeBuilt = false;
+        if (creature.isAlive()) {
+            livingCount++;
+        }
+    }
+
+    void memberDefeated() {
+        livingCount--;
+    }
+
+    /**
+     * Updates the tree after the health of a member changed, including its defeat.
+     *
+     * @param creature a member of this view
+     */
+    void memberChanged(Creature creature) {
+        int slot = slotOf(creature);
+        if (slot >= 0) {
+            tree.update(slot);
+        }
+    }
+
+    /**
+     * Builds the tree on first use for a big team. Members added later or restored states drop it,
+     * it is then built again in place.
+     *
+     * @return true if the tree answers queries
+     */
+    private boolean useTree() {
+        if (treeBuilt) {
+            return true;
+        }
+        if (members.size() < TREE_MIN_MEMBERS) {
+            return false;
+        }
+        int maxIndex = 0;
+        for (Creature member : members) {
+            maxIndex = Math.max(maxIndex, member.getIndex());
+        }
+        if (slots.length <= maxIndex) {
+            slots = new int[maxIndex + 1];
+        }
+        for (int slot = 0; slot < members.size(); slot++) {
+            slots[members.get(slot).getIndex()] = slot;
+        }
+        tree.build(members.size());
+        treeBuilt = true;
+        return true;
+    }
+
+    /**
+     * @return position of the creature in the team if it is a member and the tree is built, else -1
+     */
+    private int slotOf(Creature creature) {
+        if (!treeBuilt || creature == null || creature.getTeam() != team || creature.getIndex() >= slots.length) {
+            return -1;
+        }
+        int slot = slots[creature.getIndex()];
+        return slot < members.size() && members.get(slot) == creature ? slot : -1;
+    }
+
+    private Creature memberAt(int slot) {
+        return slot >= 0 ? members.get(slot) : null;
+    }
+
+    /**
+     * The tree reads the members of this view.
+     */
+    private final class MemberKeys implements LivingTree.Keys {
+
+        @Override
+        public boolean isAlive(int slot) {
+            return members.get(slot).isAlive();
+        }
+
+        @Override
+        public long getTotalHealth(int slot) {
+            return members.get(slot).getTotalHealth();
+        }
+
+        @Override
+        public int getDefense(int slot) {
+            return members.get(slot).getDefense();
+        }
+
+        @Override
+        public double getHealthPercentage(int slot) {
+            return members.get(slot).getHealthPercentage();
+        }
+    }
+}
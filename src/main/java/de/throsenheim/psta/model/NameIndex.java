@@ -0,0 +1,89 @@
+package de.throsenheim.psta.model;
+
+/**
+ * Set of creature names that ignores case, for the duplicate check of a battlefield.
+ *
+ * An open-addressing table of the names and their case-folded hashes: adding a name creates
+ * no objects, so armies of millions of creatures don't pay for a map entry per name.
+ */
+final class NameIndex {
+
+    private String[] names = new String[16];
+    private int[] hashes = new int[16];
+    private int size;
+
+    /**
+     * @param name the name to add
+     * @return false if an equal name (ignoring case) is already there
+     */
+    boolean add(String name) {
+        if ((size + 1) * 2 > names.length) {
+            resize(names.length * 2);
+        }
+        int hash = hash(name);
+        int mask = names.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            String existing = names[i];
+            if (existing == null) {
+                names[i] = name;
+                hashes[i] = hash;
+                size++;
+                return true;
+            }
+            if (hashes[i] == hash && existing.equalsIgnoreCase(name)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Grows the table once for the given number of names.
+     */
+    void ensureCapacity(int capacity) {
+        int tableSize = names.length;
+        while (tableSize < 2L * capacity && tableSize < (1 << 30)) {
+            tableSize *= 2;
+        }
+        if (tableSize > names.length) {
+            resize(tableSize);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int tableSize) {
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        names = new String[tableSize];
+        hashes = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int j = 0; j < oldNames.length; j++) {
+            if (oldNames[j] != null) {
+                int i = spread(oldHashes[j]) & mask;
+                while (names[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                names[i] = oldNames[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    /**
+     * Hash that is equal for names that are equal ignoring case.
+     */
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            // Same folding as String.equalsIgnoreCase
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return h;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B1;
+    }
+}
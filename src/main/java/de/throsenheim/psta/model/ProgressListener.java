@@ -0,0 +1,16 @@
+package de.throsenheim.psta.model;
+
+/**
+ * Gets told about the progress of a battle, once after every round.
+ * Called on the battle thread, so it should return quickly.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * @param round the round that just ended
+     * @param livingHeroes number of heroes still alive
+     * @param livingMonsters number of monsters still alive
+     */
+    void roundCompleted(int round, long livingHeroes, long livingMonsters);
+}
@@ -0,0 +1,77 @@
+package de.throsenheim.psta.model;
+
+import java.util.List;
+
+/**
+ * Finds the creatures whose health or number of units changed during a round, so round
+ * summaries only have to show those. The last known state lives in primitive arrays that
+ * are reused from round to round.
+ */
+final class RoundDeltas {
+
+    private int[] health = new int[0];
+    private int[] units = new int[0];
+    private int[] changed = new int[0];
+    private int changedCount;
+
+    /**
+     * Remembers the state every later round is compared to.
+     *
+     * @param creatures all creatures of the battle
+     */
+    void start(List<Creature> creatures) {
+        int n = creatures.size();
+        if (health.length != n) {
+            health = new int[n];
+            units = new int[n];
+            changed = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            Creature creature = creatures.get(i);
+            health[i] = creature.getHealth();
+            units[i] = creature.getStackSize();
+        }
+        changedCount = 0;
+    }
+
+    /**
+     * Compares the creatures to the state after the last round and remembers the new state.
+     *
+     * @param creatures all creatures of the battle, the same ones as in {@link #start(List)}
+     * @return number of creatures that changed
+     */
+    int collect(List<Creature> creatures) {
+        changedCount = 0;
+        for (int i = 0; i < health.length; i++) {
+            Creature creature = creatures.get(i);
+            int newHealth = creature.getHealth();
+            int newUnits = creature.getStackSize();
+            if (newHealth != health[i] || newUnits != units[i]) {
+                health[i] = newHealth;
+                units[i] = newUnits;
+                changed[changedCount++] = i;
+            }
+        }
+        return changedCount;
+    }
+
+    int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * @param i position in the changes of the last round, from 0 to {@link #getChangedCount()} - 1
+     * @return index of the creature in {@link Battlefield#getAllCreatures()}, in ascending order
+     */
+    int getChanged(int i) {
+        return changed[i];
+    }
+
+    int getHealth(int creature) {
+        return health[creature];
+    }
+
+    int getUnits(int creature) {
+        return units[creature];
+    }
+}
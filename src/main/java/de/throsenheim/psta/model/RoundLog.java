@@ -0,0 +1,116 @@
+package de.throsenheim.psta.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the binary round log of a battle, see {@link Battlefield#setRoundLog(OutputStream)}.
+ * {@link RoundReplay} reads it back.
+ *
+ * Instead of every creature every round, a round only lists the creatures whose health or
+ * number of units changed, so a round in which three of a million creatures were hit takes a
+ * few bytes. All numbers are unsigned LEB128 varints (7 bits per byte, low bits first):
+ * <pre>
+ * header:  "RDLG", version, start round, creature count,
+ *          per creature: team ordinal, name length, UTF-8 name, max health, health, units
+ * round:   round number (at least 1), number of changes,
+ *          per change: index gap to the previous change (the first is the index itself), health, units
+ * end:     0
+ * </pre>
+ * Rounds without changes are written too, so the log shows how long the battle ran.
+ * Rounds jumped over by the stalemate detection have no record.
+ */
+final class RoundLog {
+
+    static final byte[] MAGIC = {'R', 'D', 'L', 'G'};
+    static final int VERSION = 1;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+
+    RoundLog(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the header of a battle.
+     *
+     * @param creatures all creatures of the battle
+     * @param round the round the battle starts after
+     */
+    void start(List<Creature> creatures, int round) {
+        for (byte b : MAGIC) {
+            writeByte(b);
+        }
+        writeVarint(VERSION);
+        writeVarint(round);
+        writeVarint(creatures.size());
+        for (Creature creature : creatures) {
+            byte[] name = creature.getName().getBytes(StandardCharsets.UTF_8);
+            writeVarint(creature.getTeam().ordinal());
+            writeVarint(name.length);
+            for (byte b : name) {
+                writeByte(b);
+            }
+            writeVarint(creature.getMaxHealth());
+            writeVarint(creature.getHealth());
+            writeVarint(creature.getStackSize());
+        }
+    }
+
+    /**
+     * Writes the changes of one round.
+     *
+     * @param round the round
+     * @param deltas the changes found after the round
+     */
+    void writeRound(int round, RoundDeltas deltas) {
+        writeVarint(round);
+        writeVarint(deltas.getChangedCount());
+        int previous = -1;
+        for (int i = 0; i < deltas.getChangedCount(); i++) {
+            int creature = deltas.getChanged(i);
+            writeVarint(creature - previous - 1);
+            writeVarint(deltas.getHealth(creature));
+            writeVarint(deltas.getUnits(creature));
+            previous = creature;
+        }
+    }
+
+    /**
+     * Ends the battle, also one that was cut short; a battle played again after a reset starts with a new header.
+     */
+    void finish() {
+        writeVarint(0);
+        flush();
+    }
+
+    private void flush() {
+        try {
+            out.write(buffer, 0, position);
+            out.flush();
+            position = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write round log", e);
+        }
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int b) {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) b;
+    }
+}
@@ -0,0 +1,246 @@
+package de.throsenheim.psta.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Rebuilds the state of every creature after any round from a round log written by
+ * {@link Battlefield#setRoundLog(java.io.OutputStream)}.
+ *
+ * The changes of all rounds are kept in primitive arrays. {@link #seek(int)} applies them
+ * from the current position forward, or from the start when going back, so walking through a
+ * battle round by round costs no more than the changes themselves.
+ */
+public final class RoundReplay {
+
+    private final int startRound;
+    private final Team[] teams;
+    private final String[] names;
+    private final int[] maxHealth;
+    private final int[] startHealth;
+    private final int[] startUnits;
+
+    // Changes of all rounds, the changes of record r are changeStart[r] to changeStart[r + 1] - 1
+    private int[] rounds = new int[16];
+    private int[] changeStart = new int[17];
+    private int recordCount;
+    private int[] changedCreature = new int[64];
+    private int[] changedHealth = new int[64];
+    private int[] changedUnits = new int[64];
+
+    private final int[] health;
+    private final int[] units;
+    private int appliedRecords;
+
+    private RoundReplay(int startRound, int creatures) {
+        this.startRound = startRound;
+        this.teams = new Team[creatures];
+        this.names = new String[creatures];
+        this.maxHealth = new int[creatures];
+        this.startHealth = new int[creatures];
+        this.startUnits = new int[creatures];
+        this.health = new int[creatures];
+        this.units = new int[creatures];
+    }
+
+    /**
+     * Reads the log of one battle. The stream is left right after its end marker,
+     * so the log of the next battle in the same stream can be read next.
+     *
+     * @param in the log
+     * @return the replay, positioned at the start of the battle
+     * @throws IOException if the stream can't be read or is not a round log
+     */
+    public static RoundReplay read(InputStream in) throws IOException {
+        for (byte b : RoundLog.MAGIC) {
+            if (readByte(in) != b) {
+                throw new IOException("Not a round log");
+            }
+        }
+        int version = readVarint(in);
+        if (version != RoundLog.VERSION) {
+            throw new IOException("Unsupported round log version " + version);
+        }
+        int startRound = readVarint(in);
+        RoundReplay replay = new RoundReplay(startRound, readVarint(in));
+        Team[] allTeams = Team.values();
+        for (int i = 0; i < replay.names.length; i++) {
+            int team = readVarint(in);
+            if (team >= allTeams.length) {
+                throw new IOException("Unknown team " + team + " for creature " + i);
+            }
+            replay.teams[i] = allTeams[team];
+            byte[] name = new byte[readVarint(in)];
+            for (int j = 0; j < name.length; j++) {
+                name[j] = (byte) readByte(in);
+            }
+            replay.names[i] = new String(name, StandardCharsets.UTF_8);
+            replay.maxHealth[i] = readVarint(in);
+            replay.startHealth[i] = readVarint(in);
+            replay.startUnits[i] = readVarint(in);
+        }
+
+        int lastRound = startRound;
+        for (int round = readVarint(in); round != 0; round = readVarint(in)) {
+            if (round <= lastRound) {
+                throw new IOException("Round " + round + " follows round " + lastRound);
+            }
+            lastRound = round;
+            replay.readRound(in, round);
+        }
+        replay.rewind();
+        return replay;
+    }
+
+    private void rewind() {
+        System.arraycopy(startHealth, 0, health, 0, health.length);
+        System.arraycopy(startUnits, 0, units, 0, units.length);
+        appliedRecords = 0;
+    }
+
+    private void readRound(InputStream in, int round) throws IOException {
+        if (recordCount == rounds.length) {
+            rounds = Arrays.copyOf(rounds, recordCount * 2);
+            changeStart = Arrays.copyOf(changeStart, recordCount * 2 + 1);
+        }
+        int count = readVarint(in);
+        int first = changeStart[recordCount];
+        if (changedCreature.length < first + count) {
+            int capacity = Math.max(first + count, changedCreature.length * 2);
+            changedCreature = Arrays.copyOf(changedCreature, capacity);
+            changedHealth = Arrays.copyOf(changedHealth, capacity);
+            changedUnits = Arrays.copyOf(changedUnits, capacity);
+        }
+        int creature = -1;
+        for (int i = first; i < first + count; i++) {
+            creature += readVarint(in) + 1;
+            if (creature >= names.length) {
+                throw new IOException("Round " + round + " changes unknown creature " + creature);
+            }
+            changedCreature[i] = creature;
+            changedHealth[i] = readVarint(in);
+            changedUnits[i] = readVarint(in);
+        }
+        rounds[recordCount] = round;
+        changeStart[++recordCount] = first + count;
+    }
+
+    /**
+     * Moves to the state after a round.
+     *
+     * @param round the round, {@link #getStartRound()} for the state before the first recorded round;
+     *              rounds without a record show the state of the last recorded round before them
+     * @throws IllegalArgumentException if the round is before the start of the log
+     */
+    public void seek(int round) {
+        if (round < startRound) {
+            throw new IllegalArgumentException("The log starts after round " + startRound + ", got: " + round);
+        }
+        if (appliedRecords > 0 && rounds[appliedRecords - 1] > round) {
+            rewind();
+        }
+        while (appliedRecords < recordCount && rounds[appliedRecords] <= round) {
+            for (int i = changeStart[appliedRecords]; i < changeStart[appliedRecords + 1]; i++) {
+                health[changedCreature[i]] = changedHealth[i];
+                units[changedCreature[i]] = changedUnits[i];
+            }
+            appliedRecords++;
+        }
+    }
+
+    /**
+     * @param round a round
+     * @return number of creatures that changed in the round, 0 if it has no record
+     */
+    public int getChangeCount(int round) {
+        int record = Arrays.binarySearch(rounds, 0, recordCount, round);
+        return record >= 0 ? changeStart[record + 1] - changeStart[record] : 0;
+    }
+
+    /**
+     * @param team a team
+     * @return number of its creatures alive at the current position
+     */
+    public int getLivingCount(Team team) {
+        int living = 0;
+        for (int i = 0; i < health.length; i++) {
+            if (teams[i] == team && health[i] > 0) {
+                living++;
+            }
+        }
+        return living;
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte(in);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint is too long");
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Round log ends too early");
+        }
+        return b;
+    }
+
+    // Getters
+
+    /**
+     * @return the round the battle started after, 0 unless it was resumed
+     */
+    public int getStartRound() {
+        return startRound;
+    }
+
+    /**
+     * @return the last recorded round
+     */
+    public int getLastRound() {
+        return recordCount > 0 ? rounds[recordCount - 1] : startRound;
+    }
+
+    public int getCreatureCount() {
+        return names.length;
+    }
+
+    public String getName(int creature) {
+        return names[creature];
+    }
+
+    public Team getTeam(int creature) {
+        return teams[creature];
+    }
+
+    public int getMaxHealth(int creature) {
+        return maxHealth[creature];
+    }
+
+    /**
+     * @return health of the creature's top unit at the current position, 0 once defeated
+     */
+    public int getHealth(int creature) {
+        return health[creature];
+    }
+
+    /**
+     * @return number of units of the creature at the current position, 0 once defeated
+     */
+    public int getUnits(int creature) {
+        return units[creature];
+    }
+
+    public boolean isAlive(int creature) {
+        return health[creature] > 0;
+    }
+}
@@ -0,0 +1,85 @@
+package de.throsenheim.psta.model;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+
+import java.time.Duration;
+
+/**
+ * Limits and observers for {@link Battlefield#run(RunOptions)}.
+ * Immutable; the {@code with...} methods return changed copies.
+ */
+public final class RunOptions {
+
+    /** No limits besides the max rounds, nobody listening */
+    public static final RunOptions NONE = new RunOptions(null, null, null, null);
+
+    private final Duration timeLimit;
+    private final Duration cpuBudget;
+    private final CancellationToken cancellationToken;
+    private final ProgressListener progressListener;
+
+    private RunOptions(Duration timeLimit, Duration cpuBudget, CancellationToken cancellationToken,
+                       ProgressListener progressListener) {
+        this.timeLimit = timeLimit;
+        this.cpuBudget = cpuBudget;
+        this.cancellationToken = cancellationToken;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * @param timeLimit wall-clock time the battle may take, counted from the start of the run
+     * @return changed copy
+     */
+    public RunOptions withTimeLimit(Duration timeLimit) {
+        checkPositive("Time limit", timeLimit);
+        return new RunOptions(timeLimit, cpuBudget, cancellationToken, progressListener);
+    }
+
+    /**
+     * @param cpuBudget CPU time the battle thread may use, counted from the start of the run
+     * @return changed copy
+     */
+    public RunOptions withCpuBudget(Duration cpuBudget) {
+        checkPositive("CPU budget", cpuBudget);
+        return new RunOptions(timeLimit, cpuBudget, cancellationToken, progressListener);
+    }
+
+    public RunOptions withCancellationToken(CancellationToken cancellationToken) {
+        return new RunOptions(timeLimit, cpuBudget, cancellationToken, progressListener);
+    }
+
+    public RunOptions withProgressListener(ProgressListener progressListener) {
+        return new RunOptions(timeLimit, cpuBudget, cancellationToken, progressListener);
+    }
+
+    private static void checkPositive(String name, Duration duration) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new GameConfigurationException(name + " must be positive, got: " + duration);
+        }
+    }
+
+    // Getters
+
+    public Duration getTimeLimit() {
+        return timeLimit;
+    }
+
+    public Duration getCpuBudget() {
+        return cpuBudget;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * @return whether the battle has to check anything while it runs
+     */
+    boolean hasLimits() {
+        return timeLimit != null || cpuBudget != null || cancellationToken != null;
+    }
+}
@@ -0,0 +1,80 @@
+package de.throsenheim.psta.model;
+
+import java.util.List;
+
+/**
+ * Finds battles that have fallen into a loop.
+ * Uses Brent's cycle detection: a snapshot of all creature states is saved at
+ * growing intervals (1, 2, 4, ... rounds) and every following round is compared to it.
+ * Only needs memory for one snapshot, no matter how long the battle runs.
+ *
+ * Only valid while every observed round was deterministic, so the battlefield
+ * calls {@link #reset()} as soon as a round could have been changed by a random draw.
+ */
+class StalemateDetector {
+
+    private long[] savedHealth = new long[0];
+    private int[] savedFlags = new int[0];
+    private int savedRound;
+    private int power;
+    private boolean hasSnapshot;
+
+    /**
+     * Forgets the saved snapshot. The next observed round starts a new search.
+     */
+    void reset() {
+        hasSnapshot = false;
+    }
+
+    /**
+     * Checks the state after a deterministic round against the saved snapshot.
+     *
+     * @param creatures all creatures of the battle, always in the same order
+     * @param round the round that just ended
+     * @return length of the detected cycle in rounds, or 0 if none was found yet
+     */
+    int observe(List<Creature> creatures, int round) {
+        if (!hasSnapshot) {
+            power = 1;
+            save(creatures, round);
+            return 0;
+        }
+
+        if (matchesSnapshot(creatures)) {
+            return round - savedRound;
+        }
+
+        if (round - savedRound >= power) {
+            power *= 2;
+            save(creatures, round);
+        }
+        return 0;
+    }
+
+    private void save(List<Creature> creatures, int round) {
+        int size = creatures.size();
+        if (savedHealth.length != size) {
+            savedHealth = new long[size];
+            savedFlags = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            Creature creature = creatures.get(i);
+            savedHealth[i] = creature.getTotalHealth();
+            savedFlags[i] = creature.getStateFlags();
+        }
+        savedRound = round;
+        hasSnapshot = true;
+    }
+
+    private boolean matchesSnapshot(List<Creature> creatures) {
+        for (int i = 0; i < savedHealth.length; i++) {
+            Creature creature = creatures.get(i);
+            // Health 0 means dead, so this also compares the alive flags; the total health
+            // of a stack changes whenever its top unit or its size does
+            if (savedHealth[i] != creature.getTotalHealth() || savedFlags[i] != creature.getStateFlags()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
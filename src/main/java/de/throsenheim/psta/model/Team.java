@@ -9,5 +9,12 @@ public enum Team {
     HEROES,
     
     /** Team of monsters fighting against heroes */
-    MONSTERS
+    MONSTERS;
+    
+    /**
+     * @return the team this team fights against
+     */
+    public Team opponent() {
+        return this == HEROES ? MONSTERS : HEROES;
+    }
 }
@@ -0,0 +1,256 @@
+package de.throsenheim.psta.model;
+
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Threat of the heroes in the eyes of every monster, see {@link Battlefield#setThreatEnabled(boolean)}.
+ *
+ * Every point of damage a hero deals to a monster adds 2 threat on that monster; every point of
+ * health a hero heals adds 1 threat on all monsters. Monsters that follow the table attack the
+ * living hero with the most threat. A hero can taunt a monster to get just above the top of its
+ * table, once every {@link #TAUNT_COOLDOWN_ROUNDS} rounds.
+ *
+ * Each monster gets an {@link IntLongMap} keyed by the index of the hero in
+ * {@link Battlefield#getAllCreatures()} once it is first hit, and healing threat is kept in one
+ * array for all monsters, so a hit updates one primitive entry and a heal one array slot,
+ * however many creatures fight. The top hero of every monster is cached and kept up to date by
+ * hits, heals and taunts; its table is only walked again once that hero falls. Healers remember
+ * the monsters they hit, so their heals can update the tops of those tables.
+ */
+public final class ThreatTable {
+
+    /** Rounds a hero has to wait between two taunts */
+    public static final int TAUNT_COOLDOWN_ROUNDS = 3;
+
+    // Cached top of a table: no living hero in it, or not known until the table is walked
+    private static final int NONE = -1;
+    private static final int UNKNOWN = -2;
+
+    private final List<Creature> creatures;
+    private final IntLongMap[] tables;
+    private final int[] tableTop;
+    // Monsters a healer has threat on from damage or taunts, the values are not used
+    private final IntLongMap[] healerTables;
+    private final long[] healingThreat;
+    private final int[] tauntReadyRound;
+    private int healingTop = -1;
+
+    ThreatTable(List<Creature> creatures) {
+        this.creatures = creatures;
+        this.tables = new IntLongMap[creatures.size()];
+        this.tableTop = new int[creatures.size()];
+        this.healerTables = new IntLongMap[creatures.size()];
+        this.healingThreat = new long[creatures.size()];
+        this.tauntReadyRound = new int[creatures.size()];
+        Arrays.fill(tableTop, NONE);
+    }
+
+    /**
+     * Forgets all threat, for a battle that is played again after {@link Battlefield#reset(long)}.
+     * The maps are kept, so the next battle doesn't allocate them again.
+     */
+    void clear() {
+        for (IntLongMap table : tables) {
+            if (table != null) {
+                table.clear();
+            }
+        }
+        for (IntLongMap table : healerTables) {
+            if (table != null) {
+                table.clear();
+            }
+        }
+        Arrays.fill(tableTop, NONE);
+        Arrays.fill(healingThreat, 0);
+        Arrays.fill(tauntReadyRound, 0);
+        healingTop = -1;
+    }
+
+    int getCreatureCount() {
+        return tables.length;
+    }
+
+    /**
+     * Counts damage a hero dealt to a monster. Damage between other teams is ignored.
+     *
+     * @param attacker the attacker
+     * @param target the creature that was hit
+     * @param amount health the target lost
+     */
+    void damageDealt(Creature attacker, Creature target, long amount) {
+        if (amount <= 0 || attacker.getTeam() != Team.HEROES || target.getTeam() != Team.MONSTERS) {
+            return;
+        }
+        int monster = target.getIndex();
+        addThreat(monster, attacker, 2 * amount);
+        raise(monster, attacker.getIndex());
+    }
+
+    /**
+     * Counts healing done by a hero, which every monster notices.
+     *
+     * @param healer the healer
+     * @param amount health restored
+     */
+    void healingDone(Creature healer, long amount) {
+        if (amount <= 0 || healer.getTeam() != Team.HEROES) {
+            return;
+        }
+        int hero = healer.getIndex();
+        healingThreat[hero] += amount;
+        if (healingTop < 0 || healingThreat[hero] > healingThreat[healingTop]
+                || (healingThreat[hero] == healingThreat[healingTop] && hero < healingTop)) {
+            healingTop = hero;
+        }
+        // Tables without the healer compare against healingTop when they are asked
+        IntLongMap monsters = healerTables[hero];
+        if (monsters != null) {
+            for (int slot = 0; slot < monsters.capacity(); slot++) {
+                int monster = monsters.keyAt(slot);
+                if (monster >= 0) {
+                    raise(monster, hero);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the living hero with the most threat on a monster. On equal threat the hero added first wins.
+     *
+     * @param monster the monster
+     * @return the hero, or null if no living hero has threat on it
+     */
+    Creature topTarget(Creature monster) {
+        int best = topIndex(monster.getIndex());
+        return best >= 0 ? creatures.get(best) : null;
+    }
+
+    /**
+     * Lets a hero taunt a monster: the hero's threat is raised to one above the top of the monster's table.
+     *
+     * @param hero the taunting hero
+     * @param monster the monster
+     * @param round the current round, for the cooldown
+     * @return true if the taunt was used, false if it is on cooldown or the hero is already on top
+     */
+    boolean taunt(Creature hero, Creature monster, int round) {
+        if (hero.getTeam() != Team.HEROES || monster.getTeam() != Team.MONSTERS
+                || round < tauntReadyRound[hero.getIndex()]) {
+            return false;
+        }
+        int top = topIndex(monster.getIndex());
+        if (top == hero.getIndex()) {
+            return false;
+        }
+        long needed = (top >= 0 ? getThreat(monster, creatures.get(top)) : 0) + 1;
+        addThreat(monster.getIndex(), hero, needed - getThreat(monster, hero));
+        tableTop[monster.getIndex()] = hero.getIndex();
+        tauntReadyRound[hero.getIndex()] = round + TAUNT_COOLDOWN_ROUNDS;
+        return true;
+    }
+
+    /**
+     * Gets the threat a hero has on a monster, from damage, healing and taunts.
+     *
+     * @param monster the monster
+     * @param hero the hero
+     * @return the threat, 0 if the hero did nothing the monster noticed
+     */
+    public long getThreat(Creature monster, Creature hero) {
+        IntLongMap table = tables[monster.getIndex()];
+        return (table != null ? table.get(hero.getIndex()) : 0) + healingThreat[hero.getIndex()];
+    }
+
+    private void addThreat(int monster, Creature hero, long amount) {
+        if (tables[monster] == null) {
+            tables[monster] = new IntLongMap();
+        }
+        tables[monster].add(hero.getIndex(), amount);
+        if (hero.getTemplate().getType() == CreatureType.HEALER) {
+            if (healerTables[hero.getIndex()] == null) {
+                healerTables[hero.getIndex()] = new IntLongMap();
+            }
+            healerTables[hero.getIndex()].add(monster, 0);
+        }
+    }
+
+    /**
+     * Updates the cached top of a table after the threat of a hero in it rose.
+     */
+    private void raise(int monster, int hero) {
+        int top = tableTop[monster];
+        if (top == UNKNOWN) {
+            return;
+        }
+        if (top >= 0 && !creatures.get(top).isAlive()) {
+            tableTop[monster] = UNKNOWN;
+            return;
+        }
+        if (top == NONE || top == hero) {
+            tableTop[monster] = creatures.get(hero).isAlive() ? hero : NONE;
+            return;
+        }
+        long threat = tables[monster].get(hero) + healingThreat[hero];
+        long topThreat = tables[monster].get(top) + healingThreat[top];
+        if (threat > topThreat || (threat == topThreat && hero < top)) {
+            tableTop[monster] = hero;
+        }
+    }
+
+    private int topIndex(int monster) {
+        int best = livingTableTop(monster);
+        long bestThreat = best >= 0 ? tables[monster].get(best) + healingThreat[best] : 0;
+        // Heroes that never hit this monster only have their healing threat
+        int healer = livingHealingTop();
+        if (healer >= 0 && (healingThreat[healer] > bestThreat
+                || (healingThreat[healer] == bestThreat && healer < best))) {
+            best = healer;
+        }
+        return best;
+    }
+
+    /**
+     * Finds the living hero with the most threat in a table; the cached one is only looked for again once it falls.
+     */
+    private int livingTableTop(int monster) {
+        int top = tableTop[monster];
+        if (top == NONE || (top >= 0 && creatures.get(top).isAlive())) {
+            return top;
+        }
+        int best = NONE;
+        long bestThreat = 0;
+        IntLongMap table = tables[monster];
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            int hero = table.keyAt(slot);
+            if (hero < 0 || !creatures.get(hero).isAlive()) {
+                continue;
+            }
+            long threat = table.valueAt(slot) + healingThreat[hero];
+            if (threat > bestThreat || (threat == bestThreat && hero < best)) {
+                best = hero;
+                bestThreat = threat;
+            }
+        }
+        tableTop[monster] = best;
+        return best;
+    }
+
+    /**
+     * Finds the living hero with the most healing threat; the cached one is only looked for again once it falls.
+     */
+    private int livingHealingTop() {
+        if (healingTop >= 0 && !creatures.get(healingTop).isAlive()) {
+            healingTop = -1;
+            for (int i = 0; i < healingThreat.length; i++) {
+                if (healingThreat[i] > 0 && creatures.get(i).isAlive()
+                        && (healingTop < 0 || healingThreat[i] > healingThreat[healingTop])) {
+                    healingTop = i;
+                }
+            }
+        }
+        return healingTop;
+    }
+}
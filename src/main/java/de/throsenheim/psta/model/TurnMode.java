@@ -0,0 +1,19 @@
+package de.throsenheim.psta.model;
+
+/**
+ * How the battlefield decides who acts next, see {@link Battlefield#setTurnMode(TurnMode)}.
+ */
+public enum TurnMode {
+
+    /** Every living creature acts once per round, higher initiative first */
+    ROUNDS,
+
+    /**
+     * Initiative is speed: every creature waits a time inversely proportional to its initiative
+     * between two actions, so fast creatures act more often than slow ones. A creature with
+     * the average initiative of the battle acts once per round, and the max rounds become a
+     * limit on the simulated time. With equal initiatives the battle is the same as in
+     * {@link #ROUNDS} mode.
+     */
+    ACTIVE_TIME
+}
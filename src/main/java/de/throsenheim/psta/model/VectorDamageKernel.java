@@ -0,0 +1,30 @@
+package de.throsenheim.psta.model;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of the {@link AreaDamage} loop.
+ * Only loaded when the vector module is present, so the rest of the game runs without it.
+ */
+final class VectorDamageKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorDamageKernel() {
+    }
+
+    static int apply(int damage, int[] health, int[] defense, int count) {
+        IntVector damageVector = IntVector.broadcast(SPECIES, damage);
+        int defeated = 0;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            IntVector actualDamage = damageVector.sub(IntVector.fromArray(SPECIES, defense, i)).max(1);
+            IntVector remaining = IntVector.fromArray(SPECIES, health, i).sub(actualDamage).max(0);
+            remaining.intoArray(health, i);
+            defeated += remaining.compare(VectorOperators.EQ, 0).trueCount();
+        }
+        return defeated + AreaDamage.applyScalar(damage, health, defense, count, i);
+    }
+}
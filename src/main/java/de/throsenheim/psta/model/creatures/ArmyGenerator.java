@@ -0,0 +1,145 @@
+package de.throsenheim.psta.model.creatures;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+
+import java.util.Random;
+
+/**
+ * Builds the creatures of an {@link ArmySpec} on demand. Creature {@code i} only depends on
+ * the spec, the seed and {@code i}: every value is hashed from these three, so creatures can
+ * be made in any order, in parallel or again later, and an army of millions never has to be
+ * kept as a list of specs.
+ *
+ * The spec is checked once when the generator is made. Drawn stats are clamped to their valid
+ * range, so making a creature never fails.
+ */
+public final class ArmyGenerator {
+
+    private static final CreatureType[] TYPES = CreatureType.values();
+    private static final String[] TEMPLATE_NAMES = {"Warrior", "Mage", "Healer", "Monster Boss"};
+    private static final double TWO_POW_53 = 0x1.0p-53;
+
+    private final ArmySpec spec;
+    private final long seed;
+    private final double[] cumulativeShares;
+
+    /**
+     * Creates a generator.
+     *
+     * @param spec the army
+     * @param seed seed of all drawn values
+     * @throws de.throsenheim.psta.exceptions.GameConfigurationException if the spec is invalid
+     */
+    public ArmyGenerator(ArmySpec spec, long seed) {
+        spec.validate();
+        this.spec = spec;
+        this.seed = seed;
+
+        cumulativeShares = new double[TYPES.length];
+        double total = 0;
+        for (CreatureType type : TYPES) {
+            total += spec.getShare(type);
+        }
+        double sum = 0;
+        for (CreatureType type : TYPES) {
+            sum += spec.getShare(type);
+            cumulativeShares[type.ordinal()] = sum / total;
+        }
+    }
+
+    /**
+     * Gets the type of a creature.
+     *
+     * @param index index of the creature
+     * @return its type
+     */
+    public CreatureType typeAt(int index) {
+        double draw = uniform(index, 0);
+        for (int i = 0; i < TYPES.length - 1; i++) {
+            if (draw < cumulativeShares[i]) {
+                return TYPES[i];
+            }
+        }
+        // Rounding may leave the last sum a bit below 1
+        for (int i = TYPES.length - 1; i > 0; i--) {
+            if (spec.getShare(TYPES[i]) > 0) {
+                return TYPES[i];
+            }
+        }
+        return TYPES[0];
+    }
+
+    /**
+     * Gets a stat of a creature, drawn from the spec's distribution, rounded and clamped.
+     *
+     * @param index index of the creature
+     * @param stat the stat
+     * @return its value
+     */
+    public int statAt(int index, CreatureSpec.Stat stat) {
+        double mean = spec.getMean(stat);
+        double sigma = spec.getSigma(stat);
+        double value = mean;
+        if (sigma > 0) {
+            // Box-Muller over two independent uniforms; 1 - u keeps the logarithm finite
+            double u1 = 1.0 - uniform(index, 1 + 2 * stat.ordinal());
+            double u2 = uniform(index, 2 + 2 * stat.ordinal());
+            value += sigma * Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+        }
+        int minimum = stat == CreatureSpec.Stat.HEALTH || stat == CreatureSpec.Stat.UNITS ? 1 : 0;
+        return (int) Math.max(minimum, Math.min(Integer.MAX_VALUE, Math.round(value)));
+    }
+
+    /**
+     * Makes a creature. It has no name of its own and is called after its type and id.
+     *
+     * @param index index of the creature, from 0 to {@code size() - 1}
+     * @param random random number generator of the creature in battle
+     * @return the new creature at full health
+     * @throws IndexOutOfBoundsException if the index is outside the army
+     */
+    public Creature create(int index, Random random) {
+        if (index < 0 || index >= spec.getSize()) {
+            throw new IndexOutOfBoundsException("Creature " + index + " of an army of " + spec.getSize());
+        }
+        CreatureType type = typeAt(index);
+        try {
+            CreatureTemplate template = new CreatureTemplate(type, TEMPLATE_NAMES[type.ordinal()],
+                    statAt(index, CreatureSpec.Stat.HEALTH), statAt(index, CreatureSpec.Stat.ATTACK_POWER),
+                    statAt(index, CreatureSpec.Stat.DEFENSE), statAt(index, CreatureSpec.Stat.INITIATIVE),
+                    spec.getTeam(), type == CreatureType.HEALER ? statAt(index, CreatureSpec.Stat.HEAL_POWER) : 0,
+                    random);
+            return template.createStack(null, statAt(index, CreatureSpec.Stat.UNITS));
+        } catch (InvalidCreatureStateException e) {
+            // The spec was checked and every stat is clamped
+            throw new IllegalStateException("Generated an invalid creature", e);
+        }
+    }
+
+    /**
+     * A uniform value in [0, 1) for one draw of one creature, from a SplitMix64 hash.
+     */
+    private double uniform(int index, int draw) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) index << 5) + draw + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * TWO_POW_53;
+    }
+
+    // Getters
+
+    public ArmySpec getSpec() {
+        return spec;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int size() {
+        return spec.getSize();
+    }
+}
@@ -0,0 +1,252 @@
+package de.throsenheim.psta.model.creatures;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.Team;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact description of a whole army for {@link ArmyGenerator}: team, size, the share of
+ * every creature type and a normal distribution per stat. Immutable; the {@code with...}
+ * methods return changed copies. A spec can also be written as text, see {@link #parse}.
+ */
+public final class ArmySpec {
+
+    private static final CreatureSpec.Stat[] STATS = CreatureSpec.Stat.values();
+
+    private final Team team;
+    private final int size;
+    private final double[] shares;
+    private final double[] means;
+    private final double[] sigmas;
+
+    /**
+     * Creates a spec for an army of warriors with fixed default stats.
+     *
+     * @param team the team of every creature
+     * @param size number of creatures
+     */
+    public ArmySpec(Team team, int size) {
+        this(team, size, new double[CreatureType.values().length],
+                new double[] {100, 15, 3, 5, 20, 1}, new double[STATS.length]);
+        shares[CreatureType.WARRIOR.ordinal()] = 1;
+    }
+
+    private ArmySpec(Team team, int size, double[] shares, double[] means, double[] sigmas) {
+        this.team = team;
+        this.size = size;
+        this.shares = shares;
+        this.means = means;
+        this.sigmas = sigmas;
+    }
+
+    /**
+     * Sets the shares of the creature types. Shares are relative weights, e.g. percentages.
+     *
+     * @param shares share per type; types that are left out get none
+     * @return a changed copy
+     */
+    public ArmySpec withShares(Map<CreatureType, ? extends Number> shares) {
+        double[] changed = new double[this.shares.length];
+        shares.forEach((type, share) -> changed[type.ordinal()] = share.doubleValue());
+        return new ArmySpec(team, size, changed, means, sigmas);
+    }
+
+    /**
+     * Draws a stat from a normal distribution. Draws are rounded and kept in the valid range
+     * of the stat, e.g. health is at least 1.
+     *
+     * @param stat the stat
+     * @param mean mean value
+     * @param sigma standard deviation, 0 for a fixed value
+     * @return a changed copy
+     */
+    public ArmySpec withStat(CreatureSpec.Stat stat, double mean, double sigma) {
+        double[] changedMeans = means.clone();
+        double[] changedSigmas = sigmas.clone();
+        changedMeans[stat.ordinal()] = mean;
+        changedSigmas[stat.ordinal()] = sigma;
+        return new ArmySpec(team, size, shares, changedMeans, changedSigmas);
+    }
+
+    /**
+     * Reads a spec like {@code "60% warrior, 30% mage, 10% healer, health ~ N(120, 20), attack ~ N(18, 4)"}.
+     * Items are separated by commas or semicolons; a stat is either {@code name ~ N(mean, sigma)}
+     * or {@code name = value}. Stat names are health, attack, defense, initiative, heal and units.
+     * Without any type share the army is all warriors.
+     *
+     * @param team the team of every creature
+     * @param size number of creatures
+     * @param text the spec
+     * @return the parsed spec
+     * @throws GameConfigurationException if the text can't be read
+     */
+    public static ArmySpec parse(Team team, int size, String text) {
+        ArmySpec spec = new ArmySpec(team, size);
+        double[] shares = new double[spec.shares.length];
+        boolean anyShare = false;
+        for (String item : splitItems(Objects.requireNonNull(text, "text"))) {
+            String lower = item.trim().toLowerCase(Locale.ROOT);
+            if (lower.isEmpty()) {
+                continue;
+            }
+            if (lower.matches("[0-9.]+\\s*%\\s*[a-z_ ]+")) {
+                int percent = lower.indexOf('%');
+                CreatureType type = parseType(lower.substring(percent + 1).trim());
+                shares[type.ordinal()] += parseNumber(lower.substring(0, percent).trim(), item);
+                anyShare = true;
+            } else if (lower.contains("~")) {
+                String[] parts = lower.split("~", 2);
+                String distribution = parts[1].trim();
+                if (!distribution.startsWith("n(") || !distribution.endsWith(")")) {
+                    throw new GameConfigurationException("Expected N(mean, sigma) in: " + item);
+                }
+                String[] arguments = distribution.substring(2, distribution.length() - 1).split(",");
+                if (arguments.length != 2) {
+                    throw new GameConfigurationException("Expected N(mean, sigma) in: " + item);
+                }
+                spec = spec.withStat(parseStat(parts[0].trim()), parseNumber(arguments[0].trim(), item),
+                        parseNumber(arguments[1].trim(), item));
+            } else if (lower.contains("=")) {
+                String[] parts = lower.split("=", 2);
+                spec = spec.withStat(parseStat(parts[0].trim()), parseNumber(parts[1].trim(), item), 0);
+            } else {
+                throw new GameConfigurationException("Cannot read army spec item: " + item);
+            }
+        }
+        return anyShare ? new ArmySpec(team, size, shares, spec.means, spec.sigmas) : spec;
+    }
+
+    /**
+     * Splits at commas and semicolons that are not inside parentheses.
+     */
+    private static List<String> splitItems(String text) {
+        List<String> items = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if ((c == ',' || c == ';') && depth == 0) {
+                items.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        items.add(text.substring(start));
+        return items;
+    }
+
+    private static CreatureType parseType(String name) {
+        try {
+            return CreatureType.valueOf(name.toUpperCase(Locale.ROOT).replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new GameConfigurationException("Unknown creature type: " + name);
+        }
+    }
+
+    private static CreatureSpec.Stat parseStat(String name) {
+        switch (name) {
+            case "health":
+                return CreatureSpec.Stat.HEALTH;
+            case "attack":
+            case "attack_power":
+                return CreatureSpec.Stat.ATTACK_POWER;
+            case "defense":
+                return CreatureSpec.Stat.DEFENSE;
+            case "initiative":
+                return CreatureSpec.Stat.INITIATIVE;
+            case "heal":
+            case "heal_power":
+                return CreatureSpec.Stat.HEAL_POWER;
+            case "units":
+                return CreatureSpec.Stat.UNITS;
+            default:
+                throw new GameConfigurationException("Unknown stat: " + name);
+        }
+    }
+
+    private static double parseNumber(String value, String item) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new GameConfigurationException("Invalid number '" + value + "' in: " + item);
+        }
+    }
+
+    /**
+     * Checks the whole spec once, so the generator never has to reject a single creature.
+     *
+     * @throws GameConfigurationException if the spec can't produce an army
+     */
+    void validate() {
+        if (team == null) {
+            throw new GameConfigurationException("Army team cannot be null");
+        }
+        if (size < 0) {
+            throw new GameConfigurationException("Army size cannot be negative, got: " + size);
+        }
+        double total = 0;
+        for (double share : shares) {
+            if (share < 0 || !Double.isFinite(share)) {
+                throw new GameConfigurationException("Type shares must be finite and not negative: "
+                        + Arrays.toString(shares));
+            }
+            total += share;
+        }
+        if (total <= 0) {
+            throw new GameConfigurationException("At least one creature type needs a share");
+        }
+        for (CreatureSpec.Stat stat : STATS) {
+            if (!Double.isFinite(means[stat.ordinal()]) || !Double.isFinite(sigmas[stat.ordinal()])
+                    || sigmas[stat.ordinal()] < 0) {
+                throw new GameConfigurationException("Invalid distribution for " + stat + ": N("
+                        + means[stat.ordinal()] + ", " + sigmas[stat.ordinal()] + ")");
+            }
+        }
+    }
+
+    // Getters
+
+    public Team getTeam() {
+        return team;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getShare(CreatureType type) {
+        return shares[type.ordinal()];
+    }
+
+    public double getMean(CreatureSpec.Stat stat) {
+        return means[stat.ordinal()];
+    }
+
+    public double getSigma(CreatureSpec.Stat stat) {
+        return sigmas[stat.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("ArmySpec[").append(team).append(" x").append(size);
+        for (CreatureType type : CreatureType.values()) {
+            if (shares[type.ordinal()] > 0) {
+                text.append(", ").append(shares[type.ordinal()]).append(' ').append(type);
+            }
+        }
+        for (CreatureSpec.Stat stat : STATS) {
+            text.append(", ").append(stat).append("~N(").append(means[stat.ordinal()]).append(", ")
+                    .append(sigmas[stat.ordinal()]).append(')');
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,195 @@
+package de.throsenheim.psta.model.creatures;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.Team;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Description of a creature that can be built many times, e.g. once per seed in a batch run.
+ * Immutable; {@link #withStat(Stat, int)} returns a changed copy.
+ */
+public final class CreatureSpec {
+
+    /**
+     * The numeric stats of a creature that can be varied.
+     */
+    public enum Stat {
+        HEALTH,
+        ATTACK_POWER,
+        DEFENSE,
+        INITIATIVE,
+        HEAL_POWER,
+        UNITS
+    }
+
+    private final CreatureType type;
+    private final String name;
+    private final int health;
+    private final int attackPower;
+    private final int defense;
+    private final int initiative;
+    private final Team team;
+    private final int healPower;
+    private final int units;
+
+    /**
+     * Creates a spec for a single creature. The values are checked when a creature is built from it.
+     *
+     * @param healPower only used by healers
+     */
+    public CreatureSpec(CreatureType type, String name, int health, int attackPower, int defense,
+                        int initiative, Team team, int healPower) {
+        this(type, name, health, attackPower, defense, initiative, team, healPower, 1);
+    }
+
+    /**
+     * Creates a spec for a stack of identical units, see {@link CreatureTemplate#createStack}.
+     * The values are checked when a creature is built from it.
+     *
+     * @param healPower only used by healers
+     * @param units number of units in the stack, 1 for a single creature
+     */
+    public CreatureSpec(CreatureType type, String name, int health, int attackPower, int defense,
+                        int initiative, Team team, int healPower, int units) {
+        this.type = Objects.requireNonNull(type, "type");
+        this.name = name;
+        this.health = health;
+        this.attackPower = attackPower;
+        this.defense = defense;
+        this.initiative = initiative;
+        this.team = team;
+        this.healPower = healPower;
+        this.units = units;
+    }
+
+    /**
+     * Describes an existing creature (at full health, with the units a stack has left).
+     *
+     * @param creature the creature
+     * @return its spec
+     * @throws IllegalArgumentException if the creature is of a custom class
+     */
+    public static CreatureSpec of(Creature creature) {
+        return new CreatureSpec(CreatureType.of(creature), creature.getName(), creature.getMaxHealth(),
+                creature.getAttackPower(), creature.getDefense(), creature.getInitiative(),
+                creature.getTeam(), CreatureType.healPowerOf(creature), Math.max(1, creature.getStackSize()));
+    }
+
+    /**
+     * Builds a new creature from this spec.
+     *
+     * @param random random number generator for the creature
+     * @return the new creature
+     * @throws InvalidCreatureStateException if the stats are invalid
+     */
+    public Creature create(Random random) throws InvalidCreatureStateException {
+        if (units == 1) {
+            return type.create(name, health, attackPower, defense, initiative, team, healPower, random);
+        }
+        return new CreatureTemplate(type, name, health, attackPower, defense, initiative, team, healPower, random)
+                .createStack(name, units);
+    }
+
+    /**
+     * @param stat the stat to change
+     * @param value its new value
+     * @return a copy of this spec with one stat changed
+     */
+    public CreatureSpec withStat(Stat stat, int value) {
+        return new CreatureSpec(type, name,
+                stat == Stat.HEALTH ? value : health,
+                stat == Stat.ATTACK_POWER ? value : attackPower,
+                stat == Stat.DEFENSE ? value : defense,
+                stat == Stat.INITIATIVE ? value : initiative,
+                team,
+                stat == Stat.HEAL_POWER ? value : healPower,
+                stat == Stat.UNITS ? value : units);
+    }
+
+    /**
+     * @param stat the stat to read
+     * @return its value
+     */
+    public int getStat(Stat stat) {
+        switch (stat) {
+            case HEALTH:
+                return health;
+            case ATTACK_POWER:
+                return attackPower;
+            case DEFENSE:
+                return defense;
+            case INITIATIVE:
+                return initiative;
+            case HEAL_POWER:
+                return healPower;
+            case UNITS:
+                return units;
+            default:
+                throw new IllegalArgumentException("Unknown stat: " + stat);
+        }
+    }
+
+    // Getters
+
+    public CreatureType getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getHealth() {
+        return health;
+    }
+
+    public int getAttackPower() {
+        return attackPower;
+    }
+
+    public int getDefense() {
+        return defense;
+    }
+
+    public int getInitiative() {
+        return initiative;
+    }
+
+    public Team getTeam() {
+        return team;
+    }
+
+    public int getHealPower() {
+        return healPower;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        CreatureSpec other = (CreatureSpec) obj;
+        return type == other.type && Objects.equals(name, other.name) && health == other.health
+                && attackPower == other.attackPower && defense == other.defense
+                && initiative == other.initiative && team == other.team && healPower == other.healPower
+                && units == other.units;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, name, health, attackPower, defense, initiative, team, healPower, units);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[name='%s', HP=%d, ATK=%d, DEF=%d, INI=%d, team=%s, heal=%d, units=%d]",
+                type, name, health, attackPower, defense, initiative, team, healPower, units);
+    }
+}
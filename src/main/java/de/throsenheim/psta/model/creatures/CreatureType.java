@@ -0,0 +1,109 @@
+package de.throsenheim.psta.model.creatures;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.Team;
+
+import java.util.Random;
+
+/**
+ * The concrete creature classes, used wherever creatures have to be
+ * created from stored data instead of code (e.g. when resuming a battle).
+ */
+public enum CreatureType {
+    WARRIOR,
+    MAGE,
+    HEALER,
+    MONSTER_BOSS;
+    
+    /**
+     * Creates a new creature of this type.
+     * 
+     * @param healPower only used by healers
+     * @return the new creature
+     * @throws InvalidCreatureStateException if the stats are invalid
+     */
+    public Creature create(String name, int health, int attackPower, int defense, int initiative,
+                           Team team, int healPower, Random random) throws InvalidCreatureStateException {
+        switch (this) {
+            case WARRIOR:
+                return new Warrior(name, health, attackPower, defense, initiative, team, random);
+            case MAGE:
+                return new Mage(name, health, attackPower, defense, initiative, team, random);
+            case HEALER:
+                return new Healer(name, health, attackPower, defense, initiative, team, healPower, random);
+            case MONSTER_BOSS:
+                return new MonsterBoss(name, health, attackPower, defense, initiative, team, random);
+            default:
+                throw new IllegalStateException("Unknown creature type: " + this);
+        }
+    }
+    
+    /**
+     * Creates a new creature of this type from a template.
+     * 
+     * @param template the stats, must be a template of this type
+     * @param name the creature's own name, or null to call it after the template
+     * @return the new creature
+     * @throws InvalidCreatureStateException if the name is blank or the template is for another type
+     */
+    public Creature create(CreatureTemplate template, String name) throws InvalidCreatureStateException {
+        switch (this) {
+            case WARRIOR:
+                return new Warrior(template, name);
+            case MAGE:
+                return new Mage(template, name);
+            case HEALER:
+                return new Healer(template, name);
+            case MONSTER_BOSS:
+                return new MonsterBoss(template, name);
+            default:
+                throw new IllegalStateException("Unknown creature type: " + this);
+        }
+    }
+    
+    /**
+     * Finds the type of an existing creature.
+     * 
+     * @param creature the creature
+     * @return its type
+     * @throws IllegalArgumentException if the creature is not one of the known classes
+     */
+    public static CreatureType of(Creature creature) {
+        CreatureType type = find(creature);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown creature class: " + creature.getClass().getName());
+        }
+        return type;
+    }
+    
+    /**
+     * Finds the type of an existing creature, if it has one.
+     * 
+     * @param creature the creature
+     * @return its type, or null for a creature class outside the known ones
+     */
+    public static CreatureType find(Creature creature) {
+        if (creature instanceof Warrior) {
+            return WARRIOR;
+        } else if (creature instanceof Mage) {
+            return MAGE;
+        } else if (creature instanceof Healer) {
+            return HEALER;
+        } else if (creature instanceof MonsterBoss) {
+            return MONSTER_BOSS;
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the heal power of a creature, 0 for everything that is not a healer.
+     * 
+     * @param creature the creature
+     * @return its heal power
+     */
+    public static int healPowerOf(Creature creature) {
+        return creature instanceof Healer ? creature.getTemplate().getHealPower() : 0;
+    }
+}
@@ -3,10 +3,10 @@ package de.throsenheim.psta.model.creatures;
 import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
 import de.throsenheim.psta.model.Battlefield;
 import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.LivingView;
 import de.throsenheim.psta.model.Team;
 
-import java.util.Comparator;
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -14,16 +14,14 @@ import java.util.Random;
  */
 public class Healer extends Creature {
     
-    private static final double HEAL_THRESHOLD = 0.6;  // Heal if below 60% HP
-    
-    private final Random random;
-    private final int healPower;
-    
     public Healer(String name, int health, int attackPower, int defense, int initiative, 
                   Team team, int healPower, Random random) throws InvalidCreatureStateException {
-        super(name, health, attackPower, defense, initiative, team);
-        this.random = random != null ? random : new Random();
-        this.healPower = healPower;
+        this(new CreatureTemplate(CreatureType.HEALER, name, health, attackPower, defense, initiative, team,
+                healPower, random), name);
+    }
+    
+    public Healer(CreatureTemplate template, String name) throws InvalidCreatureStateException {
+        super(template, name);
     }
     
     @Override
@@ -39,26 +37,29 @@ public class Healer extends Creature {
         }
         
         // Find ally that needs healing
-        List<Creature> allies = battlefield.getAllies(this);
-        Creature woundedAlly = allies.stream()
-                .filter(ally -> ally.getHealthPercentage() < HEAL_THRESHOLD)
-                .min(Comparator.comparingDouble(Creature::getHealthPercentage))
-                .orElse(null);
+        Creature woundedAlly = battlefield.getLivingTeam(this).findLowestHealthPercentage(this);
         
-        if (woundedAlly != null) {
-            System.out.println(getName() + " casts HEAL on " + woundedAlly.getName() + "!");
-            woundedAlly.heal(healPower);
+        if (woundedAlly != null && woundedAlly.getHealthPercentage() < getBalanceProfile().getHealThreshold()) {
+            if (isOutputEnabled()) {
+                System.out.println(getName() + " casts HEAL on " + woundedAlly.getName() + "!");
+            }
+            // Every unit of a stack casts its own heal
+            int amount = (int) Math.min(Integer.MAX_VALUE, (long) getHealPower() * getStackSize());
+            reportHealing(amount, woundedAlly.heal(amount));
         } else {
             // No one needs healing, attack
-            List<Creature> enemies = battlefield.getEnemies(this);
+            LivingView enemies = battlefield.getLivingEnemies(this);
             if (!enemies.isEmpty()) {
-                Creature target = enemies.get(random.nextInt(enemies.size()));
+                if (enemies.size() > 1) {
+                    reportRandomChoice();
+                }
+                Creature target = enemies.get(getRandom().nextInt(enemies.size()));
                 attack(target);
             }
         }
     }
     
     public int getHealPower() {
-        return healPower;
+        return getTemplate().getHealPower();
     }
 }
@@ -3,9 +3,10 @@ package de.throsenheim.psta.model.creatures;
 import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
 import de.throsenheim.psta.model.Battlefield;
 import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.LivingView;
 import de.throsenheim.psta.model.Team;
 
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -13,14 +14,14 @@ import java.util.Random;
  */
 public class Mage extends Creature {
     
-    private static final int MAX_AOE_TARGETS = 3;
-    
-    private final Random random;
-    
     public Mage(String name, int health, int attackPower, int defense, int initiative, Team team, Random random) 
             throws InvalidCreatureStateException {
-        super(name, health, attackPower, defense, initiative, team);
-        this.random = random != null ? random : new Random();
+        this(new CreatureTemplate(CreatureType.MAGE, name, health, attackPower, defense, initiative, team, 0, random),
+                name);
+    }
+    
+    public Mage(CreatureTemplate template, String name) throws InvalidCreatureStateException {
+        super(template, name);
     }
     
     @Override
@@ -35,19 +36,28 @@ public class Mage extends Creature {
             return;
         }
         
-        List<Creature> enemies = battlefield.getEnemies(this);
+        LivingView enemies = battlefield.getLivingEnemies(this);
         if (enemies.isEmpty()) {
             return;
         }
         
-        // Attack up to 3 enemies
-        int targetsHit = Math.min(MAX_AOE_TARGETS, enemies.size());
-        System.out.println(getName() + " casts AOE spell on " + targetsHit + " targets!");
-        
-        for (int i = 0; i < targetsHit; i++) {
-            if (enemies.get(i).isAlive()) {
-                attack(enemies.get(i));
+        // Attack up to 3 enemies (with the default balance), a large limit turns this into a mass spell
+        int targetsHit = Math.min(getBalanceProfile().getMaxAoeTargets(), enemies.size());
+        if (isOutputEnabled() || hasSpectators()) {
+            if (isOutputEnabled()) {
+                System.out.println(getName() + " casts AOE spell on " + targetsHit + " targets!");
+            }
+            
+            // Every target is hit once, so a target dying does not change who comes next
+            int hit = 0;
+            for (int i = enemies.first(); i >= 0 && hit < targetsHit; i = enemies.next(i)) {
+                attack(enemies.at(i));
+                hit++;
             }
+            return;
         }
+        
+        // The spell damage doesn't depend on the target, so all targets can be resolved together
+        dealAreaDamage(enemies, targetsHit, getAttackPower());
     }
 }
@@ -1,11 +1,12 @@
 package de.throsenheim.psta.model.creatures;
 
 import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
 import de.throsenheim.psta.model.Battlefield;
 import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
 import de.throsenheim.psta.model.Team;
 
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -13,57 +14,67 @@ import java.util.Random;
  */
 public class MonsterBoss extends Creature {
     
-    private static final double ENRAGE_THRESHOLD = 0.5;      // 50% health
-    private static final double ENRAGE_MULTIPLIER = 1.5;     // 1.5x damage
-    
-    private final Random random;
     private boolean enraged;
     
     public MonsterBoss(String name, int health, int attackPower, int defense, int initiative, Team team, Random random) 
             throws InvalidCreatureStateException {
-        super(name, health, attackPower, defense, initiative, team);
-        this.random = random != null ? random : new Random();
+        this(new CreatureTemplate(CreatureType.MONSTER_BOSS, name, health, attackPower, defense, initiative, team, 0, random),
+                name);
+    }
+    
+    public MonsterBoss(CreatureTemplate template, String name) throws InvalidCreatureStateException {
+        super(template, name);
         this.enraged = false;
     }
     
     // Does more damage when health is low
     @Override
     protected int calculateDamage(Creature target) {
-        if (!enraged && getHealthPercentage() <= ENRAGE_THRESHOLD) {
+        BalanceProfile balance = getBalanceProfile();
+        if (!enraged && getHealthPercentage() <= balance.getEnrageThreshold()) {
             enraged = true;
-            System.out.println("  >>> " + getName() + " ENRAGES! Attack power increased! <<<");
+            reportEnraged();
+            if (isOutputEnabled()) {
+                System.out.println("  >>> " + getName() + " ENRAGES! Attack power increased! <<<");
+            }
         }
         
         int baseDamage = getAttackPower();
         if (enraged) {
-            baseDamage = (int) (baseDamage * ENRAGE_MULTIPLIER);
+            baseDamage = (int) (baseDamage * balance.getEnrageMultiplier());
         }
         
         return baseDamage;
     }
     
-    // Attacks enemies with low defense
+    // Attacks the hero with the most threat, or enemies with low defense
     @Override
     public void performRoundAction(Battlefield battlefield) {
         if (!isAlive()) {
             return;
         }
         
-        List<Creature> enemies = battlefield.getEnemies(this);
-        if (enemies.isEmpty()) {
-            return;
+        // Without threat tables, or before anyone drew attention, target low-defense enemies
+        Creature target = battlefield.findTopThreat(this);
+        if (target == null) {
+            target = battlefield.getLivingEnemies(this).findLowestDefense();
         }
         
-        // Target low-defense enemies
-        Creature target = enemies.stream()
-                .min((a, b) -> Integer.compare(a.getDefense(), b.getDefense()))
-                .orElse(null);
-        
         if (target != null) {
             attack(target);
         }
     }
     
+    @Override
+    protected int getStateFlags() {
+        return enraged ? 1 : 0;
+    }
+    
+    @Override
+    protected void restoreStateFlags(int flags) {
+        enraged = (flags & 1) != 0;
+    }
+    
     public boolean isEnraged() {
         return enraged;
     }
@@ -1,11 +1,12 @@
 package de.throsenheim.psta.model.creatures;
 
 import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
 import de.throsenheim.psta.model.Battlefield;
 import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
 import de.throsenheim.psta.model.Team;
 
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -13,50 +14,56 @@ import java.util.Random;
  */
 public class Warrior extends Creature {
     
-    private static final double CRITICAL_HIT_CHANCE = 0.25;  // 25% chance
-    private static final double CRITICAL_MULTIPLIER = 1.5;    // 1.5x damage
-    
-    private final Random random;
-    
     public Warrior(String name, int health, int attackPower, int defense, int initiative, Team team, Random random) 
             throws InvalidCreatureStateException {
-        super(name, health, attackPower, defense, initiative, team);
-        this.random = random != null ? random : new Random();
+        this(new CreatureTemplate(CreatureType.WARRIOR, name, health, attackPower, defense, initiative, team, 0, random),
+                name);
+    }
+    
+    public Warrior(CreatureTemplate template, String name) throws InvalidCreatureStateException {
+        super(template, name);
     }
     
     // Sometimes does critical hit
     @Override
     protected int calculateDamage(Creature target) {
         int baseDamage = getAttackPower();
+        BalanceProfile balance = getBalanceProfile();
+        int critDamage = (int) (baseDamage * balance.getCriticalMultiplier());
+        
+        // The roll only matters if a crit gets through the target's defense
+        if (Math.max(1, critDamage - target.getDefense()) != Math.max(1, baseDamage - target.getDefense())) {
+            reportRandomChoice();
+        }
         
         // Check for critical hit
-        if (random.nextDouble() < CRITICAL_HIT_CHANCE) {
-            int critDamage = (int) (baseDamage * CRITICAL_MULTIPLIER);
-            System.out.println("  ** CRITICAL HIT! **");
+        if (getRandom().nextDouble() < balance.getCriticalHitChance()) {
+            reportCriticalHit();
+            if (isOutputEnabled()) {
+                System.out.println("  ** CRITICAL HIT! **");
+            }
             return critDamage;
         }
         
         return baseDamage;
     }
     
-    // Attacks the weakest enemy
+    // Attacks the weakest enemy; with threat on, monster warriors attack the top threat
+    // and hero warriors taunt their target to protect the others
     @Override
     public void performRoundAction(Battlefield battlefield) {
         if (!isAlive()) {
             return;
         }
         
-        List<Creature> enemies = battlefield.getEnemies(this);
-        if (enemies.isEmpty()) {
-            return;
+        // Monsters follow their threat table if there is one, everyone else finds the enemy with lowest health
+        Creature target = battlefield.findTopThreat(this);
+        if (target == null) {
+            target = battlefield.getLivingEnemies(this).findLowestHealth();
         }
         
-        // Find enemy with lowest health
-        Creature target = enemies.stream()
-                .min((a, b) -> Integer.compare(a.getHealth(), b.getHealth()))
-                .orElse(null);
-        
         if (target != null) {
+            battlefield.taunt(this, target);
             attack(target);
         }
     }
@@ -0,0 +1,160 @@
+package de.throsenheim.psta.persistence;
+
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Binary file format for a battlefield definition: max rounds, balance constants and
+ * every creature's type, name, stats, team, heal power and stack size, in insertion order.
+ *
+ * <pre>
+ * header (64 bytes): magic "CBRS", version, max rounds, creature count, balance profile
+ * records (32 bytes each): type, team, name length, health, attack, defense,
+ *                          initiative, heal power, name offset, units
+ * names: UTF-8 bytes of all names, one after the other
+ * </pre>
+ * All numbers are big-endian. The fixed-width records let {@link RosterView} read any
+ * creature straight from the mapped file.
+ */
+public final class RosterFile {
+
+    static final int MAGIC = 0x43425253; // "CBRS"
+    static final int VERSION = 1;
+
+    // Header layout
+    static final int MAX_ROUNDS = 8;
+    static final int COUNT = 12;
+    static final int BALANCE = 16;
+    static final int HEADER_SIZE = 64;
+
+    // Record layout
+    static final int TYPE = 0;
+    static final int TEAM = 1;
+    static final int NAME_LENGTH = 2;
+    static final int HEALTH = 4;
+    static final int ATTACK = 8;
+    static final int DEFENSE = 12;
+    static final int INITIATIVE = 16;
+    static final int HEAL_POWER = 20;
+    static final int NAME_OFFSET = 24;
+    static final int UNITS = 28;
+    static final int RECORD_SIZE = 32;
+
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private RosterFile() {
+    }
+
+    /**
+     * Saves the definition of a battlefield. Creatures are saved at full health.
+     *
+     * @param battlefield the battlefield
+     * @param path the file to write, replaced atomically
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Battlefield battlefield, Path path) throws IOException {
+        List<CreatureSpec> roster = new ArrayList<>(battlefield.getAllCreatures().size());
+        for (Creature creature : battlefield.getAllCreatures()) {
+            roster.add(CreatureSpec.of(creature));
+        }
+        write(battlefield.getMaxRounds(), battlefield.getBalanceProfile(), roster, path);
+    }
+
+    /**
+     * Saves a roster.
+     *
+     * @param maxRounds maximum number of rounds
+     * @param balance balance constants
+     * @param roster the creatures, in insertion order
+     * @param path the file to write, replaced atomically
+     * @throws IOException if the file can't be written or a name is too long
+     */
+    public static void write(int maxRounds, BalanceProfile balance, List<CreatureSpec> roster, Path path)
+            throws IOException {
+        byte[][] names = new byte[roster.size()][];
+        long nameBytes = 0;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = roster.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > MAX_NAME_BYTES) {
+                throw new IOException("Name of creature " + i + " is longer than " + MAX_NAME_BYTES + " bytes");
+            }
+            nameBytes += names[i].length;
+        }
+        if (HEADER_SIZE + (long) names.length * RECORD_SIZE + nameBytes > Integer.MAX_VALUE) {
+            throw new IOException("Roster is too large for one file");
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxRounds);
+            out.writeInt(roster.size());
+            out.writeDouble(balance.getCriticalHitChance());
+            out.writeDouble(balance.getCriticalMultiplier());
+            out.writeDouble(balance.getEnrageThreshold());
+            out.writeDouble(balance.getEnrageMultiplier());
+            out.writeDouble(balance.getHealThreshold());
+            out.writeInt(balance.getMaxAoeTargets());
+            out.write(new byte[HEADER_SIZE - out.size()]);
+
+            int nameOffset = 0;
+            for (int i = 0; i < names.length; i++) {
+                CreatureSpec spec = roster.get(i);
+                if (spec.getTeam() == null) {
+                    throw new IOException("Creature " + i + " has no team");
+                }
+                out.writeByte(spec.getType().ordinal());
+                out.writeByte(spec.getTeam().ordinal());
+                out.writeShort(names[i].length);
+                out.writeInt(spec.getHealth());
+                out.writeInt(spec.getAttackPower());
+                out.writeInt(spec.getDefense());
+                out.writeInt(spec.getInitiative());
+                out.writeInt(spec.getHealPower());
+                out.writeInt(nameOffset);
+                out.writeInt(spec.getUnits());
+                nameOffset += names[i].length;
+            }
+            for (byte[] name : names) {
+                out.write(name);
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads a battlefield from a roster file.
+     *
+     * @param path the file
+     * @param random random number generator shared by all creatures
+     * @return the battlefield, ready to start
+     * @throws IOException if the file can't be read or holds an invalid roster
+     */
+    public static Battlefield read(Path path, Random random) throws IOException {
+        return RosterView.open(path).toBattlefield(random);
+    }
+}
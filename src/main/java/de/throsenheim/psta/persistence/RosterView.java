@@ -0,0 +1,230 @@
+package de.throsenheim.psta.persistence;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Read-only view of a roster file written by {@link RosterFile}.
+ *
+ * The file is mapped and every getter reads straight from the mapped bytes; nothing is parsed
+ * up front and no objects are created except the names handed out by {@link #getName(int)}.
+ * The layout is checked once when the view is opened, so the getters can trust the file.
+ */
+public final class RosterView {
+
+    private static final CreatureType[] TYPES = CreatureType.values();
+    private static final Team[] TEAMS = Team.values();
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int namesOffset;
+
+    private RosterView(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < RosterFile.HEADER_SIZE || buffer.getInt(0) != RosterFile.MAGIC) {
+            throw new IOException("Not a roster file");
+        }
+        int version = buffer.getInt(4);
+        if (version != RosterFile.VERSION) {
+            throw new IOException("Unsupported roster version " + version);
+        }
+
+        this.size = buffer.getInt(RosterFile.COUNT);
+        long names = RosterFile.HEADER_SIZE + (long) size * RosterFile.RECORD_SIZE;
+        if (size < 0 || names > buffer.capacity()) {
+            throw new IOException("Roster file is truncated");
+        }
+        this.namesOffset = (int) names;
+        validate();
+    }
+
+    /**
+     * Maps a roster file.
+     *
+     * @param path the file
+     * @return the view
+     * @throws IOException if the file can't be read or is not a valid roster
+     */
+    public static RosterView open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Roster file is larger than 2 GB: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RosterView(buffer);
+        }
+    }
+
+    /**
+     * Wraps roster bytes that are already in memory.
+     *
+     * @param buffer the bytes of a roster file, big-endian
+     * @return the view
+     * @throws IOException if the bytes are not a valid roster
+     */
+    public static RosterView wrap(ByteBuffer buffer) throws IOException {
+        return new RosterView(buffer.duplicate());
+    }
+
+    private void validate() throws IOException {
+        long nameBytes = buffer.capacity() - namesOffset;
+        for (int i = 0; i < size; i++) {
+            int record = record(i);
+            int type = buffer.get(record + RosterFile.TYPE);
+            int team = buffer.get(record + RosterFile.TEAM);
+            long nameOffset = Integer.toUnsignedLong(buffer.getInt(record + RosterFile.NAME_OFFSET));
+            int nameLength = Short.toUnsignedInt(buffer.getShort(record + RosterFile.NAME_LENGTH));
+            if (type < 0 || type >= TYPES.length || team < 0 || team >= TEAMS.length) {
+                throw new IOException("Invalid type or team in creature " + i);
+            }
+            if (nameOffset + nameLength > nameBytes) {
+                throw new IOException("Name of creature " + i + " is outside the file");
+            }
+            if (buffer.getInt(record + RosterFile.UNITS) < 1) {
+                throw new IOException("Creature " + i + " has no units");
+            }
+        }
+    }
+
+    /**
+     * Builds a battlefield with all creatures of the roster.
+     *
+     * @param random random number generator shared by all creatures
+     * @return the battlefield, ready to start
+     * @throws IOException if a creature has invalid stats or a duplicate name
+     */
+    public Battlefield toBattlefield(Random random) throws IOException {
+        Battlefield battlefield = new Battlefield(getMaxRounds(), getBalanceProfile());
+        battlefield.ensureCapacity(size);
+        byte[] nameBuffer = new byte[64];
+        for (int i = 0; i < size; i++) {
+            int length = Short.toUnsignedInt(buffer.getShort(record(i) + RosterFile.NAME_LENGTH));
+            if (nameBuffer.length < length) {
+                nameBuffer = new byte[length];
+            }
+            try {
+                int units = getUnits(i);
+                if (units == 1) {
+                    battlefield.addCreature(getType(i).create(readName(i, nameBuffer), getHealth(i),
+                            getAttackPower(i), getDefense(i), getInitiative(i), getTeam(i), getHealPower(i), random));
+                } else {
+                    String name = readName(i, nameBuffer);
+                    battlefield.addCreature(new CreatureTemplate(getType(i), name, getHealth(i), getAttackPower(i),
+                            getDefense(i), getInitiative(i), getTeam(i), getHealPower(i), random)
+                            .createStack(name, units));
+                }
+            } catch (InvalidCreatureStateException | RuntimeException e) {
+                throw new IOException("Invalid creature " + i + " in roster: " + e.getMessage(), e);
+            }
+        }
+        return battlefield;
+    }
+
+    /**
+     * Reads the whole roster as specs, e.g. to run it many times with different seeds.
+     *
+     * @return one spec per creature, in insertion order
+     */
+    public List<CreatureSpec> toSpecs() {
+        List<CreatureSpec> specs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            specs.add(new CreatureSpec(getType(i), getName(i), getHealth(i), getAttackPower(i), getDefense(i),
+                    getInitiative(i), getTeam(i), getHealPower(i), getUnits(i)));
+        }
+        return specs;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxRounds() {
+        return buffer.getInt(RosterFile.MAX_ROUNDS);
+    }
+
+    /**
+     * @return the balance constants stored with the roster
+     */
+    public BalanceProfile getBalanceProfile() {
+        int offset = RosterFile.BALANCE;
+        return new BalanceProfile(buffer.getDouble(offset), buffer.getDouble(offset + 8),
+                buffer.getDouble(offset + 16), buffer.getDouble(offset + 24),
+                buffer.getDouble(offset + 32), buffer.getInt(offset + 40));
+    }
+
+    public CreatureType getType(int index) {
+        return TYPES[buffer.get(record(index) + RosterFile.TYPE)];
+    }
+
+    public Team getTeam(int index) {
+        return TEAMS[buffer.get(record(index) + RosterFile.TEAM)];
+    }
+
+    public String getName(int index) {
+        int length = Short.toUnsignedInt(buffer.getShort(record(index) + RosterFile.NAME_LENGTH));
+        return readName(index, new byte[length]);
+    }
+
+    /**
+     * Decodes a name through a scratch buffer that is at least as long as the name.
+     */
+    private String readName(int index, byte[] scratch) {
+        int record = record(index);
+        int offset = namesOffset + buffer.getInt(record + RosterFile.NAME_OFFSET);
+        int length = Short.toUnsignedInt(buffer.getShort(record + RosterFile.NAME_LENGTH));
+        buffer.get(offset, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public int getHealth(int index) {
+        return buffer.getInt(record(index) + RosterFile.HEALTH);
+    }
+
+    public int getAttackPower(int index) {
+        return buffer.getInt(record(index) + RosterFile.ATTACK);
+    }
+
+    public int getDefense(int index) {
+        return buffer.getInt(record(index) + RosterFile.DEFENSE);
+    }
+
+    public int getInitiative(int index) {
+        return buffer.getInt(record(index) + RosterFile.INITIATIVE);
+    }
+
+    public int getHealPower(int index) {
+        return buffer.getInt(record(index) + RosterFile.HEAL_POWER);
+    }
+
+    /**
+     * @param index the creature
+     * @return number of units in its stack, 1 for a single creature
+     */
+    public int getUnits(int index) {
+        return buffer.getInt(record(index) + RosterFile.UNITS);
+    }
+
+    private int record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Creature " + index + " of " + size);
+        }
+        return RosterFile.HEADER_SIZE + index * RosterFile.RECORD_SIZE;
+    }
+}
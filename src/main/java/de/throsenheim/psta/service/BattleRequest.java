@@ -0,0 +1,182 @@
+package de.throsenheim.psta.service;
+
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A battle submitted to the service, read from a JSON body like
+ * <pre>
+ * {"seed": 42, "maxRounds": 100, "battles": 10,
+ *  "balance": {"criticalHitChance": 0.3},
+ *  "creatures": [{"type": "WARRIOR", "name": "Knight", "team": "HEROES",
+ *                 "health": 120, "attack": 25, "defense": 6, "initiative": 7}]}
+ * </pre>
+ * Only {@code creatures} is required; {@code healPower} is read for healers and
+ * {@code units} turns a creature into a stack of identical units.
+ */
+public final class BattleRequest {
+
+    static final int DEFAULT_MAX_ROUNDS = 100;
+
+    private final long seed;
+    private final int maxRounds;
+    private final int battles;
+    private final BalanceProfile balance;
+    private final List<CreatureSpec> roster;
+
+    private BattleRequest(long seed, int maxRounds, int battles, BalanceProfile balance, List<CreatureSpec> roster) {
+        this.seed = seed;
+        this.maxRounds = maxRounds;
+        this.battles = battles;
+        this.balance = balance;
+        this.roster = roster;
+    }
+
+    /**
+     * Parses a request without a limit on the number of battles, e.g. a roster file
+     * given to the command line runner.
+     *
+     * @param body the JSON text
+     * @return the parsed request
+     * @throws IllegalArgumentException if the body is not a valid battle description
+     */
+    public static BattleRequest parse(String body) {
+        return parse(body, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param body the request body
+     * @param maxBattles most battles one request may ask for
+     * @return the parsed request
+     * @throws IllegalArgumentException if the body is not a valid battle description
+     */
+    static BattleRequest parse(String body, int maxBattles) {
+        Map<String, Object> json = asObject(Json.parse(body), "request");
+
+        long seed = getLong(json, "seed", 0);
+        int maxRounds = (int) getLong(json, "maxRounds", DEFAULT_MAX_ROUNDS);
+        int battles = (int) getLong(json, "battles", 1);
+        if (maxRounds <= 0) {
+            throw new IllegalArgumentException("maxRounds must be positive, got: " + maxRounds);
+        }
+        if (battles <= 0 || battles > maxBattles) {
+            throw new IllegalArgumentException("battles must be between 1 and " + maxBattles + ", got: " + battles);
+        }
+
+        BalanceProfile balance = BalanceProfile.DEFAULT;
+        if (json.get("balance") != null) {
+            balance = parseBalance(asObject(json.get("balance"), "balance"));
+        }
+
+        Object creatures = json.get("creatures");
+        if (!(creatures instanceof List) || ((List<?>) creatures).isEmpty()) {
+            throw new IllegalArgumentException("creatures must be a non-empty array");
+        }
+        List<CreatureSpec> roster = new ArrayList<>();
+        for (Object creature : (List<?>) creatures) {
+            roster.add(parseCreature(asObject(creature, "creature")));
+        }
+        return new BattleRequest(seed, maxRounds, battles, balance, roster);
+    }
+
+    private static BalanceProfile parseBalance(Map<String, Object> json) {
+        BalanceProfile base = BalanceProfile.DEFAULT;
+        return new BalanceProfile(
+                getDouble(json, "criticalHitChance", base.getCriticalHitChance()),
+                getDouble(json, "criticalMultiplier", base.getCriticalMultiplier()),
+                getDouble(json, "enrageThreshold", base.getEnrageThreshold()),
+                getDouble(json, "enrageMultiplier", base.getEnrageMultiplier()),
+                getDouble(json, "healThreshold", base.getHealThreshold()),
+                (int) getLong(json, "maxAoeTargets", base.getMaxAoeTargets()));
+    }
+
+    private static CreatureSpec parseCreature(Map<String, Object> json) {
+        CreatureType type = parseEnum(CreatureType.class, getString(json, "type"));
+        Team team = parseEnum(Team.class, getString(json, "team"));
+        return new CreatureSpec(type, getString(json, "name"),
+                (int) getLong(json, "health", 0),
+                (int) getLong(json, "attack", 0),
+                (int) getLong(json, "defense", 0),
+                (int) getLong(json, "initiative", 0),
+                team,
+                (int) getLong(json, "healPower", 0),
+                (int) getLong(json, "units", 1));
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value, String what) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException(what + " must be a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static String getString(Map<String, Object> json, String key) {
+        Object value = json.get(key);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(key + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private static long getLong(Map<String, Object> json, String key, long defaultValue) {
+        Object value = json.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Long)) {
+            throw new IllegalArgumentException(key + " must be a whole number");
+        }
+        long number = (Long) value;
+        if (!key.equals("seed") && (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(key + " is out of range: " + number);
+        }
+        return number;
+    }
+
+    private static double getDouble(Map<String, Object> json, String key, double defaultValue) {
+        Object value = json.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(key + " must be a number");
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    public int getBattles() {
+        return battles;
+    }
+
+    public BalanceProfile getBalance() {
+        return balance;
+    }
+
+    public List<CreatureSpec> getRoster() {
+        return roster;
+    }
+}
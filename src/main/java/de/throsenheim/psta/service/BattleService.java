@@ -0,0 +1,338 @@
+package de.throsenheim.psta.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.CancellationToken;
+import de.throsenheim.psta.model.RunOptions;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.simulation.BattleFactory;
+import de.throsenheim.psta.simulation.BattleOutcome;
+import de.throsenheim.psta.simulation.OutcomeCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small HTTP service that runs silent battles for other tools on the same machine.
+ *
+ * <ul>
+ *   <li>{@code POST /battle} runs one battle and returns winner, rounds and survivors</li>
+ *   <li>{@code POST /batch} runs {@code battles} battles with the seeds {@code seed, seed + 1, ...}
+ *       and returns one line per battle plus totals</li>
+ * </ul>
+ * The body format is described in {@link BattleRequest}.
+ *
+ * Battles run on a bounded pool: when all workers are busy and the queue is full, requests
+ * are answered with 503 right away. A request that takes longer than the timeout gets 504
+ * and its battles are cancelled.
+ */
+public class BattleService implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int MAX_BATTLES_PER_REQUEST = 100_000;
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor battlePool;
+    private final ExecutorService requestPool;
+    private final long timeoutMillis;
+    private volatile OutcomeCache outcomeCache;
+
+    /**
+     * Creates the service; call {@link #start()} to accept requests.
+     *
+     * @param address where to listen, usually the loopback address
+     * @param workers number of battles run at the same time
+     * @param queueCapacity number of requests that may wait for a worker
+     * @param timeoutMillis longest time a request may take
+     * @throws IOException if the address can't be bound
+     */
+    public BattleService(InetSocketAddress address, int workers, int queueCapacity, long timeoutMillis)
+            throws IOException {
+        if (workers <= 0 || queueCapacity < 0) {
+            throw new GameConfigurationException("Need at least one worker and a non-negative queue, got: "
+                    + workers + ", " + queueCapacity);
+        }
+        if (timeoutMillis <= 0) {
+            throw new GameConfigurationException("Timeout must be positive, got: " + timeoutMillis);
+        }
+
+        this.timeoutMillis = timeoutMillis;
+        this.battlePool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+                daemonThreads("battle-worker-"), new ThreadPoolExecutor.AbortPolicy());
+        // Request threads mostly wait for a battle, one per running or queued battle plus one to refuse the rest
+        this.requestPool = Executors.newFixedThreadPool(workers + queueCapacity + 1, daemonThreads("battle-http-"));
+
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/battle", exchange -> handle(exchange, false));
+        server.createContext("/batch", exchange -> handle(exchange, true));
+        server.setExecutor(requestPool);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Answers repeated battles from a cache instead of simulating them again.
+     *
+     * @param outcomeCache the cache, null to always simulate
+     */
+    public void setOutcomeCache(OutcomeCache outcomeCache) {
+        this.outcomeCache = outcomeCache;
+    }
+
+    /**
+     * Stops accepting requests and abandons running battles.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        battlePool.shutdownNow();
+        requestPool.shutdownNow();
+    }
+
+    /**
+     * @return the port the service listens on, useful when it was started on port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, boolean batch) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use POST");
+                return;
+            }
+
+            String body = readBody(exchange);
+            if (body == null) {
+                sendError(exchange, 413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+                return;
+            }
+
+            BattleRequest request;
+            try {
+                request = BattleRequest.parse(body, batch ? MAX_BATTLES_PER_REQUEST : 1);
+            } catch (IllegalArgumentException | GameConfigurationException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+
+            CancellationToken token = new CancellationToken();
+            Callable<String> task = batch ? () -> runBatch(request, token) : () -> runSingle(request, token);
+            Future<String> future;
+            try {
+                future = battlePool.submit(task);
+            } catch (RejectedExecutionException e) {
+                sendError(exchange, 503, "All workers are busy, try again later");
+                return;
+            }
+
+            try {
+                send(exchange, 200, future.get(timeoutMillis, TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                token.cancel();
+                future.cancel(true);
+                sendError(exchange, 504, "Battle took longer than " + timeoutMillis + " ms");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IllegalArgumentException || cause instanceof GameConfigurationException) {
+                    sendError(exchange, 400, cause.getMessage());
+                } else {
+                    sendError(exchange, 500, String.valueOf(cause));
+                }
+            } catch (InterruptedException e) {
+                token.cancel();
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                sendError(exchange, 503, "Service is shutting down");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String runSingle(BattleRequest request, CancellationToken token) {
+        List<CreatureSpec> roster = request.getRoster();
+        BattleOutcome outcome = runBattle(request, request.getSeed(), token);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"seed\":").append(request.getSeed());
+        appendOutcome(json, outcome);
+        json.append(",\"survivors\":[");
+        boolean first = true;
+        for (int i = 0; i < roster.size(); i++) {
+            if (!outcome.isAlive(i)) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            CreatureSpec creature = roster.get(i);
+            json.append("{\"name\":");
+            Json.writeString(json, creature.getName());
+            json.append(",\"team\":\"").append(creature.getTeam())
+                    .append("\",\"health\":").append(outcome.getHealth(i))
+                    .append(",\"units\":").append(outcome.getUnits(i))
+                    .append(",\"totalHealth\":").append(outcome.getTotalHealth(i, creature.getHealth()))
+                    .append(",\"maxHealth\":").append(creature.getHealth()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String runBatch(BattleRequest request, CancellationToken token) {
+        int heroWins = 0;
+        int monsterWins = 0;
+        long totalRounds = 0;
+        StringBuilder results = new StringBuilder();
+
+        for (int i = 0; i < request.getBattles(); i++) {
+            long seed = request.getSeed() + i;
+            BattleOutcome outcome = runBattle(request, seed, token);
+
+            Team winner = outcome.getWinner();
+            if (winner == Team.HEROES) {
+                heroWins++;
+            } else if (winner == Team.MONSTERS) {
+                monsterWins++;
+            }
+            totalRounds += outcome.getRounds();
+
+            if (i > 0) {
+                results.append(',');
+            }
+            results.append("{\"seed\":").append(seed);
+            appendOutcome(results, outcome);
+            results.append(",\"survivors\":").append(countSurvivors(request.getRoster(), outcome, winner))
+                    .append('}');
+        }
+
+        int battles = request.getBattles();
+        return "{\"battles\":" + battles
+                + ",\"heroWins\":" + heroWins
+                + ",\"monsterWins\":" + monsterWins
+                + ",\"draws\":" + (battles - heroWins - monsterWins)
+                + ",\"averageRounds\":" + String.format(Locale.ROOT, "%.2f", (double) totalRounds / battles)
+                + ",\"results\":[" + results + "]}";
+    }
+
+    /**
+     * Runs a battle, or takes its outcome from the cache.
+     *
+     * @throws IllegalStateException if the request timed out; nobody reads the result anymore
+     */
+    private BattleOutcome runBattle(BattleRequest request, long seed, CancellationToken token) {
+        OutcomeCache cache = outcomeCache;
+        if (cache != null) {
+            return cache.getOrRun(request.getRoster(), seed, request.getMaxRounds(), request.getBalance(), token);
+        }
+
+        Battlefield battlefield = BattleFactory.create(request.getRoster(), seed, request.getMaxRounds(),
+                request.getBalance());
+        if (battlefield.run(RunOptions.NONE.withCancellationToken(token)).isCutShort()) {
+            throw new IllegalStateException("Battle was cancelled");
+        }
+        return BattleOutcome.of(battlefield);
+    }
+
+    private static int countSurvivors(List<CreatureSpec> roster, BattleOutcome outcome, Team team) {
+        int survivors = 0;
+        for (int i = 0; i < roster.size(); i++) {
+            if (roster.get(i).getTeam() == team && outcome.isAlive(i)) {
+                survivors++;
+            }
+        }
+        return survivors;
+    }
+
+    private static void appendOutcome(StringBuilder json, BattleOutcome outcome) {
+        Team winner = outcome.getWinner();
+        json.append(",\"winner\":").append(winner != null ? "\"" + winner + "\"" : "null")
+                .append(",\"rounds\":").append(outcome.getRounds());
+    }
+
+    /**
+     * @return the body, or null if it is too large
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (body.size() + read > MAX_BODY_BYTES) {
+                    return null;
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        Json.writeString(json, message);
+        send(exchange, status, json.append('}').toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Starts the service on the loopback address.
+     *
+     * @param args optional port, default {@value #DEFAULT_PORT}
+     * @throws IOException if the port can't be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int workers = Runtime.getRuntime().availableProcessors();
+        BattleService service = new BattleService(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                workers, workers * 4, 30_000);
+        service.setOutcomeCache(new OutcomeCache(64L << 20));
+        service.start();
+        System.out.println("Battle service listening on http://localhost:" + service.getPort());
+    }
+}
@@ -0,0 +1,121 @@
+package de.throsenheim.psta.simulation;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.TurnMode;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds silent, seeded battlefields from creature specs.
+ * All creatures share one {@code Random(seed)} and are added in roster order, so the same
+ * roster, seed, max rounds and balance always give the same battle.
+ *
+ * Monte Carlo loops that run the same roster for many seeds use {@link #acquire}, which
+ * keeps one battlefield per thread and only resets it for the next seed. Threads that live on
+ * after the loop, like the threads of a shared pool, call {@link #release()} so the pool doesn't
+ * keep the battlefield alive.
+ */
+public final class BattleFactory {
+
+    private static final ThreadLocal<Pooled> POOL = new ThreadLocal<>();
+
+    private BattleFactory() {
+    }
+
+    /**
+     * The battlefield a thread used last, with what it was built from.
+     */
+    private static final class Pooled {
+        final List<CreatureSpec> roster;
+        final int maxRounds;
+        final BalanceProfile balance;
+        final Battlefield battlefield;
+
+        Pooled(List<CreatureSpec> roster, int maxRounds, BalanceProfile balance, Battlefield battlefield) {
+            this.roster = roster;
+            this.maxRounds = maxRounds;
+            this.balance = balance;
+            this.battlefield = battlefield;
+        }
+
+        boolean matches(List<CreatureSpec> roster, int maxRounds, BalanceProfile balance) {
+            // Unmodifiable rosters are pooled as they are, so a loop passing the same one skips comparing every spec
+            return this.maxRounds == maxRounds && this.balance.equals(balance)
+                    && (this.roster == roster || this.roster.equals(roster));
+        }
+    }
+
+    /**
+     * Gets a silent battlefield that plays exactly the battle {@link #create} would, reusing
+     * the one this thread got last time if roster, max rounds and balance are the same.
+     * A reused battlefield is {@link Battlefield#reset(long) reset} to the new seed with output,
+     * metrics and threat off, round-based turns and the shared generator, so a loop over millions of seeds
+     * builds its creatures only once.
+     *
+     * The battlefield belongs to the pool: it is only valid until this thread calls
+     * {@code acquire} again, and callers must not keep it, add creatures or enable
+     * checkpoints or spectators on it. Use {@link #create} for battles that are kept around.
+     * Pass an unmodifiable roster (e.g. from {@code List.copyOf}) to loops over many seeds,
+     * it is then recognized by identity instead of comparing every spec.
+     *
+     * @param roster the creatures, in insertion order
+     * @param seed seed of the shared random number generator
+     * @param maxRounds maximum number of rounds
+     * @param balance balance constants
+     * @return a silent battlefield, ready to start
+     * @throws GameConfigurationException if a spec describes an invalid creature
+     */
+    public static Battlefield acquire(List<CreatureSpec> roster, long seed, int maxRounds, BalanceProfile balance) {
+        Pooled pooled = POOL.get();
+        if (pooled != null && pooled.matches(roster, maxRounds, balance)) {
+            Battlefield battlefield = pooled.battlefield;
+            battlefield.setOutputEnabled(false);
+            battlefield.setMetricsEnabled(false);
+            battlefield.setThreatEnabled(false);
+            battlefield.setStalemateDetection(true);
+            battlefield.setTurnMode(TurnMode.ROUNDS);
+            battlefield.disableCounterRandom();
+            battlefield.reset(seed);
+            return battlefield;
+        }
+
+        Battlefield battlefield = create(roster, seed, maxRounds, balance);
+        POOL.set(new Pooled(List.copyOf(roster), maxRounds, balance, battlefield));
+        return battlefield;
+    }
+
+    /**
+     * Drops the battlefield this thread keeps for {@link #acquire}. The next {@code acquire}
+     * on this thread builds a new one.
+     */
+    public static void release() {
+        POOL.remove();
+    }
+
+    /**
+     * @param roster the creatures, in insertion order
+     * @param seed seed of the shared random number generator
+     * @param maxRounds maximum number of rounds
+     * @param balance balance constants
+     * @return a silent battlefield, ready to start
+     * @throws GameConfigurationException if a spec describes an invalid creature
+     */
+    public static Battlefield create(List<CreatureSpec> roster, long seed, int maxRounds, BalanceProfile balance) {
+        Random random = new Random(seed);
+        Battlefield battlefield = new Battlefield(maxRounds, balance);
+        battlefield.setOutputEnabled(false);
+        for (CreatureSpec spec : roster) {
+            try {
+                battlefield.addCreature(spec.create(random));
+            } catch (InvalidCreatureStateException e) {
+                throw new GameConfigurationException("Invalid creature " + spec.getName() + ": " + e.getMessage(), e);
+            }
+        }
+        return battlefield;
+    }
+}
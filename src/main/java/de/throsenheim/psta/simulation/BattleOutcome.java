@@ -0,0 +1,97 @@
+package de.throsenheim.psta.simulation;
+
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+
+/**
+ * Final state of a finished battle: winner, rounds and the health and units left of every creature,
+ * in insertion order. Small enough to keep many of them in an {@link OutcomeCache}.
+ */
+public final class BattleOutcome {
+
+    private final Team winner;
+    private final int rounds;
+    private final int[] health;
+    private final int[] units;
+
+    BattleOutcome(Team winner, int rounds, int[] health, int[] units) {
+        this.winner = winner;
+        this.rounds = rounds;
+        this.health = health;
+        this.units = units;
+    }
+
+    /**
+     * @param battlefield a finished battle
+     * @return its outcome
+     */
+    public static BattleOutcome of(Battlefield battlefield) {
+        int[] health = new int[battlefield.getAllCreatures().size()];
+        int[] units = new int[health.length];
+        for (int i = 0; i < health.length; i++) {
+            Creature creature = battlefield.getAllCreatures().get(i);
+            health[i] = creature.getHealth();
+            units[i] = creature.getStackSize();
+        }
+        return new BattleOutcome(battlefield.getWinnerTeam(), battlefield.getCurrentRound(), health, units);
+    }
+
+    public Team getWinner() {
+        return winner;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public int getCreatureCount() {
+        return health.length;
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return final health of the creature, of the top unit for a stack
+     */
+    public int getHealth(int creature) {
+        return health[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return units the creature has left, 1 for a single creature, 0 once defeated
+     */
+    public int getUnits(int creature) {
+        return units[creature];
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @param maxHealth health of one unit of the creature
+     * @return final health of all units together
+     */
+    public long getTotalHealth(int creature, int maxHealth) {
+        return units[creature] > 0 ? (long) (units[creature] - 1) * maxHealth + health[creature] : 0;
+    }
+
+    /**
+     * @param creature index in insertion order
+     * @return whether the creature survived
+     */
+    public boolean isAlive(int creature) {
+        return health[creature] > 0;
+    }
+
+    int[] healthArray() {
+        return health;
+    }
+
+    int[] unitsArray() {
+        return units;
+    }
+
+    @Override
+    public String toString() {
+        return "BattleOutcome[winner=" + winner + ", rounds=" + rounds + ", creatures=" + health.length + "]";
+    }
+}
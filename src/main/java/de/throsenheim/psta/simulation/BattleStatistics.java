@@ -0,0 +1,149 @@
+package de.throsenheim.psta.simulation;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BattleMetrics;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Distributions collected over many battles, each kept in a {@link QuantileSketch}:
+ * <ul>
+ *   <li>rounds until the battle ended</li>
+ *   <li>damage dealt by each creature, per creature class</li>
+ *   <li>overheal wasted by each healer</li>
+ *   <li>round of the first enrage, for battles where a boss enraged</li>
+ * </ul>
+ * Memory stays the same no matter how many battles are recorded. Each worker keeps its
+ * own statistics and {@link #merge(BattleStatistics)} combines them at the end.
+ *
+ * Not thread-safe.
+ */
+public final class BattleStatistics {
+
+    private static final CreatureType[] TYPES = CreatureType.values();
+
+    private final QuantileSketch rounds = new QuantileSketch();
+    private final QuantileSketch[] damageDealt = new QuantileSketch[TYPES.length];
+    private final QuantileSketch overheal = new QuantileSketch();
+    private final QuantileSketch firstEnrageRound = new QuantileSketch();
+    private long battles;
+
+    public BattleStatistics() {
+        for (int i = 0; i < damageDealt.length; i++) {
+            damageDealt[i] = new QuantileSketch();
+        }
+    }
+
+    /**
+     * Records a finished battle that ran with metrics on.
+     *
+     * @param battlefield the battle
+     * @throws GameConfigurationException if the battle has no metrics
+     */
+    public void record(Battlefield battlefield) {
+        BattleMetrics metrics = battlefield.getMetrics();
+        if (metrics == null) {
+            throw new GameConfigurationException("Battle was run without metrics");
+        }
+
+        battles++;
+        rounds.record(battlefield.getCurrentRound());
+        List<Creature> creatures = battlefield.getAllCreatures();
+        for (int i = 0; i < creatures.size(); i++) {
+            CreatureType type = creatures.get(i).getTemplate().getType();
+            if (type == null) {
+                // Custom creature classes have no type to be grouped by
+                continue;
+            }
+            damageDealt[type.ordinal()].record(metrics.getDamageDealt(i));
+            if (type == CreatureType.HEALER) {
+                overheal.record(metrics.getOverheal(i));
+            }
+        }
+        if (metrics.getFirstEnrageRound() > 0) {
+            firstEnrageRound.record(metrics.getFirstEnrageRound());
+        }
+    }
+
+    /**
+     * Adds all battles recorded by another instance to this one.
+     *
+     * @param other the statistics to add, left unchanged
+     */
+    public void merge(BattleStatistics other) {
+        battles += other.battles;
+        rounds.merge(other.rounds);
+        for (int i = 0; i < damageDealt.length; i++) {
+            damageDealt[i].merge(other.damageDealt[i]);
+        }
+        overheal.merge(other.overheal);
+        firstEnrageRound.merge(other.firstEnrageRound);
+    }
+
+    /**
+     * Writes the distributions as a CSV table, one row per metric.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void writeTable(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("metric,count,mean,min,p50,p90,p99,max");
+            writer.newLine();
+            writeRow(writer, "rounds", rounds);
+            for (CreatureType type : TYPES) {
+                writeRow(writer, "damage_dealt_" + type.name().toLowerCase(Locale.ROOT), damageDealt[type.ordinal()]);
+            }
+            writeRow(writer, "overheal", overheal);
+            writeRow(writer, "first_enrage_round", firstEnrageRound);
+        }
+    }
+
+    private static void writeRow(BufferedWriter writer, String name, QuantileSketch sketch) throws IOException {
+        writer.write(String.format(Locale.ROOT, "%s,%d,%.2f,%d,%d,%d,%d,%d", name, sketch.getCount(),
+                sketch.getMean(), sketch.getMin(), sketch.quantile(0.5), sketch.quantile(0.9),
+                sketch.quantile(0.99), sketch.getMax()));
+        writer.newLine();
+    }
+
+    // Getters
+
+    public long getBattles() {
+        return battles;
+    }
+
+    public QuantileSketch getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @param type the creature class
+     * @return damage dealt per creature of that class and battle
+     */
+    public QuantileSketch getDamageDealt(CreatureType type) {
+        return damageDealt[type.ordinal()];
+    }
+
+    /**
+     * @return overheal wasted per healer and battle
+     */
+    public QuantileSketch getOverheal() {
+        return overheal;
+    }
+
+    /**
+     * @return round of the first enrage, only battles with an enrage are counted
+     */
+    public QuantileSketch getFirstEnrageRound() {
+        return firstEnrageRound;
+    }
+}
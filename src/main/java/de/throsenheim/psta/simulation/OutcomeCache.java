@@ -0,0 +1,343 @@
+package de.throsenheim.psta.simulation;
+
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.BattleResult;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.CancellationToken;
+import de.throsenheim.psta.model.RunOptions;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of seeded battle outcomes, so repeated requests for the same battle don't simulate again.
+ *
+ * Keys are fingerprints of everything that decides a battle: creature types, stats, heal power,
+ * teams, insertion order, seed, max rounds and balance constants. Names are left out since they
+ * don't change the outcome.
+ *
+ * The memory tier is an LRU map limited by the estimated bytes of its entries. With a
+ * directory, every outcome is also written to disk and outcomes evicted from memory are
+ * read back from there. Two threads that miss on the same key at once both simulate it.
+ */
+public class OutcomeCache {
+
+    private static final int FILE_MAGIC = 0x43424f43; // "CBOC"
+    private static final int FILE_VERSION = 2;
+    private static final int FINGERPRINT_VERSION = 2;
+    /** Rough heap size of an entry without its health and unit arrays: key string, map node, outcome object */
+    private static final int ENTRY_OVERHEAD = 200;
+
+    private final long maxBytes;
+    private final Path directory;
+    private final LinkedHashMap<String, BattleOutcome> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a memory-only cache.
+     *
+     * @param maxBytes estimated heap the entries may use
+     */
+    public OutcomeCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * @param maxBytes estimated heap the entries may use
+     * @param directory directory of the disk tier, null for none
+     */
+    public OutcomeCache(long maxBytes, Path directory) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, got: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create cache directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached outcome of a battle or simulates it.
+     *
+     * @param roster the creatures, in insertion order
+     * @param seed seed of the battle
+     * @param maxRounds maximum number of rounds
+     * @param balance balance constants
+     * @return the outcome
+     */
+    public BattleOutcome getOrRun(List<CreatureSpec> roster, long seed, int maxRounds, BalanceProfile balance) {
+        return getOrRun(roster, seed, maxRounds, balance, null);
+    }
+
+    /**
+     * Returns the cached outcome of a battle or simulates it. Cancelled battles are not cached.
+     *
+     * @param token cancels the simulation, may be null
+     * @return the outcome
+     * @throws IllegalStateException if the battle was cancelled
+     */
+    public BattleOutcome getOrRun(List<CreatureSpec> roster, long seed, int maxRounds, BalanceProfile balance,
+                                  CancellationToken token) {
+        String key = fingerprint(roster, seed, maxRounds, balance);
+        BattleOutcome cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Battlefield battlefield = BattleFactory.create(roster, seed, maxRounds, balance);
+        BattleResult result = battlefield.run(token != null
+                ? RunOptions.NONE.withCancellationToken(token) : RunOptions.NONE);
+        if (result.isCutShort()) {
+            throw new IllegalStateException("Battle was cancelled");
+        }
+        BattleOutcome outcome = BattleOutcome.of(battlefield);
+        put(key, outcome);
+        return outcome;
+    }
+
+    /**
+     * Looks an outcome up in memory, then on disk. Counts a hit or a miss.
+     *
+     * @param key fingerprint from {@link #fingerprint}
+     * @return the outcome, or null
+     */
+    public BattleOutcome get(String key) {
+        synchronized (entries) {
+            BattleOutcome outcome = entries.get(key);
+            if (outcome != null) {
+                hits.incrementAndGet();
+                return outcome;
+            }
+        }
+
+        BattleOutcome outcome = directory != null ? readFromDisk(key) : null;
+        if (outcome == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        remember(key, outcome);
+        return outcome;
+    }
+
+    /**
+     * Stores an outcome in memory and, if configured, on disk.
+     */
+    public void put(String key, BattleOutcome outcome) {
+        remember(key, outcome);
+        if (directory != null) {
+            writeToDisk(key, outcome);
+        }
+    }
+
+    private void remember(String key, BattleOutcome outcome) {
+        long weight = weight(outcome);
+        if (weight > maxBytes) {
+            // Would push everything else out and still not fit
+            return;
+        }
+
+        synchronized (entries) {
+            BattleOutcome previous = entries.put(key, outcome);
+            if (previous != null) {
+                memoryBytes -= weight(previous);
+            }
+            memoryBytes += weight;
+
+            Iterator<Map.Entry<String, BattleOutcome>> eldest = entries.entrySet().iterator();
+            while (memoryBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, BattleOutcome> entry = eldest.next();
+                memoryBytes -= weight(entry.getValue());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static long weight(BattleOutcome outcome) {
+        return ENTRY_OVERHEAD + 8L * outcome.getCreatureCount();
+    }
+
+    /**
+     * Fingerprint of everything that decides a seeded battle.
+     *
+     * @return SHA-256 of the canonical battle description, as hex
+     */
+    public static String fingerprint(List<CreatureSpec> roster, long seed, int maxRounds, BalanceProfile balance) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + roster.size() * 30);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FINGERPRINT_VERSION);
+            out.writeLong(seed);
+            out.writeInt(maxRounds);
+            out.writeDouble(balance.getCriticalHitChance());
+            out.writeDouble(balance.getCriticalMultiplier());
+            out.writeDouble(balance.getEnrageThreshold());
+            out.writeDouble(balance.getEnrageMultiplier());
+            out.writeDouble(balance.getHealThreshold());
+            out.writeInt(balance.getMaxAoeTargets());
+            out.writeInt(roster.size());
+            for (CreatureSpec spec : roster) {
+                out.writeByte(spec.getType().ordinal());
+                out.writeByte(spec.getTeam() == null ? -1 : spec.getTeam().ordinal());
+                out.writeInt(spec.getHealth());
+                out.writeInt(spec.getAttackPower());
+                out.writeInt(spec.getDefense());
+                out.writeInt(spec.getInitiative());
+                // Only healers use their heal power
+                out.writeInt(spec.getType() == CreatureType.HEALER ? spec.getHealPower() : 0);
+                out.writeInt(spec.getUnits());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BattleOutcome readFromDisk(String key) {
+        Path file = directory.resolve(key + ".outcome");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                return null;
+            }
+            int winner = in.readByte();
+            int rounds = in.readInt();
+            int count = in.readInt();
+            if (count < 0 || winner >= Team.values().length) {
+                return null;
+            }
+            int[] health = new int[count];
+            int[] units = new int[count];
+            for (int i = 0; i < count; i++) {
+                health[i] = in.readInt();
+                units[i] = in.readInt();
+            }
+            return new BattleOutcome(winner < 0 ? null : Team.values()[winner], rounds, health, units);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // A damaged file is only a miss, the battle is simulated and the file replaced
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, BattleOutcome outcome) {
+        Path file = directory.resolve(key + ".outcome");
+        Path temp = directory.resolve(key + ".outcome." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeByte(outcome.getWinner() == null ? -1 : outcome.getWinner().ordinal());
+                out.writeInt(outcome.getRounds());
+                out.writeInt(outcome.getCreatureCount());
+                for (int i = 0; i < outcome.getCreatureCount(); i++) {
+                    out.writeInt(outcome.healthArray()[i]);
+                    out.writeInt(outcome.unitsArray()[i]);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write cached outcome " + file, e);
+        }
+    }
+
+    /**
+     * Empties the memory tier. The disk tier and the counters are kept.
+     */
+    public void clearMemory() {
+        synchronized (entries) {
+            entries.clear();
+            memoryBytes = 0;
+        }
+    }
+
+    // Counters
+
+    /**
+     * @return lookups answered from memory
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return lookups answered from the disk tier
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return entries pushed out of memory to stay within the size limit
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getMemoryBytes() {
+        synchronized (entries) {
+            return memoryBytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,169 @@
+package de.throsenheim.psta.simulation;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed-memory summary of a distribution of non-negative whole numbers, e.g. rounds per battle.
+ *
+ * Values are counted in logarithmic buckets like an HDR histogram: values below 128 are
+ * counted exactly, larger ones in buckets 1/64 of a power of two wide. A quantile is therefore
+ * off by at most 1/128 of its value. The bucket array has the same size no matter how many
+ * values are recorded, and two sketches are merged by adding their buckets, so every worker
+ * can keep its own sketch and the results are combined at the end without locks.
+ *
+ * Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private double sum;
+
+    /**
+     * Records one value.
+     *
+     * @param value the value, not negative
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Records the same value several times.
+     *
+     * @param value the value, not negative
+     * @param times how often to count it
+     */
+    public void record(long value, long times) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative, got: " + value);
+        }
+        if (times <= 0) {
+            return;
+        }
+        counts[bucket(value)] += times;
+        count += times;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += (double) value * times;
+    }
+
+    /**
+     * Adds all values of another sketch to this one.
+     *
+     * @param other the sketch to add, left unchanged
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    /**
+     * Forgets all recorded values.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+        sum = 0;
+    }
+
+    /**
+     * Estimates a quantile, e.g. 0.5 for the median or 0.99 for the 99th percentile.
+     *
+     * @param quantile between 0 and 1
+     * @return a value within 1/128 of the true quantile, 0 if nothing was recorded
+     */
+    public long quantile(double quantile) {
+        if (quantile < 0 || quantile > 1 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, got: " + quantile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        // Rank of the wanted value, 1-based
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, middleOf(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Values below {@code SUB_BUCKETS} get one bucket each. Above that, every power of two
+     * is split into {@code HALF} buckets by the bits right after the highest one.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int top = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (top - HALF);
+    }
+
+    private static long middleOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF + 1;
+        long top = HALF + (bucket - SUB_BUCKETS) % HALF;
+        long lowest = top << shift;
+        return lowest + ((1L << shift) - 1) / 2;
+    }
+
+    // Getters
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return smallest recorded value, 0 if nothing was recorded
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return largest recorded value, 0 if nothing was recorded
+     */
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * @return mean of the recorded values, 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "QuantileSketch[count=%d, min=%d, p50=%d, p90=%d, p99=%d, max=%d]",
+                count, getMin(), quantile(0.5), quantile(0.9), quantile(0.99), getMax());
+    }
+}
@@ -0,0 +1,194 @@
+package de.throsenheim.psta.simulation;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Grid of balance constants and creature stats to sweep over.
+ *
+ * Starts from a base profile and roster; every {@code vary...} call adds one axis.
+ * {@link #points()} returns the cartesian product of all axes, the last axis changing fastest.
+ */
+public class SweepGrid {
+
+    /**
+     * The balance constants that can be varied.
+     */
+    public enum BalanceParameter {
+        CRITICAL_HIT_CHANCE,
+        CRITICAL_MULTIPLIER,
+        ENRAGE_THRESHOLD,
+        ENRAGE_MULTIPLIER,
+        HEAL_THRESHOLD,
+        MAX_AOE_TARGETS;
+
+        BalanceProfile apply(BalanceProfile profile, double value) {
+            switch (this) {
+                case CRITICAL_HIT_CHANCE:
+                    return profile.withCriticalHitChance(value);
+                case CRITICAL_MULTIPLIER:
+                    return profile.withCriticalMultiplier(value);
+                case ENRAGE_THRESHOLD:
+                    return profile.withEnrageThreshold(value);
+                case ENRAGE_MULTIPLIER:
+                    return profile.withEnrageMultiplier(value);
+                case HEAL_THRESHOLD:
+                    return profile.withHealThreshold(value);
+                case MAX_AOE_TARGETS:
+                    return profile.withMaxAoeTargets((int) value);
+                default:
+                    throw new IllegalArgumentException("Unknown parameter: " + this);
+            }
+        }
+    }
+
+    private final BalanceProfile baseProfile;
+    private final List<CreatureSpec> baseRoster;
+    private final List<Axis> axes = new ArrayList<>();
+
+    /**
+     * @param baseProfile the balance constants that are not varied
+     * @param baseRoster the creatures of every battle, in insertion order
+     */
+    public SweepGrid(BalanceProfile baseProfile, List<CreatureSpec> baseRoster) {
+        if (baseProfile == null) {
+            throw new GameConfigurationException("Base profile cannot be null");
+        }
+        if (baseRoster == null || baseRoster.isEmpty()) {
+            throw new GameConfigurationException("Sweep roster cannot be empty");
+        }
+        this.baseProfile = baseProfile;
+        this.baseRoster = List.copyOf(baseRoster);
+    }
+
+    /**
+     * Adds an axis over one balance constant.
+     *
+     * @param parameter the constant
+     * @param values the values to try
+     * @return this grid
+     */
+    public SweepGrid varyBalance(BalanceParameter parameter, double... values) {
+        checkValues(values.length);
+        // Fail early on invalid values instead of in the middle of a sweep
+        for (double value : values) {
+            parameter.apply(baseProfile, value);
+        }
+        axes.add(new Axis(parameter.name(), parameter, null, -1, values));
+        return this;
+    }
+
+    /**
+     * Adds an axis over one stat of one creature of the roster.
+     *
+     * @param creatureName name of the creature
+     * @param stat the stat
+     * @param values the values to try
+     * @return this grid
+     */
+    public SweepGrid varyStat(String creatureName, CreatureSpec.Stat stat, int... values) {
+        checkValues(values.length);
+        int index = -1;
+        for (int i = 0; i < baseRoster.size(); i++) {
+            if (baseRoster.get(i).getName().equals(creatureName)) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            throw new GameConfigurationException("No creature named '" + creatureName + "' in the sweep roster");
+        }
+
+        double[] asDouble = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            asDouble[i] = values[i];
+        }
+        axes.add(new Axis(creatureName + "." + stat.name(), null, stat, index, asDouble));
+        return this;
+    }
+
+    /**
+     * @return the names of all axes, in the order they were added
+     */
+    public List<String> getParameterNames() {
+        List<String> names = new ArrayList<>(axes.size());
+        for (Axis axis : axes) {
+            names.add(axis.name);
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return the number of grid points
+     */
+    public int size() {
+        long size = 1;
+        for (Axis axis : axes) {
+            size *= axis.values.length;
+            if (size > Integer.MAX_VALUE) {
+                throw new GameConfigurationException("Sweep grid is too large");
+            }
+        }
+        return (int) size;
+    }
+
+    /**
+     * @return all grid points
+     */
+    public List<SweepPoint> points() {
+        int size = size();
+        List<SweepPoint> points = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            points.add(point(index));
+        }
+        return points;
+    }
+
+    private SweepPoint point(int index) {
+        BalanceProfile profile = baseProfile;
+        List<CreatureSpec> roster = new ArrayList<>(baseRoster);
+        double[] values = new double[axes.size()];
+
+        int remaining = index;
+        for (int a = axes.size() - 1; a >= 0; a--) {
+            Axis axis = axes.get(a);
+            double value = axis.values[remaining % axis.values.length];
+            remaining /= axis.values.length;
+            values[a] = value;
+
+            if (axis.parameter != null) {
+                profile = axis.parameter.apply(profile, value);
+            } else {
+                roster.set(axis.creature, roster.get(axis.creature).withStat(axis.stat, (int) value));
+            }
+        }
+        return new SweepPoint(index, profile, roster, values);
+    }
+
+    private static void checkValues(int count) {
+        if (count == 0) {
+            throw new GameConfigurationException("A sweep axis needs at least one value");
+        }
+    }
+
+    private static final class Axis {
+        private final String name;
+        private final BalanceParameter parameter;
+        private final CreatureSpec.Stat stat;
+        private final int creature;
+        private final double[] values;
+
+        private Axis(String name, BalanceParameter parameter, CreatureSpec.Stat stat, int creature, double[] values) {
+            this.name = name;
+            this.parameter = parameter;
+            this.stat = stat;
+            this.creature = creature;
+            this.values = values.clone();
+        }
+    }
+}
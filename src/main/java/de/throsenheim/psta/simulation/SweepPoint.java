@@ -0,0 +1,48 @@
+package de.throsenheim.psta.simulation;
+
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+
+import java.util.List;
+
+/**
+ * One point of a {@link SweepGrid}: the balance constants and roster of its battles.
+ */
+public final class SweepPoint {
+
+    private final int index;
+    private final BalanceProfile profile;
+    private final List<CreatureSpec> roster;
+    private final double[] parameterValues;
+
+    SweepPoint(int index, BalanceProfile profile, List<CreatureSpec> roster, double[] parameterValues) {
+        this.index = index;
+        this.profile = profile;
+        this.roster = List.copyOf(roster);
+        this.parameterValues = parameterValues.clone();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public BalanceProfile getProfile() {
+        return profile;
+    }
+
+    public List<CreatureSpec> getRoster() {
+        return roster;
+    }
+
+    /**
+     * @param axis axis index, in the order of {@link SweepGrid#getParameterNames()}
+     * @return the value of that axis at this point
+     */
+    public double getParameterValue(int axis) {
+        return parameterValues[axis];
+    }
+
+    public int getParameterCount() {
+        return parameterValues.length;
+    }
+}
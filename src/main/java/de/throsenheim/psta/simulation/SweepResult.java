@@ -0,0 +1,77 @@
+package de.throsenheim.psta.simulation;
+
+import java.util.Objects;
+
+/**
+ * Outcome of all battles of one {@link SweepPoint}.
+ */
+public final class SweepResult {
+
+    private final SweepPoint point;
+    private final int battles;
+    private final int heroWins;
+    private final int monsterWins;
+    private final long totalRounds;
+    private final long totalSurvivors;
+
+    SweepResult(SweepPoint point, int battles, int heroWins, int monsterWins, long totalRounds, long totalSurvivors) {
+        this.point = point;
+        this.battles = battles;
+        this.heroWins = heroWins;
+        this.monsterWins = monsterWins;
+        this.totalRounds = totalRounds;
+        this.totalSurvivors = totalSurvivors;
+    }
+
+    public SweepPoint getPoint() {
+        return point;
+    }
+
+    public int getBattles() {
+        return battles;
+    }
+
+    public int getHeroWins() {
+        return heroWins;
+    }
+
+    public int getMonsterWins() {
+        return monsterWins;
+    }
+
+    public double getHeroWinRate() {
+        return battles == 0 ? 0.0 : (double) heroWins / battles;
+    }
+
+    public double getAverageRounds() {
+        return battles == 0 ? 0.0 : (double) totalRounds / battles;
+    }
+
+    /**
+     * @return average number of living creatures of the winning team
+     */
+    public double getAverageSurvivors() {
+        return battles == 0 ? 0.0 : (double) totalSurvivors / battles;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        SweepResult other = (SweepResult) obj;
+        return point.getIndex() == other.point.getIndex() && battles == other.battles
+                && heroWins == other.heroWins && monsterWins == other.monsterWins
+                && totalRounds == other.totalRounds && totalSurvivors == other.totalSurvivors;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(point.getIndex(), battles, heroWins, monsterWins, totalRounds, totalSurvivors);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SweepResult[point=%d, battles=%d, heroWins=%d, monsterWins=%d, avgRounds=%.2f]",
+                point.getIndex(), battles, heroWins, monsterWins, getAverageRounds());
+    }
+}
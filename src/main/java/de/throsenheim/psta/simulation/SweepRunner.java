@@ -0,0 +1,224 @@
+package de.throsenheim.psta.simulation;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many seeded, silent battles for every point of a {@link SweepGrid} on a thread pool,
+ * or for one roster to collect {@link BattleStatistics}.
+ *
+ * Battle {@code i} of every point uses {@code new Random(baseSeed + i)}, so all points are
+ * compared on the same seeds and the results do not depend on the number of threads.
+ */
+public class SweepRunner {
+
+    private final int threads;
+
+    /**
+     * @param threads number of worker threads
+     */
+    public SweepRunner(int threads) {
+        if (threads <= 0) {
+            throw new GameConfigurationException("Thread count must be positive, got: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Creates a runner with one thread per available processor.
+     */
+    public SweepRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs all points of a grid.
+     *
+     * @param grid the grid
+     * @param battlesPerPoint number of seeded battles per point
+     * @param baseSeed seed of the first battle of every point
+     * @param maxRounds maximum rounds per battle
+     * @return one result per point, in grid order
+     */
+    public List<SweepResult> run(SweepGrid grid, int battlesPerPoint, long baseSeed, int maxRounds) {
+        return run(grid.points(), battlesPerPoint, baseSeed, maxRounds);
+    }
+
+    /**
+     * Runs the given points.
+     *
+     * @param points the points
+     * @param battlesPerPoint number of seeded battles per point
+     * @param baseSeed seed of the first battle of every point
+     * @param maxRounds maximum rounds per battle
+     * @return one result per point, in the order of {@code points}
+     */
+    public List<SweepResult> run(List<SweepPoint> points, int battlesPerPoint, long baseSeed, int maxRounds) {
+        if (battlesPerPoint <= 0) {
+            throw new GameConfigurationException("Battles per point must be positive, got: " + battlesPerPoint);
+        }
+        if (maxRounds <= 0) {
+            throw new GameConfigurationException("Max rounds must be positive, got: " + maxRounds);
+        }
+
+        // One task per point keeps the tasks coarse; thousands of points spread well over the workers
+        List<Callable<SweepResult>> tasks = new ArrayList<>(points.size());
+        for (SweepPoint point : points) {
+            tasks.add(() -> runPoint(point, battlesPerPoint, baseSeed, maxRounds));
+        }
+
+        return invokeAll(tasks, Math.min(threads, Math.max(1, points.size())));
+    }
+
+    /**
+     * Runs seeded battles of one roster with metrics on and collects their distributions.
+     * Every worker fills its own {@link BattleStatistics}; they are merged once all are done,
+     * so the workers never share state and memory does not grow with the number of battles.
+     *
+     * @param roster the creatures, in insertion order
+     * @param battles number of battles, battle {@code i} uses seed {@code baseSeed + i}
+     * @param baseSeed seed of the first battle
+     * @param maxRounds maximum rounds per battle
+     * @param balance balance constants
+     * @return the merged statistics
+     */
+    public BattleStatistics runStatistics(List<CreatureSpec> roster, int battles, long baseSeed, int maxRounds,
+                                          BalanceProfile balance) {
+        if (battles <= 0) {
+            throw new GameConfigurationException("Battle count must be positive, got: " + battles);
+        }
+        if (maxRounds <= 0) {
+            throw new GameConfigurationException("Max rounds must be positive, got: " + maxRounds);
+        }
+
+        List<CreatureSpec> specs = List.copyOf(roster);
+        int shards = Math.min(threads, battles);
+        List<Callable<BattleStatistics>> tasks = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            int first = shard;
+            tasks.add(() -> {
+                BattleStatistics statistics = new BattleStatistics();
+                for (int i = first; i < battles; i += shards) {
+                    Battlefield battlefield = BattleFactory.acquire(specs, baseSeed + i, maxRounds, balance);
+                    battlefield.setMetricsEnabled(true);
+                    battlefield.startBattle();
+                    statistics.record(battlefield);
+                }
+                return statistics;
+            });
+        }
+
+        BattleStatistics merged = new BattleStatistics();
+        for (BattleStatistics statistics : invokeAll(tasks, shards)) {
+            merged.merge(statistics);
+        }
+        return merged;
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks, int poolSize) {
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sweep was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Sweep failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SweepResult runPoint(SweepPoint point, int battles, long baseSeed, int maxRounds) {
+        int heroWins = 0;
+        int monsterWins = 0;
+        long totalRounds = 0;
+        long totalSurvivors = 0;
+
+        for (int i = 0; i < battles; i++) {
+            Battlefield battlefield = BattleFactory.acquire(point.getRoster(), baseSeed + i, maxRounds, point.getProfile());
+            battlefield.startBattle();
+
+            Team winner = battlefield.getWinnerTeam();
+            if (winner == Team.HEROES) {
+                heroWins++;
+            } else if (winner == Team.MONSTERS) {
+                monsterWins++;
+            }
+            totalRounds += battlefield.getCurrentRound();
+            if (winner != null) {
+                totalSurvivors += battlefield.getLivingCount(winner);
+            }
+        }
+        return new SweepResult(point, battles, heroWins, monsterWins, totalRounds, totalSurvivors);
+    }
+
+    /**
+     * Writes the results as a CSV table, one row per point.
+     *
+     * @param parameterNames the axis names, see {@link SweepGrid#getParameterNames()}
+     * @param results the results
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public static void writeTable(List<String> parameterNames, List<SweepResult> results, Path path)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("point");
+            for (String name : parameterNames) {
+                writer.write(',');
+                writer.write(name);
+            }
+            writer.write(",battles,hero_wins,monster_wins,hero_win_rate,avg_rounds,avg_survivors");
+            writer.newLine();
+
+            for (SweepResult result : results) {
+                SweepPoint point = result.getPoint();
+                writer.write(Integer.toString(point.getIndex()));
+                for (int axis = 0; axis < point.getParameterCount(); axis++) {
+                    writer.write(',');
+                    writer.write(formatValue(point.getParameterValue(axis)));
+                }
+                writer.write(String.format(Locale.ROOT, ",%d,%d,%d,%.4f,%.2f,%.2f",
+                        result.getBattles(), result.getHeroWins(), result.getMonsterWins(),
+                        result.getHeroWinRate(), result.getAverageRounds(), result.getAverageSurvivors()));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
@@ -0,0 +1,317 @@
+package de.throsenheim.psta.store;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Creature roster stored in a memory-mapped file instead of the heap.
+ *
+ * Every creature is a fixed-width record addressed by its index (the insertion order).
+ * The file has two sections, each starting on a page boundary:
+ * <ul>
+ *   <li>stats (24 bytes): type, team, max health, attack, defense, initiative, heal power</li>
+ *   <li>state (8 bytes): health, alive flag, state flags such as the boss enrage</li>
+ * </ul>
+ * Keeping the state apart means a template opened with {@link #openTemplate(Path)} only
+ * copies the pages holding health when a battle writes to them. Several worker processes
+ * can map the same template file, share the stat pages and each get their own private health,
+ * while the file itself never changes.
+ *
+ * Both sections are limited to 2 GB each, i.e. about 89 million creatures.
+ */
+public final class MappedCreatureStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x43425354; // "CBST"
+    private static final int VERSION = 1;
+    private static final int PAGE_SIZE = 4096;
+    private static final int HEADER_SIZE = PAGE_SIZE;
+    private static final int STATS_SIZE = 24;
+    private static final int STATE_SIZE = 8;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / STATS_SIZE;
+
+    // Offsets inside a stats record
+    private static final int TYPE = 0;
+    private static final int TEAM = 1;
+    private static final int MAX_HEALTH = 4;
+    private static final int ATTACK = 8;
+    private static final int DEFENSE = 12;
+    private static final int INITIATIVE = 16;
+    private static final int HEAL_POWER = 20;
+
+    // Offsets inside a state record
+    private static final int HEALTH = 0;
+    private static final int ALIVE = 4;
+    private static final int FLAGS = 5;
+
+    private static final CreatureType[] TYPES = CreatureType.values();
+    private static final Team[] TEAMS = Team.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer stats;
+    private final MappedByteBuffer state;
+    private final int capacity;
+    private final boolean writable;
+    private int size;
+
+    private MappedCreatureStore(FileChannel channel, MappedByteBuffer header, MappedByteBuffer stats,
+                                MappedByteBuffer state, int capacity, int size, boolean writable) {
+        this.channel = channel;
+        this.header = header;
+        this.stats = stats;
+        this.state = state;
+        this.capacity = capacity;
+        this.size = size;
+        this.writable = writable;
+    }
+
+    /**
+     * Creates a new, empty store file that can hold up to {@code capacity} creatures.
+     * An existing file is replaced.
+     *
+     * @param path the file to create
+     * @param capacity maximum number of creatures
+     * @return the store, open for adding creatures
+     * @throws IOException if the file can't be created
+     */
+    public static MappedCreatureStore create(Path path, int capacity) throws IOException {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + ", got: " + capacity);
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            long statsOffset = HEADER_SIZE;
+            long stateOffset = statsOffset + pageAligned((long) capacity * STATS_SIZE);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            MappedByteBuffer stats = channel.map(FileChannel.MapMode.READ_WRITE, statsOffset,
+                    (long) capacity * STATS_SIZE);
+            MappedByteBuffer state = channel.map(FileChannel.MapMode.READ_WRITE, stateOffset,
+                    (long) capacity * STATE_SIZE);
+
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, capacity);
+            header.putInt(12, 0);
+            return new MappedCreatureStore(channel, header, stats, state, capacity, 0, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a store file as a copy-on-write template.
+     * The creatures can be fought over and their health changes, but the changes stay
+     * private to this process and never reach the file.
+     *
+     * @param path a file written with {@link #create(Path, int)}
+     * @return the store, ready for a battle
+     * @throws IOException if the file can't be read or is not a creature store
+     */
+    public static MappedCreatureStore openTemplate(Path path) throws IOException {
+        // Java only maps copy-on-write through a channel opened for writing, the file is still never written
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a creature store: " + path);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported creature store version " + header.getInt(4) + " in " + path);
+            }
+
+            int capacity = header.getInt(8);
+            int size = header.getInt(12);
+            if (capacity <= 0 || capacity > MAX_CAPACITY || size < 0 || size > capacity) {
+                throw new IOException("Invalid creature store header in " + path + ": capacity " + capacity
+                        + ", size " + size);
+            }
+            long statsOffset = HEADER_SIZE;
+            long stateOffset = statsOffset + pageAligned((long) capacity * STATS_SIZE);
+            long length = stateOffset + (long) capacity * STATE_SIZE;
+            if (channel.size() < length) {
+                throw new IOException("Creature store " + path + " is cut off: " + channel.size()
+                        + " bytes, the header needs " + length);
+            }
+            MappedByteBuffer stats = channel.map(FileChannel.MapMode.READ_ONLY, statsOffset,
+                    (long) capacity * STATS_SIZE);
+            MappedByteBuffer state = channel.map(FileChannel.MapMode.PRIVATE, stateOffset,
+                    (long) capacity * STATE_SIZE);
+            for (int i = 0; i < size; i++) {
+                int type = stats.get(i * STATS_SIZE + TYPE);
+                int team = stats.get(i * STATS_SIZE + TEAM);
+                if (type < 0 || type >= TYPES.length || team < 0 || team >= TEAMS.length) {
+                    throw new IOException("Invalid creature " + i + " in " + path + ": type " + type + ", team " + team);
+                }
+            }
+            return new MappedCreatureStore(channel, header, stats, state, capacity, size, false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a creature record. Checks the stats like the creature constructors do.
+     *
+     * @param healPower only used by healers
+     * @return index of the new creature
+     * @throws InvalidCreatureStateException if the stats are invalid
+     */
+    public int add(CreatureType type, Team team, int health, int attackPower, int defense, int initiative,
+                   int healPower) throws InvalidCreatureStateException {
+        if (!writable) {
+            throw new IllegalStateException("Creatures can only be added to a newly created store");
+        }
+        if (size == capacity) {
+            throw new IllegalStateException("Store is full, capacity: " + capacity);
+        }
+        if (type == null) {
+            throw new InvalidCreatureStateException("Creature type cannot be null");
+        }
+        if (health <= 0) {
+            throw new InvalidCreatureStateException("Health must be positive, got: " + health);
+        }
+        if (attackPower < 0) {
+            throw new InvalidCreatureStateException("Attack power cannot be negative, got: " + attackPower);
+        }
+        if (defense < 0) {
+            throw new InvalidCreatureStateException("Defense cannot be negative, got: " + defense);
+        }
+        if (team == null) {
+            throw new InvalidCreatureStateException("Team cannot be null");
+        }
+
+        int index = size;
+        int record = index * STATS_SIZE;
+        stats.put(record + TYPE, (byte) type.ordinal());
+        stats.put(record + TEAM, (byte) team.ordinal());
+        stats.putInt(record + MAX_HEALTH, health);
+        stats.putInt(record + ATTACK, attackPower);
+        stats.putInt(record + DEFENSE, defense);
+        stats.putInt(record + INITIATIVE, initiative);
+        stats.putInt(record + HEAL_POWER, healPower);
+
+        int stateRecord = index * STATE_SIZE;
+        state.putInt(stateRecord + HEALTH, health);
+        state.put(stateRecord + ALIVE, (byte) 1);
+        state.put(stateRecord + FLAGS, (byte) 0);
+
+        size++;
+        header.putInt(12, size);
+        return index;
+    }
+
+    /**
+     * Adds a record with the stats of an existing creature, at full health.
+     *
+     * @param creature the creature to copy
+     * @return index of the new creature
+     * @throws IllegalArgumentException if the creature is a stack of several units
+     */
+    public int add(Creature creature) {
+        if (creature.getStackSize() > 1) {
+            throw new IllegalArgumentException("Stacks can't be stored, got " + creature.getStackSize()
+                    + " units of " + creature.getName());
+        }
+        try {
+            return add(CreatureType.of(creature), creature.getTeam(), creature.getMaxHealth(),
+                    creature.getAttackPower(), creature.getDefense(), creature.getInitiative(),
+                    CreatureType.healPowerOf(creature));
+        } catch (InvalidCreatureStateException e) {
+            // The creature was already validated by its constructor
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes all changes to the file. Only needed for stores made with {@link #create(Path, int)}.
+     */
+    public void flush() {
+        if (writable) {
+            header.force();
+            stats.force();
+            state.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public CreatureType getType(int index) {
+        return TYPES[stats.get(index * STATS_SIZE + TYPE)];
+    }
+
+    public Team getTeam(int index) {
+        return TEAMS[stats.get(index * STATS_SIZE + TEAM)];
+    }
+
+    public int getMaxHealth(int index) {
+        return stats.getInt(index * STATS_SIZE + MAX_HEALTH);
+    }
+
+    public int getAttackPower(int index) {
+        return stats.getInt(index * STATS_SIZE + ATTACK);
+    }
+
+    public int getDefense(int index) {
+        return stats.getInt(index * STATS_SIZE + DEFENSE);
+    }
+
+    public int getInitiative(int index) {
+        return stats.getInt(index * STATS_SIZE + INITIATIVE);
+    }
+
+    public int getHealPower(int index) {
+        return stats.getInt(index * STATS_SIZE + HEAL_POWER);
+    }
+
+    public int getHealth(int index) {
+        return state.getInt(index * STATE_SIZE + HEALTH);
+    }
+
+    public boolean isAlive(int index) {
+        return state.get(index * STATE_SIZE + ALIVE) != 0;
+    }
+
+    public int getFlags(int index) {
+        return state.get(index * STATE_SIZE + FLAGS);
+    }
+
+    void setHealth(int index, int health) {
+        state.putInt(index * STATE_SIZE + HEALTH, health);
+    }
+
+    void setAlive(int index, boolean alive) {
+        state.put(index * STATE_SIZE + ALIVE, (byte) (alive ? 1 : 0));
+    }
+
+    void setFlags(int index, int flags) {
+        state.put(index * STATE_SIZE + FLAGS, (byte) flags);
+    }
+
+    private static long pageAligned(long bytes) {
+        return (bytes + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+}
@@ -0,0 +1,358 @@
+package de.throsenheim.psta.store;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.LivingTree;
+import de.throsenheim.psta.model.Team;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Battlefield that fights directly on a {@link MappedCreatureStore}.
+ *
+ * Plays by the same rules as {@link de.throsenheim.psta.model.Battlefield} with the
+ * {@code Warrior}, {@code Mage}, {@code Healer} and {@code MonsterBoss} behaviour, but
+ * never creates a {@code Creature} object: all state is read from and written to the
+ * mapped records. The only heap memory is a few {@code int} arrays of creature indexes,
+ * so garbage collection costs do not grow with the army size.
+ *
+ * Targets are found with one {@link LivingTree} per team, the same index the object battlefield
+ * uses for big teams, so a round costs O(n log n) like there.
+ *
+ * With one shared {@code Random} and the same insertion order, a battle here has the
+ * same outcome as the same battle on the object battlefield. The battle is always silent.
+ * The store holds single creatures with the plain rules only: stacks, threat, counter-based
+ * random numbers, active time, metrics, events and the flight recorder are not available here.
+ */
+public class StoredBattlefield {
+
+    private static final int ENRAGED = 1;
+
+    private final MappedCreatureStore store;
+    private final Random random;
+    private final BalanceProfile balance;
+    private final int maxRounds;
+    private final int[][] teamMembers;
+    private final LivingTree[] trees;
+    // Position of every creature in its team
+    private final int[] slots;
+    private int[] initiativeOrder;
+    private int currentRound;
+    private Team winnerTeam;
+
+    /**
+     * Creates a battlefield over all creatures of the store.
+     *
+     * @param store the creatures, usually opened with {@link MappedCreatureStore#openTemplate}
+     * @param maxRounds maximum number of rounds
+     * @param random random number generator used by all creatures
+     */
+    public StoredBattlefield(MappedCreatureStore store, int maxRounds, Random random) {
+        this(store, maxRounds, random, BalanceProfile.DEFAULT);
+    }
+
+    /**
+     * Creates a battlefield over all creatures of the store with the given balance constants.
+     *
+     * @param store the creatures, usually opened with {@link MappedCreatureStore#openTemplate}
+     * @param maxRounds maximum number of rounds
+     * @param random random number generator used by all creatures
+     * @param balance the balance constants
+     */
+    public StoredBattlefield(MappedCreatureStore store, int maxRounds, Random random, BalanceProfile balance) {
+        if (maxRounds <= 0) {
+            throw new GameConfigurationException("Max rounds must be positive, got: " + maxRounds);
+        }
+        if (store == null) {
+            throw new GameConfigurationException("Creature store cannot be null");
+        }
+
+        this.store = store;
+        this.random = random != null ? random : new Random();
+        this.balance = balance != null ? balance : BalanceProfile.DEFAULT;
+        this.maxRounds = maxRounds;
+        this.teamMembers = new int[Team.values().length][];
+        this.trees = new LivingTree[Team.values().length];
+        this.slots = new int[store.size()];
+        indexTeams();
+    }
+
+    // Runs the battle
+    public void startBattle() {
+        if (store.size() == 0) {
+            throw new GameConfigurationException("Cannot start battle with no creatures");
+        }
+        if (teamMembers[Team.HEROES.ordinal()].length == 0 || teamMembers[Team.MONSTERS.ordinal()].length == 0) {
+            throw new GameConfigurationException("Both teams must have at least one creature");
+        }
+
+        initiativeOrder = sortByInitiative();
+        while (currentRound < maxRounds && !isBattleOver()) {
+            currentRound++;
+            for (int creature : initiativeOrder) {
+                if (store.isAlive(creature) && !isBattleOver()) {
+                    performRoundAction(creature);
+                }
+            }
+        }
+        determineWinner();
+    }
+
+    private void performRoundAction(int creature) {
+        Team enemyTeam = store.getTeam(creature).opponent();
+
+        switch (store.getType(creature)) {
+            case WARRIOR:
+                attackIfFound(creature, findLowestHealth(enemyTeam));
+                break;
+            case MAGE:
+                castAreaSpell(creature, enemyTeam);
+                break;
+            case HEALER:
+                healOrAttack(creature, enemyTeam);
+                break;
+            case MONSTER_BOSS:
+                attackIfFound(creature, findLowestDefense(enemyTeam));
+                break;
+            default:
+                throw new IllegalStateException("Unknown creature type at index " + creature);
+        }
+    }
+
+    private void castAreaSpell(int mage, Team enemyTeam) {
+        LivingTree enemies = trees[enemyTeam.ordinal()];
+        int targetsHit = Math.min(balance.getMaxAoeTargets(), enemies.getLivingCount());
+        int hit = 0;
+        // Every target is hit once, so a target dying does not change who comes next
+        for (int slot = enemies.firstLivingFrom(0); slot >= 0 && hit < targetsHit;
+                slot = enemies.firstLivingFrom(slot + 1)) {
+            attack(mage, teamMembers[enemyTeam.ordinal()][slot]);
+            hit++;
+        }
+    }
+
+    private void healOrAttack(int healer, Team enemyTeam) {
+        int wounded = findLowestHealthPercentage(store.getTeam(healer), healer);
+        if (wounded >= 0 && healthPercentage(wounded) < balance.getHealThreshold()) {
+            heal(wounded, store.getHealPower(healer));
+            return;
+        }
+
+        int living = trees[enemyTeam.ordinal()].getLivingCount();
+        if (living > 0) {
+            attack(healer, livingMember(enemyTeam, random.nextInt(living)));
+        }
+    }
+
+    private void attackIfFound(int attacker, int target) {
+        if (target >= 0) {
+            attack(attacker, target);
+        }
+    }
+
+    private void attack(int attacker, int target) {
+        if (!store.isAlive(attacker) || !store.isAlive(target)) {
+            return;
+        }
+        takeDamage(target, calculateDamage(attacker));
+    }
+
+    private int calculateDamage(int attacker) {
+        int baseDamage = store.getAttackPower(attacker);
+
+        switch (store.getType(attacker)) {
+            case WARRIOR:
+                if (random.nextDouble() < balance.getCriticalHitChance()) {
+                    return (int) (baseDamage * balance.getCriticalMultiplier());
+                }
+                return baseDamage;
+            case MONSTER_BOSS:
+                boolean enraged = (store.getFlags(attacker) & ENRAGED) != 0;
+                if (!enraged && healthPercentage(attacker) <= balance.getEnrageThreshold()) {
+                    store.setFlags(attacker, store.getFlags(attacker) | ENRAGED);
+                    enraged = true;
+                }
+                return enraged ? (int) (baseDamage * balance.getEnrageMultiplier()) : baseDamage;
+            default:
+                return baseDamage;
+        }
+    }
+
+    private void takeDamage(int creature, int damage) {
+        if (!store.isAlive(creature)) {
+            return;
+        }
+
+        // Defense reduces damage (minimum 1 damage if hit)
+        int actualDamage = Math.max(1, damage - store.getDefense(creature));
+        int health = store.getHealth(creature) - actualDamage;
+        if (health <= 0) {
+            health = 0;
+            store.setAlive(creature, false);
+        }
+        store.setHealth(creature, health);
+        trees[store.getTeam(creature).ordinal()].update(slots[creature]);
+    }
+
+    private void heal(int creature, int amount) {
+        if (store.isAlive(creature)) {
+            store.setHealth(creature, Math.min(store.getMaxHealth(creature), store.getHealth(creature) + amount));
+            trees[store.getTeam(creature).ordinal()].update(slots[creature]);
+        }
+    }
+
+    private int findLowestHealth(Team team) {
+        return member(team, trees[team.ordinal()].lowestHealth());
+    }
+
+    private int findLowestDefense(Team team) {
+        return member(team, trees[team.ordinal()].lowestDefense());
+    }
+
+    private int findLowestHealthPercentage(Team team, int excluded) {
+        return member(team, trees[team.ordinal()].lowestHealthPercentage(slots[excluded]));
+    }
+
+    private int livingMember(Team team, int index) {
+        return teamMembers[team.ordinal()][trees[team.ordinal()].livingAt(index)];
+    }
+
+    /**
+     * @return the creature at a position in its team, -1 for position -1
+     */
+    private int member(Team team, int slot) {
+        return slot >= 0 ? teamMembers[team.ordinal()][slot] : -1;
+    }
+
+    private double healthPercentage(int creature) {
+        return (double) store.getHealth(creature) / store.getMaxHealth(creature);
+    }
+
+    private boolean isBattleOver() {
+        return getLivingCount(Team.HEROES) == 0 || getLivingCount(Team.MONSTERS) == 0;
+    }
+
+    private void determineWinner() {
+        boolean heroesAlive = getLivingCount(Team.HEROES) > 0;
+        boolean monstersAlive = getLivingCount(Team.MONSTERS) > 0;
+
+        if (heroesAlive && !monstersAlive) {
+            winnerTeam = Team.HEROES;
+        } else if (monstersAlive && !heroesAlive) {
+            winnerTeam = Team.MONSTERS;
+        } else if (currentRound >= maxRounds) {
+            // Max rounds reached - team with more HP wins
+            winnerTeam = totalHealth(Team.HEROES) > totalHealth(Team.MONSTERS) ? Team.HEROES : Team.MONSTERS;
+        }
+    }
+
+    private long totalHealth(Team team) {
+        long total = 0;
+        for (int member : teamMembers[team.ordinal()]) {
+            total += store.getHealth(member);
+        }
+        return total;
+    }
+
+    /**
+     * Splits the creature indexes by team, keeping the insertion order, and builds the team trees.
+     */
+    private void indexTeams() {
+        int[] sizes = new int[teamMembers.length];
+        for (int i = 0; i < store.size(); i++) {
+            sizes[store.getTeam(i).ordinal()]++;
+        }
+        for (int team = 0; team < teamMembers.length; team++) {
+            teamMembers[team] = new int[sizes[team]];
+        }
+
+        int[] next = new int[teamMembers.length];
+        for (int i = 0; i < store.size(); i++) {
+            int team = store.getTeam(i).ordinal();
+            slots[i] = next[team];
+            teamMembers[team][next[team]++] = i;
+        }
+        for (int team = 0; team < teamMembers.length; team++) {
+            trees[team] = new LivingTree(new StoreKeys(teamMembers[team]));
+            trees[team].build(teamMembers[team].length);
+        }
+    }
+
+    /**
+     * The tree of a team reads its members from the store.
+     */
+    private final class StoreKeys implements LivingTree.Keys {
+        private final int[] members;
+
+        StoreKeys(int[] members) {
+            this.members = members;
+        }
+
+        @Override
+        public boolean isAlive(int slot) {
+            return store.isAlive(members[slot]);
+        }
+
+        @Override
+        public long getTotalHealth(int slot) {
+            return store.getHealth(members[slot]);
+        }
+
+        @Override
+        public int getDefense(int slot) {
+            return store.getDefense(members[slot]);
+        }
+
+        @Override
+        public double getHealthPercentage(int slot) {
+            return healthPercentage(members[slot]);
+        }
+    }
+
+    /**
+     * Higher initiative first, insertion order on ties - the same order as sorting the creatures.
+     * Sort keys pack the negated initiative and the index into one long, so no objects are needed.
+     */
+    private int[] sortByInitiative() {
+        long[] keys = new long[store.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (-(long) store.getInitiative(i) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    // Getters
+
+    public int getCurrentRound() {
+        return currentRound;
+    }
+
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    public Team getWinnerTeam() {
+        return winnerTeam;
+    }
+
+    public MappedCreatureStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the count of living creatures for a team.
+     *
+     * @param team the team to count
+     * @return number of living creatures
+     */
+    public long getLivingCount(Team team) {
+        return trees[team.ordinal()].getLivingCount();
+    }
+}
@@ -0,0 +1,272 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.ArmyGenerator;
+import de.throsenheim.psta.model.creatures.ArmySpec;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureSpec.Stat;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.persistence.RosterFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scale tests: whole silent battles from a hundred to a million creatures, run with {@code gradle scaleTest}.
+ *
+ * For every size the setup time, the wall time of the battles, rounds per second, peak heap and the bytes
+ * allocated per round are printed, and written as CSV to the file named by the system property
+ * {@code scale.report}, together with how much each step from one size to the next costs compared to
+ * n log n. The test fails if the growth exponent fitted over all sizes shows the cost of a round or of the
+ * setup growing faster than n log n, so a scan over all creatures per action (like the old {@code isBattleOver}) or per added creature (like
+ * the old duplicate name check) shows up as a failure instead of a slow battle. Loading a roster file of
+ * the largest size is timed as well.
+ */
+@DisplayName("Scale Tests")
+class ScaleTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final int[] SIZES = {100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 10;
+    // Small battles are played again after a reset until they add up to this many creature rounds
+    private static final long MIN_CREATURE_ROUNDS = 5_000_000L;
+
+    // Single steps are only reported: caches and GC make them vary by half between runs.
+    // n log n fits an exponent of about 1.1 between 10^2 and 10^6, n^2 one of 2
+    private static final double MAX_EXPONENT = 1.25;
+
+    // Generous bound for loading the largest roster file on slow build machines, typically a few hundred ms
+    private static final long MAX_ROSTER_LOAD_MILLIS = 3000;
+
+    private static final String HEROES = "50% warrior, 25% mage, 25% healer, health ~ N(1000, 100), "
+            + "attack ~ N(20, 5), defense ~ N(4, 2), initiative ~ N(20, 5), heal = 30";
+    private static final String MONSTERS = "95% warrior, 5% monster boss, health ~ N(1000, 100), "
+            + "attack ~ N(20, 5), defense ~ N(4, 2), initiative ~ N(20, 5)";
+
+    /**
+     * Measurements of one battle size.
+     */
+    private static final class Result {
+        int creatures;
+        int battles;
+        long setupNanos;
+        long battleNanos;
+        long peakHeapBytes;
+        long allocatedBytes;
+
+        double nanosPerRound() {
+            return (double) battleNanos / ((long) battles * ROUNDS);
+        }
+
+        double roundsPerSecond() {
+            return 1e9 / nanosPerRound();
+        }
+
+        double bytesPerRound() {
+            return allocatedBytes < 0 ? Double.NaN : (double) allocatedBytes / ((long) battles * ROUNDS);
+        }
+    }
+
+    @Test
+    @DisplayName("The cost of a round grows no faster than n log n")
+    void testRoundCostGrowth() throws InvalidCreatureStateException, IOException {
+        int maxCreatures = Integer.getInteger("scale.maxCreatures", SIZES[SIZES.length - 1]);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Warm up so class loading and JIT compilation don't land in the smallest sizes
+        for (int i = 0; i < 3 && SIZES[i] <= maxCreatures; i++) {
+            measure(SIZES[i], threads);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (int size : SIZES) {
+            if (size <= maxCreatures) {
+                results.add(measure(size, threads));
+            }
+        }
+        report(results);
+        assertTrue(results.size() >= 2, "Need at least two sizes, scale.maxCreatures is " + maxCreatures);
+
+        assertGrowth(results, "A round", Result::nanosPerRound);
+        assertGrowth(results, "The setup", result -> result.setupNanos);
+    }
+
+    /**
+     * Prints how a cost grows from one size to the next compared to n log n,
+     * and fails if the exponent fitted over all sizes is larger than {@link #MAX_EXPONENT}.
+     */
+    private static void assertGrowth(List<Result> results, String what, ToDoubleFunction<Result> cost) {
+        for (int i = 1; i < results.size(); i++) {
+            Result smaller = results.get(i - 1);
+            Result larger = results.get(i);
+            double growth = cost.applyAsDouble(larger) / cost.applyAsDouble(smaller);
+            double nLogNGrowth = nLogN(larger.creatures) / nLogN(smaller.creatures);
+            System.out.printf("%s got %.1f times slower from %d to %d creatures, n log n %.1f times%n",
+                    what, growth, smaller.creatures, larger.creatures, nLogNGrowth);
+        }
+        double exponent = fitExponent(results, cost);
+        assertTrue(exponent <= MAX_EXPONENT, String.format("The cost of %s grows like n^%.2f",
+                what.toLowerCase(Locale.ROOT), exponent));
+    }
+
+    @Test
+    @DisplayName("The largest roster file loads quickly")
+    void testRosterLoad() throws IOException {
+        int size = Integer.getInteger("scale.maxCreatures", SIZES[SIZES.length - 1]);
+        List<CreatureSpec> roster = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            roster.add(new CreatureSpec(CreatureType.values()[i % 4], "Creature" + i, 50 + i % 100, 5 + i % 30,
+                    i % 10, i % 10, i % 2 == 0 ? Team.HEROES : Team.MONSTERS, 10));
+        }
+        Path file = tempDir.resolve("army.bin");
+        RosterFile.write(100, BalanceProfile.DEFAULT, roster, file);
+
+        // Warm up once, then measure
+        RosterFile.read(file, new Random(1));
+        long start = System.nanoTime();
+        Battlefield battlefield = RosterFile.read(file, new Random(1));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(size, battlefield.getAllCreatures().size());
+        System.out.printf("Loaded a roster of %d creatures in %d ms%n", size, millis);
+        assertTrue(millis < MAX_ROSTER_LOAD_MILLIS, "Loading took " + millis + " ms");
+    }
+
+    /**
+     * Builds a battle of the given size and plays it until enough rounds were measured.
+     */
+    private static Result measure(int size, com.sun.management.ThreadMXBean threads)
+            throws InvalidCreatureStateException {
+        Result result = new Result();
+        result.creatures = size;
+        result.battles = (int) Math.max(1, MIN_CREATURE_ROUNDS / ((long) size * ROUNDS));
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        long setupStart = System.nanoTime();
+        Battlefield battlefield = new Battlefield(ROUNDS);
+        battlefield.setOutputEnabled(false);
+        addArmy(battlefield, new ArmyGenerator(ArmySpec.parse(Team.HEROES, size / 2, HEROES), size), "Hero ");
+        addArmy(battlefield, new ArmyGenerator(ArmySpec.parse(Team.MONSTERS, size - size / 2, MONSTERS), -size),
+                "Monster ");
+        result.setupNanos = System.nanoTime() - setupStart;
+
+        // The first battle builds the action queue and the living views once, later ones reuse them.
+        // Only the rounds of reset battles are measured, or that one-time work would count as round cost
+        // for the biggest sizes, which play a single measured battle
+        battlefield.startBattle();
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.isThreadAllocatedMemorySupported() ? threads.getThreadAllocatedBytes(threadId) : -1;
+        long start = System.nanoTime();
+        for (int battle = 0; battle < result.battles; battle++) {
+            battlefield.reset(battle + 1);
+            battlefield.startBattle();
+            // A battle that ends early would make the rounds look cheaper than they are
+            assertEquals(ROUNDS, battlefield.getCurrentRound(), "Battle of " + size + " creatures ended early");
+        }
+        result.battleNanos = System.nanoTime() - start;
+        result.allocatedBytes = allocatedBefore < 0 ? -1 : threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        for (MemoryPoolMXBean pool : heapPools) {
+            result.peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        return result;
+    }
+
+    /**
+     * Adds a generated army with a name for every creature, so the duplicate name check is part of the setup.
+     */
+    private static void addArmy(Battlefield battlefield, ArmyGenerator army, String prefix)
+            throws InvalidCreatureStateException {
+        Random random = new Random(army.getSeed());
+        for (int i = 0; i < army.size(); i++) {
+            CreatureType type = army.typeAt(i);
+            battlefield.addCreature(type.create(prefix + i, army.statAt(i, Stat.HEALTH),
+                    army.statAt(i, Stat.ATTACK_POWER), army.statAt(i, Stat.DEFENSE), army.statAt(i, Stat.INITIATIVE),
+                    army.getSpec().getTeam(), army.statAt(i, Stat.HEAL_POWER), random));
+        }
+    }
+
+    private static double nLogN(int n) {
+        return n * Math.log(n);
+    }
+
+    /**
+     * Fits cost = c * n^k by least squares on the logarithms.
+     *
+     * @return the exponent k
+     */
+    private static double fitExponent(List<Result> results, ToDoubleFunction<Result> cost) {
+        double sumX = 0;
+        double sumY = 0;
+        double sumXX = 0;
+        double sumXY = 0;
+        for (Result result : results) {
+            double x = Math.log(result.creatures);
+            double y = Math.log(cost.applyAsDouble(result));
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        int n = results.size();
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+    private static void report(List<Result> results) throws IOException {
+        List<String> csv = new ArrayList<>();
+        csv.add("creatures,battles,setup_ms,wall_ms,rounds_per_second,ns_per_creature_round,peak_heap_mb,bytes_per_round");
+        System.out.println();
+        System.out.printf("%10s %8s %10s %10s %12s %12s %10s %12s%n", "creatures", "battles", "setup ms", "wall ms",
+                "rounds/s", "ns/creature", "heap MB", "bytes/round");
+        for (Result result : results) {
+            double setupMillis = result.setupNanos / 1e6;
+            double wallMillis = result.battleNanos / 1e6;
+            double perCreature = result.nanosPerRound() / result.creatures;
+            double heapMegabytes = result.peakHeapBytes / (1024.0 * 1024.0);
+            System.out.printf("%10d %8d %10.1f %10.1f %12.1f %12.1f %10.1f %12.1f%n", result.creatures, result.battles,
+                    setupMillis, wallMillis, result.roundsPerSecond(), perCreature, heapMegabytes, result.bytesPerRound());
+            csv.add(String.format(Locale.ROOT, "%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f", result.creatures,
+                    result.battles, setupMillis, wallMillis, result.roundsPerSecond(), perCreature, heapMegabytes,
+                    result.bytesPerRound()));
+        }
+        System.out.printf("Fitted growth of the cost per round: n^%.2f, of the setup: n^%.2f%n",
+                fitExponent(results, Result::nanosPerRound), fitExponent(results, result -> result.setupNanos));
+
+        String reportFile = System.getProperty("scale.report");
+        if (reportFile != null) {
+            Path path = Path.of(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(path, csv);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.TurnMode;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.simulation.BattleFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static de.throsenheim.psta.TestBattles.assertSameBattle;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the active-time turn mode.
+ */
+@DisplayName("Active Time Tests")
+class ActiveTimeTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<CreatureSpec> MIXED = List.of(
+            new CreatureSpec(CreatureType.WARRIOR, "Knight", 120, 25, 6, 9, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.MAGE, "Wizard", 80, 18, 3, 4, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.HEALER, "Cleric", 90, 8, 4, 6, Team.HEROES, 30),
+            new CreatureSpec(CreatureType.MONSTER_BOSS, "Dragon", 220, 22, 6, 2, Team.MONSTERS, 0),
+            new CreatureSpec(CreatureType.WARRIOR, "Orc", 40, 12, 2, 12, Team.MONSTERS, 0, 3));
+
+    private static Battlefield run(List<CreatureSpec> roster, long seed, TurnMode mode) {
+        Battlefield battlefield = BattleFactory.create(roster, seed, 200, BalanceProfile.DEFAULT);
+        battlefield.setTurnMode(mode);
+        battlefield.startBattle();
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("With equal initiatives active time plays the round battle")
+    void testEqualInitiativeMatchesRounds() {
+        List<CreatureSpec> equal = MIXED.stream()
+                .map(s -> s.withStat(CreatureSpec.Stat.INITIATIVE, 5))
+                .collect(Collectors.toList());
+        for (long seed = 0; seed < 20; seed++) {
+            assertSameBattle(run(equal, seed, TurnMode.ROUNDS), run(equal, seed, TurnMode.ACTIVE_TIME));
+        }
+    }
+
+    @Test
+    @DisplayName("Fast creatures act more often, max rounds limit the simulated time")
+    void testSpeedDecidesActions() throws InvalidCreatureStateException {
+        Random random = new Random(1);
+        Battlefield battlefield = new Battlefield(30);
+        battlefield.setOutputEnabled(false);
+        battlefield.setMetricsEnabled(true);
+        battlefield.setTurnMode(TurnMode.ACTIVE_TIME);
+        battlefield.addCreature(new Mage("Quick", 1000, 10, 0, 12, Team.HEROES, random));
+        battlefield.addCreature(new Mage("Slow", 1000, 10, 0, 4, Team.HEROES, random));
+        battlefield.addCreature(new MonsterBoss("Golem", 1_000_000, 0, 0, 8, Team.MONSTERS, random));
+        battlefield.startBattle();
+
+        // Mean initiative 8: the quick mage waits 667 ticks, the slow one 2000, a round is 1000
+        assertEquals(30, battlefield.getCurrentRound());
+        assertTrue(battlefield.getAllCreatures().get(2).isAlive());
+        assertEquals(44 * 10, battlefield.getMetrics().getDamageDealt(0));
+        assertEquals(15 * 10, battlefield.getMetrics().getDamageDealt(1));
+        // The golem has the average initiative and acts once per round
+        assertEquals(30, battlefield.getMetrics().getDamageDealt(2));
+    }
+
+    @Test
+    @DisplayName("Active time differs from rounds when speeds differ, and is reproducible")
+    void testMixedSpeeds() {
+        boolean differs = false;
+        for (long seed = 0; seed < 10; seed++) {
+            Battlefield first = run(MIXED, seed, TurnMode.ACTIVE_TIME);
+            assertSameBattle(first, run(MIXED, seed, TurnMode.ACTIVE_TIME));
+            assertNotNull(first.getWinnerTeam());
+            Battlefield rounds = run(MIXED, seed, TurnMode.ROUNDS);
+            differs |= rounds.getCurrentRound() != first.getCurrentRound()
+                    || rounds.getWinnerTeam() != first.getWinnerTeam();
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    @DisplayName("A reset active-time battle plays the same as a fresh one")
+    void testReset() {
+        Battlefield reused = run(MIXED, 3, TurnMode.ACTIVE_TIME);
+        for (long seed = 4; seed < 10; seed++) {
+            reused.reset(seed);
+            reused.startBattle();
+            assertSameBattle(run(MIXED, seed, TurnMode.ACTIVE_TIME), reused);
+        }
+    }
+
+    @Test
+    @DisplayName("Checkpoints are refused in active-time mode")
+    void testNoCheckpoints() {
+        Battlefield battlefield = BattleFactory.create(MIXED, 1, 200, BalanceProfile.DEFAULT);
+        battlefield.setTurnMode(TurnMode.ACTIVE_TIME);
+        battlefield.enableCheckpoints(tempDir.resolve("battle.ckpt"), 5, 0);
+        assertThrows(GameConfigurationException.class, battlefield::startBattle);
+        assertThrows(GameConfigurationException.class, () -> battlefield.setTurnMode(null));
+    }
+}
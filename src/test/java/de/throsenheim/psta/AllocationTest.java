@@ -0,0 +1,120 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the allocation behaviour of silent battles and the size of creatures.
+ * Measures the bytes allocated by the test thread with the ThreadMXBean counters.
+ */
+@DisplayName("Allocation Tests")
+class AllocationTest {
+
+    private static final int SHORT_BATTLE = 2_000;
+    private static final int LONG_BATTLE = 12_000;
+
+    @Test
+    @DisplayName("Silent battle allocates nothing per round in steady state")
+    void testNoAllocationPerRound() throws InvalidCreatureStateException {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+
+        // Warm up so class loading and JIT compilation don't show up in the measurement
+        for (int i = 0; i < 3; i++) {
+            runBattle(LONG_BATTLE, threads);
+        }
+
+        // Setup costs the same in both battles, so the difference is what the extra rounds allocate
+        long shortBytes = runBattle(SHORT_BATTLE, threads);
+        long longBytes = runBattle(LONG_BATTLE, threads);
+        double bytesPerRound = (double) (longBytes - shortBytes) / (LONG_BATTLE - SHORT_BATTLE);
+
+        assertTrue(bytesPerRound < 1.0, "Expected no allocation per round, got " + bytesPerRound + " bytes");
+    }
+
+    @Test
+    @DisplayName("Creatures sharing a template are several times smaller")
+    void testTemplateFootprint() throws InvalidCreatureStateException {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        int count = 20_000;
+        Creature[] army = new Creature[count];
+        Random random = new Random(3);
+        CreatureTemplate orc = new CreatureTemplate(CreatureType.WARRIOR, "Orc", 80, 12, 3, 4, Team.MONSTERS, 0,
+                random);
+
+        // Warm up both ways of building creatures first
+        long standalone = 0;
+        long shared = 0;
+        for (int run = 0; run < 3; run++) {
+            long threadId = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < count; i++) {
+                army[i] = new Warrior("Orc" + i, 80, 12, 3, 4, Team.MONSTERS, random);
+            }
+            long middle = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < count; i++) {
+                army[i] = orc.create(null);
+            }
+            long after = threads.getThreadAllocatedBytes(threadId);
+            standalone = middle - before;
+            shared = after - middle;
+        }
+
+        double bytesPerCreature = (double) shared / count;
+        assertTrue(bytesPerCreature <= 40, "Shared template creature takes " + bytesPerCreature + " bytes");
+        assertTrue(standalone >= 3 * shared, "Standalone " + standalone + " bytes vs shared " + shared + " bytes");
+    }
+
+    private com.sun.management.ThreadMXBean threadMXBean() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "JVM does not report allocated bytes per thread");
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    /**
+     * Runs a battle that lasts exactly {@code rounds} rounds: nobody can die, every
+     * class acts and the warriors' crits keep the stalemate detection from skipping rounds.
+     *
+     * @return bytes allocated by this thread while the battle ran
+     */
+    private long runBattle(int rounds, com.sun.management.ThreadMXBean threads)
+            throws InvalidCreatureStateException {
+        Random random = new Random(7);
+        Battlefield battlefield = new Battlefield(rounds);
+        battlefield.setOutputEnabled(false);
+
+        battlefield.addCreature(new Warrior("Knight", 1_000_000_000, 20, 10, 6, Team.HEROES, random));
+        battlefield.addCreature(new Mage("Wizard", 1_000_000_000, 15, 10, 7, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Priest", 1_000_000_000, 10, 10, 5, Team.HEROES, 30, random));
+        battlefield.addCreature(new MonsterBoss("Troll", 1_000_000_000, 25, 10, 4, Team.MONSTERS, random));
+        battlefield.addCreature(new Warrior("Orc", 1_000_000_000, 20, 10, 3, Team.MONSTERS, random));
+        battlefield.addCreature(new Healer("Witch", 1_000_000_000, 10, 10, 2, Team.MONSTERS, 30, random));
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        battlefield.startBattle();
+        long after = threads.getThreadAllocatedBytes(threadId);
+
+        assertEquals(rounds, battlefield.getCurrentRound(), "Battle should run to max rounds");
+        return after - before;
+    }
+}
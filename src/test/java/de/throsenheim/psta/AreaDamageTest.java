@@ -0,0 +1,107 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.AreaDamage;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for mass area damage.
+ * The batched resolution must give exactly the same results as hitting the targets one by one.
+ */
+@DisplayName("Area Damage Tests")
+class AreaDamageTest {
+
+    @Test
+    @DisplayName("Vectorized and scalar damage give the same health")
+    void testVectorMatchesScalar() {
+        Random random = new Random(3);
+        for (int count : new int[]{0, 1, 7, 16, 33, 1000, 4099}) {
+            int[] health = new int[count + 5];
+            int[] defense = new int[count + 5];
+            for (int i = 0; i < health.length; i++) {
+                health[i] = 1 + random.nextInt(200);
+                defense[i] = random.nextInt(60);
+            }
+            int damage = random.nextInt(80);
+            int[] expected = health.clone();
+
+            int expectedDefeated = AreaDamage.applyScalar(damage, expected, defense, count);
+            int defeated = AreaDamage.apply(damage, health, defense, count);
+
+            assertArrayEquals(expected, health, "Health after hitting " + count + " targets");
+            assertEquals(expectedDefeated, defeated);
+        }
+    }
+
+    @Test
+    @DisplayName("Damage rules match takeDamage")
+    void testDamageRules() throws InvalidCreatureStateException {
+        int[] health = {100, 100, 5, 30};
+        int[] defense = {10, 50, 0, 29};
+
+        int defeated = AreaDamage.applyScalar(30, health, defense, 4);
+
+        // 30 - 10, minimum 1, killed, 1
+        assertArrayEquals(new int[]{80, 99, 0, 29}, health);
+        assertEquals(1, defeated);
+
+        Creature creature = new Warrior("Target", 100, 10, 50, 5, Team.HEROES, new Random(1));
+        creature.takeDamage(30);
+        assertEquals(99, creature.getHealth());
+    }
+
+    @Test
+    @DisplayName("Silent mass spells end battles like loud ones")
+    void testMassSpellBattleMatchesScalarBattle() throws InvalidCreatureStateException {
+        Battlefield silent = createMassBattle();
+        silent.setOutputEnabled(false);
+        silent.startBattle();
+
+        // Output forces the one-by-one path
+        Battlefield loud = createMassBattle();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            loud.startBattle();
+        } finally {
+            System.setOut(out);
+        }
+
+        assertEquals(loud.getCurrentRound(), silent.getCurrentRound());
+        assertEquals(loud.getWinnerTeam(), silent.getWinnerTeam());
+        for (int i = 0; i < loud.getAllCreatures().size(); i++) {
+            Creature expected = loud.getAllCreatures().get(i);
+            Creature actual = silent.getAllCreatures().get(i);
+            assertEquals(expected.getHealth(), actual.getHealth(), "Health of " + expected.getName());
+            assertEquals(expected.isAlive(), actual.isAlive(), "Alive state of " + expected.getName());
+        }
+    }
+
+    private Battlefield createMassBattle() throws InvalidCreatureStateException {
+        Random stats = new Random(17);
+        Random random = new Random(5);
+        Battlefield battlefield = new Battlefield(200, BalanceProfile.DEFAULT.withMaxAoeTargets(Integer.MAX_VALUE));
+
+        for (int i = 0; i < 6; i++) {
+            battlefield.addCreature(new Mage("Archmage" + i, 400, 25 + stats.nextInt(20), 5, 10, Team.HEROES, random));
+        }
+        for (int i = 0; i < 3000; i++) {
+            battlefield.addCreature(new Warrior("Goblin" + i, 20 + stats.nextInt(100), 1 + stats.nextInt(3),
+                    stats.nextInt(40), stats.nextInt(8), Team.MONSTERS, random));
+        }
+        return battlefield;
+    }
+}
@@ -0,0 +1,119 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.ArmyGenerator;
+import de.throsenheim.psta.model.creatures.ArmySpec;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for armies generated from a seeded spec.
+ */
+@DisplayName("Army Generator Tests")
+class ArmyGeneratorTest {
+
+    private static final String SPEC = "60% Warrior, 30% Mage, 10% Healer; health ~ N(120, 20); attack ~ N(18, 4); heal = 25";
+
+    @Test
+    @DisplayName("A creature only depends on spec, seed and index")
+    void testDeterministicInAnyOrder() {
+        ArmyGenerator army = new ArmyGenerator(ArmySpec.parse(Team.HEROES, 1000, SPEC), 42);
+        ArmyGenerator same = new ArmyGenerator(ArmySpec.parse(Team.HEROES, 1000, SPEC), 42);
+        ArmyGenerator other = new ArmyGenerator(ArmySpec.parse(Team.HEROES, 1000, SPEC), 43);
+
+        boolean differs = false;
+        for (int i = 999; i >= 0; i--) {
+            Creature expected = army.create(i, new Random(1));
+            Creature actual = same.create(i, new Random(1));
+            assertEquals(CreatureType.of(expected), CreatureType.of(actual));
+            assertEquals(expected.getMaxHealth(), actual.getMaxHealth());
+            assertEquals(expected.getAttackPower(), actual.getAttackPower());
+            assertEquals(army.statAt(i, CreatureSpec.Stat.HEALTH), expected.getMaxHealth());
+            differs |= other.statAt(i, CreatureSpec.Stat.HEALTH) != army.statAt(i, CreatureSpec.Stat.HEALTH);
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    @DisplayName("Types and stats follow the spec")
+    void testDistribution() {
+        int size = 20_000;
+        ArmyGenerator army = new ArmyGenerator(ArmySpec.parse(Team.MONSTERS, size, SPEC), 7);
+        int[] types = new int[CreatureType.values().length];
+        double sum = 0;
+        double squares = 0;
+        for (int i = 0; i < size; i++) {
+            types[army.typeAt(i).ordinal()]++;
+            int health = army.statAt(i, CreatureSpec.Stat.HEALTH);
+            sum += health;
+            squares += (double) health * health;
+        }
+        assertEquals(0.6, types[CreatureType.WARRIOR.ordinal()] / (double) size, 0.02);
+        assertEquals(0.3, types[CreatureType.MAGE.ordinal()] / (double) size, 0.02);
+        assertEquals(0.1, types[CreatureType.HEALER.ordinal()] / (double) size, 0.02);
+        assertEquals(0, types[CreatureType.MONSTER_BOSS.ordinal()]);
+
+        double mean = sum / size;
+        assertEquals(120, mean, 1);
+        assertEquals(20, Math.sqrt(squares / size - mean * mean), 1);
+        assertEquals(25, army.statAt(0, CreatureSpec.Stat.HEAL_POWER));
+    }
+
+    @Test
+    @DisplayName("Wide distributions are clamped instead of failing")
+    void testClamping() {
+        ArmySpec spec = new ArmySpec(Team.HEROES, 5000)
+                .withShares(Map.of(CreatureType.WARRIOR, 1, CreatureType.MONSTER_BOSS, 1))
+                .withStat(CreatureSpec.Stat.HEALTH, 5, 100)
+                .withStat(CreatureSpec.Stat.DEFENSE, 0, 50)
+                .withStat(CreatureSpec.Stat.UNITS, 1, 3);
+        ArmyGenerator army = new ArmyGenerator(spec, 3);
+        Random random = new Random(0);
+        for (int i = 0; i < army.size(); i++) {
+            Creature creature = army.create(i, random);
+            assertTrue(creature.getMaxHealth() >= 1);
+            assertTrue(creature.getDefense() >= 0);
+            assertTrue(creature.getStackSize() >= 1);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> army.create(5000, random));
+    }
+
+    @Test
+    @DisplayName("Invalid specs are refused once, up front")
+    void testInvalidSpecs() {
+        assertThrows(GameConfigurationException.class, () -> ArmySpec.parse(Team.HEROES, 10, "50% dwarf"));
+        assertThrows(GameConfigurationException.class, () -> ArmySpec.parse(Team.HEROES, 10, "speed ~ N(1, 2)"));
+        assertThrows(GameConfigurationException.class, () -> ArmySpec.parse(Team.HEROES, 10, "health ~ U(1, 2)"));
+        assertThrows(GameConfigurationException.class, () -> ArmySpec.parse(Team.HEROES, 10, "warriors"));
+        assertThrows(GameConfigurationException.class,
+                () -> new ArmyGenerator(ArmySpec.parse(Team.HEROES, 10, "health ~ N(100, -1)"), 1));
+        assertThrows(GameConfigurationException.class,
+                () -> new ArmyGenerator(ArmySpec.parse(Team.HEROES, 10, "0% mage"), 1));
+        assertThrows(GameConfigurationException.class, () -> new ArmyGenerator(new ArmySpec(null, 10), 1));
+        assertThrows(GameConfigurationException.class, () -> new ArmyGenerator(new ArmySpec(Team.HEROES, -1), 1));
+    }
+
+    @Test
+    @DisplayName("Generated armies fight on a battlefield")
+    void testBattleWithArmies() {
+        Battlefield battlefield = new Battlefield(5);
+        battlefield.setOutputEnabled(false);
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.HEROES, 2000, SPEC), 1), new Random(1));
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.MONSTERS, 2000,
+                "90% warrior, 10% monster boss, health ~ N(110, 15)"), 2), new Random(2));
+        assertEquals(4000, battlefield.getAllCreatures().size());
+        battlefield.startBattle();
+        assertEquals(5, battlefield.getCurrentRound());
+        assertThrows(GameConfigurationException.class, () -> battlefield.addArmy(null, new Random()));
+    }
+}
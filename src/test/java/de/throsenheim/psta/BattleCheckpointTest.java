@@ -0,0 +1,213 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for checkpoints.
+ * Verifies that a resumed battle ends exactly like an uninterrupted one.
+ */
+@DisplayName("Battle Checkpoint Tests")
+class BattleCheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Resumed battle has the same result as an uninterrupted battle")
+    void testResumeMatchesUninterruptedBattle() throws InvalidCreatureStateException, IOException {
+        Path checkpoint = tempDir.resolve("battle.ckpt");
+
+        Battlefield uninterrupted = createBattle();
+        uninterrupted.enableCheckpoints(checkpoint, 4, 0);
+        uninterrupted.startBattle();
+
+        // The file now holds the state of an earlier round, as if the process had died there
+        assertTrue(Files.exists(checkpoint), "Checkpoint should have been written");
+        Battlefield resumed = Battlefield.resume(checkpoint);
+
+        assertEquals(uninterrupted.getCurrentRound(), resumed.getCurrentRound());
+        assertEquals(uninterrupted.getWinnerTeam(), resumed.getWinnerTeam());
+        for (int i = 0; i < uninterrupted.getAllCreatures().size(); i++) {
+            Creature expected = uninterrupted.getAllCreatures().get(i);
+            Creature actual = resumed.getAllCreatures().get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getHealth(), actual.getHealth(), "Health of " + expected.getName());
+            assertEquals(expected.isAlive(), actual.isAlive(), "Alive state of " + expected.getName());
+        }
+    }
+
+    @Test
+    @DisplayName("No temporary file is left behind after writing")
+    void testCheckpointIsWrittenAtomically() throws InvalidCreatureStateException {
+        Path checkpoint = tempDir.resolve("battle.ckpt");
+
+        Battlefield battlefield = createBattle();
+        battlefield.enableCheckpoints(checkpoint, 1, 0);
+        battlefield.startBattle();
+
+        assertTrue(Files.exists(checkpoint));
+        assertFalse(Files.exists(tempDir.resolve("battle.ckpt.tmp")), "Temporary file should be renamed");
+    }
+
+    @Test
+    @DisplayName("Resuming from a file that is not a checkpoint fails")
+    void testResumeRejectsInvalidFile() throws IOException {
+        Path notACheckpoint = tempDir.resolve("garbage.ckpt");
+        Files.write(notACheckpoint, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> Battlefield.resume(notACheckpoint));
+    }
+
+    @Test
+    @DisplayName("A restored battle waits for its settings and keeps a silent log silent")
+    void testRestoreKeepsSettings() throws InvalidCreatureStateException, IOException {
+        Path checkpoint = tempDir.resolve("battle.ckpt");
+        Battlefield uninterrupted = createBattle();
+        uninterrupted.setOutputEnabled(false);
+        uninterrupted.enableCheckpoints(checkpoint, 4, 0);
+        uninterrupted.startBattle();
+
+        Battlefield restored = Battlefield.restore(checkpoint);
+        assertFalse(restored.isOutputEnabled());
+        assertTrue(restored.getCurrentRound() < uninterrupted.getCurrentRound(), "The restored battle should not run yet");
+        restored.setMetricsEnabled(true);
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(text, true, StandardCharsets.UTF_8));
+        try {
+            restored.startBattle();
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals(0, text.size(), "A silent battle printed: " + text);
+        assertEquals(uninterrupted.getCurrentRound(), restored.getCurrentRound());
+        assertNotNull(restored.getMetrics());
+    }
+
+    @Test
+    @DisplayName("Corrupt checkpoints fail with an IOException")
+    void testCorruptCheckpoint() throws InvalidCreatureStateException, IOException {
+        Path checkpoint = tempDir.resolve("battle.ckpt");
+        Battlefield battlefield = createBattle();
+        battlefield.setOutputEnabled(false);
+        battlefield.enableCheckpoints(checkpoint, 4, 0);
+        battlefield.startBattle();
+        byte[] valid = Files.readAllBytes(checkpoint);
+
+        // The number of random generators follows the 81 bytes of header, settings and balance
+        byte[] negativeCount = valid.clone();
+        Arrays.fill(negativeCount, 81, 85, (byte) 0xFF);
+        Files.write(checkpoint, negativeCount);
+        assertThrows(IOException.class, () -> Battlefield.restore(checkpoint));
+
+        Files.write(checkpoint, Arrays.copyOf(valid, valid.length - 10));
+        assertThrows(IOException.class, () -> Battlefield.restore(checkpoint));
+
+        byte[] otherVersion = valid.clone();
+        otherVersion[5] = 9;
+        Files.write(checkpoint, otherVersion);
+        assertThrows(IOException.class, () -> Battlefield.restore(checkpoint));
+    }
+
+    @Test
+    @DisplayName("Creatures sharing a template still share it after resuming")
+    void testResumeKeepsSharedTemplates() throws InvalidCreatureStateException, IOException {
+        Path checkpoint = tempDir.resolve("battle.ckpt");
+        Random random = new Random(7);
+        CreatureTemplate orc = new CreatureTemplate(CreatureType.WARRIOR, "Orc", 60, 12, 2, 5, Team.MONSTERS, 0, random);
+        Battlefield uninterrupted = new Battlefield(20);
+        uninterrupted.setOutputEnabled(false);
+        uninterrupted.addCreature(new Warrior("Aragorn", 300, 25, 8, 6, Team.HEROES, random));
+        for (int i = 0; i < 5; i++) {
+            uninterrupted.addCreature(orc.create(null));
+        }
+        uninterrupted.addCreature(orc.create("Orc Chieftain"));
+        uninterrupted.enableCheckpoints(checkpoint, 2, 0);
+        uninterrupted.startBattle();
+
+        Battlefield resumed = Battlefield.restore(checkpoint);
+        CreatureTemplate shared = resumed.getAllCreatures().get(1).getTemplate();
+        assertNotSame(orc, shared);
+        for (int i = 1; i < 7; i++) {
+            Creature creature = resumed.getAllCreatures().get(i);
+            assertSame(shared, creature.getTemplate(), "Template of creature " + i);
+            assertEquals(i == 6, creature.hasOwnName(), "Own name of creature " + i);
+            assertTrue(creature.getName().startsWith("Orc"), creature.getName());
+        }
+        assertSame(shared.getRandom(), resumed.getAllCreatures().get(0).getTemplate().getRandom());
+
+        resumed.startBattle();
+        assertEquals(uninterrupted.getCurrentRound(), resumed.getCurrentRound());
+        for (int i = 0; i < uninterrupted.getAllCreatures().size(); i++) {
+            assertEquals(uninterrupted.getAllCreatures().get(i).getHealth(), resumed.getAllCreatures().get(i).getHealth(),
+                    "Health of creature " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("A resumed battle resets its stacks to the units they started with")
+    void testResetAfterResumeKeepsStacks() throws InvalidCreatureStateException, IOException {
+        Path checkpoint = tempDir.resolve("battle.ckpt");
+        Random random = new Random(11);
+        Battlefield original = new Battlefield(30);
+        original.setOutputEnabled(false);
+        original.addCreature(new CreatureTemplate(CreatureType.MAGE, "Adept", 40, 6, 1, 6, Team.HEROES, 0, random)
+                .createStack("Adepts", 8));
+        original.addCreature(new CreatureTemplate(CreatureType.WARRIOR, "Orc", 50, 5, 1, 5, Team.MONSTERS, 0, random)
+                .createStack("Orcs", 12));
+        original.enableCheckpoints(checkpoint, 2, 0);
+        original.startBattle();
+
+        Battlefield resumed = Battlefield.restore(checkpoint);
+        assertTrue(resumed.getAllCreatures().get(1).getStackSize() < 12, "The orcs should have lost units");
+        resumed.reset(5);
+        assertEquals(8, resumed.getAllCreatures().get(0).getStackSize());
+        assertEquals(12, resumed.getAllCreatures().get(1).getStackSize());
+
+        original.reset(5);
+        original.startBattle();
+        resumed.startBattle();
+        assertEquals(original.getCurrentRound(), resumed.getCurrentRound());
+        assertEquals(original.getWinnerTeam(), resumed.getWinnerTeam());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(original.getAllCreatures().get(i).getTotalHealth(),
+                    resumed.getAllCreatures().get(i).getTotalHealth(), "Health of creature " + i);
+        }
+    }
+
+    private Battlefield createBattle() throws InvalidCreatureStateException {
+        Random random = new Random(42);
+        Battlefield battlefield = new Battlefield(20);
+
+        battlefield.addCreature(new Warrior("Aragorn", 120, 25, 8, 6, Team.HEROES, random));
+        battlefield.addCreature(new Mage("Gandalf", 80, 35, 3, 7, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Elrond", 90, 15, 5, 5, Team.HEROES, 25, random));
+        battlefield.addCreature(new MonsterBoss("Dark Lord", 200, 30, 10, 4, Team.MONSTERS, random));
+        battlefield.addCreature(new Warrior("Orc Chieftain", 100, 20, 6, 3, Team.MONSTERS, random));
+        return battlefield;
+    }
+}
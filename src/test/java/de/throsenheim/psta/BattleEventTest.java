@@ -0,0 +1,190 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.events.BattleEvent;
+import de.throsenheim.psta.events.BattleEventPublisher;
+import de.throsenheim.psta.events.OverflowPolicy;
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the live battle event stream.
+ * Deliveries run on the calling thread here, so the tests see a fixed order.
+ */
+@DisplayName("Battle Event Tests")
+class BattleEventTest {
+
+    /**
+     * Subscriber that records everything and only requests events when told to.
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<BattleEvent> {
+        final List<BattleEvent> events = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(BattleEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private Battlefield createBattle() throws InvalidCreatureStateException {
+        Random random = new Random(8);
+        Battlefield battlefield = new Battlefield(50);
+        battlefield.setOutputEnabled(false);
+        battlefield.setEvents(new BattleEventPublisher(Runnable::run));
+        battlefield.addCreature(new Warrior("Knight", 120, 25, 6, 7, Team.HEROES, random));
+        battlefield.addCreature(new Mage("Wizard", 80, 18, 3, 5, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Cleric", 90, 10, 4, 4, Team.HEROES, 20, random));
+        battlefield.addCreature(new MonsterBoss("Dragon", 300, 30, 8, 6, Team.MONSTERS, random));
+        battlefield.addCreature(new Warrior("Orc", 110, 22, 5, 3, Team.MONSTERS, random));
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("Subscriber with demand sees the whole battle in order")
+    void testFullStream() throws InvalidCreatureStateException {
+        Battlefield battlefield = createBattle();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        battlefield.getEvents().subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        battlefield.startBattle();
+
+        List<BattleEvent> events = subscriber.events;
+        assertEquals(BattleEvent.Type.BATTLE_STARTED, events.get(0).getType());
+        BattleEvent last = events.get(events.size() - 1);
+        assertEquals(BattleEvent.Type.BATTLE_ENDED, last.getType());
+        assertEquals(battlefield.getWinnerTeam(), last.getWinner());
+        assertTrue(subscriber.completed);
+
+        long summaries = events.stream().filter(e -> e.getType() == BattleEvent.Type.ROUND_SUMMARY).count();
+        assertEquals(battlefield.getCurrentRound(), summaries);
+        long defeats = events.stream().filter(e -> e.getType() == BattleEvent.Type.DEFEATED).count();
+        assertEquals(battlefield.getDeadCount(Team.HEROES) + battlefield.getDeadCount(Team.MONSTERS), defeats);
+
+        BattleEvent summary = events.stream().filter(e -> e.getType() == BattleEvent.Type.ROUND_SUMMARY)
+                .reduce((a, b) -> b).orElseThrow();
+        for (int i = 0; i < summary.getCreatureCount(); i++) {
+            assertEquals(battlefield.getAllCreatures().get(i).getHealth(), summary.getHealth(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Slow subscriber with drop-oldest keeps the newest events")
+    void testDropOldest() throws InvalidCreatureStateException {
+        Battlefield battlefield = createBattle();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        battlefield.getEvents().subscribe(subscriber, 4, OverflowPolicy.DROP_OLDEST);
+
+        battlefield.startBattle();
+        assertTrue(subscriber.events.isEmpty(), "Nothing is delivered without demand");
+
+        subscriber.subscription.request(100);
+        assertEquals(4, subscriber.events.size());
+        assertEquals(BattleEvent.Type.BATTLE_ENDED, subscriber.events.get(3).getType());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    @DisplayName("Slow subscriber with conflation gets the newest round summary")
+    void testConflate() throws InvalidCreatureStateException {
+        Battlefield battlefield = createBattle();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        battlefield.getEvents().subscribe(subscriber, 8, OverflowPolicy.CONFLATE);
+
+        battlefield.startBattle();
+        subscriber.subscription.request(100);
+
+        List<BattleEvent> events = subscriber.events;
+        assertEquals(BattleEvent.Type.BATTLE_STARTED, events.get(0).getType());
+        assertEquals(BattleEvent.Type.BATTLE_ENDED, events.get(events.size() - 1).getType());
+        assertTrue(events.size() <= 8);
+        assertTrue(events.stream().anyMatch(e -> e.getType() == BattleEvent.Type.ROUND_SUMMARY
+                && e.getRound() >= battlefield.getCurrentRound() - 1), "Newest summary should survive");
+    }
+
+    @Test
+    @DisplayName("Slow subscriber with a full buffer gets an error, the battle still ends")
+    void testBufferOverflow() throws InvalidCreatureStateException {
+        Battlefield battlefield = createBattle();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        battlefield.getEvents().subscribe(subscriber, 4, OverflowPolicy.BUFFER);
+
+        battlefield.startBattle();
+
+        assertNotNull(subscriber.error);
+        assertNotNull(battlefield.getWinnerTeam());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    @DisplayName("A reset battle gets an open publisher with the same executor and overflow policy")
+    void testResetKeepsPublisherSettings() throws InvalidCreatureStateException {
+        Battlefield battlefield = createBattle();
+        battlefield.setEvents(new BattleEventPublisher(Runnable::run, 4, OverflowPolicy.DROP_OLDEST));
+        battlefield.startBattle();
+        BattleEventPublisher first = battlefield.getEvents();
+        assertTrue(first.isClosed());
+
+        battlefield.reset(8);
+        BattleEventPublisher second = battlefield.getEvents();
+        assertNotSame(first, second);
+        assertFalse(second.isClosed());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        second.subscribe(subscriber);
+        battlefield.startBattle();
+        subscriber.subscription.request(100);
+
+        // Delivered right away on the calling thread, and only the newest four were kept
+        assertEquals(4, subscriber.events.size());
+        assertEquals(BattleEvent.Type.BATTLE_ENDED, subscriber.events.get(3).getType());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    @DisplayName("Watching a battle doesn't change how it ends")
+    void testSpectatorsDontChangeBattle() throws InvalidCreatureStateException {
+        Battlefield watched = createBattle();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        watched.getEvents().subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        watched.startBattle();
+
+        Battlefield unwatched = createBattle();
+        unwatched.startBattle();
+
+        assertEquals(unwatched.getCurrentRound(), watched.getCurrentRound());
+        assertEquals(unwatched.getWinnerTeam(), watched.getWinnerTeam());
+    }
+}
@@ -0,0 +1,110 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.simulation.BattleFactory;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.throsenheim.psta.TestBattles.ROSTER;
+import static de.throsenheim.psta.TestBattles.assertSameBattle;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for resetting battlefields and the per-thread battle pool.
+ */
+@DisplayName("Battle Reset Tests")
+class BattleResetTest {
+
+    @Test
+    @DisplayName("A reset battlefield plays the same battle as a fresh one")
+    void testResetMatchesFreshBattle() {
+        Battlefield reused = BattleFactory.create(ROSTER, 0, 200, BalanceProfile.DEFAULT);
+        reused.setMetricsEnabled(true);
+        reused.startBattle();
+        boolean sawEnrage = false;
+
+        for (long seed = 1; seed <= 40; seed++) {
+            reused.reset(seed);
+            assertEquals(0, reused.getCurrentRound());
+            assertNull(reused.getWinnerTeam());
+            assertEquals(3, reused.getAllCreatures().get(4).getStackSize());
+            reused.startBattle();
+
+            Battlefield fresh = BattleFactory.create(ROSTER, seed, 200, BalanceProfile.DEFAULT);
+            fresh.setMetricsEnabled(true);
+            fresh.startBattle();
+            assertSameBattle(fresh, reused);
+            // Records of different creatures, so they are compared by what they say
+            assertEquals(fresh.getLeaderboard().toString(), reused.getLeaderboard().toString());
+            sawEnrage |= ((MonsterBoss) fresh.getAllCreatures().get(3)).isEnraged();
+        }
+        assertTrue(sawEnrage, "Some battle should enrage the boss, so the reset of the flag is covered");
+    }
+
+    @Test
+    @DisplayName("The pool reuses a thread's battlefield only for the same battle setup")
+    void testAcquireReuses() {
+        Battlefield first = BattleFactory.acquire(ROSTER, 5, 200, BalanceProfile.DEFAULT);
+        first.startBattle();
+        Battlefield second = BattleFactory.acquire(List.copyOf(ROSTER), 6, 200, BalanceProfile.DEFAULT);
+        assertSame(first, second);
+        second.startBattle();
+        Battlefield fresh = BattleFactory.create(ROSTER, 6, 200, BalanceProfile.DEFAULT);
+        fresh.startBattle();
+        assertSameBattle(fresh, second);
+
+        assertNotSame(second, BattleFactory.acquire(ROSTER, 6, 150, BalanceProfile.DEFAULT));
+
+        // A modifiable roster with the same specs still matches, a released pool builds anew
+        Battlefield third = BattleFactory.acquire(ROSTER, 7, 150, BalanceProfile.DEFAULT);
+        assertSame(third, BattleFactory.acquire(new ArrayList<>(ROSTER), 8, 150, BalanceProfile.DEFAULT));
+        BattleFactory.release();
+        assertNotSame(third, BattleFactory.acquire(ROSTER, 8, 150, BalanceProfile.DEFAULT));
+        BattleFactory.release();
+    }
+
+    @Test
+    @DisplayName("Pooled battles allocate far less than building every battle")
+    void testPooledBattlesAllocateLittle() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "JVM does not report allocated bytes per thread");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "Allocation counting is not available");
+        long threadId = Thread.currentThread().getId();
+        int battles = 2_000;
+
+        // Warm up both paths so class loading and JIT compilation don't show up in the measurement
+        for (int round = 0; round < 2; round++) {
+            runBattles(battles, true);
+            runBattles(battles, false);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        runBattles(battles, true);
+        long pooled = (threads.getThreadAllocatedBytes(threadId) - before) / battles;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        runBattles(battles, false);
+        long fresh = (threads.getThreadAllocatedBytes(threadId) - before) / battles;
+
+        assertTrue(pooled < 512, "Pooled battle allocates " + pooled + " bytes");
+        assertTrue(pooled * 4 < fresh, "Pooled " + pooled + " bytes vs fresh " + fresh + " bytes per battle");
+    }
+
+    private static void runBattles(int battles, boolean pooled) {
+        for (int seed = 0; seed < battles; seed++) {
+            Battlefield battlefield = pooled
+                    ? BattleFactory.acquire(ROSTER, seed, 200, BalanceProfile.DEFAULT)
+                    : BattleFactory.create(ROSTER, seed, 200, BalanceProfile.DEFAULT);
+            battlefield.startBattle();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.events.BattleEvent;
+import de.throsenheim.psta.events.BattleEventPublisher;
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BattleResult;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.CancellationToken;
+import de.throsenheim.psta.model.RunOptions;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for running battles with limits, cancellation and progress reports.
+ */
+@DisplayName("Battle Run Tests")
+class BattleRunTest {
+
+    private Battlefield createLongBattle() throws InvalidCreatureStateException {
+        Random random = new Random(4);
+        Battlefield battlefield = new Battlefield(500);
+        battlefield.setOutputEnabled(false);
+        battlefield.addCreature(new Warrior("Knight", 5000, 30, 10, 7, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Cleric", 4000, 15, 8, 4, Team.HEROES, 40, random));
+        battlefield.addCreature(new MonsterBoss("Dragon", 9000, 35, 12, 6, Team.MONSTERS, random));
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("Plain run reports the normal end of the battle")
+    void testPlainRun() throws InvalidCreatureStateException {
+        Battlefield battlefield = createLongBattle();
+        BattleResult result = battlefield.run(RunOptions.NONE);
+
+        assertFalse(result.isCutShort());
+        assertEquals(battlefield.getWinnerTeam(), result.getWinner());
+        assertEquals(battlefield.getCurrentRound(), result.getRounds());
+        assertNotNull(result.getWinner());
+    }
+
+    @Test
+    @DisplayName("Progress is reported after every round")
+    void testProgressReports() throws InvalidCreatureStateException {
+        Battlefield battlefield = createLongBattle();
+        battlefield.setStalemateDetection(false);
+        List<Integer> rounds = new ArrayList<>();
+
+        BattleResult result = battlefield.run(RunOptions.NONE.withProgressListener(
+                (round, heroes, monsters) -> {
+                    rounds.add(round);
+                    assertTrue(heroes >= 0 && heroes <= 2);
+                    assertTrue(monsters >= 0 && monsters <= 1);
+                }));
+
+        assertEquals(result.getRounds(), rounds.size());
+        for (int i = 0; i < rounds.size(); i++) {
+            assertEquals(i + 1, rounds.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Cancelled battle stops with a partial result")
+    void testCancellation() throws InvalidCreatureStateException {
+        Battlefield battlefield = createLongBattle();
+        CancellationToken token = new CancellationToken();
+
+        BattleResult result = battlefield.run(RunOptions.NONE
+                .withCancellationToken(token)
+                .withProgressListener((round, heroes, monsters) -> {
+                    if (round == 3) {
+                        token.cancel();
+                    }
+                }));
+
+        assertTrue(result.isCutShort());
+        assertEquals(BattleResult.StopReason.CANCELLED, result.getStopReason());
+        assertEquals(3, result.getRounds());
+        assertNull(result.getWinner());
+        assertEquals(2, result.getLivingHeroes());
+        assertEquals(1, result.getLivingMonsters());
+    }
+
+    @Test
+    @DisplayName("Cancellation is noticed between actions of a round")
+    void testCancellationInsideRound() throws InvalidCreatureStateException {
+        Battlefield battlefield = createLongBattle();
+        CancellationToken token = new CancellationToken();
+        battlefield.setEvents(new BattleEventPublisher(Runnable::run));
+
+        // Cancel as soon as the first attack of round 2 is made
+        battlefield.getEvents().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(BattleEvent event) {
+                if (event.getRound() == 2 && event.getType() == BattleEvent.Type.ATTACK) {
+                    token.cancel();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        BattleResult result = battlefield.run(RunOptions.NONE.withCancellationToken(token));
+
+        assertEquals(BattleResult.StopReason.CANCELLED, result.getStopReason());
+        assertEquals(2, result.getRounds());
+
+        // Round 2 is unfinished, so the battle can only be played again from the start
+        assertThrows(GameConfigurationException.class, battlefield::startBattle);
+        battlefield.reset(1);
+        assertFalse(battlefield.run(RunOptions.NONE).isCutShort());
+    }
+
+    @Test
+    @DisplayName("Time limit and CPU budget cut the battle short")
+    void testBudgets() throws InvalidCreatureStateException {
+        BattleResult timed = createLongBattle().run(RunOptions.NONE.withTimeLimit(Duration.ofNanos(1)));
+        assertEquals(BattleResult.StopReason.TIME_LIMIT, timed.getStopReason());
+
+        BattleResult budgeted = createLongBattle().run(RunOptions.NONE.withCpuBudget(Duration.ofNanos(1)));
+        assertEquals(BattleResult.StopReason.CPU_BUDGET, budgeted.getStopReason());
+        assertTrue(budgeted.isCutShort());
+    }
+}
@@ -0,0 +1,96 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.cli.BattleRunner;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.persistence.RosterFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the command line battle runner.
+ */
+@DisplayName("Battle Runner Tests")
+class BattleRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return BattleRunner.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("A batch reports throughput, latency and win rates")
+    void testBatch() {
+        assertEquals(0, run("--generate", "3", "--battles", "300", "--threads", "2", "--warmup", "10"));
+
+        String output = output();
+        assertTrue(output.contains("Roster:     6 creatures (3 heroes, 3 monsters)"), output);
+        assertTrue(output.contains("Battles:    300 on 2 thread(s)"), output);
+        assertTrue(output.contains("battles/s"), output);
+        assertTrue(output.contains("p99="), output);
+        assertTrue(output.contains("Win rate:   heroes"), output);
+    }
+
+    @Test
+    @DisplayName("A single battle runs verbose from a JSON roster")
+    void testSingleBattleFromJson() throws IOException {
+        Path roster = tempDir.resolve("roster.json");
+        Files.writeString(roster, "{\"seed\": 42, \"maxRounds\": 50, \"creatures\": ["
+                + "{\"type\": \"WARRIOR\", \"name\": \"Knight\", \"team\": \"HEROES\","
+                + " \"health\": 120, \"attack\": 25, \"defense\": 6, \"initiative\": 7},"
+                + "{\"type\": \"WARRIOR\", \"name\": \"Orc\", \"team\": \"MONSTERS\","
+                + " \"health\": 90, \"attack\": 15, \"defense\": 2, \"initiative\": 3}]}");
+
+        assertEquals(0, run("--roster", roster.toString(), "--mode", "active-time"));
+        String output = output();
+        assertTrue(output.contains("max rounds 50, active-time mode"), output);
+        assertTrue(output.contains("Seed 42: "), output);
+    }
+
+    @Test
+    @DisplayName("A binary roster file can be run as a batch")
+    void testBinaryRoster() throws IOException {
+        Path roster = tempDir.resolve("army.roster");
+        RosterFile.write(80, BalanceProfile.DEFAULT, List.of(
+                new CreatureSpec(CreatureType.MAGE, "Wizard", 80, 18, 3, 8, Team.HEROES, 0),
+                new CreatureSpec(CreatureType.WARRIOR, "Orc", 40, 12, 2, 3, Team.MONSTERS, 0, 5)), roster);
+
+        assertEquals(0, run("--roster", roster.toString(), "--battles", "50", "--threads", "1", "--warmup", "0"));
+        assertTrue(output().contains("max rounds 80"), output());
+        assertTrue(output().contains("Battles:    50 on 1 thread(s)"), output());
+    }
+
+    @Test
+    @DisplayName("Invalid options and missing files give an error status")
+    void testErrors() {
+        assertEquals(2, run("--battles", "zero"));
+        assertEquals(2, run("--frobnicate", "1"));
+        assertEquals(2, run("--mode", "sideways"));
+        assertEquals(1, run("--roster", tempDir.resolve("missing.roster").toString()));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Usage:"));
+        assertEquals(0, run("--help"));
+    }
+}
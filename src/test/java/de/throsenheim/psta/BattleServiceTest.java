@@ -0,0 +1,128 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import de.throsenheim.psta.service.BattleService;
+import de.throsenheim.psta.simulation.BattleFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the HTTP battle service.
+ */
+@DisplayName("Battle Service Tests")
+class BattleServiceTest {
+
+    private static final String ROSTER = "\"creatures\": ["
+            + "{\"type\": \"warrior\", \"name\": \"Knight\", \"team\": \"HEROES\", \"health\": 120, \"attack\": 25, \"defense\": 6, \"initiative\": 7},"
+            + "{\"type\": \"MAGE\", \"name\": \"Wizard\", \"team\": \"HEROES\", \"health\": 80, \"attack\": 18, \"defense\": 3, \"initiative\": 5},"
+            + "{\"type\": \"MONSTER_BOSS\", \"name\": \"Dragon\", \"team\": \"MONSTERS\", \"health\": 300, \"attack\": 30, \"defense\": 8, \"initiative\": 6}]";
+
+    private BattleService service;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        service = new BattleService(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 4, 10_000);
+        service.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + service.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("Single battle returns the same outcome as a local battle")
+    void testSingleBattle() throws Exception {
+        HttpResponse<String> response = post("/battle", "{\"seed\": 42, \"maxRounds\": 100, " + ROSTER + "}");
+
+        Random random = new Random(42);
+        Battlefield battlefield = new Battlefield(100);
+        battlefield.setOutputEnabled(false);
+        battlefield.addCreature(new Warrior("Knight", 120, 25, 6, 7, Team.HEROES, random));
+        battlefield.addCreature(new Mage("Wizard", 80, 18, 3, 5, Team.HEROES, random));
+        battlefield.addCreature(new MonsterBoss("Dragon", 300, 30, 8, 6, Team.MONSTERS, random));
+        battlefield.startBattle();
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"winner\":\"" + battlefield.getWinnerTeam() + "\""), response.body());
+        assertTrue(response.body().contains("\"rounds\":" + battlefield.getCurrentRound() + ","), response.body());
+        assertTrue(response.body().contains("\"survivors\":["), response.body());
+    }
+
+    @Test
+    @DisplayName("Surviving stacks report their units and total health")
+    void testSurvivingStack() throws Exception {
+        HttpResponse<String> response = post("/battle", "{\"seed\": 3, \"maxRounds\": 100, \"creatures\": ["
+                + "{\"type\": \"WARRIOR\", \"name\": \"Guards\", \"team\": \"HEROES\", \"health\": 50, "
+                + "\"attack\": 10, \"defense\": 0, \"initiative\": 5, \"units\": 20},"
+                + "{\"type\": \"WARRIOR\", \"name\": \"Ogre\", \"team\": \"MONSTERS\", \"health\": 400, "
+                + "\"attack\": 120, \"defense\": 0, \"initiative\": 9}]}");
+
+        Battlefield battlefield = BattleFactory.create(List.of(
+                new CreatureSpec(CreatureType.WARRIOR, "Guards", 50, 10, 0, 5, Team.HEROES, 0, 20),
+                new CreatureSpec(CreatureType.WARRIOR, "Ogre", 400, 120, 0, 9, Team.MONSTERS, 0)),
+                3, 100, BalanceProfile.DEFAULT);
+        battlefield.startBattle();
+        Creature guards = battlefield.getAllCreatures().get(0);
+        assertTrue(guards.isAlive() && guards.getStackSize() > 1 && guards.getStackSize() < 20, guards.toString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"health\":" + guards.getHealth() + ",\"units\":" + guards.getStackSize()
+                + ",\"totalHealth\":" + guards.getTotalHealth() + ","), response.body());
+    }
+
+    @Test
+    @DisplayName("Batch runs one battle per seed")
+    void testBatch() throws Exception {
+        HttpResponse<String> response = post("/batch", "{\"seed\": 1, \"battles\": 25, " + ROSTER + "}");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"battles\":25,"), response.body());
+        assertEquals(25, response.body().split("\"seed\":").length - 1);
+        assertTrue(response.body().contains("{\"seed\":25,"), response.body());
+    }
+
+    @Test
+    @DisplayName("Invalid requests are rejected with a client error")
+    void testInvalidRequests() throws Exception {
+        assertEquals(400, post("/battle", "{\"creatures\": [").statusCode());
+        assertEquals(400, post("/battle", "{\"creatures\": []}").statusCode());
+        assertEquals(400, post("/battle", "{" + ROSTER.replace("\"health\": 120", "\"health\": -5") + "}").statusCode());
+        assertEquals(400, post("/batch", "{\"battles\": 0, " + ROSTER + "}").statusCode());
+
+        HttpRequest get = HttpRequest.newBuilder(URI.create("http://localhost:" + service.getPort() + "/battle")).GET().build();
+        assertEquals(405, client.send(get, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
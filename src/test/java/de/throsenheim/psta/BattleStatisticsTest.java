@@ -0,0 +1,131 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.BattleMetrics;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import de.throsenheim.psta.simulation.BattleStatistics;
+import de.throsenheim.psta.simulation.QuantileSketch;
+import de.throsenheim.psta.simulation.SweepRunner;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for quantile sketches and battle statistics.
+ */
+@DisplayName("Battle Statistics Tests")
+class BattleStatisticsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<CreatureSpec> ROSTER = List.of(
+            new CreatureSpec(CreatureType.WARRIOR, "Knight", 120, 25, 6, 7, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.MAGE, "Wizard", 80, 18, 3, 8, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.HEALER, "Cleric", 90, 8, 4, 5, Team.HEROES, 30),
+            new CreatureSpec(CreatureType.MONSTER_BOSS, "Dragon", 400, 32, 8, 6, Team.MONSTERS, 0),
+            new CreatureSpec(CreatureType.WARRIOR, "Orc", 70, 15, 2, 3, Team.MONSTERS, 0));
+
+    @Test
+    @DisplayName("Quantiles are within 1% of the true values")
+    void testSketchAccuracy() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int value = 1; value <= 1_000_000; value++) {
+            sketch.record(value);
+        }
+
+        assertEquals(1_000_000, sketch.getCount());
+        assertEquals(1, sketch.getMin());
+        assertEquals(1_000_000, sketch.getMax());
+        assertEquals(500_000.5, sketch.getMean(), 1e-6);
+        for (double q : new double[] {0.01, 0.25, 0.5, 0.9, 0.99, 0.999}) {
+            double expected = q * 1_000_000;
+            assertEquals(expected, sketch.quantile(q), expected * 0.01, "Quantile " + q);
+        }
+        assertEquals(1, sketch.quantile(0));
+        assertEquals(1_000_000, sketch.quantile(1));
+    }
+
+    @Test
+    @DisplayName("Small values are counted exactly and merging equals recording everything in one sketch")
+    void testSketchMerge() {
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch even = new QuantileSketch();
+        QuantileSketch odd = new QuantileSketch();
+        for (int value = 0; value < 100; value++) {
+            all.record(value);
+            (value % 2 == 0 ? even : odd).record(value);
+        }
+        even.merge(odd);
+
+        assertEquals(49, all.quantile(0.5));
+        assertEquals(all.getCount(), even.getCount());
+        for (double q = 0; q <= 1; q += 0.05) {
+            assertEquals(all.quantile(q), even.quantile(q));
+        }
+        assertThrows(IllegalArgumentException.class, () -> all.record(-1));
+    }
+
+    @Test
+    @DisplayName("Metrics count the health each creature took from its enemies")
+    void testMetrics() throws InvalidCreatureStateException {
+        Random random = new Random(3);
+        Battlefield battlefield = new Battlefield(200);
+        battlefield.setOutputEnabled(false);
+        battlefield.addCreature(new Warrior("Knight", 300, 20, 5, 6, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Cleric", 200, 6, 3, 5, Team.HEROES, 60, random));
+        battlefield.addCreature(new MonsterBoss("Dragon", 500, 30, 6, 4, Team.MONSTERS, random));
+        assertNull(battlefield.getMetrics(), "Metrics are off by default");
+
+        battlefield.setMetricsEnabled(true);
+        battlefield.startBattle();
+        BattleMetrics metrics = battlefield.getMetrics();
+
+        List<Creature> creatures = battlefield.getAllCreatures();
+        long monsterLoss = 500 - creatures.get(2).getHealth();
+        assertEquals(monsterLoss, metrics.getDamageDealt(0) + metrics.getDamageDealt(1));
+        assertTrue(metrics.getDamageDealt(2) > 0);
+        assertTrue(metrics.getFirstEnrageRound() > 0, "The dragon should enrage before it falls");
+    }
+
+    @Test
+    @DisplayName("Statistics don't depend on the number of threads")
+    void testThreadIndependence() throws IOException {
+        BattleStatistics single = new SweepRunner(1).runStatistics(ROSTER, 400, 100, 100, BalanceProfile.DEFAULT);
+        BattleStatistics parallel = new SweepRunner(4).runStatistics(ROSTER, 400, 100, 100, BalanceProfile.DEFAULT);
+
+        assertEquals(400, single.getBattles());
+        assertEquals(400, parallel.getBattles());
+        for (double q : new double[] {0.1, 0.5, 0.9, 0.99}) {
+            assertEquals(single.getRounds().quantile(q), parallel.getRounds().quantile(q));
+            assertEquals(single.getOverheal().quantile(q), parallel.getOverheal().quantile(q));
+            assertEquals(single.getFirstEnrageRound().quantile(q), parallel.getFirstEnrageRound().quantile(q));
+            for (CreatureType type : CreatureType.values()) {
+                assertEquals(single.getDamageDealt(type).quantile(q), parallel.getDamageDealt(type).quantile(q));
+            }
+        }
+        assertEquals(800, single.getDamageDealt(CreatureType.WARRIOR).getCount());
+
+        Path table = tempDir.resolve("stats.csv");
+        parallel.writeTable(table);
+        List<String> lines = Files.readAllLines(table);
+        assertEquals("metric,count,mean,min,p50,p90,p99,max", lines.get(0));
+        assertEquals(8, lines.size());
+    }
+}
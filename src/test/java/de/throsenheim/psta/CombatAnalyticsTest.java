@@ -0,0 +1,125 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.CombatRecord;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the per-creature combat analytics.
+ */
+@DisplayName("Combat Analytics Tests")
+class CombatAnalyticsTest {
+
+    private Battlefield createBattle(boolean metrics) throws InvalidCreatureStateException {
+        Random random = new Random(21);
+        Battlefield battlefield = new Battlefield(300);
+        battlefield.setOutputEnabled(false);
+        battlefield.setMetricsEnabled(metrics);
+        battlefield.addCreature(new Warrior("Knight", 220, 24, 6, 7, Team.HEROES, random));
+        battlefield.addCreature(new Mage("Wizard", 120, 16, 3, 8, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Cleric", 140, 8, 4, 5, Team.HEROES, 35, random));
+        battlefield.addCreature(new MonsterBoss("Dragon", 450, 30, 7, 6, Team.MONSTERS, random));
+        battlefield.addCreature(new Warrior("Orc", 100, 18, 2, 4, Team.MONSTERS, random));
+        battlefield.addCreature(new Warrior("Goblin", 60, 12, 1, 3, Team.MONSTERS, random));
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("Counters add up across the whole battle")
+    void testCountersAddUp() throws InvalidCreatureStateException {
+        Battlefield battlefield = createBattle(true);
+        battlefield.startBattle();
+        List<CombatRecord> records = battlefield.getLeaderboard();
+
+        assertEquals(6, records.size());
+        long dealt = records.stream().mapToLong(CombatRecord::getDamageDealt).sum();
+        long taken = records.stream().mapToLong(CombatRecord::getDamageTaken).sum();
+        int kills = records.stream().mapToInt(CombatRecord::getKills).sum();
+        long defeated = battlefield.getAllCreatures().stream().filter(c -> !c.isAlive()).count();
+        assertEquals(dealt, taken);
+        assertEquals(defeated, kills);
+
+        for (Team team : Team.values()) {
+            // Every point of health a team lost was either taken and not healed, or taken and healed
+            long teamTaken = 0;
+            long teamHealthLost = 0;
+            long teamHealed = 0;
+            for (CombatRecord record : records) {
+                Creature creature = record.getCreature();
+                if (creature.getTeam() == team) {
+                    teamTaken += record.getDamageTaken();
+                    teamHealthLost += creature.getMaxHealth() - creature.getHealth();
+                    teamHealed += record.getHealingGiven();
+                }
+            }
+            assertEquals(teamTaken, teamHealthLost + teamHealed, "Team " + team);
+        }
+        for (CombatRecord record : records) {
+            if (record.getCreature().isAlive()) {
+                assertEquals(battlefield.getCurrentRound(), record.getRoundsSurvived());
+            } else {
+                assertTrue(record.getRoundsSurvived() < battlefield.getCurrentRound());
+            }
+        }
+
+        CombatRecord knight = find(records, "Knight");
+        CombatRecord cleric = find(records, "Cleric");
+        assertTrue(knight.getCrits() > 0, "The knight should land a crit in a long battle");
+        assertEquals(0, cleric.getCrits());
+        assertTrue(cleric.getHealingGiven() > 0);
+    }
+
+    @Test
+    @DisplayName("Leaderboard is sorted, custom orders are supported")
+    void testLeaderboardOrder() throws InvalidCreatureStateException {
+        Battlefield battlefield = createBattle(true);
+        battlefield.startBattle();
+
+        List<CombatRecord> byDamage = battlefield.getLeaderboard();
+        for (int i = 1; i < byDamage.size(); i++) {
+            assertTrue(byDamage.get(i - 1).getDamageDealt() >= byDamage.get(i).getDamageDealt());
+        }
+
+        List<CombatRecord> byTaken = battlefield.getLeaderboard(
+                Comparator.comparingLong(CombatRecord::getDamageTaken).reversed());
+        for (int i = 1; i < byTaken.size(); i++) {
+            assertTrue(byTaken.get(i - 1).getDamageTaken() >= byTaken.get(i).getDamageTaken());
+        }
+    }
+
+    @Test
+    @DisplayName("Metrics don't change the battle and are off by default")
+    void testMetricsAreInvisible() throws InvalidCreatureStateException {
+        Battlefield plain = createBattle(false);
+        Battlefield measured = createBattle(true);
+        plain.startBattle();
+        measured.startBattle();
+
+        assertEquals(plain.getWinnerTeam(), measured.getWinnerTeam());
+        assertEquals(plain.getCurrentRound(), measured.getCurrentRound());
+        for (int i = 0; i < plain.getAllCreatures().size(); i++) {
+            assertEquals(plain.getAllCreatures().get(i).getHealth(), measured.getAllCreatures().get(i).getHealth());
+        }
+        assertFalse(plain.isMetricsEnabled());
+        assertThrows(GameConfigurationException.class, plain::getLeaderboard);
+    }
+
+    private static CombatRecord find(List<CombatRecord> records, String name) {
+        return records.stream().filter(r -> r.getCreature().getName().equals(name)).findFirst().orElseThrow();
+    }
+}
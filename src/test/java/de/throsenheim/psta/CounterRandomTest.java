@@ -0,0 +1,135 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.Warrior;
+import de.throsenheim.psta.simulation.BattleFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static de.throsenheim.psta.TestBattles.ROSTER;
+import static de.throsenheim.psta.TestBattles.assertSameBattle;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for counter-based random numbers.
+ */
+@DisplayName("Counter Random Tests")
+class CounterRandomTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * A warrior that only rolls dice and writes down what it rolled in which round.
+     */
+    private static class Dice extends Warrior {
+        private final Map<String, Long> rolls;
+
+        Dice(String name, int initiative, Team team, Random random, Map<String, Long> rolls)
+                throws InvalidCreatureStateException {
+            super(name, 100, 10, 0, initiative, team, random);
+            this.rolls = rolls;
+        }
+
+        @Override
+        public void performRoundAction(Battlefield battlefield) {
+            for (int draw = 0; draw < 3; draw++) {
+                rolls.put(battlefield.getCurrentRound() + "/" + getName() + "/" + draw, getRandom().nextLong());
+            }
+        }
+    }
+
+    /**
+     * Lets four dice roll for a few rounds. The initiatives decide who rolls first, the insertion order stays.
+     */
+    private static Map<String, Long> roll(int[] initiatives, boolean counter) throws InvalidCreatureStateException {
+        Map<String, Long> rolls = new TreeMap<>();
+        Random shared = new Random(5);
+        Battlefield battlefield = new Battlefield(4);
+        battlefield.setOutputEnabled(false);
+        // Nobody gets hurt, the rounds must not be skipped as a stalemate
+        battlefield.setStalemateDetection(false);
+        if (counter) {
+            battlefield.enableCounterRandom(5);
+        }
+        for (int i = 0; i < initiatives.length; i++) {
+            battlefield.addCreature(new Dice("Die" + i, initiatives[i], i % 2 == 0 ? Team.HEROES : Team.MONSTERS,
+                    shared, rolls));
+        }
+        battlefield.startBattle();
+        return rolls;
+    }
+
+    @Test
+    @DisplayName("Draws don't depend on the order in which creatures act")
+    void testOrderIndependence() throws InvalidCreatureStateException {
+        int[] forward = {9, 7, 5, 3};
+        int[] backward = {3, 5, 7, 9};
+        Map<String, Long> counterRolls = roll(forward, true);
+        assertEquals(4 * 4 * 3, counterRolls.size());
+        assertEquals(counterRolls, roll(backward, true));
+        // The shared generator hands the same numbers to whoever comes first
+        assertNotEquals(roll(forward, false), roll(backward, false));
+    }
+
+    private static Battlefield battle(long seed) {
+        Battlefield battlefield = BattleFactory.create(ROSTER, 0, 200, BalanceProfile.DEFAULT);
+        battlefield.enableCounterRandom(seed);
+        battlefield.setMetricsEnabled(true);
+        battlefield.startBattle();
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("The battle seed decides the battle, reset picks a new one")
+    void testSeedAndReset() {
+        assertSameBattle(battle(3), battle(3));
+        assertEquals(3, battle(3).getCounterRandomSeed());
+
+        Battlefield reused = battle(3);
+        int crits = 0;
+        for (long seed = 10; seed < 40; seed++) {
+            reused.reset(seed);
+            reused.startBattle();
+            assertSameBattle(battle(seed), reused);
+            crits += reused.getMetrics().getCrits(0);
+        }
+        assertTrue(crits > 0, "The knight should land critical hits");
+
+        reused.disableCounterRandom();
+        assertFalse(reused.isCounterRandom());
+        assertThrows(GameConfigurationException.class, reused::getCounterRandomSeed);
+        assertFalse(BattleFactory.acquire(ROSTER, 1, 200, BalanceProfile.DEFAULT).isCounterRandom());
+    }
+
+    @Test
+    @DisplayName("A resumed battle keeps drawing counter-based numbers")
+    void testCheckpoint() throws IOException {
+        Path checkpoint = tempDir.resolve("battle.ckpt");
+        Battlefield uninterrupted = BattleFactory.create(ROSTER, 0, 200, BalanceProfile.DEFAULT);
+        uninterrupted.enableCounterRandom(77);
+        uninterrupted.setStalemateDetection(false);
+        uninterrupted.enableCheckpoints(checkpoint, 2, 0);
+        uninterrupted.startBattle();
+
+        // The checkpoint must be from before the end, or resuming would replay nothing
+        Battlefield resumed = Battlefield.restore(checkpoint);
+        assertTrue(resumed.getCurrentRound() < uninterrupted.getCurrentRound(),
+                "Checkpoint of round " + resumed.getCurrentRound() + " of " + uninterrupted.getCurrentRound());
+        assertTrue(resumed.isCounterRandom());
+        assertEquals(77, resumed.getCounterRandomSeed());
+        resumed.startBattle();
+        assertSameBattle(uninterrupted, resumed);
+    }
+}
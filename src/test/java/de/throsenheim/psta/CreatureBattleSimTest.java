@@ -177,4 +177,39 @@ class CreatureBattleSimTest {
         
         assertTrue(battlefield.getCurrentRound() >= 1, "At least one round should execute");
     }
+    
+    @Test
+    @DisplayName("Stalemate fast-forward gives the same result as playing every round")
+    void testStalemateFastForwardMatchesFullBattle() throws InvalidCreatureStateException {
+        Battlefield fastForwarded = createStalemateBattle();
+        fastForwarded.startBattle();
+        
+        Battlefield played = createStalemateBattle();
+        played.setStalemateDetection(false);
+        played.startBattle();
+        
+        assertEquals(played.getCurrentRound(), fastForwarded.getCurrentRound());
+        assertEquals(played.getWinnerTeam(), fastForwarded.getWinnerTeam());
+        for (int i = 0; i < played.getAllCreatures().size(); i++) {
+            Creature expected = played.getAllCreatures().get(i);
+            Creature actual = fastForwarded.getAllCreatures().get(i);
+            assertEquals(expected.getHealth(), actual.getHealth(), "Health of " + expected.getName());
+            assertEquals(expected.isAlive(), actual.isAlive(), "Alive state of " + expected.getName());
+        }
+    }
+    
+    /**
+     * Two bosses that hit each other while their healers patch them up again.
+     * After a few rounds every round looks exactly like the one before.
+     */
+    private Battlefield createStalemateBattle() throws InvalidCreatureStateException {
+        Random random = new Random(600);
+        Battlefield battlefield = new Battlefield(150);
+        
+        battlefield.addCreature(new Healer("Cleric", 5000, 0, 10, 10, Team.HEROES, 200, random));
+        battlefield.addCreature(new MonsterBoss("Champion", 1000, 200, 0, 5, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Shaman", 5000, 0, 10, 10, Team.MONSTERS, 200, random));
+        battlefield.addCreature(new MonsterBoss("Warlord", 1000, 200, 0, 5, Team.MONSTERS, random));
+        return battlefield;
+    }
 }
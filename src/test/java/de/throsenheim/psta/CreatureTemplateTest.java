@@ -0,0 +1,170 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for creatures built from shared templates.
+ */
+@DisplayName("Creature Template Tests")
+class CreatureTemplateTest {
+
+    @Test
+    @DisplayName("Creatures share the template stats but keep their own health")
+    void testSharedStats() throws InvalidCreatureStateException {
+        CreatureTemplate orc = new CreatureTemplate(CreatureType.WARRIOR, "Orc", 80, 12, 3, 4, Team.MONSTERS, 0,
+                new Random(1));
+        Creature first = orc.create(null);
+        Creature second = orc.create("Grunt");
+
+        assertInstanceOf(Warrior.class, first);
+        assertSame(orc, first.getTemplate());
+        assertSame(orc, second.getTemplate());
+        assertEquals(80, second.getMaxHealth());
+        assertEquals(12, second.getAttackPower());
+        assertEquals(Team.MONSTERS, second.getTeam());
+
+        first.takeDamage(30);
+        assertEquals(53, first.getHealth());
+        assertEquals(80, second.getHealth());
+
+        first.takeDamage(100);
+        assertFalse(first.isAlive());
+        assertTrue(second.isAlive());
+    }
+
+    @Test
+    @DisplayName("Creatures without a name are called after their template")
+    void testGeneratedNames() throws InvalidCreatureStateException {
+        CreatureTemplate orc = new CreatureTemplate(CreatureType.WARRIOR, "Orc", 80, 12, 3, 4, Team.MONSTERS, 0,
+                new Random(1));
+        Creature unnamed = orc.create(null);
+        Creature named = orc.create("Grunt");
+
+        assertEquals("Orc #" + unnamed.getId(), unnamed.getName());
+        assertFalse(unnamed.hasOwnName());
+        assertEquals("Grunt", named.getName());
+        assertTrue(named.hasOwnName());
+
+        // Any number of unnamed creatures fit on one battlefield, named ones still have to be unique
+        Battlefield battlefield = new Battlefield(10);
+        for (int i = 0; i < 100; i++) {
+            battlefield.addCreature(orc.create(null));
+        }
+        battlefield.addCreature(named);
+        assertThrows(RuntimeException.class, () -> battlefield.addCreature(orc.create("GRUNT")));
+        assertEquals(101, battlefield.getAllCreatures().size());
+    }
+
+    @Test
+    @DisplayName("Battle with shared templates plays out like one with separate creatures")
+    void testSameBattle() throws InvalidCreatureStateException {
+        Battlefield separate = new Battlefield(200);
+        separate.setOutputEnabled(false);
+        Random random = new Random(12);
+        for (int i = 0; i < 20; i++) {
+            separate.addCreature(new Warrior("Orc" + i, 60, 14, 2, 3, Team.MONSTERS, random));
+        }
+        separate.addCreature(new MonsterBoss("Chief", 300, 25, 6, 2, Team.MONSTERS, random));
+        separate.addCreature(new Warrior("Knight", 200, 20, 8, 6, Team.HEROES, random));
+        separate.addCreature(new Mage("Wizard", 120, 18, 3, 7, Team.HEROES, random));
+        separate.addCreature(new Healer("Cleric", 150, 8, 4, 5, Team.HEROES, 25, random));
+
+        Battlefield shared = new Battlefield(200);
+        shared.setOutputEnabled(false);
+        Random sharedRandom = new Random(12);
+        CreatureTemplate orc = new CreatureTemplate(CreatureType.WARRIOR, "Orc", 60, 14, 2, 3, Team.MONSTERS, 0,
+                sharedRandom);
+        for (int i = 0; i < 20; i++) {
+            shared.addCreature(orc.create(null));
+        }
+        shared.addCreature(new CreatureTemplate(CreatureType.MONSTER_BOSS, "Chief", 300, 25, 6, 2, Team.MONSTERS,
+                0, sharedRandom).create(null));
+        shared.addCreature(new CreatureTemplate(CreatureType.WARRIOR, "Knight", 200, 20, 8, 6, Team.HEROES,
+                0, sharedRandom).create(null));
+        shared.addCreature(new CreatureTemplate(CreatureType.MAGE, "Wizard", 120, 18, 3, 7, Team.HEROES,
+                0, sharedRandom).create(null));
+        shared.addCreature(new CreatureTemplate(CreatureType.HEALER, "Cleric", 150, 8, 4, 5, Team.HEROES,
+                25, sharedRandom).create(null));
+
+        separate.startBattle();
+        shared.startBattle();
+
+        assertEquals(separate.getWinnerTeam(), shared.getWinnerTeam());
+        assertEquals(separate.getCurrentRound(), shared.getCurrentRound());
+        for (int i = 0; i < separate.getAllCreatures().size(); i++) {
+            assertEquals(separate.getAllCreatures().get(i).getHealth(), shared.getAllCreatures().get(i).getHealth());
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid templates and mismatched classes are rejected")
+    void testValidation() throws InvalidCreatureStateException {
+        assertThrows(InvalidCreatureStateException.class, () -> new CreatureTemplate(CreatureType.MAGE, "Bad",
+                0, 10, 1, 1, Team.HEROES, 0, null));
+        assertThrows(InvalidCreatureStateException.class, () -> new CreatureTemplate(CreatureType.MAGE, " ",
+                10, 10, 1, 1, Team.HEROES, 0, null));
+
+        CreatureTemplate mage = new CreatureTemplate(CreatureType.MAGE, "Wizard", 100, 10, 1, 1, Team.HEROES, 0, null);
+        assertThrows(InvalidCreatureStateException.class, () -> new Warrior(mage, "Fake"));
+        assertThrows(InvalidCreatureStateException.class, () -> mage.create(""));
+    }
+
+    /**
+     * A creature class outside the built-in types, hitting for its attack power plus a fixed bonus.
+     */
+    private static final class Golem extends Creature {
+
+        Golem(String name, int health, int attackPower, Team team) throws InvalidCreatureStateException {
+            super(name, health, attackPower, 0, 1, team);
+        }
+
+        @Override
+        protected int calculateDamage(Creature target) {
+            return getAttackPower() + 5;
+        }
+
+        @Override
+        public void performRoundAction(Battlefield battlefield) {
+            Creature target = battlefield.getLivingEnemies(this).findLowestHealth();
+            if (isAlive() && target != null) {
+                attack(target);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Custom creature classes get a template without a type and fight like any creature")
+    void testCustomSubclass() throws InvalidCreatureStateException {
+        Golem golem = new Golem("Golem", 200, 20, Team.MONSTERS);
+        assertNull(golem.getTemplate().getType());
+        assertEquals("Golem", golem.getName());
+        assertEquals(200, golem.getMaxHealth());
+        assertThrows(InvalidCreatureStateException.class, () -> golem.getTemplate().create(null));
+        assertThrows(InvalidCreatureStateException.class, () -> new Warrior(golem.getTemplate(), "Fake"));
+        assertThrows(InvalidCreatureStateException.class, () -> new Golem("Golem", 0, 20, Team.MONSTERS));
+
+        Battlefield battlefield = new Battlefield(50);
+        battlefield.setOutputEnabled(false);
+        Creature knight = new Warrior("Knight", 100, 10, 2, 2, Team.HEROES, new Random(1));
+        battlefield.addCreature(knight);
+        battlefield.addCreature(golem);
+        battlefield.startBattle();
+        assertEquals(Team.MONSTERS, battlefield.getWinnerTeam());
+        assertFalse(knight.isAlive());
+    }
+}
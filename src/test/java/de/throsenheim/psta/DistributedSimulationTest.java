@@ -0,0 +1,184 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.distributed.BatchOutcome;
+import de.throsenheim.psta.distributed.BattleWorker;
+import de.throsenheim.psta.distributed.SimulationCoordinator;
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for running battle batches on socket workers.
+ */
+@DisplayName("Distributed Simulation Tests")
+class DistributedSimulationTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<CreatureSpec> ROSTER = List.of(
+            new CreatureSpec(CreatureType.WARRIOR, "Knight", 120, 25, 6, 7, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.MAGE, "Wizard", 80, 18, 3, 8, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.HEALER, "Cleric", 90, 8, 4, 5, Team.HEROES, 30),
+            new CreatureSpec(CreatureType.MONSTER_BOSS, "Dragon", 400, 32, 8, 6, Team.MONSTERS, 0),
+            new CreatureSpec(CreatureType.WARRIOR, "Orc", 70, 15, 2, 3, Team.MONSTERS, 0, 3));
+
+    @Test
+    @DisplayName("TCP and Unix-domain workers give the same results as one process")
+    void testMatchesLocalRun() throws IOException {
+        try (BattleWorker first = new BattleWorker(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+             BattleWorker second = new BattleWorker(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+             BattleWorker unix = new BattleWorker(UnixDomainSocketAddress.of(tempDir.resolve("worker.sock")), 2)) {
+            SimulationCoordinator coordinator = new SimulationCoordinator(
+                    List.of(first.start(), second.start(), unix.start()), 37);
+
+            BatchOutcome distributed = coordinator.run(ROSTER, 1000, 7, 100, BalanceProfile.DEFAULT);
+            BatchOutcome local = SimulationCoordinator.runLocally(ROSTER, 1000, 7, 100, BalanceProfile.DEFAULT);
+
+            assertEquals(1000, distributed.getBattles());
+            assertEquals(local, distributed);
+            assertEquals(1000, distributed.getWins(Team.HEROES) + distributed.getWins(Team.MONSTERS));
+        }
+    }
+
+    @Test
+    @DisplayName("Shards of a failing worker are run by the others")
+    void testFailingWorker() throws IOException {
+        try (ServerSocket broken = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+             BattleWorker healthy = new BattleWorker(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2)) {
+            // Accepts the connection, reads the job and part of a shard, then hangs up
+            Thread saboteur = new Thread(() -> {
+                try (Socket socket = broken.accept()) {
+                    socket.getInputStream().read(new byte[64]);
+                } catch (IOException ignored) {
+                    // The test only needs the connection to die
+                }
+            });
+            saboteur.start();
+
+            SocketAddress nobody = new InetSocketAddress(InetAddress.getLoopbackAddress(), unusedPort());
+            SimulationCoordinator coordinator = new SimulationCoordinator(
+                    List.of(broken.getLocalSocketAddress(), nobody, healthy.start()), 20);
+
+            BatchOutcome distributed = coordinator.run(ROSTER, 300, 99, 100, BalanceProfile.DEFAULT);
+            assertEquals(SimulationCoordinator.runLocally(ROSTER, 300, 99, 100, BalanceProfile.DEFAULT), distributed);
+        }
+    }
+
+    @Test
+    @DisplayName("Shards of a hung worker are run by the others after the shard timeout")
+    void testHungWorker() throws IOException, InterruptedException {
+        try (ServerSocket hung = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+             BattleWorker healthy = new BattleWorker(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2)) {
+            // Reads whatever it gets but never answers, and keeps the connection open
+            Thread sleeper = new Thread(() -> {
+                try (Socket socket = hung.accept()) {
+                    byte[] buffer = new byte[4096];
+                    while (socket.getInputStream().read(buffer) >= 0) {
+                        // Drain until the coordinator gives up and closes the connection
+                    }
+                } catch (IOException ignored) {
+                    // The coordinator closing the connection ends the test worker
+                }
+            });
+            sleeper.start();
+
+            SimulationCoordinator coordinator = new SimulationCoordinator(
+                    List.of(hung.getLocalSocketAddress(), healthy.start()), 20, Duration.ofMillis(500));
+
+            BatchOutcome distributed = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                    () -> coordinator.run(ROSTER, 300, 5, 100, BalanceProfile.DEFAULT));
+            assertEquals(SimulationCoordinator.runLocally(ROSTER, 300, 5, 100, BalanceProfile.DEFAULT), distributed);
+            sleeper.join(5000);
+            assertFalse(sleeper.isAlive(), "The hung worker's connection should have been closed");
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid shard timeouts are rejected")
+    void testInvalidShardTimeout() {
+        List<SocketAddress> workers = List.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), 1));
+        assertThrows(GameConfigurationException.class, () -> new SimulationCoordinator(workers, 10, Duration.ZERO));
+        assertThrows(GameConfigurationException.class, () -> new SimulationCoordinator(workers, 10, null));
+    }
+
+    @Test
+    @DisplayName("Batch fails when no worker is left")
+    void testNoWorkers() throws IOException {
+        SimulationCoordinator coordinator = new SimulationCoordinator(
+                List.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), unusedPort())), 10);
+        assertThrows(IOException.class, () -> coordinator.run(ROSTER, 50, 1, 100, BalanceProfile.DEFAULT));
+    }
+
+    @Test
+    @DisplayName("Worker processes on the same machine share a batch, and a killed one is survived")
+    void testWorkerProcesses() throws Exception {
+        List<Process> processes = new ArrayList<>();
+        try {
+            List<SocketAddress> addresses = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                Process process = startWorkerProcess();
+                processes.add(process);
+                addresses.add(readAddress(process));
+            }
+            SimulationCoordinator coordinator = new SimulationCoordinator(addresses, 50);
+            BatchOutcome local = SimulationCoordinator.runLocally(ROSTER, 400, 3, 100, BalanceProfile.DEFAULT);
+
+            assertEquals(local, coordinator.run(ROSTER, 400, 3, 100, BalanceProfile.DEFAULT));
+
+            processes.get(0).destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+            assertEquals(local, coordinator.run(ROSTER, 400, 3, 100, BalanceProfile.DEFAULT));
+        } finally {
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static Process startWorkerProcess() throws Exception {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        String classes = Path.of(BattleWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .toString();
+        return new ProcessBuilder(java.toString(), "-cp", classes, BattleWorker.class.getName(), "tcp:0", "1")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static SocketAddress readAddress(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        assertNotNull(line, "Worker process exited before listening");
+        assertTrue(line.startsWith("LISTENING "), line);
+        return BattleWorker.parseAddress(line.substring("LISTENING ".length()));
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+}
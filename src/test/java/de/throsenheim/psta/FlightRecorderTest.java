@@ -0,0 +1,130 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the Java Flight Recorder events of the battle engine.
+ */
+@DisplayName("Flight Recorder Tests")
+class FlightRecorderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String[] EVENTS = {
+            "de.throsenheim.psta.BattleStarted", "de.throsenheim.psta.Battle", "de.throsenheim.psta.Round",
+            "de.throsenheim.psta.Action", "de.throsenheim.psta.Enrage", "de.throsenheim.psta.Defeat"
+    };
+
+    private Battlefield createBattle() throws InvalidCreatureStateException {
+        Random random = new Random(21);
+        Battlefield battlefield = new Battlefield(300);
+        battlefield.setOutputEnabled(false);
+        battlefield.setStalemateDetection(false);
+        battlefield.addCreature(new Warrior("Knight", 220, 24, 6, 7, Team.HEROES, random));
+        battlefield.addCreature(new Mage("Wizard", 120, 16, 3, 8, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Cleric", 140, 8, 4, 5, Team.HEROES, 35, random));
+        battlefield.addCreature(new MonsterBoss("Dragon", 450, 30, 7, 6, Team.MONSTERS, random));
+        battlefield.addCreature(new Warrior("Orc", 100, 18, 2, 4, Team.MONSTERS, random));
+        battlefield.addCreature(new Warrior("Goblin", 60, 12, 1, 3, Team.MONSTERS, random));
+        return battlefield;
+    }
+
+    private List<RecordedEvent> record(Battlefield battlefield, Duration roundThreshold) throws IOException {
+        Path file = tempDir.resolve("battle.jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event);
+            }
+            recording.enable("de.throsenheim.psta.Round").withThreshold(roundThreshold);
+            recording.start();
+            battlefield.startBattle();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("de.throsenheim.psta." + name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("A recorded battle emits its rounds, actions, enrage and defeats")
+    void testBattleEvents() throws Exception {
+        Battlefield battlefield = createBattle();
+        List<RecordedEvent> events = record(battlefield, Duration.ZERO);
+
+        List<RecordedEvent> battles = named(events, "Battle");
+        assertEquals(1, battles.size());
+        long battleId = battles.get(0).getLong("battleId");
+        assertEquals(battlefield.getCurrentRound(), battles.get(0).getInt("endRound"));
+        assertEquals(battlefield.getWinnerTeam().name(), battles.get(0).getString("winner"));
+        assertEquals(1, named(events, "BattleStarted").size());
+
+        List<RecordedEvent> rounds = named(events, "Round");
+        assertEquals(battlefield.getCurrentRound(), rounds.size());
+        assertTrue(rounds.stream().allMatch(e -> e.getLong("battleId") == battleId));
+
+        long defeated = battlefield.getAllCreatures().stream().filter(c -> !c.isAlive()).count();
+        List<RecordedEvent> defeats = named(events, "Defeat");
+        assertEquals(defeated, defeats.size());
+        assertTrue(defeats.stream().allMatch(e -> e.getString("team") != null));
+
+        List<RecordedEvent> actions = named(events, "Action");
+        assertFalse(actions.isEmpty());
+        assertTrue(actions.stream().anyMatch(e -> e.getString("actionKind").equals("HEAL")
+                && e.getString("creature").equals("Cleric")));
+        assertTrue(actions.stream().anyMatch(e -> e.getString("actionKind").equals("AREA_ATTACK")
+                && e.getClass("creatureClass").getName().equals(Mage.class.getName())));
+
+        List<RecordedEvent> enrages = named(events, "Enrage");
+        assertTrue(enrages.size() <= 1);
+        enrages.forEach(e -> assertEquals("Dragon", e.getString("creature")));
+    }
+
+    @Test
+    @DisplayName("Round threshold keeps only slow rounds")
+    void testRoundThreshold() throws Exception {
+        Battlefield battlefield = createBattle();
+        List<RecordedEvent> events = record(battlefield, Duration.ofHours(1));
+
+        assertTrue(named(events, "Round").isEmpty());
+        assertEquals(1, named(events, "Battle").size());
+    }
+
+    @Test
+    @DisplayName("Battles without a recording give the same result")
+    void testSameResultWithoutRecording() throws Exception {
+        Battlefield recorded = createBattle();
+        record(recorded, Duration.ZERO);
+        Battlefield plain = createBattle();
+        plain.startBattle();
+
+        assertEquals(plain.getCurrentRound(), recorded.getCurrentRound());
+        assertEquals(plain.getWinnerTeam(), recorded.getWinnerTeam());
+    }
+}
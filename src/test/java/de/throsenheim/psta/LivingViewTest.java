@@ -0,0 +1,124 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.LivingView;
+import de.throsenheim.psta.model.RunOptions;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.ArmyGenerator;
+import de.throsenheim.psta.model.creatures.ArmySpec;
+import de.throsenheim.psta.model.creatures.Warrior;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the living views of big teams, which answer from a segment tree.
+ * Every answer is checked against a plain scan over all creatures.
+ */
+@DisplayName("Living View Tests")
+class LivingViewTest {
+
+    private static Battlefield battle(int maxRounds) {
+        Battlefield battlefield = new Battlefield(maxRounds);
+        battlefield.setOutputEnabled(false);
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.HEROES, 300,
+                "40% warrior, 30% mage, 30% healer, health ~ N(400, 100), attack ~ N(20, 6), defense ~ N(4, 3), "
+                        + "initiative ~ N(20, 6), heal = 25, units ~ N(1, 1)"), 1), new Random(1));
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.MONSTERS, 200,
+                "90% warrior, 10% monster boss, health ~ N(500, 150), attack ~ N(22, 6), defense ~ N(4, 3), "
+                        + "initiative ~ N(20, 6)"), 2), new Random(2));
+        return battlefield;
+    }
+
+    private static List<Creature> living(Battlefield battlefield, Team team) {
+        List<Creature> living = new ArrayList<>();
+        for (Creature creature : battlefield.getAllCreatures()) {
+            if (creature.getTeam() == team && creature.isAlive()) {
+                living.add(creature);
+            }
+        }
+        return living;
+    }
+
+    private static void assertMatchesScan(Battlefield battlefield) {
+        for (Team team : Team.values()) {
+            List<Creature> expected = living(battlefield, team);
+            Creature member = battlefield.getAllCreatures().stream()
+                    .filter(creature -> creature.getTeam() == team).findFirst().orElseThrow();
+            LivingView view = battlefield.getLivingTeam(member);
+            assertEquals(expected.size(), view.size());
+
+            List<Creature> walked = new ArrayList<>();
+            for (int i = view.first(); i >= 0; i = view.next(i)) {
+                walked.add(view.at(i));
+            }
+            assertEquals(expected, walked);
+            for (int i = 0; i < expected.size(); i += 7) {
+                assertSame(expected.get(i), view.get(i));
+            }
+
+            Creature lowestHealth = null;
+            Creature lowestDefense = null;
+            for (Creature creature : expected) {
+                if (lowestHealth == null || creature.getTotalHealth() < lowestHealth.getTotalHealth()) {
+                    lowestHealth = creature;
+                }
+                if (lowestDefense == null || creature.getDefense() < lowestDefense.getDefense()) {
+                    lowestDefense = creature;
+                }
+            }
+            assertSame(lowestHealth, view.findLowestHealth());
+            assertSame(lowestDefense, view.findLowestDefense());
+
+            Creature excluded = expected.isEmpty() ? null : expected.get(expected.size() / 2);
+            Creature lowestPercentage = null;
+            for (Creature creature : expected) {
+                if (creature != excluded && (lowestPercentage == null
+                        || creature.getHealthPercentage() < lowestPercentage.getHealthPercentage())) {
+                    lowestPercentage = creature;
+                }
+            }
+            assertSame(lowestPercentage, view.findLowestHealthPercentage(excluded));
+        }
+    }
+
+    @Test
+    @DisplayName("Big teams give the same answers as a scan after every round")
+    void testMatchesScanEveryRound() {
+        Battlefield battlefield = battle(200);
+        int[] rounds = {0};
+        battlefield.run(RunOptions.NONE.withProgressListener((round, heroes, monsters) -> {
+            assertMatchesScan(battlefield);
+            rounds[0]++;
+        }));
+        assertTrue(rounds[0] > 5, "Only " + rounds[0] + " rounds");
+        assertNotNull(battlefield.getWinnerTeam());
+        assertMatchesScan(battlefield);
+    }
+
+    @Test
+    @DisplayName("A reset and creatures added later rebuild the tree")
+    void testResetAndLateMembers() throws InvalidCreatureStateException {
+        Battlefield battlefield = battle(4);
+        battlefield.startBattle();
+        assertMatchesScan(battlefield);
+
+        battlefield.reset(7);
+        assertMatchesScan(battlefield);
+        Creature late = new Warrior("Latecomer", 1, 5, 0, 10, Team.MONSTERS, new Random(3));
+        battlefield.addCreature(late);
+        assertSame(late, battlefield.getLivingTeam(late).findLowestHealth());
+        assertMatchesScan(battlefield);
+
+        late.takeDamage(100);
+        assertFalse(late.isAlive());
+        assertMatchesScan(battlefield);
+    }
+}
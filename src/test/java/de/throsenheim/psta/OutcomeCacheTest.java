@@ -0,0 +1,119 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.simulation.BattleFactory;
+import de.throsenheim.psta.simulation.BattleOutcome;
+import de.throsenheim.psta.simulation.OutcomeCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the battle outcome cache.
+ */
+@DisplayName("Outcome Cache Tests")
+class OutcomeCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<CreatureSpec> ROSTER = List.of(
+            new CreatureSpec(CreatureType.WARRIOR, "Knight", 120, 25, 6, 7, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.HEALER, "Cleric", 90, 10, 4, 4, Team.HEROES, 20),
+            new CreatureSpec(CreatureType.MONSTER_BOSS, "Dragon", 300, 30, 8, 6, Team.MONSTERS, 0));
+
+    @Test
+    @DisplayName("Second request is a hit with the same outcome as a simulation")
+    void testHitMatchesSimulation() {
+        OutcomeCache cache = new OutcomeCache(1 << 20);
+
+        BattleOutcome first = cache.getOrRun(ROSTER, 5, 100, BalanceProfile.DEFAULT);
+        BattleOutcome second = cache.getOrRun(ROSTER, 5, 100, BalanceProfile.DEFAULT);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        Battlefield battlefield = BattleFactory.create(ROSTER, 5, 100, BalanceProfile.DEFAULT);
+        battlefield.startBattle();
+        assertEquals(battlefield.getWinnerTeam(), second.getWinner());
+        assertEquals(battlefield.getCurrentRound(), second.getRounds());
+        for (int i = 0; i < ROSTER.size(); i++) {
+            assertEquals(battlefield.getAllCreatures().get(i).getHealth(), second.getHealth(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Fingerprint covers what decides a battle, but not names")
+    void testFingerprint() {
+        String base = OutcomeCache.fingerprint(ROSTER, 1, 100, BalanceProfile.DEFAULT);
+
+        List<CreatureSpec> renamed = List.of(
+                new CreatureSpec(CreatureType.WARRIOR, "Paladin", 120, 25, 6, 7, Team.HEROES, 0),
+                ROSTER.get(1), ROSTER.get(2));
+        assertEquals(base, OutcomeCache.fingerprint(renamed, 1, 100, BalanceProfile.DEFAULT));
+
+        List<CreatureSpec> reordered = List.of(ROSTER.get(1), ROSTER.get(0), ROSTER.get(2));
+        List<CreatureSpec> stronger = List.of(ROSTER.get(0).withStat(CreatureSpec.Stat.ATTACK_POWER, 26),
+                ROSTER.get(1), ROSTER.get(2));
+        assertNotEquals(base, OutcomeCache.fingerprint(reordered, 1, 100, BalanceProfile.DEFAULT));
+        assertNotEquals(base, OutcomeCache.fingerprint(stronger, 1, 100, BalanceProfile.DEFAULT));
+        assertNotEquals(base, OutcomeCache.fingerprint(ROSTER, 2, 100, BalanceProfile.DEFAULT));
+        assertNotEquals(base, OutcomeCache.fingerprint(ROSTER, 1, 99, BalanceProfile.DEFAULT));
+        assertNotEquals(base, OutcomeCache.fingerprint(ROSTER, 1, 100, BalanceProfile.DEFAULT.withMaxAoeTargets(4)));
+    }
+
+    @Test
+    @DisplayName("Memory tier evicts the least recently used outcomes")
+    void testEviction() {
+        // Room for about two outcomes
+        OutcomeCache cache = new OutcomeCache(450);
+
+        cache.getOrRun(ROSTER, 1, 100, BalanceProfile.DEFAULT);
+        cache.getOrRun(ROSTER, 2, 100, BalanceProfile.DEFAULT);
+        cache.getOrRun(ROSTER, 1, 100, BalanceProfile.DEFAULT);
+        cache.getOrRun(ROSTER, 3, 100, BalanceProfile.DEFAULT);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getMemoryBytes() <= cache.getMaxBytes());
+
+        // Seed 1 was used recently, seed 2 was evicted
+        cache.getOrRun(ROSTER, 1, 100, BalanceProfile.DEFAULT);
+        assertEquals(2, cache.getHits());
+        cache.getOrRun(ROSTER, 2, 100, BalanceProfile.DEFAULT);
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Disk tier answers after the memory tier forgot")
+    void testDiskTier() {
+        Path directory = tempDir.resolve("cache");
+        OutcomeCache cache = new OutcomeCache(1 << 20, directory);
+        List<BattleOutcome> expected = new ArrayList<>();
+        for (int seed = 0; seed < 5; seed++) {
+            expected.add(cache.getOrRun(ROSTER, seed, 100, BalanceProfile.DEFAULT));
+        }
+
+        OutcomeCache reopened = new OutcomeCache(1 << 20, directory);
+        for (int seed = 0; seed < 5; seed++) {
+            BattleOutcome outcome = reopened.getOrRun(ROSTER, seed, 100, BalanceProfile.DEFAULT);
+            assertEquals(expected.get(seed).getWinner(), outcome.getWinner());
+            assertEquals(expected.get(seed).getRounds(), outcome.getRounds());
+            assertEquals(expected.get(seed).getHealth(2), outcome.getHealth(2));
+            assertEquals(expected.get(seed).getUnits(2), outcome.getUnits(2));
+        }
+        assertEquals(5, reopened.getDiskHits());
+        assertEquals(0, reopened.getMisses());
+    }
+}
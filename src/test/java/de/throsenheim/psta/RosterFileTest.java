@@ -0,0 +1,105 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import de.throsenheim.psta.persistence.RosterFile;
+import de.throsenheim.psta.persistence.RosterView;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the binary roster format.
+ */
+@DisplayName("Roster File Tests")
+class RosterFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Saved roster loads into the same battle")
+    void testRoundTrip() throws InvalidCreatureStateException, IOException {
+        Battlefield original = new Battlefield(77, BalanceProfile.DEFAULT.withHealThreshold(0.4));
+        Random random = new Random(9);
+        original.addCreature(new Warrior("Sir Ünter", 120, 25, 6, 7, Team.HEROES, random));
+        original.addCreature(new Healer("Cleric", 90, 10, 4, 4, Team.HEROES, 20, random));
+        original.addCreature(new MonsterBoss("Dragon", 300, 30, 8, 6, Team.MONSTERS, random));
+        Path file = tempDir.resolve("roster.bin");
+
+        RosterFile.write(original, file);
+        Battlefield loaded = RosterFile.read(file, new Random(3));
+
+        assertEquals(77, loaded.getMaxRounds());
+        assertEquals(original.getBalanceProfile(), loaded.getBalanceProfile());
+        assertEquals(3, loaded.getAllCreatures().size());
+        for (int i = 0; i < 3; i++) {
+            Creature expected = original.getAllCreatures().get(i);
+            Creature actual = loaded.getAllCreatures().get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(CreatureSpec.of(expected), CreatureSpec.of(actual));
+        }
+    }
+
+    @Test
+    @DisplayName("View reads single creatures without loading the roster")
+    void testView() throws IOException {
+        List<CreatureSpec> roster = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            roster.add(new CreatureSpec(CreatureType.values()[i % 4], "Creature" + i, 100 + i, i % 50, i % 7,
+                    i % 10, i % 2 == 0 ? Team.HEROES : Team.MONSTERS, i % 4 == 2 ? 15 : 0));
+        }
+        Path file = tempDir.resolve("view.bin");
+        RosterFile.write(100, BalanceProfile.DEFAULT, roster, file);
+
+        RosterView view = RosterView.open(file);
+        assertEquals(1000, view.size());
+        assertEquals("Creature742", view.getName(742));
+        assertEquals(842, view.getHealth(742));
+        assertEquals(CreatureType.HEALER, view.getType(742));
+        assertEquals(15, view.getHealPower(742));
+        assertEquals(Team.HEROES, view.getTeam(742));
+    }
+
+    @Test
+    @DisplayName("Damaged files are rejected")
+    void testInvalidFiles() throws IOException {
+        Path file = tempDir.resolve("bad.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4});
+        assertThrows(IOException.class, () -> RosterView.open(file));
+
+        List<CreatureSpec> roster = List.of(
+                new CreatureSpec(CreatureType.WARRIOR, "Knight", 100, 10, 5, 5, Team.HEROES, 0),
+                new CreatureSpec(CreatureType.WARRIOR, "KNIGHT", 100, 10, 5, 5, Team.MONSTERS, 0));
+        RosterFile.write(100, BalanceProfile.DEFAULT, roster, file);
+        assertThrows(IOException.class, () -> RosterFile.read(file, new Random(1)), "Duplicate names");
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 20));
+        assertThrows(IOException.class, () -> RosterView.open(file), "Truncated file");
+
+        // The units of the first creature are the last int of its record, right after the 64-byte header
+        byte[] noUnits = bytes.clone();
+        Arrays.fill(noUnits, 64 + 28, 64 + 32, (byte) 0);
+        Files.write(file, noUnits);
+        assertThrows(IOException.class, () -> RosterView.open(file), "Stack without units");
+    }
+}
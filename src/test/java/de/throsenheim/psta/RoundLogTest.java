@@ -0,0 +1,207 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.RoundReplay;
+import de.throsenheim.psta.model.RunOptions;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.ArmyGenerator;
+import de.throsenheim.psta.model.creatures.ArmySpec;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.simulation.BattleFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static de.throsenheim.psta.TestBattles.ROSTER;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for delta round summaries and the binary round log.
+ */
+@DisplayName("Round Log Tests")
+class RoundLogTest {
+
+    /**
+     * Runs a battle with a round log and remembers health and units of every creature after every round.
+     */
+    private static List<int[]> runRecorded(Battlefield battlefield, ByteArrayOutputStream log) {
+        battlefield.setRoundLog(log);
+        List<int[]> states = new ArrayList<>();
+        states.add(state(battlefield));
+        battlefield.run(RunOptions.NONE.withProgressListener((round, heroes, monsters) -> states.add(state(battlefield))));
+        return states;
+    }
+
+    private static int[] state(Battlefield battlefield) {
+        List<Creature> creatures = battlefield.getAllCreatures();
+        int[] state = new int[2 * creatures.size() + 1];
+        state[0] = battlefield.getCurrentRound();
+        for (int i = 0; i < creatures.size(); i++) {
+            state[1 + 2 * i] = creatures.get(i).getHealth();
+            state[2 + 2 * i] = creatures.get(i).getStackSize();
+        }
+        return state;
+    }
+
+    private static void assertReplayAt(RoundReplay replay, int[] state) {
+        replay.seek(state[0]);
+        for (int i = 0; i < replay.getCreatureCount(); i++) {
+            assertEquals(state[1 + 2 * i], replay.getHealth(i), "health of " + replay.getName(i) + " in round " + state[0]);
+            assertEquals(state[2 + 2 * i], replay.getUnits(i), "units of " + replay.getName(i) + " in round " + state[0]);
+        }
+    }
+
+    @Test
+    @DisplayName("The replay rebuilds every round, forward and backward")
+    void testReplayEveryRound() throws IOException {
+        Battlefield battlefield = BattleFactory.create(ROSTER, 4, 200, BalanceProfile.DEFAULT);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        List<int[]> states = runRecorded(battlefield, log);
+
+        RoundReplay replay = RoundReplay.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(5, replay.getCreatureCount());
+        assertEquals("Orc", replay.getName(4));
+        assertEquals(Team.MONSTERS, replay.getTeam(4));
+        assertEquals(battlefield.getCurrentRound(), replay.getLastRound());
+        for (int[] state : states) {
+            assertReplayAt(replay, state);
+        }
+        for (int i = states.size() - 1; i >= 0; i -= 3) {
+            assertReplayAt(replay, states.get(i));
+        }
+        assertEquals(battlefield.getLivingCount(Team.HEROES), replay.getLivingCount(Team.HEROES));
+        assertThrows(IllegalArgumentException.class, () -> replay.seek(-1));
+    }
+
+    @Test
+    @DisplayName("A repeating battle is played round by round while it is recorded")
+    void testStalemateIsRecorded() throws InvalidCreatureStateException, IOException {
+        Battlefield recorded = stalemateBattle();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        List<int[]> states = runRecorded(recorded, log);
+        assertEquals(151, states.size(), "Every round should be played");
+
+        RoundReplay replay = RoundReplay.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(150, replay.getLastRound());
+        for (int[] state : states) {
+            assertReplayAt(replay, state);
+        }
+
+        // Same end as the fast-forwarded battle
+        Battlefield skipped = stalemateBattle();
+        skipped.startBattle();
+        assertEquals(skipped.getCurrentRound(), recorded.getCurrentRound());
+        for (int i = 0; i < skipped.getAllCreatures().size(); i++) {
+            assertEquals(skipped.getAllCreatures().get(i).getHealth(), recorded.getAllCreatures().get(i).getHealth());
+        }
+    }
+
+    /**
+     * The stalemate of the battle simulation tests: two bosses that hit each other while their healers patch them up.
+     */
+    private static Battlefield stalemateBattle() throws InvalidCreatureStateException {
+        Random random = new Random(600);
+        Battlefield battlefield = new Battlefield(150);
+        battlefield.setOutputEnabled(false);
+        battlefield.addCreature(new Healer("Cleric", 5000, 0, 10, 10, Team.HEROES, 200, random));
+        battlefield.addCreature(new MonsterBoss("Champion", 1000, 200, 0, 5, Team.HEROES, random));
+        battlefield.addCreature(new Healer("Shaman", 5000, 0, 10, 10, Team.MONSTERS, 200, random));
+        battlefield.addCreature(new MonsterBoss("Warlord", 1000, 200, 0, 5, Team.MONSTERS, random));
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("Battles played again after a reset follow each other in one stream")
+    void testSeveralBattles() throws IOException {
+        Battlefield battlefield = BattleFactory.create(ROSTER, 1, 200, BalanceProfile.DEFAULT);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        List<int[]> first = runRecorded(battlefield, log);
+        battlefield.reset(2);
+        List<int[]> second = new ArrayList<>();
+        second.add(state(battlefield));
+        battlefield.run(RunOptions.NONE.withProgressListener((round, heroes, monsters) -> second.add(state(battlefield))));
+
+        InputStream in = new ByteArrayInputStream(log.toByteArray());
+        RoundReplay firstReplay = RoundReplay.read(in);
+        RoundReplay secondReplay = RoundReplay.read(in);
+        assertEquals(-1, in.read());
+        assertReplayAt(firstReplay, first.get(first.size() - 1));
+        assertReplayAt(secondReplay, second.get(second.size() - 1));
+        assertReplayAt(secondReplay, second.get(0));
+
+        assertThrows(IOException.class, () -> RoundReplay.read(new ByteArrayInputStream("no log".getBytes(StandardCharsets.UTF_8))));
+        byte[] cut = Arrays.copyOf(log.toByteArray(), 20);
+        assertThrows(IOException.class, () -> RoundReplay.read(new ByteArrayInputStream(cut)));
+    }
+
+    /**
+     * Thousands of heroes scratch a boss who kills one of them per round, so two creatures change per round.
+     */
+    private static Battlefield siege(int rounds, ByteArrayOutputStream log) {
+        Battlefield battlefield = new Battlefield(rounds);
+        battlefield.setOutputEnabled(false);
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.HEROES, 5000, "health = 100, attack = 15"), 1),
+                new Random(1));
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.MONSTERS, 1,
+                "100% monster boss, health = 10000000, attack = 1000, defense = 100"), 2), new Random(2));
+        battlefield.setRoundLog(log);
+        battlefield.startBattle();
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("The log of a big battle is far smaller than a full dump per round")
+    void testLogSize() throws IOException {
+        ByteArrayOutputStream headerOnly = new ByteArrayOutputStream();
+        siege(1, headerOnly);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        Battlefield battlefield = siege(200, log);
+
+        RoundReplay replay = RoundReplay.read(new ByteArrayInputStream(log.toByteArray()));
+        replay.seek(replay.getLastRound());
+        for (int i = 0; i < replay.getCreatureCount(); i++) {
+            assertEquals(battlefield.getAllCreatures().get(i).getHealth(), replay.getHealth(i));
+        }
+        assertEquals(2, replay.getChangeCount(100));
+
+        // A full dump would list all 5001 creatures every round with at least 2 bytes each
+        long rounds = 199;
+        long fullDump = 2L * replay.getCreatureCount() * rounds;
+        long deltas = log.size() - headerOnly.size();
+        assertTrue(deltas * 100 < fullDump, "Log has " + deltas + " bytes for " + rounds + " rounds");
+    }
+
+    @Test
+    @DisplayName("The round summary only lists creatures that changed")
+    void testSummaryListsChanges() {
+        Battlefield battlefield = BattleFactory.create(ROSTER, 3, 200, BalanceProfile.DEFAULT);
+        battlefield.setOutputEnabled(true);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(text, true, StandardCharsets.UTF_8));
+        try {
+            battlefield.startBattle();
+        } finally {
+            System.setOut(out);
+        }
+
+        String output = text.toString(StandardCharsets.UTF_8);
+        long defeatedLines = output.lines().filter(line -> line.endsWith(": DEFEATED")).count();
+        assertEquals(battlefield.getDeadCount(Team.HEROES) + battlefield.getDeadCount(Team.MONSTERS), defeatedLines);
+        assertTrue(output.contains("--- Round 1 Summary ("));
+    }
+}
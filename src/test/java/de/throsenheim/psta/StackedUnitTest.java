@@ -0,0 +1,129 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.CreatureTemplate;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.persistence.RosterFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for stacks of identical units.
+ */
+@DisplayName("Stacked Unit Tests")
+class StackedUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static CreatureTemplate template(CreatureType type, String name, int health, int attack, int defense,
+                                             Team team) throws InvalidCreatureStateException {
+        return new CreatureTemplate(type, name, health, attack, defense, 5, team, 10, new Random(1));
+    }
+
+    @Test
+    @DisplayName("Damage overflows from the top unit into the rest of the stack")
+    void testDamageOverflow() throws InvalidCreatureStateException {
+        Creature orcs = template(CreatureType.WARRIOR, "Orc", 50, 10, 0, Team.MONSTERS).createStack(null, 10);
+        assertEquals(10, orcs.getStackSize());
+        assertEquals(500, orcs.getTotalHealth());
+
+        orcs.takeHits(30, 4);
+        assertEquals(8, orcs.getStackSize());
+        assertEquals(30, orcs.getHealth());
+        assertEquals(380, orcs.getTotalHealth());
+
+        orcs.takeHits(1000, 1);
+        assertFalse(orcs.isAlive());
+        assertEquals(0, orcs.getStackSize());
+        assertEquals(0, orcs.getTotalHealth());
+    }
+
+    @Test
+    @DisplayName("Every unit of a stack hits, defense counts per hit")
+    void testAttackScalesWithUnits() throws InvalidCreatureStateException {
+        Creature mages = template(CreatureType.MAGE, "Adept", 40, 10, 0, Team.HEROES).createStack(null, 5);
+        Creature golem = template(CreatureType.WARRIOR, "Golem", 1000, 10, 2, Team.MONSTERS).create(null);
+
+        mages.attack(golem);
+        assertEquals(1000 - 5 * 8, golem.getHealth());
+    }
+
+    @Test
+    @DisplayName("Healing only restores the top unit")
+    void testHealingTopUnit() throws InvalidCreatureStateException {
+        Creature orcs = template(CreatureType.WARRIOR, "Orc", 50, 10, 0, Team.MONSTERS).createStack(null, 3);
+        orcs.takeHits(70, 1);
+        assertEquals(2, orcs.getStackSize());
+
+        orcs.heal(1000);
+        assertEquals(2, orcs.getStackSize());
+        assertEquals(50, orcs.getHealth());
+    }
+
+    @Test
+    @DisplayName("A battle of millions of units takes as long as the number of stacks")
+    void testMillionsOfUnits() throws InvalidCreatureStateException {
+        Battlefield battlefield = new Battlefield(1000);
+        battlefield.setOutputEnabled(false);
+        Random random = new Random(5);
+        battlefield.addCreature(new CreatureTemplate(CreatureType.WARRIOR, "Orc", 30, 8, 1, 3, Team.MONSTERS, 0,
+                random).createStack("Horde", 2_000_000));
+        battlefield.addCreature(new CreatureTemplate(CreatureType.MONSTER_BOSS, "Warlord", 400, 30, 6, 2,
+                Team.MONSTERS, 0, random).createStack("Warlords", 100));
+        battlefield.addCreature(new CreatureTemplate(CreatureType.WARRIOR, "Knight", 120, 25, 6, 6, Team.HEROES, 0,
+                random).createStack("Legion", 500_000));
+        battlefield.addCreature(new CreatureTemplate(CreatureType.MAGE, "Wizard", 60, 20, 2, 7, Team.HEROES, 0,
+                random).createStack("Circle", 200_000));
+        battlefield.addCreature(new CreatureTemplate(CreatureType.HEALER, "Cleric", 80, 8, 3, 4, Team.HEROES, 40,
+                random).createStack("Temple", 100_000));
+
+        long start = System.nanoTime();
+        battlefield.startBattle();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(battlefield.getWinnerTeam());
+        assertTrue(battlefield.getCurrentRound() > 1);
+        // Five stacks fight a few rounds, no matter how many units they hold
+        assertTrue(millis < 1000, "Battle took " + millis + " ms");
+    }
+
+    @Test
+    @DisplayName("Stacks survive a roster file round trip")
+    void testRosterRoundTrip() throws IOException {
+        List<CreatureSpec> roster = List.of(
+                new CreatureSpec(CreatureType.WARRIOR, "Legion", 100, 20, 5, 5, Team.HEROES, 0, 40_000),
+                new CreatureSpec(CreatureType.HEALER, "Cleric", 80, 5, 2, 4, Team.HEROES, 30),
+                new CreatureSpec(CreatureType.WARRIOR, "Horde", 40, 12, 1, 3, Team.MONSTERS, 0, 90_000));
+        Path file = tempDir.resolve("stacks.bin");
+        RosterFile.write(100, BalanceProfile.DEFAULT, roster, file);
+
+        Battlefield loaded = RosterFile.read(file, new Random(2));
+        assertEquals(40_000, loaded.getAllCreatures().get(0).getStackSize());
+        assertEquals(1, loaded.getAllCreatures().get(1).getStackSize());
+        assertEquals(90_000, loaded.getAllCreatures().get(2).getStackSize());
+        for (int i = 0; i < roster.size(); i++) {
+            assertEquals(roster.get(i), CreatureSpec.of(loaded.getAllCreatures().get(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Stacks need at least one unit")
+    void testInvalidStack() throws InvalidCreatureStateException {
+        CreatureTemplate orc = template(CreatureType.WARRIOR, "Orc", 50, 10, 0, Team.MONSTERS);
+        assertThrows(InvalidCreatureStateException.class, () -> orc.createStack(null, 0));
+    }
+}
@@ -0,0 +1,133 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.store.MappedCreatureStore;
+import de.throsenheim.psta.store.StoredBattlefield;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the memory-mapped creature store.
+ * Verifies that battles on the store end like the same battles on creature objects.
+ */
+@DisplayName("Stored Battlefield Tests")
+class StoredBattlefieldTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Battle on the store matches the battle on creature objects")
+    void testStoredBattleMatchesObjectBattle() throws InvalidCreatureStateException, IOException {
+        assertSameAsObjectBattle(200, 11);
+    }
+
+    @Test
+    @DisplayName("Big battles with many deaths still match")
+    void testBigStoredBattleMatchesObjectBattle() throws InvalidCreatureStateException, IOException {
+        assertSameAsObjectBattle(3000, 5);
+    }
+
+    private void assertSameAsObjectBattle(int size, long seed) throws InvalidCreatureStateException, IOException {
+        Battlefield battlefield = createRandomBattle(size, seed);
+        battlefield.setOutputEnabled(false);
+
+        Path file = tempDir.resolve("roster.store");
+        try (MappedCreatureStore store = MappedCreatureStore.create(file, size)) {
+            battlefield.getAllCreatures().forEach(store::add);
+        }
+
+        battlefield.startBattle();
+        try (MappedCreatureStore template = MappedCreatureStore.openTemplate(file)) {
+            StoredBattlefield stored = new StoredBattlefield(template, 100, new Random(seed));
+            stored.startBattle();
+
+            assertEquals(battlefield.getCurrentRound(), stored.getCurrentRound());
+            assertEquals(battlefield.getWinnerTeam(), stored.getWinnerTeam());
+            for (int i = 0; i < template.size(); i++) {
+                Creature creature = battlefield.getAllCreatures().get(i);
+                assertEquals(creature.getHealth(), template.getHealth(i), "Health of " + creature.getName());
+                assertEquals(creature.isAlive(), template.isAlive(i), "Alive state of " + creature.getName());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Battles on a template never change the template file")
+    void testTemplateIsCopyOnWrite() throws InvalidCreatureStateException, IOException {
+        Path file = tempDir.resolve("template.store");
+        try (MappedCreatureStore store = MappedCreatureStore.create(file, 4)) {
+            store.add(CreatureType.WARRIOR, Team.HEROES, 100, 30, 5, 6, 0);
+            store.add(CreatureType.HEALER, Team.HEROES, 80, 10, 4, 5, 20);
+            store.add(CreatureType.MONSTER_BOSS, Team.MONSTERS, 150, 25, 8, 4, 0);
+        }
+        byte[] before = Files.readAllBytes(file);
+
+        try (MappedCreatureStore first = MappedCreatureStore.openTemplate(file);
+             MappedCreatureStore second = MappedCreatureStore.openTemplate(file)) {
+            new StoredBattlefield(first, 50, new Random(1)).startBattle();
+
+            assertTrue(first.getHealth(2) < 150 || first.getHealth(0) < 100, "Battle should have changed health");
+            assertEquals(150, second.getHealth(2), "Other mappings should not see the changes");
+            assertEquals(100, second.getHealth(0), "Other mappings should not see the changes");
+        }
+        assertTrue(Arrays.equals(before, Files.readAllBytes(file)), "Template file should be unchanged");
+    }
+
+    @Test
+    @DisplayName("A broken store header is rejected when opening")
+    void testInvalidHeader() throws InvalidCreatureStateException, IOException {
+        Path file = tempDir.resolve("broken.store");
+        try (MappedCreatureStore store = MappedCreatureStore.create(file, 4)) {
+            store.add(CreatureType.WARRIOR, Team.HEROES, 100, 30, 5, 6, 0);
+        }
+        byte[] valid = Files.readAllBytes(file);
+
+        // The header holds magic, version, capacity and size as big endian ints
+        byte[] tooMany = valid.clone();
+        tooMany[15] = 5;
+        Files.write(file, tooMany);
+        assertThrows(IOException.class, () -> MappedCreatureStore.openTemplate(file));
+
+        byte[] hugeCapacity = valid.clone();
+        hugeCapacity[8] = 0x7F;
+        Files.write(file, hugeCapacity);
+        assertThrows(IOException.class, () -> MappedCreatureStore.openTemplate(file));
+
+        Files.write(file, Arrays.copyOf(valid, 4096 + 24));
+        assertThrows(IOException.class, () -> MappedCreatureStore.openTemplate(file));
+
+        byte[] badTeam = valid.clone();
+        badTeam[4096 + 1] = 9;
+        Files.write(file, badTeam);
+        assertThrows(IOException.class, () -> MappedCreatureStore.openTemplate(file));
+    }
+
+    private Battlefield createRandomBattle(int size, long seed) throws InvalidCreatureStateException {
+        Random stats = new Random(seed * 31);
+        Random random = new Random(seed);
+        Battlefield battlefield = new Battlefield(100);
+        CreatureType[] types = CreatureType.values();
+
+        for (int i = 0; i < size; i++) {
+            Team team = i % 2 == 0 ? Team.HEROES : Team.MONSTERS;
+            CreatureType type = types[stats.nextInt(types.length)];
+            battlefield.addCreature(type.create("Creature" + i, 50 + stats.nextInt(100), 5 + stats.nextInt(30),
+                    stats.nextInt(10), stats.nextInt(10), team, 10 + stats.nextInt(20), random));
+        }
+        return battlefield;
+    }
+}
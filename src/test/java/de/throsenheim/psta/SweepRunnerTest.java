@@ -0,0 +1,104 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.simulation.SweepGrid;
+import de.throsenheim.psta.simulation.SweepPoint;
+import de.throsenheim.psta.simulation.SweepResult;
+import de.throsenheim.psta.simulation.SweepRunner;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for balance profiles and the parameter sweep runner.
+ */
+@DisplayName("Sweep Runner Tests")
+class SweepRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<CreatureSpec> ROSTER = List.of(
+            new CreatureSpec(CreatureType.WARRIOR, "Knight", 120, 25, 6, 7, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.MAGE, "Wizard", 80, 18, 3, 5, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.HEALER, "Cleric", 90, 10, 4, 4, Team.HEROES, 20),
+            new CreatureSpec(CreatureType.MONSTER_BOSS, "Dragon", 300, 30, 8, 6, Team.MONSTERS, 0),
+            new CreatureSpec(CreatureType.WARRIOR, "Orc", 110, 22, 5, 3, Team.MONSTERS, 0));
+
+    private SweepGrid createGrid() {
+        return new SweepGrid(BalanceProfile.DEFAULT, ROSTER)
+                .varyBalance(SweepGrid.BalanceParameter.CRITICAL_HIT_CHANCE, 0.0, 0.25, 0.5)
+                .varyBalance(SweepGrid.BalanceParameter.ENRAGE_MULTIPLIER, 1.0, 2.0)
+                .varyStat("Dragon", CreatureSpec.Stat.HEALTH, 200, 400);
+    }
+
+    @Test
+    @DisplayName("Grid contains every combination of the axes")
+    void testGridPoints() {
+        SweepGrid grid = createGrid();
+        List<SweepPoint> points = grid.points();
+
+        assertEquals(12, points.size());
+        assertEquals(List.of("CRITICAL_HIT_CHANCE", "ENRAGE_MULTIPLIER", "Dragon.HEALTH"), grid.getParameterNames());
+
+        SweepPoint last = points.get(11);
+        assertEquals(0.5, last.getProfile().getCriticalHitChance());
+        assertEquals(2.0, last.getProfile().getEnrageMultiplier());
+        assertEquals(400, last.getRoster().get(3).getHealth());
+        assertEquals(BalanceProfile.DEFAULT.getHealThreshold(), last.getProfile().getHealThreshold());
+    }
+
+    @Test
+    @DisplayName("Results do not depend on the number of threads")
+    void testDeterministicAcrossThreads() {
+        SweepGrid grid = createGrid();
+
+        List<SweepResult> single = new SweepRunner(1).run(grid, 20, 42, 100);
+        List<SweepResult> parallel = new SweepRunner(4).run(grid, 20, 42, 100);
+
+        assertEquals(single, parallel);
+        for (SweepResult result : single) {
+            assertEquals(20, result.getBattles());
+            assertEquals(20, result.getHeroWins() + result.getMonsterWins());
+        }
+    }
+
+    @Test
+    @DisplayName("Results table has a header and one row per point")
+    void testWriteTable() throws IOException {
+        SweepGrid grid = createGrid();
+        List<SweepResult> results = new SweepRunner(2).run(grid, 5, 7, 100);
+        Path table = tempDir.resolve("sweep.csv");
+
+        SweepRunner.writeTable(grid.getParameterNames(), results, table);
+
+        List<String> lines = Files.readAllLines(table);
+        assertEquals(13, lines.size());
+        assertTrue(lines.get(0).startsWith("point,CRITICAL_HIT_CHANCE,ENRAGE_MULTIPLIER,Dragon.HEALTH,battles"));
+        assertTrue(lines.get(12).startsWith("11,0.5,2,400,5,"));
+    }
+
+    @Test
+    @DisplayName("Invalid balance values and unknown creatures are rejected")
+    void testInvalidGrid() {
+        SweepGrid grid = new SweepGrid(BalanceProfile.DEFAULT, ROSTER);
+
+        assertThrows(GameConfigurationException.class,
+                () -> grid.varyBalance(SweepGrid.BalanceParameter.CRITICAL_HIT_CHANCE, 1.5));
+        assertThrows(GameConfigurationException.class,
+                () -> grid.varyStat("Nobody", CreatureSpec.Stat.DEFENSE, 1, 2));
+        assertThrows(GameConfigurationException.class,
+                () -> new BalanceProfile(0.25, 0.5, 0.5, 1.5, 0.6, 3));
+    }
+}
@@ -0,0 +1,51 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.creatures.CreatureSpec;
+import de.throsenheim.psta.model.creatures.CreatureType;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roster and assertions shared by the tests that play the same battle in different ways.
+ */
+final class TestBattles {
+
+    /**
+     * A small battle with every creature class, a healer and a stack of orcs.
+     */
+    static final List<CreatureSpec> ROSTER = List.of(
+            new CreatureSpec(CreatureType.WARRIOR, "Knight", 120, 25, 6, 7, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.MAGE, "Wizard", 80, 18, 3, 8, Team.HEROES, 0),
+            new CreatureSpec(CreatureType.HEALER, "Cleric", 90, 8, 4, 5, Team.HEROES, 30),
+            new CreatureSpec(CreatureType.MONSTER_BOSS, "Dragon", 220, 22, 6, 6, Team.MONSTERS, 0),
+            new CreatureSpec(CreatureType.WARRIOR, "Orc", 40, 12, 2, 3, Team.MONSTERS, 0, 3));
+
+    private TestBattles() {
+    }
+
+    /**
+     * Checks that two finished battles ended the same: rounds, winner, and health, units and enrage of every creature.
+     */
+    static void assertSameBattle(Battlefield expected, Battlefield actual) {
+        assertEquals(expected.getCurrentRound(), actual.getCurrentRound());
+        assertEquals(expected.getWinnerTeam(), actual.getWinnerTeam());
+        List<Creature> expectedCreatures = expected.getAllCreatures();
+        List<Creature> actualCreatures = actual.getAllCreatures();
+        assertEquals(expectedCreatures.size(), actualCreatures.size());
+        for (int i = 0; i < expectedCreatures.size(); i++) {
+            Creature e = expectedCreatures.get(i);
+            Creature a = actualCreatures.get(i);
+            assertEquals(e.getHealth(), a.getHealth(), e.getName());
+            assertEquals(e.getStackSize(), a.getStackSize(), e.getName());
+            if (e instanceof MonsterBoss) {
+                assertEquals(((MonsterBoss) e).isEnraged(), ((MonsterBoss) a).isEnraged(), e.getName());
+            }
+        }
+    }
+}
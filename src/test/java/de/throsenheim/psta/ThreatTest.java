@@ -0,0 +1,189 @@
+package de.throsenheim.psta;
+
+import de.throsenheim.psta.exceptions.GameConfigurationException;
+import de.throsenheim.psta.exceptions.InvalidCreatureStateException;
+import de.throsenheim.psta.model.BalanceProfile;
+import de.throsenheim.psta.model.Battlefield;
+import de.throsenheim.psta.model.Creature;
+import de.throsenheim.psta.model.RunOptions;
+import de.throsenheim.psta.model.Team;
+import de.throsenheim.psta.model.ThreatTable;
+import de.throsenheim.psta.model.creatures.ArmyGenerator;
+import de.throsenheim.psta.model.creatures.ArmySpec;
+import de.throsenheim.psta.model.creatures.Healer;
+import de.throsenheim.psta.model.creatures.Mage;
+import de.throsenheim.psta.model.creatures.MonsterBoss;
+import de.throsenheim.psta.model.creatures.Warrior;
+import de.throsenheim.psta.simulation.BattleFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static de.throsenheim.psta.TestBattles.ROSTER;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for threat tables and taunts.
+ */
+@DisplayName("Threat Tests")
+class ThreatTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * The wizard hits hardest, the knight taunts every third round and acts before the golem.
+     */
+    private static Battlefield tauntBattle(boolean threat, int rounds) throws InvalidCreatureStateException {
+        Random random = new Random(1);
+        Battlefield battlefield = new Battlefield(rounds);
+        battlefield.setOutputEnabled(false);
+        battlefield.setMetricsEnabled(true);
+        battlefield.setThreatEnabled(threat);
+        battlefield.addCreature(new Mage("Wizard", 100, 40, 5, 10, Team.HEROES, random));
+        battlefield.addCreature(new Warrior("Knight", 1000, 5, 2, 6, Team.HEROES, random));
+        battlefield.addCreature(new MonsterBoss("Golem", 1_000_000, 10, 20, 5, Team.MONSTERS, random));
+        battlefield.startBattle();
+        return battlefield;
+    }
+
+    @Test
+    @DisplayName("Monsters attack the hero with the most threat, taunts pull them away")
+    void testThreatAndTaunt() throws InvalidCreatureStateException {
+        Battlefield plain = tauntBattle(false, 4);
+        // Without threat the golem always hits the hero with the lowest defense
+        assertEquals(4 * 8, plain.getMetrics().getDamageTaken(1));
+        assertEquals(0, plain.getMetrics().getDamageTaken(0));
+        assertNull(plain.getThreatTable());
+
+        Battlefield battlefield = tauntBattle(true, 4);
+        ThreatTable threat = battlefield.getThreatTable();
+        Creature wizard = battlefield.getAllCreatures().get(0);
+        Creature knight = battlefield.getAllCreatures().get(1);
+        Creature golem = battlefield.getAllCreatures().get(2);
+        // 20 damage per round is 40 threat; the knight taunts in rounds 1 and 4 and deals 1 damage per round
+        assertEquals(160, threat.getThreat(golem, wizard));
+        assertEquals(161 + 2, threat.getThreat(golem, knight));
+        // So the golem hits the knight in rounds 1 and 4 and the wizard in between
+        assertEquals(2 * 8, battlefield.getMetrics().getDamageTaken(1));
+        assertEquals(2 * 5, battlefield.getMetrics().getDamageTaken(0));
+        assertSame(knight, battlefield.findTopThreat(golem));
+        assertNull(battlefield.findTopThreat(knight));
+    }
+
+    @Test
+    @DisplayName("Healing draws the attention of every monster")
+    void testHealingThreat() throws InvalidCreatureStateException {
+        Random random = new Random(1);
+        Battlefield battlefield = new Battlefield(2);
+        battlefield.setOutputEnabled(false);
+        battlefield.setMetricsEnabled(true);
+        battlefield.setThreatEnabled(true);
+        battlefield.addCreature(new Healer("Cleric", 100, 0, 10, 9, Team.HEROES, 40, random));
+        battlefield.addCreature(new Warrior("Knight", 100, 1, 0, 6, Team.HEROES, random));
+        battlefield.addCreature(new MonsterBoss("Golem", 1_000_000, 50, 50, 5, Team.MONSTERS, random));
+        battlefield.startBattle();
+
+        Creature cleric = battlefield.getAllCreatures().get(0);
+        Creature knight = battlefield.getAllCreatures().get(1);
+        Creature golem = battlefield.getAllCreatures().get(2);
+        // Round 1: the knight taunts and is hit; round 2: the cleric heals him for 40 and is hit instead
+        assertEquals(40, battlefield.getMetrics().getHealingGiven(0));
+        assertEquals(2 + 40, battlefield.getThreatTable().getThreat(golem, cleric));
+        assertEquals(3 + 2 + 2, battlefield.getThreatTable().getThreat(golem, knight));
+        assertEquals(40, battlefield.getMetrics().getDamageTaken(0));
+        assertEquals(50, battlefield.getMetrics().getDamageTaken(1));
+    }
+
+    @Test
+    @DisplayName("Threat battles are reproducible and reset with the battle")
+    void testReset() {
+        Battlefield reused = BattleFactory.create(ROSTER, 1, 200, BalanceProfile.DEFAULT);
+        reused.setThreatEnabled(true);
+        reused.startBattle();
+        for (long seed = 2; seed < 12; seed++) {
+            reused.reset(seed);
+            reused.startBattle();
+            Battlefield fresh = BattleFactory.create(ROSTER, seed, 200, BalanceProfile.DEFAULT);
+            fresh.setThreatEnabled(true);
+            fresh.startBattle();
+            assertEquals(fresh.getCurrentRound(), reused.getCurrentRound());
+            assertEquals(fresh.getWinnerTeam(), reused.getWinnerTeam());
+            for (int i = 0; i < ROSTER.size(); i++) {
+                assertEquals(fresh.getAllCreatures().get(i).getHealth(), reused.getAllCreatures().get(i).getHealth());
+            }
+        }
+
+        // The pool hands out battlefields with threat off again
+        Battlefield pooled = BattleFactory.acquire(ROSTER, 1, 200, BalanceProfile.DEFAULT);
+        pooled.setThreatEnabled(true);
+        assertFalse(BattleFactory.acquire(ROSTER, 2, 200, BalanceProfile.DEFAULT).isThreatEnabled());
+    }
+
+    @Test
+    @DisplayName("Checkpoints are refused with threat on")
+    void testNoCheckpoints() {
+        Battlefield battlefield = BattleFactory.create(ROSTER, 1, 200, BalanceProfile.DEFAULT);
+        battlefield.setThreatEnabled(true);
+        battlefield.enableCheckpoints(tempDir.resolve("battle.ckpt"), 5, 0);
+        assertThrows(GameConfigurationException.class, battlefield::startBattle);
+    }
+
+    @Test
+    @DisplayName("The cached top of every table matches a scan over all heroes after every round")
+    void testCachedTopMatchesScan() {
+        Battlefield battlefield = new Battlefield(60);
+        battlefield.setOutputEnabled(false);
+        battlefield.setThreatEnabled(true);
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.HEROES, 60,
+                "40% warrior, 30% mage, 30% healer, health ~ N(150, 40), attack ~ N(15, 5), heal = 20"), 3),
+                new Random(3));
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.MONSTERS, 40,
+                "80% warrior, 20% monster boss, health ~ N(300, 60), attack ~ N(18, 5)"), 4), new Random(4));
+        int[] checked = {0};
+        battlefield.run(RunOptions.NONE.withProgressListener((round, heroes, monsters) -> {
+            ThreatTable threat = battlefield.getThreatTable();
+            for (Creature monster : battlefield.getTeamCreatures(Team.MONSTERS)) {
+                Creature expected = null;
+                long expectedThreat = 0;
+                for (Creature hero : battlefield.getTeamCreatures(Team.HEROES)) {
+                    long heroThreat = hero.isAlive() ? threat.getThreat(monster, hero) : 0;
+                    if (heroThreat > expectedThreat) {
+                        expected = hero;
+                        expectedThreat = heroThreat;
+                    }
+                }
+                assertSame(expected, battlefield.findTopThreat(monster), "Top of " + monster.getName());
+                checked[0] += expected != null ? 1 : 0;
+            }
+        }));
+        assertTrue(checked[0] > 100, "Only " + checked[0] + " tables had a top");
+    }
+
+    @Test
+    @DisplayName("Large armies share threat tables with thousands of entries")
+    void testLargeArmies() {
+        Battlefield battlefield = new Battlefield(3);
+        battlefield.setOutputEnabled(false);
+        battlefield.setThreatEnabled(true);
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.HEROES, 3000,
+                "80% warrior, 10% mage, 10% healer, health ~ N(100, 10), attack = 1"), 1), new Random(1));
+        battlefield.addArmy(new ArmyGenerator(ArmySpec.parse(Team.MONSTERS, 3000,
+                "50% warrior, 50% monster boss, health = 1000000, defense = 0"), 2), new Random(2));
+        battlefield.startBattle();
+
+        // Every hero warrior hits the weakest monster, so its table knows all of them
+        ThreatTable threat = battlefield.getThreatTable();
+        List<Creature> monsters = battlefield.getTeamCreatures(Team.MONSTERS);
+        Creature weakest = monsters.stream().min((a, b) -> Long.compare(a.getTotalHealth(), b.getTotalHealth())).get();
+        long heroesWithThreat = battlefield.getTeamCreatures(Team.HEROES).stream()
+                .filter(hero -> threat.getThreat(weakest, hero) > 0)
+                .count();
+        assertTrue(heroesWithThreat > 2000, "Only " + heroesWithThreat + " heroes have threat");
+        assertEquals(3, battlefield.getCurrentRound());
+    }
+}